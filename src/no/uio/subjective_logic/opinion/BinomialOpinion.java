@@ -0,0 +1,375 @@
+package no.uio.subjective_logic.opinion;
+
+import java.io.Serializable;
+
+/**
+ * An immutable binomial opinion, consisting of belief, disbelief, uncertainty and atomicity only.
+ *
+ * In contrast to {@link SubjectiveOpinion}, instances have no listeners, no locks and do not keep track of the operator
+ * that produced them, and operators do not copy their arguments. Each operator allocates only its result, which the JIT
+ * compiler can often eliminate by escape analysis. The operators compute the same opinions as the corresponding methods
+ * of SubjectiveOpinion, where the relative weight of every opinion is 1. As the relative weight is not carried over to
+ * the result, chained fusion of dogmatic opinions differs from SubjectiveOpinion, see {@link #cumulativeFuse(BinomialOpinion)}.
+ *
+ * Only the operators that are needed on hot paths are available: complement, multiplication, comultiplication,
+ * discounting, erosion, deduction and cumulative fusion. For abduction, the other fusion operators, addition,
+ * subtraction and the unmultiplication operators, convert to SubjectiveOpinion.
+ *
+ * Use {@link #of(Opinion)} and {@link #toSubjectiveOpinion()} to convert from and to SubjectiveOpinion.
+ */
+public final class BinomialOpinion implements Serializable
+{
+    private static final long serialVersionUID = -2290390530207962711L;
+    private static final String TO_STRING_FORMAT = "(belief=%1$1.3f, disbelief=%2$1.3f, uncertainty=%3$1.3f, atomicity=%4$1.3f, e=%5$1.3f)";
+    public static final BinomialOpinion UNCERTAIN = new BinomialOpinion(0.0D, 0.0D, 1.0D, 0.5D);
+
+    private final double belief;
+
+    private final double disbelief;
+
+    private final double uncertainty;
+
+    private final double atomicity;
+
+    /**
+     * Creates an opinion, whose values are normalized in the same way as for
+     * {@link SubjectiveOpinion#SubjectiveOpinion(double, double, double, double)}: belief and uncertainty are divided by
+     * the sum of belief, disbelief and uncertainty, and all values are rounded and constrained.
+     */
+    public BinomialOpinion(double belief, double disbelief, double uncertainty, double atomicity)
+    {
+        double bdu = belief + disbelief + uncertainty;
+        double b = belief / bdu;
+        double u = uncertainty / bdu;
+        if ((b < 0.0D) || (b > 1.0D) || (u < 0.0D) || (u > 1.0D)) {
+            throw new IllegalArgumentException("Belief x or Uncertainty x, must be: 0 <= x <= 1");
+        }
+        if (b + u - 1.0D > 1.0E-010D) {
+            throw new IllegalArgumentException("Belief belief, Uncertainty uncertainty, must be: (belief + uncertainty) <= 1");
+        }
+        if ((atomicity < 0.0D) || (atomicity > 1.0D)) {
+            throw new IllegalArgumentException("Atomicity, x, must be: 0 <= x <= 1");
+        }
+        double d = OpinionBase.constrain(OpinionBase.adjust(1.0D - (b + u)));
+        b = OpinionBase.constrain(OpinionBase.adjust(b));
+        u = OpinionBase.constrain(OpinionBase.adjust(u));
+
+        if (Math.abs(b + d + u - 1.0D) > 1.0E-010D)
+        {
+            bdu = b + d + u;
+            b = OpinionBase.constrain(OpinionBase.adjust(b / bdu));
+            u = OpinionBase.constrain(OpinionBase.adjust(u / bdu));
+            d = 1.0D - (b + u);
+        }
+
+        this.belief = b;
+        this.disbelief = d;
+        this.uncertainty = u;
+        this.atomicity = OpinionBase.constrain(OpinionBase.adjust(atomicity));
+    }
+
+    /**
+     * @return a BinomialOpinion with the values of the given opinion.
+     */
+    public static BinomialOpinion of(Opinion opinion)
+    {
+        if (opinion == null) {
+            throw new NullPointerException("Opinion must not be null");
+        }
+        return opinion.toSubjectiveOpinion().toBinomialOpinion();
+    }
+
+    /**
+     * Returns an uncertainty-maximized opinion with the given projected probability, see
+     * {@link SubjectiveOpinion#fromProjection(double, double)}.
+     */
+    public static BinomialOpinion fromProjection(double projectedProbability, double baseRate)
+    {
+        if (projectedProbability < 0 || projectedProbability > 1)
+            throw new IllegalArgumentException("Invalid projected probability: " + projectedProbability);
+        if (baseRate < 0 || baseRate > 1)
+            throw new IllegalArgumentException("Invalid base rate: " + baseRate);
+        return new BinomialOpinion(projectedProbability, 1 - projectedProbability, 0, baseRate).uncertainOpinion();
+    }
+
+    /**
+     * Returns an uncertainty-maximized opinion with the given projected probability: base rate is assumed to be 0.5.
+     */
+    public static BinomialOpinion fromProjection(double projectedProbability)
+    {
+        return fromProjection(projectedProbability, 0.5D);
+    }
+
+    public double getBelief()
+    {
+        return this.belief;
+    }
+
+    public double getDisbelief()
+    {
+        return this.disbelief;
+    }
+
+    public double getUncertainty()
+    {
+        return this.uncertainty;
+    }
+
+    public double getAtomicity()
+    {
+        return this.atomicity;
+    }
+
+    public double getExpectation()
+    {
+        return OpinionBase.constrain(OpinionBase.adjust(this.belief + this.atomicity * this.uncertainty));
+    }
+
+    public boolean isDogmatic()
+    {
+        return this.uncertainty == 0.0D;
+    }
+
+    public boolean isVacuous()
+    {
+        return this.uncertainty == 1.0D;
+    }
+
+    /**
+     * @see SubjectiveOpinion#not()
+     */
+    public BinomialOpinion not()
+    {
+        return new BinomialOpinion(this.disbelief, this.belief, this.uncertainty, 1.0D - this.atomicity);
+    }
+
+    /**
+     * Binomial multiplication, see {@link SubjectiveOpinion#and(Opinion)}.
+     */
+    public BinomialOpinion and(BinomialOpinion opinion)
+    {
+        if (opinion == null) {
+            throw new NullPointerException("Opinion must not be null");
+        }
+        BinomialOpinion x = this, y = opinion;
+
+        double d = x.disbelief + y.disbelief - x.disbelief * y.disbelief;
+        double a = x.atomicity * y.atomicity;
+        double expec = x.getExpectation() * (y.belief + y.atomicity * y.uncertainty);
+        double divisor = 1.0D - a;
+
+        double b, u;
+        if (divisor != 0.0D) {
+            b = ((d - 1.0D) * a + expec) / divisor;
+            u = -(d - 1.0D + expec) / divisor;
+        } else {
+            b = x.belief * y.belief + (x.belief * y.uncertainty + x.uncertainty * y.belief) / 2.0D;
+            u = (x.belief * y.uncertainty + y.belief * x.uncertainty) / 2.0D + x.uncertainty * y.uncertainty;
+        }
+        return new BinomialOpinion(b, d, u, a);
+    }
+
+    /**
+     * Binomial comultiplication, see {@link SubjectiveOpinion#or(Opinion)}.
+     */
+    public BinomialOpinion or(BinomialOpinion opinion)
+    {
+        if (opinion == null) {
+            throw new NullPointerException("Opinion must not be null");
+        }
+        BinomialOpinion x = this, y = opinion;
+
+        double b = x.belief + y.belief - x.belief * y.belief;
+        double a = x.atomicity + y.atomicity - x.atomicity * y.atomicity;
+
+        double u;
+        if (a != 0.0D) {
+            u = x.uncertainty * y.uncertainty + (y.atomicity * x.disbelief * y.uncertainty + x.atomicity * x.uncertainty * y.disbelief) / a;
+        } else {
+            u = x.uncertainty * y.uncertainty + (x.disbelief * y.uncertainty + x.uncertainty * y.disbelief) / 2.0D;
+        }
+        return new BinomialOpinion(b, 1.0D - b - u, u, a);
+    }
+
+    /**
+     * Trust discounting of this opinion by the given opinion, see {@link SubjectiveOpinion#discountBy(Opinion)}.
+     */
+    public BinomialOpinion discountBy(BinomialOpinion opinion)
+    {
+        if (opinion == null) {
+            throw new NullPointerException("Opinion must not be null");
+        }
+        double e = opinion.getExpectation();
+        return new BinomialOpinion(e * this.belief, e * this.disbelief, 1 - e * (this.disbelief + this.belief), this.atomicity);
+    }
+
+    /**
+     * @see SubjectiveOpinion#erode(double)
+     */
+    public BinomialOpinion erode(double factor)
+    {
+        if ((factor < 0.0D) || (factor > 1.0D)) {
+            throw new IllegalArgumentException("Erosion Factor, f must be: 0 <= f <= 1");
+        }
+        double f = 1.0D - factor;
+
+        double b = OpinionBase.constrain(OpinionBase.adjust(this.belief * f));
+        double d = OpinionBase.constrain(OpinionBase.adjust(this.disbelief * f));
+        double u = OpinionBase.constrain(OpinionBase.adjust(1.0D - b - d));
+        return new BinomialOpinion(b, d, u, this.atomicity);
+    }
+
+    /**
+     * @see SubjectiveOpinion#decay(double, double)
+     */
+    public BinomialOpinion decay(double halfLife, double time)
+    {
+        return erode(OpinionBase.erosionFactorFromHalfLife(halfLife, time));
+    }
+
+    /**
+     * @see SubjectiveOpinion#deduce(Opinion, Opinion)
+     */
+    public BinomialOpinion deduce(BinomialOpinion yTx, BinomialOpinion yFx) throws OpinionArithmeticException
+    {
+        if ((yTx == null) || (yFx == null)) {
+            throw new NullPointerException("The conditionals must not be null");
+        }
+        if (Math.abs(yTx.atomicity - yFx.atomicity) > 1.0E-010D) {
+            throw new OpinionArithmeticException("The atomicities of both sub-conditionals must be equal");
+        }
+        return SubjectiveOpinion.deduction(this.belief, this.disbelief, this.uncertainty, this.atomicity,
+                yTx.belief, yTx.disbelief, yTx.uncertainty, yTx.atomicity, yFx.belief, yFx.disbelief, yFx.uncertainty);
+    }
+
+    /**
+     * @see SubjectiveOpinion#deduce(Conditionals)
+     */
+    public BinomialOpinion deduce(Conditionals conditionals) throws OpinionArithmeticException
+    {
+        if (conditionals == null) {
+            throw new NullPointerException("The conditionals must not be null");
+        }
+        return deduce(of(conditionals.getPositive()), of(conditionals.getNegative()));
+    }
+
+    /**
+     * @see SubjectiveOpinion#deduce(PreparedConditionals)
+     */
+    public BinomialOpinion deduce(PreparedConditionals conditionals)
+    {
+        if (conditionals == null) {
+            throw new NullPointerException("The conditionals must not be null");
+        }
+        return conditionals.deduction(this.belief, this.disbelief, this.uncertainty, this.atomicity);
+    }
+
+    /**
+     * Cumulative belief fusion of two sources, see {@link SubjectiveOpinion#cumulativeFuse(Opinion)}.
+     *
+     * Two dogmatic opinions are averaged with the same weight, also if one of them is itself the result of a fusion of
+     * dogmatic opinions. So fusing three dogmatic opinions one after the other gives ((x + y) / 2 + z) / 2, where
+     * SubjectiveOpinion keeps track of the relative weight and gives (x + y + z) / 3. Use SubjectiveOpinion, or fuse all
+     * opinions at once with {@link SubjectiveOpinion#cumulativeCollectionFuse(java.util.Collection)}, if this matters.
+     */
+    public BinomialOpinion cumulativeFuse(BinomialOpinion opinion) throws OpinionArithmeticException
+    {
+        if (opinion == null) {
+            throw new NullPointerException("Opinion must not be null");
+        }
+        BinomialOpinion x = this, y = opinion;
+
+        double k = x.uncertainty + y.uncertainty - x.uncertainty * y.uncertainty;
+        double l = x.uncertainty + y.uncertainty - 2.0D * x.uncertainty * y.uncertainty;
+
+        if (k == 0.0D) {
+            //both opinions are dogmatic and have the same weight
+            return new BinomialOpinion((x.belief + y.belief) / 2.0D, (x.disbelief + y.disbelief) / 2.0D, 0.0D, (x.atomicity + y.atomicity) / 2.0D);
+        }
+        if (l == 0.0D) {
+            //both opinions are vacuous
+            if (Math.abs(x.atomicity - y.atomicity) > 1.0E-010D) {
+                throw new OpinionArithmeticException("Relative atomicities are not equal");
+            }
+            return new BinomialOpinion(0.0D, 0.0D, 1.0D, x.atomicity);
+        }
+        return new BinomialOpinion((x.belief * y.uncertainty + y.belief * x.uncertainty) / k,
+                (x.disbelief * y.uncertainty + y.disbelief * x.uncertainty) / k,
+                x.uncertainty * y.uncertainty / k,
+                (y.atomicity * x.uncertainty + x.atomicity * y.uncertainty - (x.atomicity + y.atomicity) * x.uncertainty * y.uncertainty) / l);
+    }
+
+    /**
+     * @return the opinion with the same expectation and the maximum uncertainty, see {@link SubjectiveOpinion#uncertainOpinion()}.
+     */
+    public BinomialOpinion uncertainOpinion()
+    {
+        double b, d, u;
+        double a = this.atomicity;
+        if (getExpectation() <= a)
+        {
+            b = 0.0D;
+            if (a > 0.0D)
+            {
+                d = OpinionBase.adjust(1.0D - this.uncertainty - this.belief / a);
+                u = OpinionBase.adjust(this.uncertainty + this.belief / a);
+            }
+            else
+            {
+                d = 0.0D;
+                u = 1.0D;
+            }
+        }
+        else
+        {
+            d = 0.0D;
+            if (a < 1.0D)
+            {
+                b = OpinionBase.adjust(1.0D - this.uncertainty - this.disbelief / (1.0D - a));
+                u = OpinionBase.adjust(this.uncertainty + this.disbelief / (1.0D - a));
+            }
+            else
+            {
+                b = 0.0D;
+                u = 0.0D;
+            }
+        }
+        return new BinomialOpinion(b, d, u, a);
+    }
+
+    /**
+     * @return a new SubjectiveOpinion with the values of this opinion.
+     */
+    public SubjectiveOpinion toSubjectiveOpinion()
+    {
+        return new SubjectiveOpinion(this.belief, this.disbelief, this.uncertainty, this.atomicity);
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (!(obj instanceof BinomialOpinion)) {
+            return false;
+        }
+        BinomialOpinion o = (BinomialOpinion) obj;
+        return (Math.abs(o.belief - this.belief) < 1.0E-010D) && (Math.abs(o.disbelief - this.disbelief) < 1.0E-010D)
+                && (Math.abs(o.uncertainty - this.uncertainty) < 1.0E-010D) && (Math.abs(o.atomicity - this.atomicity) < 1.0E-010D);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hash = 7;
+        hash = 71 * hash + Double.hashCode(this.atomicity);
+        hash = 71 * hash + Double.hashCode(this.belief);
+        hash = 71 * hash + Double.hashCode(this.disbelief);
+        hash = 71 * hash + Double.hashCode(this.uncertainty);
+        return hash;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format(TO_STRING_FORMAT, this.belief, this.disbelief, this.uncertainty, this.atomicity, getExpectation());
+    }
+}
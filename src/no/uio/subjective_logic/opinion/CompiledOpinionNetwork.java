@@ -0,0 +1,359 @@
+package no.uio.subjective_logic.opinion;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * An {@link OpinionNetwork} compiled into a straight-line program over primitive doubles, for networks that are
+ * evaluated many times.
+ *
+ * The program is a list of instructions in topological order, that each apply one operator to registers in a single
+ * double array, where each register holds belief, disbelief, uncertainty, atomicity, relative weight and last operator
+ * of an opinion. Registers are reused once their value is no longer needed, so the array only holds the values that
+ * are live at the same time. NOT, AND, OR, discounting, cumulative fusion and deduction are computed directly on the
+ * registers, without creating any opinions. The other operators create opinions for their arguments and result.
+ *
+ * The opinions of the outputs are exactly the same as those of {@link OpinionNetwork#evaluate(OpinionNetwork.Node...)},
+ * including their relative weights. Inputs are read when an evaluation starts, so later changes to the input opinions
+ * are reflected in later evaluations; changes to the network after it was compiled are not.
+ *
+ * Instances are immutable and can be evaluated concurrently.
+ */
+public final class CompiledOpinionNetwork
+{
+    //the offsets of the values within a register
+    private static final int BELIEF = 0;
+    private static final int DISBELIEF = 1;
+    private static final int UNCERTAINTY = 2;
+    private static final int ATOMICITY = 3;
+    private static final int WEIGHT = 4;
+    private static final int OPERATOR = 5;
+    static final int REGISTER_SIZE = SubjectiveOpinion.SNAPSHOT_SIZE;
+
+    private static final double OR = OpinionOperator.Or.ordinal();
+
+    private final SubjectiveOpinion[] inputs;
+    private final int[] inputRegisters;
+
+    private final OpinionOperator[] operators;
+    private final int[] results;
+    private final int[][] arguments;
+
+    private final int[] outputRegisters;
+    private final int registerCount;
+
+    private CompiledOpinionNetwork(SubjectiveOpinion[] inputs, int[] inputRegisters, OpinionOperator[] operators,
+                                   int[] results, int[][] arguments, int[] outputRegisters, int registerCount)
+    {
+        this.inputs = inputs;
+        this.inputRegisters = inputRegisters;
+        this.operators = operators;
+        this.results = results;
+        this.arguments = arguments;
+        this.outputRegisters = outputRegisters;
+        this.registerCount = registerCount;
+    }
+
+    /**
+     * Compiles the part of the network that the given outputs depend on.
+     */
+    public static CompiledOpinionNetwork compile(OpinionNetwork network, OpinionNetwork.Node... outputs)
+    {
+        if ((network == null) || (outputs == null)) {
+            throw new NullPointerException();
+        }
+        List<OpinionNetwork.Node> nodes = network.getNodes();
+        int size = nodes.size();
+
+        //find the required nodes and the last instruction that uses each of them
+        boolean[] required = new boolean[size];
+        boolean[] isOutput = new boolean[size];
+        for (OpinionNetwork.Node output : outputs) {
+            if (output.network != network) {
+                throw new IllegalArgumentException("Node belongs to another network: " + output);
+            }
+            required[output.index] = true;
+            isOutput[output.index] = true;
+        }
+        int[] lastUse = new int[size];
+        Arrays.fill(lastUse, -1);
+        for (int i = size - 1; i >= 0; i--) {
+            if (required[i]) {
+                for (OpinionNetwork.Node argument : nodes.get(i).arguments) {
+                    required[argument.index] = true;
+                    lastUse[argument.index] = Math.max(lastUse[argument.index], i);
+                }
+            }
+        }
+
+        //allocate the registers: inputs first, as they are read before the program runs
+        int[] register = new int[size];
+        Deque<Integer> free = new ArrayDeque<>();
+        int registerCount = 0;
+        List<SubjectiveOpinion> inputs = new ArrayList<>();
+        List<Integer> inputRegisters = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            OpinionNetwork.Node node = nodes.get(i);
+            if (required[i] && node.isInput()) {
+                register[i] = registerCount++;
+                inputs.add(node.input);
+                inputRegisters.add(register[i]);
+            }
+        }
+
+        List<OpinionOperator> operators = new ArrayList<>();
+        List<Integer> results = new ArrayList<>();
+        List<int[]> arguments = new ArrayList<>();
+        for (int i = 0; i < size; i++)
+        {
+            OpinionNetwork.Node node = nodes.get(i);
+            if (!required[i] || node.isInput()) {
+                continue;
+            }
+            //the result register is allocated before the registers of the arguments are freed, as the n-ary operators
+            //write intermediate results to it before they read all arguments
+            register[i] = free.isEmpty() ? registerCount++ : free.pop();
+            int[] argumentRegisters = new int[node.arguments.length];
+            for (int j = 0; j < argumentRegisters.length; j++) {
+                argumentRegisters[j] = register[node.arguments[j].index];
+            }
+            for (OpinionNetwork.Node argument : node.arguments) {
+                int a = argument.index;
+                if ((lastUse[a] == i) && !isOutput[a]) {
+                    free.push(register[a]);
+                    //an argument may occur more than once
+                    lastUse[a] = -1;
+                }
+            }
+            operators.add(node.operator);
+            results.add(register[i]);
+            arguments.add(argumentRegisters);
+        }
+
+        int[] outputRegisters = new int[outputs.length];
+        for (int i = 0; i < outputs.length; i++) {
+            outputRegisters[i] = register[outputs[i].index];
+        }
+        return new CompiledOpinionNetwork(inputs.toArray(new SubjectiveOpinion[0]), toArray(inputRegisters),
+                operators.toArray(new OpinionOperator[0]), toArray(results), arguments.toArray(new int[0][]),
+                outputRegisters, registerCount);
+    }
+
+    private static int[] toArray(List<Integer> list)
+    {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * @return the amount of instructions, which is the amount of operator nodes that the outputs depend on.
+     */
+    public int getInstructionCount()
+    {
+        return this.operators.length;
+    }
+
+    /**
+     * @return the amount of registers, which is at most the amount of nodes that the outputs depend on.
+     */
+    public int getRegisterCount()
+    {
+        return this.registerCount;
+    }
+
+    /**
+     * Evaluates the program.
+     *
+     * @return the opinions of the outputs, in the order they were given to {@link #compile(OpinionNetwork, OpinionNetwork.Node...)}.
+     */
+    public SubjectiveOpinion[] evaluate() throws OpinionArithmeticException
+    {
+        double[] r = run();
+        SubjectiveOpinion[] result = new SubjectiveOpinion[this.outputRegisters.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = SubjectiveOpinion.fromSnapshot(r, this.outputRegisters[i] * REGISTER_SIZE);
+        }
+        return result;
+    }
+
+    /**
+     * Evaluates the program without creating opinions for the outputs.
+     *
+     * @param result receives belief, disbelief, uncertainty and atomicity of each output, at 4 times its position.
+     */
+    public void evaluate(double[] result) throws OpinionArithmeticException
+    {
+        if (result.length < 4 * this.outputRegisters.length) {
+            throw new IllegalArgumentException("Result must have room for " + this.outputRegisters.length + " opinions");
+        }
+        double[] r = run();
+        for (int i = 0; i < this.outputRegisters.length; i++) {
+            System.arraycopy(r, this.outputRegisters[i] * REGISTER_SIZE, result, 4 * i, 4);
+        }
+    }
+
+    private double[] run() throws OpinionArithmeticException
+    {
+        final double[] r = new double[this.registerCount * REGISTER_SIZE];
+        for (int i = 0; i < this.inputs.length; i++) {
+            this.inputs[i].snapshot(r, this.inputRegisters[i] * REGISTER_SIZE);
+        }
+
+        final OpinionOperator[] operators = this.operators;
+        final int[] results = this.results;
+        final int[][] arguments = this.arguments;
+        for (int i = 0; i < operators.length; i++)
+        {
+            final int o = results[i] * REGISTER_SIZE;
+            final int[] args = arguments[i];
+            final int x = args[0] * REGISTER_SIZE;
+            switch (operators[i])
+            {
+                case Not:
+                    complement(r, x, o);
+                    break;
+                case And:
+                    multiply(r, x, args[1] * REGISTER_SIZE, o);
+                    for (int j = 2; j < args.length; j++) {
+                        multiply(r, o, args[j] * REGISTER_SIZE, o);
+                    }
+                    break;
+                case Or:
+                    coMultiplication(r, x, args[1] * REGISTER_SIZE, o);
+                    for (int j = 2; j < args.length; j++) {
+                        coMultiplication(r, o, args[j] * REGISTER_SIZE, o);
+                    }
+                    break;
+                case Discount:
+                    transitivity(r, x, args[1] * REGISTER_SIZE, o);
+                    break;
+                case Fuse:
+                    SubjectiveOpinion.cumulativeFusion(r, x, args[1] * REGISTER_SIZE, o);
+                    for (int j = 2; j < args.length; j++) {
+                        SubjectiveOpinion.cumulativeFusion(r, o, args[j] * REGISTER_SIZE, o);
+                    }
+                    break;
+                case Deduce:
+                    deduction(r, x, args[1] * REGISTER_SIZE, args[2] * REGISTER_SIZE, o);
+                    break;
+                default:
+                    fallback(operators[i], r, args, o);
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Computes the operators without a register implementation on opinions, like {@link OpinionNetwork} does.
+     */
+    private static void fallback(OpinionOperator operator, double[] r, int[] args, int o) throws OpinionArithmeticException
+    {
+        SubjectiveOpinion[] x = new SubjectiveOpinion[args.length];
+        for (int j = 0; j < args.length; j++) {
+            x[j] = SubjectiveOpinion.fromSnapshot(r, args[j] * REGISTER_SIZE);
+        }
+        SubjectiveOpinion result;
+        switch (operator)
+        {
+            case Add:
+                result = x[0];
+                for (int j = 1; j < x.length; j++) {
+                    result = result.add(x[j]);
+                }
+                break;
+            case Subtract:
+                result = x[0].subtract(x[1]);
+                break;
+            case UnAnd:
+                result = x[0].unAnd(x[1]);
+                break;
+            case UnOr:
+                result = x[0].unOr(x[1]);
+                break;
+            case Abduce:
+                result = x[0].abduce(x[1], x[2], x[3].getAtomicity());
+                break;
+            default:
+                throw new IllegalArgumentException("Operator is not supported: " + operator.name());
+        }
+        result.snapshot(r, o);
+    }
+
+    /*
+     * The operators below use the primitive kernels of SubjectiveOpinion, and store the results like SubjectiveOpinion
+     * does. The kernels get all values of their arguments before they write the result, so the result register may be
+     * one of the argument registers.
+     */
+
+    /**
+     * See {@link SubjectiveOpinion#getRelativeWeight()}.
+     */
+    private static double relativeWeight(double[] r, int x)
+    {
+        return r[x + UNCERTAINTY] == 0.0D ? r[x + WEIGHT] : 0.0D;
+    }
+
+    /**
+     * The relative weight of x to y, if x is the result of an OR, as SubjectiveOpinion.getRelativeWeight(y, Or).
+     */
+    private static double relativeWeightOr(double[] r, int x, int y)
+    {
+        return r[x + OPERATOR] == OR ? r[x + WEIGHT] / r[y + WEIGHT] : 1.0D;
+    }
+
+    /**
+     * Normalizes the result of a kernel in register o like SubjectiveOpinion.store, followed by
+     * SubjectiveOpinion.checkConsistency(recalculate).
+     */
+    private static void store(double[] r, int o, OpinionOperator lastOp, double relativeWeight, boolean recalculate)
+    {
+        SubjectiveOpinion.storeSnapshot(r, o, r[o + BELIEF], r[o + DISBELIEF], r[o + UNCERTAINTY], r[o + ATOMICITY],
+                lastOp, relativeWeight, recalculate);
+    }
+
+    private static void complement(double[] r, int x, int o)
+    {
+        SubjectiveOpinion.storeSnapshot(r, o, r[x + DISBELIEF], r[x + BELIEF], r[x + UNCERTAINTY], 1.0D - r[x + ATOMICITY],
+                OpinionOperator.Not, 1.0D, true);
+    }
+
+    private static void multiply(double[] r, int x, int y, int o)
+    {
+        double weight = relativeWeight(r, x) + relativeWeight(r, y);
+        SubjectiveOpinion.multiplication(r[x + BELIEF], r[x + DISBELIEF], r[x + UNCERTAINTY], r[x + ATOMICITY],
+                r[y + BELIEF], r[y + DISBELIEF], r[y + UNCERTAINTY], r[y + ATOMICITY], relativeWeightOr(r, x, y), r, o);
+        store(r, o, OpinionOperator.And, weight, true);
+    }
+
+    private static void coMultiplication(double[] r, int x, int y, int o)
+    {
+        double weight = r[x + WEIGHT] + r[y + WEIGHT];
+        SubjectiveOpinion.coMultiplication(r[x + BELIEF], r[x + DISBELIEF], r[x + UNCERTAINTY], r[x + ATOMICITY],
+                r[y + BELIEF], r[y + DISBELIEF], r[y + UNCERTAINTY], r[y + ATOMICITY], relativeWeightOr(r, x, y), r, o);
+        store(r, o, OpinionOperator.Or, weight, false);
+    }
+
+    private static void transitivity(double[] r, int x, int y, int o)
+    {
+        SubjectiveOpinion.transitivity(r[x + BELIEF], r[x + UNCERTAINTY], r[x + ATOMICITY],
+                r[y + BELIEF], r[y + DISBELIEF], r[y + ATOMICITY], r, o);
+        store(r, o, OpinionOperator.Discount, 1.0D, true);
+    }
+
+    private static void deduction(double[] r, int x, int yTx, int yFx, int o) throws OpinionArithmeticException
+    {
+        if (Math.abs(r[yTx + ATOMICITY] - r[yFx + ATOMICITY]) > 1.0E-010D) {
+            throw new OpinionArithmeticException("The atomicities of both sub-conditionals must be equal");
+        }
+        SubjectiveOpinion.deduction(r[x + BELIEF], r[x + DISBELIEF], r[x + UNCERTAINTY], r[x + ATOMICITY],
+                r[yTx + BELIEF], r[yTx + DISBELIEF], r[yTx + UNCERTAINTY], r[yTx + ATOMICITY],
+                r[yFx + BELIEF], r[yFx + DISBELIEF], r[yFx + UNCERTAINTY], r, o);
+        store(r, o, OpinionOperator.Deduce, 1.0D, true);
+    }
+}
@@ -103,6 +103,15 @@ public class Conditionals
     this.changeSupport.firePropertyChange("negative", old, this);
   }
 
+  /**
+   * @return the current conditionals, prepared for the deduction of many opinions.
+   * @throws OpinionArithmeticException if the atomicities of the conditionals are not equal.
+   */
+  public synchronized PreparedConditionals prepare() throws OpinionArithmeticException
+  {
+    return new PreparedConditionals(this.positive, this.negative);
+  }
+
   public void addPropertyChangeListener(PropertyChangeListener listener)
   {
     this.changeSupport.addPropertyChangeListener(listener);
@@ -0,0 +1,196 @@
+package no.uio.subjective_logic.opinion;
+
+/**
+ * A mutable accumulator for cumulative belief fusion (CBF) of multiple sources, which accepts opinions one at a time.
+ *
+ * The fused opinion is the same as the one computed by {@link SubjectiveOpinion#cumulativeCollectionFuse(java.util.Collection)},
+ * but only a constant amount of state is kept, so the inputs do not need to be materialized or scanned more than once.
+ *
+ * For non-dogmatic opinions, Eq16 of 10.23919/ICIF.2017.8009820 can be rewritten by dividing numerator and denominator by
+ * the product of all uncertainties. The result only depends on the sums of b/u and d/u over all sources, which is
+ * cumulative fusion in evidence space:
+ * b = sum(b/u) / (1 + sum(b/u) + sum(d/u)), and likewise for d and u.
+ *
+ * Dogmatic opinions are tracked separately, weighted by their relative weight (see Eq17). As soon as one dogmatic opinion
+ * has been added, the non-dogmatic opinions no longer influence the result.
+ *
+ * The partial states of two accumulators can be merged, see {@link #merge(CumulativeFusionAccumulator)}.
+ *
+ * Instances are not thread-safe.
+ */
+public class CumulativeFusionAccumulator
+{
+    private int count = 0;
+
+    private double atomicity = -1;
+
+    //sums of b/u and d/u over the non-dogmatic opinions
+    private double beliefEvidence = 0.0D;
+    private double disbeliefEvidence = 0.0D;
+
+    //relative weight and weighted belief/disbelief sums over the dogmatic opinions
+    private int dogmaticCount = 0;
+    private double dogmaticWeight = 0.0D;
+    private double dogmaticBelief = 0.0D;
+    private double dogmaticDisbelief = 0.0D;
+
+    //the snapshot of the opinion that is added
+    private final double[] values = new double[SubjectiveOpinion.SNAPSHOT_SIZE];
+
+    public CumulativeFusionAccumulator()
+    {
+    }
+
+    /**
+     * Adds an opinion to the fusion.
+     *
+     * @param opinion the opinion of another source.
+     * @return this accumulator.
+     */
+    public CumulativeFusionAccumulator add(SubjectiveOpinion opinion)
+    {
+        if (opinion == null) {
+            throw new NullPointerException("Opinion must not be null");
+        }
+        //a single snapshot, so that the values are consistent
+        opinion.snapshot(this.values, 0);
+        accumulate(this.values[0], this.values[1], this.values[2], this.values[3], this.values[4]);
+        return this;
+    }
+
+    /**
+     * Adds an opinion with a relative weight of 1 to the fusion.
+     *
+     * @return this accumulator.
+     */
+    public CumulativeFusionAccumulator add(double belief, double disbelief, double uncertainty, double atomicity)
+    {
+        return add(belief, disbelief, uncertainty, atomicity, 1.0D);
+    }
+
+    /**
+     * Adds an opinion to the fusion.
+     *
+     * @param relativeWeight the amount of dogmatic opinions that were previously fused into this opinion; only used if
+     *                       the opinion is dogmatic.
+     * @return this accumulator.
+     */
+    public CumulativeFusionAccumulator add(double belief, double disbelief, double uncertainty, double atomicity, double relativeWeight)
+    {
+        if ((belief < 0.0D) || (disbelief < 0.0D) || (uncertainty < 0.0D) || (atomicity < 0.0D) || (atomicity > 1.0D)) {
+            throw new IllegalArgumentException("Belief, Disbelief, Uncertainty and Atomicity, x, must be: 0 <= x <= 1");
+        }
+        if (Math.abs(belief + disbelief + uncertainty - 1.0D) > OpinionBase.TOLERANCE) {
+            throw new IllegalArgumentException("Belief, disbelief and uncertainty do not add up to 1: belief + disbelief + uncertainty != 1");
+        }
+        accumulate(belief, disbelief, uncertainty, atomicity, relativeWeight);
+        return this;
+    }
+
+    private void accumulate(double belief, double disbelief, double uncertainty, double atomicity, double relativeWeight)
+    {
+        if (this.count == 0) {
+            this.atomicity = atomicity;
+        }
+        this.count++;
+
+        //dogmatic iff uncertainty is zero.
+        if (uncertainty == 0.0D) {
+            this.dogmaticCount++;
+            this.dogmaticWeight = this.dogmaticWeight + relativeWeight;
+            this.dogmaticBelief = this.dogmaticBelief + relativeWeight * belief;
+            this.dogmaticDisbelief = this.dogmaticDisbelief + relativeWeight * disbelief;
+        } else {
+            this.beliefEvidence = this.beliefEvidence + belief / uncertainty;
+            this.disbeliefEvidence = this.disbeliefEvidence + disbelief / uncertainty;
+        }
+    }
+
+    /**
+     * Merges the partial state of another accumulator into this one. The result is the same as if all opinions of the
+     * other accumulator had been added to this one, after the opinions already added to this one.
+     *
+     * @param other the accumulator to merge, which is not modified.
+     * @return this accumulator.
+     */
+    public CumulativeFusionAccumulator merge(CumulativeFusionAccumulator other)
+    {
+        if (other == null) {
+            throw new NullPointerException("Accumulator must not be null");
+        }
+        if (this.count == 0) {
+            this.atomicity = other.atomicity;
+        }
+        this.count = this.count + other.count;
+
+        this.beliefEvidence = this.beliefEvidence + other.beliefEvidence;
+        this.disbeliefEvidence = this.disbeliefEvidence + other.disbeliefEvidence;
+
+        this.dogmaticCount = this.dogmaticCount + other.dogmaticCount;
+        this.dogmaticWeight = this.dogmaticWeight + other.dogmaticWeight;
+        this.dogmaticBelief = this.dogmaticBelief + other.dogmaticBelief;
+        this.dogmaticDisbelief = this.dogmaticDisbelief + other.dogmaticDisbelief;
+        return this;
+    }
+
+    /**
+     * @return the amount of opinions added so far.
+     */
+    public int size()
+    {
+        return this.count;
+    }
+
+    public boolean isEmpty()
+    {
+        return this.count == 0;
+    }
+
+    /**
+     * @return true iff at least one dogmatic opinion was added, in which case the fused opinion is dogmatic.
+     */
+    public boolean isDogmatic()
+    {
+        return this.dogmaticCount > 0;
+    }
+
+    /**
+     * Removes all opinions, so that the accumulator can be reused.
+     */
+    public void clear()
+    {
+        this.count = 0;
+        this.atomicity = -1;
+        this.beliefEvidence = 0.0D;
+        this.disbeliefEvidence = 0.0D;
+        this.dogmaticCount = 0;
+        this.dogmaticWeight = 0.0D;
+        this.dogmaticBelief = 0.0D;
+        this.dogmaticDisbelief = 0.0D;
+    }
+
+    /**
+     * Computes the fused opinion of all opinions added so far. The accumulator is not modified, so more opinions can be
+     * added afterwards.
+     *
+     * @return a new SubjectiveOpinion that represents the fused evidence based on evidence accumulation.
+     * @throws OpinionArithmeticException if no opinions were added.
+     */
+    public SubjectiveOpinion toSubjectiveOpinion() throws OpinionArithmeticException
+    {
+        if (this.count == 0) {
+            throw new OpinionArithmeticException("Opinions must not be empty");
+        }
+
+        if (isDogmatic()) {
+            //at least 1 dogmatic opinion -- the gamma's in Eq17 are the relative weights, normalized by their sum
+            return SubjectiveOpinion.fusionResult(this.dogmaticBelief / this.dogmaticWeight, this.dogmaticDisbelief / this.dogmaticWeight,
+                    0.0D, this.atomicity, this.dogmaticWeight);
+        }
+
+        //there are no dogmatic opinions -- case I/Eq16 of 10.23919/ICIF.2017.8009820
+        double divisor = 1.0D + this.beliefEvidence + this.disbeliefEvidence;
+        return SubjectiveOpinion.fusionResult(this.beliefEvidence / divisor, this.disbeliefEvidence / divisor,
+                1.0D / divisor, this.atomicity, 0.0D);
+    }
+}
@@ -0,0 +1,143 @@
+package no.uio.subjective_logic.opinion;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A store of opinions that lose their evidence over time. Each entry records the opinion and the time at which it was
+ * last updated, and is decayed only when it is read: reading an entry at time now returns
+ * {@code opinion.decay(halfLife, now - lastUpdate)}, see {@link SubjectiveOpinion#decay(double, double)}. Entries that
+ * are not read cost nothing, and no periodic pass over all entries is needed.
+ *
+ * The erosion factors of the half-lives are looked up in shared tables, which avoid the calls to {@link Math#pow(double, double)}
+ * for integral elapsed times. The decayed opinions are the same as those of decay.
+ *
+ * Times are given by the caller in any unit, which must be the unit of the half-lives. The store keeps copies of the
+ * opinions that are put into it, and returns new opinions. Instances are thread-safe.
+ *
+ * @param <K> the type of the keys.
+ */
+public class DecayingOpinionStore<K>
+{
+    private final ErosionFactorTable defaultTable;
+    private final Map<K, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @param halfLife the half-life of the entries that are put without a half-life of their own.
+     */
+    public DecayingOpinionStore(double halfLife)
+    {
+        this.defaultTable = ErosionFactorTable.forHalfLife(halfLife);
+    }
+
+    /**
+     * Puts an opinion with the default half-life, replacing a previous opinion.
+     */
+    public void put(K key, Opinion opinion, double time)
+    {
+        put(key, opinion, time, this.defaultTable);
+    }
+
+    /**
+     * Puts an opinion with its own half-life, replacing a previous opinion.
+     */
+    public void put(K key, Opinion opinion, double time, double halfLife)
+    {
+        put(key, opinion, time, ErosionFactorTable.forHalfLife(halfLife));
+    }
+
+    private void put(K key, Opinion opinion, double time, ErosionFactorTable table)
+    {
+        if ((key == null) || (opinion == null)) {
+            throw new NullPointerException();
+        }
+        this.entries.put(key, new Entry(new SubjectiveOpinion(opinion), time, table));
+    }
+
+    /**
+     * Fuses an opinion into an entry: the opinion of the entry is decayed to the given time, and then fused with the
+     * given opinion by {@link SubjectiveOpinion#cumulativeFuse(Opinion)}. The entry keeps its half-life. If there is no
+     * entry, the opinion is put with the default half-life.
+     *
+     * @return the fused opinion.
+     * @throws IllegalArgumentException if the entry was last updated after the given time.
+     */
+    public SubjectiveOpinion fuse(K key, Opinion opinion, double time) throws OpinionArithmeticException
+    {
+        if ((key == null) || (opinion == null)) {
+            throw new NullPointerException();
+        }
+        Entry entry = this.entries.compute(key, (k, previous) -> previous == null
+                ? new Entry(new SubjectiveOpinion(opinion), time, this.defaultTable)
+                : new Entry(previous.decay(time).cumulativeFuse(opinion), time, previous.table));
+        return new SubjectiveOpinion(entry.opinion);
+    }
+
+    /**
+     * @return the opinion of the entry, decayed to the given time, or null if there is no entry.
+     * @throws IllegalArgumentException if the entry was last updated after the given time.
+     */
+    public SubjectiveOpinion get(K key, double time)
+    {
+        Entry entry = this.entries.get(key);
+        return entry == null ? null : entry.decay(time);
+    }
+
+    /**
+     * @return the time of the last update of the entry, or NaN if there is no entry.
+     */
+    public double getLastUpdate(K key)
+    {
+        Entry entry = this.entries.get(key);
+        return entry == null ? Double.NaN : entry.time;
+    }
+
+    /**
+     * @return true iff there was an entry.
+     */
+    public boolean remove(K key)
+    {
+        return this.entries.remove(key) != null;
+    }
+
+    public boolean containsKey(K key)
+    {
+        return this.entries.containsKey(key);
+    }
+
+    public int size()
+    {
+        return this.entries.size();
+    }
+
+    public void clear()
+    {
+        this.entries.clear();
+    }
+
+    private static final class Entry
+    {
+        //never changed, and never passed out of the store
+        final SubjectiveOpinion opinion;
+        final double time;
+        final ErosionFactorTable table;
+
+        Entry(SubjectiveOpinion opinion, double time, ErosionFactorTable table)
+        {
+            if (Double.isNaN(time)) {
+                throw new IllegalArgumentException("Time must not be NaN");
+            }
+            this.opinion = opinion;
+            this.time = time;
+            this.table = table;
+        }
+
+        SubjectiveOpinion decay(double now)
+        {
+            if (now < this.time) {
+                throw new IllegalArgumentException("Time " + now + " is before the last update at " + this.time);
+            }
+            return this.opinion.erode(this.table.factor(now - this.time));
+        }
+    }
+}
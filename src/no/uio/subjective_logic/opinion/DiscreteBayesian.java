@@ -1,5 +1,6 @@
 package no.uio.subjective_logic.opinion;
 
+import java.io.ObjectStreamException;
 import java.util.Collection;
 
 public class DiscreteBayesian extends OpinionBase
@@ -667,4 +668,12 @@ public class DiscreteBayesian extends OpinionBase
     }
     return values;
   }
+
+  /**
+   * Serializes opinions of this class, but not of subclasses, in the compact form of {@link OpinionCodec}.
+   */
+  private Object writeReplace() throws ObjectStreamException
+  {
+    return new OpinionCodec.SerialForm(this);
+  }
 }
\ No newline at end of file
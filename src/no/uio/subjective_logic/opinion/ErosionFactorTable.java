@@ -0,0 +1,80 @@
+package no.uio.subjective_logic.opinion;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The erosion factors of a half-life, see {@link OpinionBase#erosionFactorFromHalfLife(double, double)}. The factor of
+ * the half-life itself is computed once, and the factors of the integral times below {@link #SIZE} are tabulated, so
+ * that looking up the factor of such a time takes no call to {@link Math#pow(double, double)} at all, and other times
+ * take one instead of two. The factors are the same as those of OpinionBase.
+ *
+ * The tables of the first {@link #CAPACITY} half-lives that are requested are shared; other half-lives only get
+ * their own factor. Instances are immutable.
+ */
+final class ErosionFactorTable
+{
+    static final int SIZE = 256;
+    static final int CAPACITY = 64;
+
+    private static final Map<Double, ErosionFactorTable> TABLES = new ConcurrentHashMap<>();
+
+    private final double halfLife;
+    private final double base;
+    private final double[] factors;
+
+    private ErosionFactorTable(double halfLife, boolean tabulate)
+    {
+        this.halfLife = halfLife;
+        this.base = OpinionBase.erosionFactorFromHalfLife(halfLife);
+        this.factors = tabulate ? new double[SIZE] : null;
+        for (int time = 1; tabulate && (time < SIZE); time++) {
+            this.factors[time] = OpinionBase.erosionFactorFromHalfLife(halfLife, time);
+        }
+    }
+
+    /**
+     * @return the table of the given half-life.
+     */
+    static ErosionFactorTable forHalfLife(double halfLife)
+    {
+        if (halfLife < 0.0D) {
+            throw new IllegalArgumentException("Half-life h, must be 0 <= h");
+        }
+        ErosionFactorTable table = TABLES.get(halfLife);
+        if (table == null) {
+            //once the shared tables are full, the factors of other half-lives are not tabulated
+            if (TABLES.size() >= CAPACITY) {
+                return new ErosionFactorTable(halfLife, false);
+            }
+            table = new ErosionFactorTable(halfLife, true);
+            ErosionFactorTable previous = TABLES.putIfAbsent(halfLife, table);
+            if (previous != null) {
+                table = previous;
+            }
+        }
+        return table;
+    }
+
+    double getHalfLife()
+    {
+        return this.halfLife;
+    }
+
+    /**
+     * @return the erosion factor after the given time.
+     */
+    double factor(double time)
+    {
+        if (time < 0.0D) {
+            throw new IllegalArgumentException("Time t, must be 0 <= t");
+        }
+        if ((time == 0.0D) || (this.halfLife == 0.0D)) {
+            return 0.0D;
+        }
+        if ((this.factors != null) && (time < SIZE) && (time == (int) time)) {
+            return this.factors[(int) time];
+        }
+        return Math.pow(this.base, time);
+    }
+}
@@ -0,0 +1,321 @@
+package no.uio.subjective_logic.opinion;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collector;
+
+/**
+ * Groups a stream of timestamped opinions by key into event-time windows, and fuses the opinions of each window when
+ * the watermark passes its end. Opinions may arrive out of order, as long as they are not older than the watermark.
+ *
+ * Two kinds of windows are supported:
+ * <ul>
+ * <li>tumbling windows: [k*size, (k+1)*size) for all k, see {@link #tumbling(long, Collector, Consumer, Consumer)}</li>
+ * <li>session windows: an opinion at time t opens the window [t, t+gap), and overlapping windows of the same key are
+ * merged, so that a session ends after a gap without opinions, see {@link #session(long, Collector, Consumer, Consumer)}</li>
+ * </ul>
+ *
+ * The opinions of a window are fused with one of the {@link OpinionCollectors}, so that each open window only keeps the
+ * accumulation state of the collector instead of its opinions: a constant amount of state for cumulative, weighted,
+ * minimum and majority fusion. Consensus &amp; compromise fusion needs all opinions of a window, and therefore keeps
+ * three doubles per opinion. Merging session windows combines their states in the order of their start.
+ *
+ * {@link #advanceWatermark(long)} declares that no more opinions before the watermark are expected, and emits every
+ * window that ends at or before it to the output, ordered by end and start. An opinion that arrives after the watermark
+ * has passed the end of its window is late, and is passed to the late output instead.
+ *
+ * Instances are not thread-safe.
+ *
+ * @param <K> the type of the keys.
+ */
+public class EventTimeWindowFusion<K>
+{
+    private final boolean session;
+    private final long length;
+    private final Collector<SubjectiveOpinion, Object, SubjectiveOpinion> fusion;
+    private final Consumer<Result<K>> output;
+    private final Consumer<Element<K>> lateOutput;
+
+    //the open windows of each key, by start
+    private final Map<K, TreeMap<Long, WindowState>> windows = new HashMap<>();
+    private long watermark = Long.MIN_VALUE;
+    private int openWindows = 0;
+
+    @SuppressWarnings("unchecked")
+    private EventTimeWindowFusion(boolean session, long length, Collector<SubjectiveOpinion, ?, SubjectiveOpinion> fusion,
+            Consumer<Result<K>> output, Consumer<Element<K>> lateOutput)
+    {
+        if ((fusion == null) || (output == null) || (lateOutput == null)) {
+            throw new NullPointerException();
+        }
+        if (length < 1) {
+            throw new IllegalArgumentException("Window length must be positive: " + length);
+        }
+        this.session = session;
+        this.length = length;
+        //the state type of the collector is only used within this class
+        this.fusion = (Collector<SubjectiveOpinion, Object, SubjectiveOpinion>) fusion;
+        this.output = output;
+        this.lateOutput = lateOutput;
+    }
+
+    /**
+     * Creates a stage with tumbling windows of the given size.
+     */
+    public static <K> EventTimeWindowFusion<K> tumbling(long size, Collector<SubjectiveOpinion, ?, SubjectiveOpinion> fusion,
+            Consumer<Result<K>> output, Consumer<Element<K>> lateOutput)
+    {
+        return new EventTimeWindowFusion<>(false, size, fusion, output, lateOutput);
+    }
+
+    /**
+     * Creates a stage with session windows that end after the given gap without opinions.
+     */
+    public static <K> EventTimeWindowFusion<K> session(long gap, Collector<SubjectiveOpinion, ?, SubjectiveOpinion> fusion,
+            Consumer<Result<K>> output, Consumer<Element<K>> lateOutput)
+    {
+        return new EventTimeWindowFusion<>(true, gap, fusion, output, lateOutput);
+    }
+
+    /**
+     * Adds an opinion to the window of its key and time, or passes it to the late output if that window has already
+     * been emitted.
+     *
+     * @return false iff the opinion was late.
+     */
+    public boolean add(K key, SubjectiveOpinion opinion, long time)
+    {
+        if ((key == null) || (opinion == null)) {
+            throw new NullPointerException();
+        }
+        long start = this.session ? time : Math.floorDiv(time, this.length) * this.length;
+        long end = start + this.length;
+        if (end <= this.watermark) {
+            this.lateOutput.accept(new Element<>(key, opinion, time));
+            return false;
+        }
+        TreeMap<Long, WindowState> open = this.windows.computeIfAbsent(key, k -> new TreeMap<>());
+        if (!this.session) {
+            WindowState window = open.get(start);
+            if (window == null) {
+                window = new WindowState(start, end, this.fusion.supplier().get());
+                open.put(start, window);
+                this.openWindows++;
+            }
+            this.fusion.accumulator().accept(window.state, opinion);
+            window.count++;
+            return true;
+        }
+
+        WindowState window = new WindowState(start, end, this.fusion.supplier().get());
+        this.fusion.accumulator().accept(window.state, opinion);
+        window.count++;
+        //merge all windows that overlap [start, end), in the order of their start
+        Map.Entry<Long, WindowState> before = open.floorEntry(start);
+        long from = ((before != null) && (before.getValue().end > start)) ? before.getKey() : start;
+        Iterator<WindowState> overlapping = open.subMap(from, true, end, false).values().iterator();
+        WindowState merged = null;
+        while (overlapping.hasNext()) {
+            WindowState w = overlapping.next();
+            overlapping.remove();
+            this.openWindows--;
+            if ((window != null) && (start < w.start)) {
+                merged = merged == null ? window : merge(merged, window);
+                window = null;
+            }
+            merged = merged == null ? w : merge(merged, w);
+        }
+        if (window != null) {
+            merged = merged == null ? window : merge(merged, window);
+        }
+        open.put(merged.start, merged);
+        this.openWindows++;
+        return true;
+    }
+
+    private WindowState merge(WindowState first, WindowState second)
+    {
+        WindowState merged = new WindowState(Math.min(first.start, second.start), Math.max(first.end, second.end),
+                this.fusion.combiner().apply(first.state, second.state));
+        merged.count = first.count + second.count;
+        return merged;
+    }
+
+    /**
+     * Advances the watermark, and emits every window that ends at or before it. A watermark that is not later than the
+     * current one has no effect.
+     *
+     * @throws OpinionArithmeticException if the opinions of a window cannot be fused. Such windows are discarded, after
+     *                                    all other windows have been emitted.
+     */
+    public void advanceWatermark(long watermark) throws OpinionArithmeticException
+    {
+        if (watermark <= this.watermark) {
+            return;
+        }
+        this.watermark = watermark;
+        List<Result<K>> ready = new ArrayList<>();
+        List<K> closed = new ArrayList<>();
+        for (Map.Entry<K, TreeMap<Long, WindowState>> e : this.windows.entrySet())
+        {
+            Iterator<WindowState> it = e.getValue().values().iterator();
+            while (it.hasNext()) {
+                WindowState w = it.next();
+                //windows of a key do not overlap, so they end in the order of their start
+                if (w.end > watermark) {
+                    break;
+                }
+                it.remove();
+                this.openWindows--;
+                ready.add(new Result<>(e.getKey(), w.start, w.end, w.state, w.count));
+            }
+            if (e.getValue().isEmpty()) {
+                closed.add(e.getKey());
+            }
+        }
+        for (K key : closed) {
+            this.windows.remove(key);
+        }
+        ready.sort(Comparator.comparingLong((Result<K> r) -> r.end).thenComparingLong(r -> r.start));
+        OpinionArithmeticException failure = null;
+        for (Result<K> result : ready) {
+            try {
+                result.opinion = this.fusion.finisher().apply(result.state);
+            } catch (OpinionArithmeticException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+                continue;
+            } finally {
+                result.state = null;
+            }
+            this.output.accept(result);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * @return the current watermark, or Long.MIN_VALUE if none was set.
+     */
+    public long getWatermark()
+    {
+        return this.watermark;
+    }
+
+    /**
+     * @return the amount of windows that have not been emitted yet.
+     */
+    public int getOpenWindowCount()
+    {
+        return this.openWindows;
+    }
+
+    private static final class WindowState
+    {
+        final long start, end;
+        final Object state;
+        int count = 0;
+
+        WindowState(long start, long end, Object state)
+        {
+            this.start = start;
+            this.end = end;
+            this.state = state;
+        }
+    }
+
+    /**
+     * The fused opinion of a window [start, end).
+     */
+    public static final class Result<K>
+    {
+        private final K key;
+        private final long start, end;
+        private final int count;
+        private Object state;
+        private SubjectiveOpinion opinion;
+
+        Result(K key, long start, long end, Object state, int count)
+        {
+            this.key = key;
+            this.start = start;
+            this.end = end;
+            this.state = state;
+            this.count = count;
+        }
+
+        public K getKey()
+        {
+            return this.key;
+        }
+
+        public long getStart()
+        {
+            return this.start;
+        }
+
+        public long getEnd()
+        {
+            return this.end;
+        }
+
+        /**
+         * @return the amount of opinions that were fused.
+         */
+        public int getCount()
+        {
+            return this.count;
+        }
+
+        public SubjectiveOpinion getOpinion()
+        {
+            return this.opinion;
+        }
+
+        @Override
+        public String toString()
+        {
+            return this.key + "[" + this.start + "," + this.end + "): " + this.opinion;
+        }
+    }
+
+    /**
+     * A timestamped opinion that arrived too late.
+     */
+    public static final class Element<K>
+    {
+        private final K key;
+        private final SubjectiveOpinion opinion;
+        private final long time;
+
+        Element(K key, SubjectiveOpinion opinion, long time)
+        {
+            this.key = key;
+            this.opinion = opinion;
+            this.time = time;
+        }
+
+        public K getKey()
+        {
+            return this.key;
+        }
+
+        public SubjectiveOpinion getOpinion()
+        {
+            return this.opinion;
+        }
+
+        public long getTime()
+        {
+            return this.time;
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package no.uio.subjective_logic.opinion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes the global trust in every entity from the local trust opinions between entities, by a power iteration in
+ * the style of EigenTrust. In each step, the global trust in an entity v is the cumulative fusion of its prior and of
+ * the local trust of every entity u in v, discounted by the global trust in u of the previous step:
+ * <pre>
+ *   t'(v) = prior(v) &#8853; (c(u1,v) &#8855; t(u1)) &#8853; (c(u2,v) &#8855; t(u2)) &#8853; ...
+ * </pre>
+ * where &#8855; is {@link SubjectiveOpinion#discountBy(Opinion)} and &#8853; is
+ * {@link SubjectiveOpinion#cumulativeCollectionFuse(java.util.Collection)}. The priors play the role of the pre-trusted
+ * peers of EigenTrust: a vacuous prior adds no evidence, while a prior with evidence anchors the trust of the others.
+ * The atomicity of the global trust in an entity is the atomicity of its prior.
+ *
+ * The iteration stops when no belief, disbelief or uncertainty changes by more than a given amount in a step.
+ *
+ * Local trust and global trust are stored as {@link OpinionBatch} columns, and the local trust is sorted by the entity
+ * that is trusted, in compressed sparse row format, so that a step reads each local opinion once and creates no objects.
+ * A graph of n entities and m local opinions takes about 36m + 96n bytes. The rows of a step can be partitioned across
+ * the threads of a {@link ForkJoinPool}; partitions are balanced by the amount of local opinions, and the results do not
+ * depend on the partitioning. The results are the same as those of the object-based operators up to rounding.
+ *
+ * Instances are not thread-safe.
+ */
+public class GlobalTrust
+{
+    private final int size;
+
+    //the local trust in entity v is trust[offsets[v]] to trust[offsets[v+1]-1], by the entities in sources
+    private final int[] offsets;
+    private final int[] sources;
+    private final OpinionBatch trust;
+
+    private final OpinionBatch priors;
+    private OpinionBatch current;
+    private OpinionBatch next;
+
+    private int iterations = 0;
+    private double residual = Double.POSITIVE_INFINITY;
+
+    /**
+     * Creates the graph of local trust, where the i-th local opinion is the trust of from[i] in to[i], and initializes
+     * the prior and the global trust of every entity to the given prior.
+     *
+     * @param size the amount of entities.
+     * @throws IllegalArgumentException if the arrays do not have the same length, or an entity is out of range or trusts itself.
+     */
+    public GlobalTrust(int size, int[] from, int[] to, OpinionBatch trust, Opinion prior)
+    {
+        if ((from == null) || (to == null) || (trust == null) || (prior == null)) {
+            throw new NullPointerException();
+        }
+        if (size < 0) {
+            throw new IllegalArgumentException("Size must not be negative: " + size);
+        }
+        int m = trust.size();
+        if ((from.length != m) || (to.length != m)) {
+            throw new IllegalArgumentException("Arrays must have the same length: " + from.length + ", " + to.length + ", " + m);
+        }
+        this.size = size;
+
+        //counting sort of the local opinions by the entity that is trusted
+        this.offsets = new int[size + 1];
+        for (int i = 0; i < m; i++) {
+            if ((from[i] < 0) || (from[i] >= size) || (to[i] < 0) || (to[i] >= size)) {
+                throw new IllegalArgumentException("Entity must be in [0," + size + "): " + from[i] + " -> " + to[i]);
+            }
+            if (from[i] == to[i]) {
+                throw new IllegalArgumentException("An entity cannot trust itself: " + from[i]);
+            }
+            this.offsets[to[i] + 1]++;
+        }
+        for (int v = 0; v < size; v++) {
+            this.offsets[v + 1] += this.offsets[v];
+        }
+        this.sources = new int[m];
+        this.trust = new OpinionBatch(m);
+        int[] position = Arrays.copyOf(this.offsets, size);
+        for (int i = 0; i < m; i++) {
+            int j = position[to[i]]++;
+            this.sources[j] = from[i];
+            this.trust.belief[j] = trust.belief[i];
+            this.trust.disbelief[j] = trust.disbelief[i];
+            this.trust.uncertainty[j] = trust.uncertainty[i];
+            this.trust.atomicity[j] = trust.atomicity[i];
+        }
+
+        this.priors = new OpinionBatch(size);
+        for (int v = 0; v < size; v++) {
+            this.priors.set(v, prior);
+        }
+        this.current = new OpinionBatch(this.priors);
+        this.next = new OpinionBatch(size);
+    }
+
+    /**
+     * Sets the prior of an entity, which takes effect in the next step.
+     */
+    public void setPrior(int entity, Opinion prior)
+    {
+        if ((entity < 0) || (entity >= this.size)) {
+            throw new IllegalArgumentException("Entity must be in [0," + this.size + "): " + entity);
+        }
+        this.priors.set(entity, prior);
+        this.residual = Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Resets the global trust of every entity to its prior.
+     */
+    public void reset()
+    {
+        this.current = new OpinionBatch(this.priors);
+        this.iterations = 0;
+        this.residual = Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Continues the iteration from the current global trust, until it converges or the maximum amount of steps is reached.
+     *
+     * @param pool the pool to compute on, or null to compute in the current thread.
+     * @param partitions the amount of partitions of the entities per step, at least 1.
+     * @param epsilon the iteration has converged when no value changes by more than epsilon in a step.
+     * @param maxIterations the maximum amount of steps.
+     * @return the amount of steps that were computed.
+     */
+    public int iterate(ForkJoinPool pool, int partitions, double epsilon, int maxIterations)
+    {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("Partitions must be positive: " + partitions);
+        }
+        if ((epsilon < 0.0D) || (maxIterations < 0)) {
+            throw new IllegalArgumentException("Epsilon and maximum iterations must not be negative: " + epsilon + ", " + maxIterations);
+        }
+        List<int[]> ranges = partition(pool == null ? 1 : partitions);
+        int steps = 0;
+        while ((steps < maxIterations) && !(this.residual <= epsilon))
+        {
+            double delta = 0.0D;
+            if (ranges.size() == 1) {
+                delta = step(this.current, this.next, 0, this.size);
+            } else {
+                List<StepTask> tasks = new ArrayList<>(ranges.size());
+                for (int[] range : ranges) {
+                    tasks.add(new StepTask(this, range[0], range[1]));
+                }
+                pool.invoke(new RecursiveAction() {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected void compute()
+                    {
+                        invokeAll(tasks);
+                    }
+                });
+                for (StepTask task : tasks) {
+                    delta = Math.max(delta, task.delta);
+                }
+            }
+            OpinionBatch swap = this.current;
+            this.current = this.next;
+            this.next = swap;
+            this.residual = delta;
+            this.iterations++;
+            steps++;
+        }
+        return steps;
+    }
+
+    /**
+     * Splits the entities into ranges with about the same amount of local opinions, where each entity also counts as one.
+     */
+    private List<int[]> partition(int partitions)
+    {
+        List<int[]> ranges = new ArrayList<>(partitions);
+        long total = (long) this.size + this.sources.length;
+        int from = 0;
+        for (int p = 1; (p <= partitions) && (from < this.size); p++)
+        {
+            long limit = total * p / partitions;
+            int to = from + 1;
+            while ((to < this.size) && ((long) to + this.offsets[to] < limit)) {
+                to++;
+            }
+            if (p == partitions) {
+                to = this.size;
+            }
+            ranges.add(new int[]{from, to});
+            from = to;
+        }
+        if (ranges.isEmpty()) {
+            ranges.add(new int[]{0, 0});
+        }
+        return ranges;
+    }
+
+    /**
+     * Computes the global trust in the entities from (inclusive) to to (exclusive) from the previous global trust.
+     *
+     * @return the largest change of a belief, disbelief or uncertainty.
+     */
+    private double step(OpinionBatch previous, OpinionBatch result, int from, int to)
+    {
+        final double[] tb = previous.belief, td = previous.disbelief, tu = previous.uncertainty, ta = previous.atomicity;
+        final double[] cb = this.trust.belief, cd = this.trust.disbelief;
+        final double[] pb = this.priors.belief, pd = this.priors.disbelief, pu = this.priors.uncertainty, pa = this.priors.atomicity;
+        final double[] ob = result.belief, od = result.disbelief, ou = result.uncertainty, oa = result.atomicity;
+        double delta = 0.0D;
+        for (int v = from; v < to; v++)
+        {
+            //evidence sums as in CumulativeFusionAccumulator, starting with the prior
+            double beliefEvidence = 0.0D, disbeliefEvidence = 0.0D;
+            double dogmaticWeight = 0.0D, dogmaticBelief = 0.0D, dogmaticDisbelief = 0.0D;
+            if (pu[v] == 0.0D) {
+                dogmaticWeight = 1.0D;
+                dogmaticBelief = pb[v];
+                dogmaticDisbelief = pd[v];
+            } else {
+                beliefEvidence = pb[v] / pu[v];
+                disbeliefEvidence = pd[v] / pu[v];
+            }
+            for (int i = this.offsets[v]; i < this.offsets[v + 1]; i++)
+            {
+                int u = this.sources[i];
+                double e = OpinionBase.constrain(OpinionBase.adjust(tb[u] + ta[u] * tu[u]));
+                double b = e * cb[i];
+                double d = e * cd[i];
+                double uncertainty = OpinionBase.constrain(OpinionBase.adjust(1.0D - (b + d)));
+                if (uncertainty == 0.0D) {
+                    dogmaticWeight += 1.0D;
+                    dogmaticBelief += b;
+                    dogmaticDisbelief += d;
+                } else {
+                    beliefEvidence += b / uncertainty;
+                    disbeliefEvidence += d / uncertainty;
+                }
+            }
+            double b, d, u;
+            if (dogmaticWeight > 0.0D) {
+                b = dogmaticBelief / dogmaticWeight;
+                d = dogmaticDisbelief / dogmaticWeight;
+                u = 0.0D;
+            } else {
+                double divisor = 1.0D + beliefEvidence + disbeliefEvidence;
+                b = beliefEvidence / divisor;
+                d = disbeliefEvidence / divisor;
+                u = 1.0D / divisor;
+            }
+            delta = Math.max(delta, Math.max(Math.abs(b - tb[v]), Math.max(Math.abs(d - td[v]), Math.abs(u - tu[v]))));
+            ob[v] = b;
+            od[v] = d;
+            ou[v] = u;
+            oa[v] = pa[v];
+        }
+        return delta;
+    }
+
+    /**
+     * @return the amount of entities.
+     */
+    public int size()
+    {
+        return this.size;
+    }
+
+    /**
+     * @return the amount of steps since the creation or the last reset.
+     */
+    public int getIterations()
+    {
+        return this.iterations;
+    }
+
+    /**
+     * @return the largest change of a belief, disbelief or uncertainty in the last step, or infinity if there was none.
+     */
+    public double getResidual()
+    {
+        return this.residual;
+    }
+
+    /**
+     * @return true iff the last step changed no value by more than epsilon.
+     */
+    public boolean isConverged(double epsilon)
+    {
+        return this.residual <= epsilon;
+    }
+
+    /**
+     * @return the global trust in the given entity.
+     */
+    public SubjectiveOpinion getTrust(int entity)
+    {
+        return this.current.get(entity);
+    }
+
+    /**
+     * @return a copy of the global trust in all entities.
+     */
+    public OpinionBatch getTrust()
+    {
+        return new OpinionBatch(this.current);
+    }
+
+    private static final class StepTask
+            extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final GlobalTrust globalTrust;
+        private final int from, to;
+        double delta;
+
+        StepTask(GlobalTrust globalTrust, int from, int to)
+        {
+            this.globalTrust = globalTrust;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            this.delta = this.globalTrust.step(this.globalTrust.current, this.globalTrust.next, this.from, this.to);
+        }
+    }
+}
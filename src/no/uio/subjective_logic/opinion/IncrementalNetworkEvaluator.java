@@ -0,0 +1,307 @@
+package no.uio.subjective_logic.opinion;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the values of all nodes of an {@link OpinionNetwork} up to date with its inputs, recomputing only the nodes that
+ * depend on changed inputs.
+ *
+ * The evaluator listens to the property change events of the input opinions. A change only marks the input as dirty;
+ * the recomputation happens in {@link #update()}, which is called by {@link #get(OpinionNetwork.Node)}, or after a delay
+ * on a given executor. All changes that arrive before the next update are handled by this update, and each affected
+ * node is recomputed once, in topological order. If the recomputed value of a node is exactly the same as before, the
+ * nodes that use it are not marked dirty, so the recomputation stops there.
+ *
+ * Listeners added with {@link #addPropertyChangeListener(PropertyChangeListener)} receive an
+ * {@link java.beans.IndexedPropertyChangeEvent} named "value" for each node whose value changed during an update, where
+ * the index is the index of the node. The new value is null if the node cannot be computed.
+ *
+ * If a node cannot be computed, the exception is recorded for this node and the nodes that depend on it, and thrown by
+ * {@link #get(OpinionNetwork.Node)} for these nodes only. The other nodes are still updated. A failed node is computed
+ * again once one of the inputs it depends on changes.
+ *
+ * Changes of the inputs are noticed through their "opinion", "atomicity" and "relativeWeight" events. This includes the
+ * operators of SubjectiveOpinion that compute into a target, such as
+ * {@link SubjectiveOpinion#andInto(Opinion, SubjectiveOpinion)}, which fire an event if the target has listeners.
+ *
+ * Only the nodes that exist when the evaluator is created are evaluated. Call {@link #close()} to stop listening to the
+ * inputs. Instances are thread-safe.
+ */
+public class IncrementalNetworkEvaluator
+        implements PropertyChangeListener, AutoCloseable
+{
+    private final PropertyChangeSupport changeSupport = new PropertyChangeSupport(this);
+
+    private final List<OpinionNetwork.Node> nodes;
+    //the indices of the nodes that use each node as an argument
+    private final int[][] users;
+    //the indices of the input nodes of each input opinion
+    private final Map<SubjectiveOpinion, int[]> inputs = new IdentityHashMap<>();
+
+    private final ScheduledExecutorService executor;
+    private final long delayNanos;
+
+    //guarded by itself
+    private final BitSet pending = new BitSet();
+    private ScheduledFuture<?> scheduled = null;
+    private boolean closed = false;
+
+    private final SubjectiveOpinion[] values;
+    //the exception of each node that could not be computed, or null
+    private final RuntimeException[] failures;
+    private long recomputedCount = 0;
+
+    /**
+     * Creates an evaluator that updates the values when they are read.
+     */
+    public IncrementalNetworkEvaluator(OpinionNetwork network)
+    {
+        this(network, null, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Creates an evaluator that updates the values on the given executor, once the given delay has passed after a change.
+     * Further changes within the delay are included in the same update. Values are also updated when they are read.
+     */
+    public IncrementalNetworkEvaluator(OpinionNetwork network, ScheduledExecutorService executor, long delay, TimeUnit unit)
+    {
+        if ((network == null) || (unit == null)) {
+            throw new NullPointerException();
+        }
+        if (delay < 0) {
+            throw new IllegalArgumentException("Delay must not be negative: " + delay);
+        }
+        this.executor = executor;
+        this.delayNanos = unit.toNanos(delay);
+        this.nodes = new ArrayList<>(network.getNodes());
+
+        int size = this.nodes.size();
+        int[] userCount = new int[size];
+        for (OpinionNetwork.Node node : this.nodes) {
+            for (OpinionNetwork.Node argument : node.arguments) {
+                userCount[argument.index]++;
+            }
+        }
+        this.users = new int[size][];
+        for (int i = 0; i < size; i++) {
+            this.users[i] = new int[userCount[i]];
+            userCount[i] = 0;
+        }
+        for (OpinionNetwork.Node node : this.nodes) {
+            for (OpinionNetwork.Node argument : node.arguments) {
+                this.users[argument.index][userCount[argument.index]++] = node.index;
+            }
+        }
+
+        for (OpinionNetwork.Node node : this.nodes) {
+            if (node.isInput()) {
+                int[] indices = this.inputs.get(node.input);
+                indices = indices == null ? new int[1] : Arrays.copyOf(indices, indices.length + 1);
+                indices[indices.length - 1] = node.index;
+                this.inputs.put(node.input, indices);
+            }
+        }
+        this.values = new SubjectiveOpinion[size];
+        this.failures = new RuntimeException[size];
+        //all nodes are dirty initially, so that the first update evaluates the whole network
+        this.pending.set(0, size);
+
+        for (SubjectiveOpinion input : this.inputs.keySet()) {
+            input.addPropertyChangeListener(this);
+        }
+    }
+
+    @Override
+    public void propertyChange(PropertyChangeEvent evt)
+    {
+        int[] indices = this.inputs.get(evt.getSource());
+        if (indices == null) {
+            return;
+        }
+        synchronized (this.pending)
+        {
+            if (this.closed) {
+                return;
+            }
+            for (int index : indices) {
+                this.pending.set(index);
+            }
+            if ((this.executor != null) && (this.scheduled == null)) {
+                this.scheduled = this.executor.schedule(this::scheduledUpdate, this.delayNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private void scheduledUpdate()
+    {
+        synchronized (this.pending)
+        {
+            this.scheduled = null;
+        }
+        update();
+    }
+
+    /**
+     * Recomputes the nodes that depend on the inputs that changed since the last update. Nodes that cannot be computed
+     * do not stop the update, their exceptions are thrown by {@link #get(OpinionNetwork.Node)}.
+     */
+    public void update()
+    {
+        List<Object[]> changes = this.changeSupport.hasListeners("value") ? new ArrayList<Object[]>() : null;
+        try {
+            synchronized (this)
+            {
+                recompute(changes);
+            }
+        } finally {
+            if (changes != null) {
+                for (Object[] change : changes) {
+                    this.changeSupport.fireIndexedPropertyChange("value", (Integer) change[0], change[1], change[2]);
+                }
+            }
+        }
+    }
+
+    private void recompute(List<Object[]> changes)
+    {
+        BitSet dirty;
+        synchronized (this.pending)
+        {
+            if (this.pending.isEmpty()) {
+                return;
+            }
+            dirty = (BitSet) this.pending.clone();
+            this.pending.clear();
+        }
+
+        //the users of a node always have a higher index, so they are visited after the node in this loop
+        for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1))
+        {
+            OpinionNetwork.Node node = this.nodes.get(i);
+            SubjectiveOpinion old = this.values[i];
+            SubjectiveOpinion value = null;
+            RuntimeException failure = null;
+            for (OpinionNetwork.Node argument : node.arguments) {
+                if (this.failures[argument.index] != null) {
+                    failure = this.failures[argument.index];
+                    break;
+                }
+            }
+            if (failure == null) {
+                try {
+                    value = node.isInput() ? new SubjectiveOpinion(node.input) : OpinionNetwork.compute(node, this.values);
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+                this.recomputedCount++;
+            }
+            this.values[i] = value;
+            RuntimeException oldFailure = this.failures[i];
+            this.failures[i] = failure;
+
+            //the users of a failed node fail as well, so they are also recomputed if only the failure changed
+            boolean changed = ((old == null) || (value == null)) ? ((old != value) || (failure != oldFailure)) : !sameValues(old, value);
+            if (changed)
+            {
+                for (int user : this.users[i]) {
+                    dirty.set(user);
+                }
+                if ((changes != null) && (old != value)) {
+                    changes.add(new Object[] { i, old, value });
+                }
+            }
+        }
+    }
+
+    private static boolean sameValues(SubjectiveOpinion x, SubjectiveOpinion y)
+    {
+        return (x.getBelief() == y.getBelief()) && (x.getDisbelief() == y.getDisbelief())
+                && (x.getUncertainty() == y.getUncertainty()) && (x.getAtomicity() == y.getAtomicity());
+    }
+
+    /**
+     * Updates the network, and returns the current value of the node.
+     *
+     * @return a copy of the value of the node.
+     * @throws OpinionArithmeticException if the node, or a node it depends on, cannot be computed. Other exceptions of
+     *                                    the operators are thrown as they are.
+     */
+    public SubjectiveOpinion get(OpinionNetwork.Node node) throws OpinionArithmeticException
+    {
+        if (node == null) {
+            throw new NullPointerException();
+        }
+        if ((node.index >= this.nodes.size()) || (this.nodes.get(node.index) != node)) {
+            throw new IllegalArgumentException("Node is not evaluated by this evaluator: " + node);
+        }
+        update();
+        synchronized (this)
+        {
+            RuntimeException failure = this.failures[node.index];
+            if (failure != null) {
+                throw failure;
+            }
+            return new SubjectiveOpinion(this.values[node.index]);
+        }
+    }
+
+    /**
+     * @return true iff there are changes that have not been handled by an update yet.
+     */
+    public boolean isDirty()
+    {
+        synchronized (this.pending)
+        {
+            return !this.pending.isEmpty();
+        }
+    }
+
+    /**
+     * @return the amount of node computations since this evaluator was created, including the initial evaluation.
+     */
+    public synchronized long getRecomputedCount()
+    {
+        return this.recomputedCount;
+    }
+
+    /**
+     * Stops listening to the inputs and cancels a scheduled update. The values are not updated any more.
+     */
+    @Override
+    public void close()
+    {
+        synchronized (this.pending)
+        {
+            this.closed = true;
+            this.pending.clear();
+            if (this.scheduled != null) {
+                this.scheduled.cancel(false);
+                this.scheduled = null;
+            }
+        }
+        for (SubjectiveOpinion input : this.inputs.keySet()) {
+            input.removePropertyChangeListener(this);
+        }
+    }
+
+    public void addPropertyChangeListener(PropertyChangeListener listener)
+    {
+        this.changeSupport.addPropertyChangeListener(listener);
+    }
+
+    public void removePropertyChangeListener(PropertyChangeListener listener)
+    {
+        this.changeSupport.removePropertyChangeListener(listener);
+    }
+}
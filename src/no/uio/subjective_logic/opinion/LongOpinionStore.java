@@ -0,0 +1,453 @@
+package no.uio.subjective_logic.opinion;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * A concurrent map from long keys to opinions, for large amounts of entities. Keys and opinions are stored in primitive
+ * arrays with open addressing and linear probing, so an entry takes no objects at all: 8 bytes for the key and 48 bytes
+ * for the opinion, which is stored with its relative weight and last operator in the layout of
+ * {@link SubjectiveOpinion#snapshot(double[], int)}. Entries are returned as new opinions with the same values, relative
+ * weight and last operator as the opinions that were stored, so that fusing into an entry gives exactly the same
+ * results as fusing into an opinion.
+ *
+ * The map is split into segments by the hash of the key, each with its own table and {@link StampedLock}. Reads are
+ * optimistic and take no lock unless they overlap with a write to the same segment; writes lock one segment. Besides
+ * put and remove, entries can be updated atomically:
+ * <ul>
+ * <li>{@link #fuse(long, Opinion)} fuses an opinion into an entry with {@link SubjectiveOpinion#cumulativeFuse(Opinion)},
+ * in place and without creating objects.</li>
+ * <li>{@link #update(long, UnaryOperator)} applies an arbitrary function to an entry with compare-and-swap semantics: the
+ * function is applied without holding a lock, and applied again if the entry was changed in the meantime.</li>
+ * </ul>
+ *
+ * Instances are thread-safe.
+ */
+public class LongOpinionStore
+{
+    private static final int R = SubjectiveOpinion.SNAPSHOT_SIZE;
+    private static final double LOAD_FACTOR = 0.75D;
+    private static final int MAXIMUM_CAPACITY = 1 << 28;
+
+    private final Segment[] segments;
+    private final int segmentShift;
+
+    /**
+     * Creates a store with 64 segments.
+     */
+    public LongOpinionStore()
+    {
+        this(0, 64);
+    }
+
+    /**
+     * @param expectedSize the amount of entries the store is sized for initially.
+     * @param segments the amount of segments, which is rounded up to a power of two.
+     */
+    public LongOpinionStore(int expectedSize, int segments)
+    {
+        if ((expectedSize < 0) || (segments < 1) || (segments > (1 << 16))) {
+            throw new IllegalArgumentException("Expected size must not be negative and segments must be in [1,65536]: "
+                    + expectedSize + ", " + segments);
+        }
+        int bits = 32 - Integer.numberOfLeadingZeros(segments - 1);
+        this.segments = new Segment[1 << bits];
+        this.segmentShift = 64 - bits;
+        int perSegment = (int) Math.min(MAXIMUM_CAPACITY, (long) (expectedSize / LOAD_FACTOR / this.segments.length) + 1);
+        for (int i = 0; i < this.segments.length; i++) {
+            this.segments[i] = new Segment(tableSizeFor(perSegment));
+        }
+    }
+
+    private static int tableSizeFor(int capacity)
+    {
+        return Math.max(16, Integer.highestOneBit(Math.max(1, capacity - 1)) << 1);
+    }
+
+    /**
+     * The finalizer of MurmurHash3, which spreads all bits of the key. The highest bits select the segment, and the
+     * lowest bits the slot.
+     */
+    private static long hash(long key)
+    {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private Segment segmentFor(long hash)
+    {
+        return this.segments.length == 1 ? this.segments[0] : this.segments[(int) (hash >>> this.segmentShift)];
+    }
+
+    /**
+     * @return a new opinion with the values of the entry, or null if there is none.
+     */
+    public SubjectiveOpinion get(long key)
+    {
+        long h = hash(key);
+        Segment s = segmentFor(h);
+        double[] values = new double[R];
+        long stamp = s.tryOptimisticRead();
+        if (stamp != 0L) {
+            boolean found = s.copy(key, h, values);
+            if (s.validate(stamp)) {
+                return found ? SubjectiveOpinion.fromSnapshot(values, 0) : null;
+            }
+        }
+        stamp = s.readLock();
+        try {
+            return s.copy(key, h, values) ? SubjectiveOpinion.fromSnapshot(values, 0) : null;
+        } finally {
+            s.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return the expectation of the entry, see {@link SubjectiveOpinion#getExpectation()}, or NaN if there is none.
+     */
+    public double getExpectation(long key)
+    {
+        long h = hash(key);
+        Segment s = segmentFor(h);
+        long stamp = s.tryOptimisticRead();
+        if (stamp != 0L) {
+            double expectation = s.expectation(key, h);
+            if (s.validate(stamp)) {
+                return expectation;
+            }
+        }
+        stamp = s.readLock();
+        try {
+            return s.expectation(key, h);
+        } finally {
+            s.unlockRead(stamp);
+        }
+    }
+
+    public boolean containsKey(long key)
+    {
+        return !Double.isNaN(getExpectation(key));
+    }
+
+    /**
+     * Stores a copy of the opinion, replacing a previous entry.
+     */
+    public void put(long key, Opinion opinion)
+    {
+        if (opinion == null) {
+            throw new NullPointerException("Opinion must not be null");
+        }
+        SubjectiveOpinion o = opinion.toSubjectiveOpinion();
+        long h = hash(key);
+        Segment s = segmentFor(h);
+        long stamp = s.writeLock();
+        try {
+            o.snapshot(s.scratch, 0);
+            s.put(key, h, s.scratch, 0);
+        } finally {
+            s.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Fuses the opinion into the entry with cumulative fusion, or stores a copy of the opinion if there is no entry.
+     *
+     * @throws OpinionArithmeticException if the opinions cannot be fused, in which case the entry is not changed.
+     */
+    public void fuse(long key, Opinion opinion) throws OpinionArithmeticException
+    {
+        if (opinion == null) {
+            throw new NullPointerException("Opinion must not be null");
+        }
+        SubjectiveOpinion o = opinion.toSubjectiveOpinion();
+        long h = hash(key);
+        Segment s = segmentFor(h);
+        long stamp = s.writeLock();
+        try {
+            o.snapshot(s.scratch, R);
+            if (s.copy(key, h, s.scratch)) {
+                SubjectiveOpinion.cumulativeFusion(s.scratch, 0, R, 0);
+                s.put(key, h, s.scratch, 0);
+            } else {
+                s.put(key, h, s.scratch, R);
+            }
+        } finally {
+            s.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Replaces the entry with the result of the function, which gets a copy of the entry, or null if there is none,
+     * and returns the new opinion, or null to remove the entry. The function is called without holding a lock, so it
+     * may be called more than once if the entry is changed concurrently, and must not have side effects.
+     *
+     * @return the new opinion, or null if the entry was removed.
+     */
+    public SubjectiveOpinion update(long key, UnaryOperator<SubjectiveOpinion> function)
+    {
+        if (function == null) {
+            throw new NullPointerException("Function must not be null");
+        }
+        long h = hash(key);
+        Segment s = segmentFor(h);
+        double[] expected = new double[R];
+        double[] replacement = new double[R];
+        while (true)
+        {
+            boolean found;
+            long stamp = s.readLock();
+            try {
+                found = s.copy(key, h, expected);
+            } finally {
+                s.unlockRead(stamp);
+            }
+            SubjectiveOpinion result = function.apply(found ? SubjectiveOpinion.fromSnapshot(expected, 0) : null);
+            if (result != null) {
+                result.snapshot(replacement, 0);
+            }
+
+            stamp = s.writeLock();
+            try {
+                //compare: the entry must still be the one the function was applied to
+                int slot = s.find(key, h);
+                if ((slot >= 0) != found) {
+                    continue;
+                }
+                if (found && !s.equals(slot, expected)) {
+                    continue;
+                }
+                //swap
+                if (result != null) {
+                    s.put(key, h, replacement, 0);
+                } else if (found) {
+                    s.remove(slot);
+                }
+                return result == null ? null : SubjectiveOpinion.fromSnapshot(replacement, 0);
+            } finally {
+                s.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * @return true iff there was an entry.
+     */
+    public boolean remove(long key)
+    {
+        long h = hash(key);
+        Segment s = segmentFor(h);
+        long stamp = s.writeLock();
+        try {
+            int slot = s.find(key, h);
+            if (slot < 0) {
+                return false;
+            }
+            s.remove(slot);
+            return true;
+        } finally {
+            s.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @return the amount of entries, which is only exact if the store is not changed concurrently.
+     */
+    public long size()
+    {
+        long size = 0L;
+        for (Segment s : this.segments) {
+            long stamp = s.readLock();
+            try {
+                size += s.size;
+            } finally {
+                s.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    public void clear()
+    {
+        for (Segment s : this.segments) {
+            long stamp = s.writeLock();
+            try {
+                s.table = new Table(tableSizeFor(16));
+                s.size = 0;
+            } finally {
+                s.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * The keys and the entries of a segment, where an entry whose belief is NaN is empty. A table is replaced as a
+     * whole when it grows, so that an optimistic reader always sees keys and entries of the same capacity.
+     */
+    private static final class Table
+    {
+        final long[] keys;
+        final double[] entries;
+        final int mask;
+
+        Table(int capacity)
+        {
+            this.keys = new long[capacity];
+            this.entries = new double[capacity * R];
+            this.mask = capacity - 1;
+            for (int slot = 0; slot < capacity; slot++) {
+                this.entries[slot * R] = Double.NaN;
+            }
+        }
+
+        boolean isEmpty(int slot)
+        {
+            return Double.isNaN(this.entries[slot * R]);
+        }
+    }
+
+    private static final class Segment
+            extends StampedLock
+    {
+        private static final long serialVersionUID = 1L;
+
+        //only changed while holding the write lock
+        Table table;
+        int size = 0;
+        //two registers for the fusion of an entry with an opinion, only used while holding the write lock
+        final double[] scratch = new double[2 * R];
+
+        Segment(int capacity)
+        {
+            this.table = new Table(capacity);
+        }
+
+        /**
+         * @return the slot of the key, or -1 if there is none. As optimistic readers may see a table that is being
+         * changed, the probe sequence is bounded by the capacity.
+         */
+        int find(long key, long hash)
+        {
+            return find(this.table, key, hash);
+        }
+
+        private static int find(Table t, long key, long hash)
+        {
+            int slot = (int) hash & t.mask;
+            for (int probes = 0; probes <= t.mask; probes++) {
+                if (t.isEmpty(slot)) {
+                    return -1;
+                }
+                if (t.keys[slot] == key) {
+                    return slot;
+                }
+                slot = (slot + 1) & t.mask;
+            }
+            return -1;
+        }
+
+        boolean copy(long key, long hash, double[] values)
+        {
+            Table t = this.table;
+            int slot = find(t, key, hash);
+            if (slot < 0) {
+                return false;
+            }
+            System.arraycopy(t.entries, slot * R, values, 0, R);
+            return true;
+        }
+
+        double expectation(long key, long hash)
+        {
+            Table t = this.table;
+            int slot = find(t, key, hash);
+            if (slot < 0) {
+                return Double.NaN;
+            }
+            int o = slot * R;
+            return OpinionBase.constrain(OpinionBase.adjust(t.entries[o] + t.entries[o + 3] * t.entries[o + 2]));
+        }
+
+        boolean equals(int slot, double[] values)
+        {
+            int o = slot * R;
+            for (int i = 0; i < R; i++) {
+                if (Double.doubleToLongBits(this.table.entries[o + i]) != Double.doubleToLongBits(values[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void put(long key, long hash, double[] values, int offset)
+        {
+            int slot = find(key, hash);
+            if (slot < 0) {
+                if (this.size + 1 > LOAD_FACTOR * (this.table.mask + 1)) {
+                    grow();
+                }
+                Table t = this.table;
+                slot = (int) hash & t.mask;
+                while (!t.isEmpty(slot)) {
+                    slot = (slot + 1) & t.mask;
+                }
+                t.keys[slot] = key;
+                this.size++;
+            }
+            System.arraycopy(values, offset, this.table.entries, slot * R, R);
+        }
+
+        private void grow()
+        {
+            Table old = this.table;
+            if (old.mask + 1 >= MAXIMUM_CAPACITY) {
+                throw new IllegalStateException("Segment is full");
+            }
+            Table t = new Table((old.mask + 1) << 1);
+            for (int from = 0; from <= old.mask; from++) {
+                if (old.isEmpty(from)) {
+                    continue;
+                }
+                int slot = (int) hash(old.keys[from]) & t.mask;
+                while (!t.isEmpty(slot)) {
+                    slot = (slot + 1) & t.mask;
+                }
+                t.keys[slot] = old.keys[from];
+                System.arraycopy(old.entries, from * R, t.entries, slot * R, R);
+            }
+            this.table = t;
+        }
+
+        /**
+         * Removes the entry in the slot, and moves the following entries of the probe sequence back, so that no
+         * tombstones are needed.
+         */
+        void remove(int slot)
+        {
+            Table t = this.table;
+            int free = slot;
+            t.entries[free * R] = Double.NaN;
+            int next = free;
+            while (true) {
+                next = (next + 1) & t.mask;
+                if (t.isEmpty(next)) {
+                    break;
+                }
+                int home = (int) hash(t.keys[next]) & t.mask;
+                //the entry may move to the free slot if its home is not cyclically within (free, next]
+                boolean stays = free <= next ? ((free < home) && (home <= next)) : ((free < home) || (home <= next));
+                if (!stays) {
+                    t.keys[free] = t.keys[next];
+                    System.arraycopy(t.entries, next * R, t.entries, free * R, R);
+                    t.entries[next * R] = Double.NaN;
+                    free = next;
+                }
+            }
+            this.size--;
+        }
+    }
+}
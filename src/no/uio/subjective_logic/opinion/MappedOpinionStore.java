@@ -0,0 +1,465 @@
+package no.uio.subjective_logic.opinion;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A fixed amount of opinion records, indexed from 0, that are kept off the heap in a memory-mapped file. Each record
+ * holds belief, disbelief, uncertainty, atomicity, relative weight and a timestamp. Opening a store only maps the file,
+ * so a store of any size is available immediately after a restart, and the records cost no heap space and no work for
+ * the garbage collector.
+ *
+ * Each record has two slots and a version, whose lowest bit selects the slot that holds the current values. An update
+ * writes the new values into the other slot, and then publishes them by incrementing the version with a single aligned
+ * 8-byte write. A record is therefore never torn, also when the process is killed during an update: after reopening, it
+ * holds either the old or the new values. Version 0 is a record that was never written, and a removed record holds
+ * NaN as belief. Records are 128 bytes, so that they never cross a page.
+ *
+ * Updates are written to the page cache, from where the operating system writes them to the file at some point.
+ * {@link #checkpoint()} forces all updates to the file, so that they also survive a crash of the machine.
+ * {@link #snapshot(Path)} writes a consistent copy of all records to another file, which replaces that file atomically.
+ *
+ * Within the process, updates of a record are atomic, and reads see the values of a single update: records are locked
+ * in stripes of {@link StampedLock}s, and reads are optimistic. The file must not be used by other processes at the same
+ * time. Instances are thread-safe.
+ */
+public class MappedOpinionStore
+        implements Closeable
+{
+    private static final int MAGIC = 0x534c4f53; // "SLOS"
+    private static final int FORMAT_VERSION = 1;
+
+    //the header has the size of a record, and the records follow
+    private static final int RECORD_SHIFT = 7;
+    private static final int RECORD_SIZE = 1 << RECORD_SHIFT;
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_FORMAT = 4;
+    private static final int HEADER_CAPACITY = 8;
+    private static final int HEADER_CHECKPOINTS = 16;
+
+    //the layout of a record: the version, followed by two slots
+    private static final int VERSION = 0;
+    private static final int SLOT = 8;
+    private static final int SLOT_SIZE = 48;
+    private static final int BELIEF = 0, DISBELIEF = 8, UNCERTAINTY = 16, ATOMICITY = 24, WEIGHT = 32, TIME = 40;
+
+    //each mapping covers 2^30 bytes, as a MappedByteBuffer is indexed by int
+    private static final int CHUNK_SHIFT = 30 - RECORD_SHIFT;
+    private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+    private static final int STRIPES = 64;
+    private static final int R = SubjectiveOpinion.SNAPSHOT_SIZE;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer[] chunks;
+    private final int capacity;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private volatile boolean closed = false;
+
+    private MappedOpinionStore(Path path, FileChannel channel, int capacity) throws IOException
+    {
+        this.path = path;
+        this.channel = channel;
+        this.capacity = capacity;
+        long size = fileSize(capacity);
+        this.chunks = new MappedByteBuffer[(int) (((size - 1) >>> 30) + 1)];
+        for (int i = 0; i < this.chunks.length; i++) {
+            long position = (long) i << 30;
+            this.chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.min(1L << 30, size - position));
+            this.chunks[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+        for (int i = 0; i < STRIPES; i++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Creates a new file with the given amount of empty records, and maps it.
+     *
+     * @throws IOException if the file exists or cannot be created.
+     */
+    public static MappedOpinionStore create(Path path, int capacity) throws IOException
+    {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = header(capacity, 0L);
+            channel.write(header, 0L);
+            //extends the file with zeros, which are empty records
+            channel.write(ByteBuffer.allocate(1), fileSize(capacity) - 1L);
+            channel.force(true);
+            return new MappedOpinionStore(path, channel, capacity);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Maps an existing file, which was created by {@link #create(Path, int)} or {@link #snapshot(Path)}.
+     *
+     * @throws IOException if the file cannot be read, or is not a store.
+     */
+    public static MappedOpinionStore open(Path path) throws IOException
+    {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && (channel.read(header, header.position()) >= 0)) {
+                //reads the whole header
+            }
+            if ((header.position() < RECORD_SIZE) || (header.getInt(HEADER_MAGIC) != MAGIC)) {
+                throw new IOException("Not an opinion store: " + path);
+            }
+            if (header.getInt(HEADER_FORMAT) != FORMAT_VERSION) {
+                throw new IOException("Unsupported format version " + header.getInt(HEADER_FORMAT) + ": " + path);
+            }
+            int capacity = header.getInt(HEADER_CAPACITY);
+            if ((capacity < 0) || (channel.size() != fileSize(capacity))) {
+                throw new IOException("Size of " + path + " does not match its capacity " + capacity);
+            }
+            return new MappedOpinionStore(path, channel, capacity);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static long fileSize(int capacity)
+    {
+        return ((long) capacity + 1L) << RECORD_SHIFT;
+    }
+
+    private static ByteBuffer header(int capacity, long checkpoints)
+    {
+        ByteBuffer header = ByteBuffer.allocate(RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(HEADER_MAGIC, MAGIC);
+        header.putInt(HEADER_FORMAT, FORMAT_VERSION);
+        header.putInt(HEADER_CAPACITY, capacity);
+        header.putLong(HEADER_CHECKPOINTS, checkpoints);
+        return header;
+    }
+
+    public Path getPath()
+    {
+        return this.path;
+    }
+
+    /**
+     * @return the amount of records.
+     */
+    public int getCapacity()
+    {
+        return this.capacity;
+    }
+
+    /**
+     * @return the amount of checkpoints of the file, including those of the files it was copied from.
+     */
+    public long getCheckpointCount()
+    {
+        ensureOpen();
+        return this.chunks[0].getLong(HEADER_CHECKPOINTS);
+    }
+
+    private MappedByteBuffer chunk(int index)
+    {
+        return this.chunks[(index + 1) >>> CHUNK_SHIFT];
+    }
+
+    private static int offset(int index)
+    {
+        return ((index + 1) & CHUNK_MASK) << RECORD_SHIFT;
+    }
+
+    private Stripe stripe(int index)
+    {
+        return this.stripes[index & (STRIPES - 1)];
+    }
+
+    private void check(int index)
+    {
+        ensureOpen();
+        if ((index < 0) || (index >= this.capacity)) {
+            throw new IndexOutOfBoundsException("Index " + index + " is not in [0," + this.capacity + ")");
+        }
+    }
+
+    private void ensureOpen()
+    {
+        if (this.closed) {
+            throw new IllegalStateException("Store is closed");
+        }
+    }
+
+    /**
+     * Copies the current values of a record to values, in the layout of {@link SubjectiveOpinion#snapshot(double[], int)}
+     * with the time instead of the last operator.
+     *
+     * @return false iff the record is empty.
+     */
+    private static boolean read(MappedByteBuffer chunk, int offset, double[] values)
+    {
+        long version = chunk.getLong(offset + VERSION);
+        if (version == 0L) {
+            return false;
+        }
+        int slot = offset + SLOT + (int) (version & 1L) * SLOT_SIZE;
+        values[0] = chunk.getDouble(slot + BELIEF);
+        if (Double.isNaN(values[0])) {
+            return false;
+        }
+        values[1] = chunk.getDouble(slot + DISBELIEF);
+        values[2] = chunk.getDouble(slot + UNCERTAINTY);
+        values[3] = chunk.getDouble(slot + ATOMICITY);
+        values[4] = chunk.getDouble(slot + WEIGHT);
+        values[5] = chunk.getDouble(slot + TIME);
+        return true;
+    }
+
+    /**
+     * Writes values in the layout of read into the inactive slot, and then makes it the active slot.
+     */
+    private static void write(MappedByteBuffer chunk, int offset, double[] values, int from)
+    {
+        long version = chunk.getLong(offset + VERSION);
+        int slot = offset + SLOT + (int) ((version + 1L) & 1L) * SLOT_SIZE;
+        chunk.putDouble(slot + BELIEF, values[from]);
+        chunk.putDouble(slot + DISBELIEF, values[from + 1]);
+        chunk.putDouble(slot + UNCERTAINTY, values[from + 2]);
+        chunk.putDouble(slot + ATOMICITY, values[from + 3]);
+        chunk.putDouble(slot + WEIGHT, values[from + 4]);
+        chunk.putDouble(slot + TIME, values[from + 5]);
+        chunk.putLong(offset + VERSION, version + 1L);
+    }
+
+    private boolean read(int index, double[] values)
+    {
+        check(index);
+        MappedByteBuffer chunk = chunk(index);
+        int offset = offset(index);
+        Stripe s = stripe(index);
+        long stamp = s.tryOptimisticRead();
+        if (stamp != 0L) {
+            boolean found = read(chunk, offset, values);
+            if (s.validate(stamp)) {
+                return found;
+            }
+        }
+        stamp = s.readLock();
+        try {
+            return read(chunk, offset, values);
+        } finally {
+            s.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return a new opinion with the values and relative weight of the record, or null if it is empty.
+     */
+    public SubjectiveOpinion get(int index)
+    {
+        double[] values = new double[R];
+        if (!read(index, values)) {
+            return null;
+        }
+        values[5] = -1.0D;
+        return SubjectiveOpinion.fromSnapshot(values, 0);
+    }
+
+    /**
+     * @return the time of the record, or NaN if it is empty.
+     */
+    public double getTime(int index)
+    {
+        double[] values = new double[R];
+        return read(index, values) ? values[5] : Double.NaN;
+    }
+
+    public boolean contains(int index)
+    {
+        return read(index, new double[R]);
+    }
+
+    /**
+     * Replaces the record with the opinion and the time.
+     */
+    public void put(int index, Opinion opinion, double time)
+    {
+        if (opinion == null) {
+            throw new NullPointerException("Opinion must not be null");
+        }
+        check(index);
+        SubjectiveOpinion o = opinion.toSubjectiveOpinion();
+        Stripe s = stripe(index);
+        long stamp = s.writeLock();
+        try {
+            o.snapshot(s.scratch, 0);
+            s.scratch[5] = time;
+            write(chunk(index), offset(index), s.scratch, 0);
+        } finally {
+            s.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Fuses the opinion into the record with {@link SubjectiveOpinion#cumulativeFuse(Opinion)}, and sets its time, or
+     * puts the opinion if the record is empty.
+     *
+     * @throws OpinionArithmeticException if the opinions cannot be fused, in which case the record is not changed.
+     */
+    public void fuse(int index, Opinion opinion, double time) throws OpinionArithmeticException
+    {
+        if (opinion == null) {
+            throw new NullPointerException("Opinion must not be null");
+        }
+        check(index);
+        SubjectiveOpinion o = opinion.toSubjectiveOpinion();
+        MappedByteBuffer chunk = chunk(index);
+        int offset = offset(index);
+        Stripe s = stripe(index);
+        long stamp = s.writeLock();
+        try {
+            o.snapshot(s.scratch, R);
+            if (read(chunk, offset, s.scratch)) {
+                s.scratch[5] = -1.0D;
+                SubjectiveOpinion.cumulativeFusion(s.scratch, 0, R, 0);
+                s.scratch[5] = time;
+                write(chunk, offset, s.scratch, 0);
+            } else {
+                s.scratch[R + 5] = time;
+                write(chunk, offset, s.scratch, R);
+            }
+        } finally {
+            s.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Empties the record.
+     *
+     * @return true iff the record was not empty.
+     */
+    public boolean remove(int index)
+    {
+        check(index);
+        MappedByteBuffer chunk = chunk(index);
+        int offset = offset(index);
+        Stripe s = stripe(index);
+        long stamp = s.writeLock();
+        try {
+            if (!read(chunk, offset, s.scratch)) {
+                return false;
+            }
+            s.scratch[0] = Double.NaN;
+            write(chunk, offset, s.scratch, 0);
+            return true;
+        } finally {
+            s.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Forces all updates that were completed before the call to the file, and increments the checkpoint count.
+     */
+    public void checkpoint() throws IOException
+    {
+        ensureOpen();
+        for (MappedByteBuffer chunk : this.chunks) {
+            chunk.force();
+        }
+        //the header is written after the records, so that a checkpoint count is only durable with its records
+        synchronized (this.chunks) {
+            MappedByteBuffer header = this.chunks[0];
+            header.putLong(HEADER_CHECKPOINTS, header.getLong(HEADER_CHECKPOINTS) + 1L);
+            header.force();
+        }
+    }
+
+    /**
+     * Writes a copy of all records to the file at target, which can be opened with {@link #open(Path)}. The copy is
+     * written to a temporary file next to target, forced to disk, and then moved to target atomically, so that target
+     * either holds its previous content or the complete copy, also after a crash. Each record of the copy holds the
+     * values of a single update; updates of different records during the snapshot may or may not be included.
+     */
+    public void snapshot(Path target) throws IOException
+    {
+        ensureOpen();
+        Path directory = target.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                out.write(header(this.capacity, getCheckpointCount()), 0L);
+                ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE << 10).order(ByteOrder.LITTLE_ENDIAN);
+                double[] values = new double[R];
+                long position = RECORD_SIZE;
+                for (int index = 0; index < this.capacity; index++) {
+                    //each record is written with version 1, or 0 if it is empty
+                    int record = buffer.position();
+                    buffer.position(record + RECORD_SIZE);
+                    if (read(index, values)) {
+                        buffer.putLong(record + VERSION, 1L);
+                        int slot = record + SLOT + SLOT_SIZE;
+                        for (int i = 0; i < R; i++) {
+                            buffer.putDouble(slot + 8 * i, values[i]);
+                        }
+                    }
+                    if (!buffer.hasRemaining() || (index == this.capacity - 1)) {
+                        buffer.flip();
+                        while (buffer.hasRemaining()) {
+                            position += out.write(buffer, position);
+                        }
+                        buffer.clear();
+                        Arrays.fill(buffer.array(), (byte) 0);
+                    }
+                }
+                out.force(true);
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Forces all updates to the file, and closes it.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (this.closed) {
+            return;
+        }
+        try {
+            for (MappedByteBuffer chunk : this.chunks) {
+                chunk.force();
+            }
+        } finally {
+            this.closed = true;
+            this.channel.close();
+        }
+    }
+
+    private static final class Stripe
+            extends StampedLock
+    {
+        private static final long serialVersionUID = 1L;
+
+        //two registers for the fusion of a record with an opinion, only used while holding the write lock
+        final double[] scratch = new double[2 * R];
+    }
+}
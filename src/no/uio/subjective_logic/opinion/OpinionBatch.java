@@ -0,0 +1,449 @@
+package no.uio.subjective_logic.opinion;
+
+import java.util.Collection;
+
+/**
+ * A fixed-size batch of binomial opinions, stored column-wise in one primitive array each for belief, disbelief,
+ * uncertainty and atomicity. A batch of n opinions takes 32n bytes, and the bulk operators below loop over the columns
+ * without creating any {@link SubjectiveOpinion}, so they are well suited for (re-)scoring large amounts of entities.
+ *
+ * The bulk operators compute the same opinions as the corresponding methods of {@link SubjectiveOpinion}, and normalize
+ * their results in the same way, up to rounding. As opinions in a batch do not keep track of the operators that
+ * produced them, their relative weight is always 1.
+ *
+ * Each operator is available in two variants: one that returns a new batch, and one that writes into a given result
+ * batch of the same size. The result batch may be this batch, in which case the operator is applied in place. All
+ * values are validated before the first one is written, so if an operator or a setter throws an exception, the batch
+ * is left unchanged.
+ *
+ * Instances are not thread-safe.
+ */
+public class OpinionBatch
+{
+    final double[] belief;
+    final double[] disbelief;
+    final double[] uncertainty;
+    final double[] atomicity;
+
+    /**
+     * Creates a batch of vacuous opinions with an atomicity of 0.5.
+     *
+     * @param size the amount of opinions in the batch.
+     */
+    public OpinionBatch(int size)
+    {
+        if (size < 0) {
+            throw new IllegalArgumentException("Size must not be negative: " + size);
+        }
+        this.belief = new double[size];
+        this.disbelief = new double[size];
+        this.uncertainty = new double[size];
+        this.atomicity = new double[size];
+        for (int i = 0; i < size; i++) {
+            this.uncertainty[i] = 1.0D;
+            this.atomicity[i] = 0.5D;
+        }
+    }
+
+    /**
+     * Creates a batch that contains the given opinions, in iteration order.
+     */
+    public OpinionBatch(Collection<? extends Opinion> opinions)
+    {
+        this(opinions.size());
+        int i = 0;
+        for (Opinion o : opinions) {
+            set(i++, o);
+        }
+    }
+
+    public OpinionBatch(OpinionBatch batch)
+    {
+        if (batch == null) {
+            throw new NullPointerException("Batch must not be null");
+        }
+        this.belief = batch.belief.clone();
+        this.disbelief = batch.disbelief.clone();
+        this.uncertainty = batch.uncertainty.clone();
+        this.atomicity = batch.atomicity.clone();
+    }
+
+    /**
+     * Bulk version of {@link SubjectiveOpinion#fromProjection(double, double)}.
+     *
+     * @param projectedProbabilities the projected probability for each opinion.
+     * @param baseRate the base rate of all opinions.
+     * @return a new batch of uncertainty-maximized opinions.
+     */
+    public static OpinionBatch fromProjection(double[] projectedProbabilities, double baseRate)
+    {
+        if (baseRate < 0 || baseRate > 1)
+            throw new IllegalArgumentException("Invalid base rate: " + baseRate);
+        OpinionBatch batch = new OpinionBatch(projectedProbabilities.length);
+        double a = OpinionBase.constrain(OpinionBase.adjust(baseRate));
+        for (int i = 0; i < projectedProbabilities.length; i++) {
+            double p = projectedProbabilities[i];
+            if (p < 0 || p > 1)
+                throw new IllegalArgumentException("Invalid projected probability: " + p);
+
+            //maximize the uncertainty of the dogmatic opinion (p, 1-p, 0, a), see SubjectiveOpinion.maximizeUncertainty()
+            double b, d, u;
+            double e = OpinionBase.constrain(OpinionBase.adjust(p));
+            if (e <= a) {
+                b = 0.0D;
+                if (a > 0.0D) {
+                    d = OpinionBase.adjust(1.0D - e / a);
+                    u = OpinionBase.adjust(e / a);
+                } else {
+                    d = 0.0D;
+                    u = 1.0D;
+                }
+            } else {
+                d = 0.0D;
+                if (a < 1.0D) {
+                    double dogmaticDisbelief = OpinionBase.constrain(OpinionBase.adjust(1.0D - p));
+                    b = OpinionBase.adjust(1.0D - dogmaticDisbelief / (1.0D - a));
+                    u = OpinionBase.adjust(dogmaticDisbelief / (1.0D - a));
+                } else {
+                    b = 0.0D;
+                    u = 0.0D;
+                }
+            }
+            batch.store(i, b, d, u, a);
+        }
+        return batch;
+    }
+
+    /**
+     * Bulk version of {@link SubjectiveOpinion#fromProjection(double)}, the base rate is assumed to be 0.5.
+     */
+    public static OpinionBatch fromProjection(double[] projectedProbabilities)
+    {
+        return fromProjection(projectedProbabilities, 0.5D);
+    }
+
+    /**
+     * @return the amount of opinions in this batch.
+     */
+    public int size()
+    {
+        return this.belief.length;
+    }
+
+    public double getBelief(int index)
+    {
+        return this.belief[index];
+    }
+
+    public double getDisbelief(int index)
+    {
+        return this.disbelief[index];
+    }
+
+    public double getUncertainty(int index)
+    {
+        return this.uncertainty[index];
+    }
+
+    public double getAtomicity(int index)
+    {
+        return this.atomicity[index];
+    }
+
+    public double getExpectation(int index)
+    {
+        return OpinionBase.constrain(OpinionBase.adjust(this.belief[index] + this.atomicity[index] * this.uncertainty[index]));
+    }
+
+    /**
+     * @return a new SubjectiveOpinion with the values of the opinion at the given index.
+     */
+    public SubjectiveOpinion get(int index)
+    {
+        return new SubjectiveOpinion(this.belief[index], this.disbelief[index], this.uncertainty[index], this.atomicity[index]);
+    }
+
+    /**
+     * Replaces the opinion at the given index. The values are normalized as in
+     * {@link SubjectiveOpinion#SubjectiveOpinion(double, double, double, double)}.
+     */
+    public void set(int index, double belief, double disbelief, double uncertainty, double atomicity)
+    {
+        if ((belief < 0.0D) || (disbelief < 0.0D) || (uncertainty < 0.0D)) {
+            throw new IllegalArgumentException("Belief, Disbelief and Uncertainty, x,  must be: 0 <= x");
+        }
+        store(index, belief, disbelief, uncertainty, atomicity);
+    }
+
+    /**
+     * Replaces the opinion at the given index.
+     */
+    public void set(int index, Opinion opinion)
+    {
+        if (opinion == null) {
+            throw new NullPointerException("Opinion must not be null");
+        }
+        //the values of a single snapshot, which are already rounded and constrained
+        double[] values = new double[6];
+        opinion.toSubjectiveOpinion().snapshot(values, 0);
+        this.belief[index] = values[0];
+        this.disbelief[index] = values[1];
+        this.uncertainty[index] = values[2];
+        this.atomicity[index] = values[3];
+    }
+
+    /**
+     * Bulk version of {@link SubjectiveOpinion#getExpectation()}.
+     *
+     * @return a new array with the expectation of each opinion.
+     */
+    public double[] expectations()
+    {
+        return expectations(new double[size()]);
+    }
+
+    /**
+     * Bulk version of {@link SubjectiveOpinion#getExpectation()}.
+     *
+     * @param result the array to write the expectation of each opinion to.
+     * @return result
+     */
+    public double[] expectations(double[] result)
+    {
+        if (result.length != size()) {
+            throw new IllegalArgumentException("Result must have the same size as the batch: " + result.length + " != " + size());
+        }
+        OpinionKernels.expectation(this, result);
+        return result;
+    }
+
+    /**
+     * Bulk version of {@link SubjectiveOpinion#not()}.
+     */
+    public OpinionBatch not()
+    {
+        return not(new OpinionBatch(size()));
+    }
+
+    /**
+     * Bulk version of {@link SubjectiveOpinion#not()}.
+     *
+     * @param result the batch to write the complements to, which may be this batch.
+     * @return result
+     */
+    public OpinionBatch not(OpinionBatch result)
+    {
+        checkSize(result);
+        OpinionKernels.complement(this, result);
+        return result;
+    }
+
+    /**
+     * Bulk version of {@link SubjectiveOpinion#erode(double)}.
+     */
+    public OpinionBatch erode(double factor)
+    {
+        return erode(factor, new OpinionBatch(size()));
+    }
+
+    /**
+     * Bulk version of {@link SubjectiveOpinion#erode(double)}.
+     *
+     * @param result the batch to write the eroded opinions to, which may be this batch.
+     * @return result
+     */
+    public OpinionBatch erode(double factor, OpinionBatch result)
+    {
+        if ((factor < 0.0D) || (factor > 1.0D)) {
+            throw new IllegalArgumentException("Erosion Factor, f must be: 0 <= f <= 1");
+        }
+        checkSize(result);
+        OpinionKernels.erosion(this, factor, result);
+        return result;
+    }
+
+    /**
+     * Bulk version of {@link SubjectiveOpinion#decay(double, double)}.
+     */
+    public OpinionBatch decay(double halfLife, double time)
+    {
+        return erode(OpinionBase.erosionFactorFromHalfLife(halfLife, time));
+    }
+
+    /**
+     * Bulk version of {@link SubjectiveOpinion#discountBy(Opinion)}, where all opinions are discounted by the same opinion.
+     */
+    public OpinionBatch discountBy(Opinion opinion)
+    {
+        return discountBy(opinion, new OpinionBatch(size()));
+    }
+
+    /**
+     * Bulk version of {@link SubjectiveOpinion#discountBy(Opinion)}, where all opinions are discounted by the same opinion.
+     *
+     * @param result the batch to write the discounted opinions to, which may be this batch.
+     * @return result
+     */
+    public OpinionBatch discountBy(Opinion opinion, OpinionBatch result)
+    {
+        if (opinion == null) {
+            throw new NullPointerException("Opinion must not be null");
+        }
+        double expectation = opinion.getExpectation();
+        if (!(expectation >= 0.0D && expectation <= 1.0D)) {
+            throw new IllegalArgumentException("Expectation, x, must be: 0 <= x <= 1");
+        }
+        checkSize(result);
+        OpinionKernels.transitivity(expectation, this, result);
+        return result;
+    }
+
+    /**
+     * Bulk version of {@link SubjectiveOpinion#discountBy(Opinion)}, where each opinion is discounted by the opinion at
+     * the same index of the given batch.
+     */
+    public OpinionBatch discountBy(OpinionBatch opinions)
+    {
+        return discountBy(opinions, new OpinionBatch(size()));
+    }
+
+    /**
+     * Bulk version of {@link SubjectiveOpinion#discountBy(Opinion)}, where each opinion is discounted by the opinion at
+     * the same index of the given batch.
+     *
+     * @param result the batch to write the discounted opinions to, which may be this batch.
+     * @return result
+     */
+    public OpinionBatch discountBy(OpinionBatch opinions, OpinionBatch result)
+    {
+        checkSize(opinions);
+        checkSize(result);
+        OpinionKernels.transitivity(opinions, this, result);
+        return result;
+    }
+
+    /**
+     * Bulk version of {@link SubjectiveOpinion#and(Opinion)}, where each opinion is multiplied with the opinion at the
+     * same index of the given batch.
+     */
+    public OpinionBatch and(OpinionBatch opinions)
+    {
+        return and(opinions, new OpinionBatch(size()));
+    }
+
+    /**
+     * Bulk version of {@link SubjectiveOpinion#and(Opinion)}, where each opinion is multiplied with the opinion at the
+     * same index of the given batch.
+     *
+     * @param result the batch to write the products to, which may be this batch.
+     * @return result
+     */
+    public OpinionBatch and(OpinionBatch opinions, OpinionBatch result)
+    {
+        checkSize(opinions);
+        checkSize(result);
+        OpinionKernels.multiplication(this, opinions, result);
+        return result;
+    }
+
+    /**
+     * Bulk version of {@link SubjectiveOpinion#or(Opinion)}, where each opinion is comultiplied with the opinion at the
+     * same index of the given batch.
+     */
+    public OpinionBatch or(OpinionBatch opinions)
+    {
+        return or(opinions, new OpinionBatch(size()));
+    }
+
+    /**
+     * Bulk version of {@link SubjectiveOpinion#or(Opinion)}, where each opinion is comultiplied with the opinion at the
+     * same index of the given batch.
+     *
+     * @param result the batch to write the coproducts to, which may be this batch.
+     * @return result
+     */
+    public OpinionBatch or(OpinionBatch opinions, OpinionBatch result)
+    {
+        checkSize(opinions);
+        checkSize(result);
+        OpinionKernels.coMultiplication(this, opinions, result);
+        return result;
+    }
+
+    /**
+     * Bulk version of {@link SubjectiveOpinion#deduce(Conditionals)}.
+     */
+    public OpinionBatch deduce(Conditionals conditionals) throws OpinionArithmeticException
+    {
+        if (conditionals == null) {
+            throw new NullPointerException("The conditionals must not be null");
+        }
+        return deduce(conditionals.prepare());
+    }
+
+    /**
+     * Bulk version of {@link SubjectiveOpinion#deduce(PreparedConditionals)}.
+     */
+    public OpinionBatch deduce(PreparedConditionals conditionals)
+    {
+        return deduce(conditionals, new OpinionBatch(size()));
+    }
+
+    /**
+     * Bulk version of {@link SubjectiveOpinion#deduce(PreparedConditionals)}.
+     *
+     * @param result the batch to write the deduced opinions to, which may be this batch.
+     * @return result
+     */
+    public OpinionBatch deduce(PreparedConditionals conditionals, OpinionBatch result)
+    {
+        if (conditionals == null) {
+            throw new NullPointerException("The conditionals must not be null");
+        }
+        checkSize(result);
+        OpinionKernels.deduction(this, conditionals, result);
+        return result;
+    }
+
+    /**
+     * Bulk version of {@link SubjectiveOpinion#deduce(Opinion, Opinion)}.
+     */
+    public OpinionBatch deduce(Opinion yTx, Opinion yFx) throws OpinionArithmeticException
+    {
+        return deduce(yTx, yFx, new OpinionBatch(size()));
+    }
+
+    /**
+     * Bulk version of {@link SubjectiveOpinion#deduce(Opinion, Opinion)}.
+     *
+     * @param result the batch to write the deduced opinions to, which may be this batch.
+     * @return result
+     */
+    public OpinionBatch deduce(Opinion yTx, Opinion yFx, OpinionBatch result) throws OpinionArithmeticException
+    {
+        return deduce(new PreparedConditionals(yTx, yFx), result);
+    }
+
+    private void checkSize(OpinionBatch other)
+    {
+        if (other == null) {
+            throw new NullPointerException("Batch must not be null");
+        }
+        if (other.size() != size()) {
+            throw new IllegalArgumentException("Batches must have the same size: " + other.size() + " != " + size());
+        }
+    }
+
+    /**
+     * Checks and stores an opinion, and normalizes it, see {@link OpinionKernels#normalize(OpinionBatch, int, int)}.
+     */
+    private void store(int index, double b, double d, double u, double a)
+    {
+        OpinionKernels.check(b, d, u, a);
+        this.belief[index] = b;
+        this.disbelief[index] = d;
+        this.uncertainty[index] = u;
+        this.atomicity[index] = a;
+        OpinionKernels.normalize(this, index, index + 1);
+    }
+}
@@ -0,0 +1,364 @@
+package no.uio.subjective_logic.opinion;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.ObjectStreamException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * A compact binary encoding of {@link SubjectiveOpinion}s, {@link PureBayesian}s and {@link DiscreteBayesian}s, which
+ * are written to and read from {@link ByteBuffer}s directly, in blocks of any amount of opinions. Only the values of the
+ * opinions are encoded; listeners and cached values are not.
+ *
+ * A block starts with the version of the encoding (1 byte) and the amount of opinions (4 bytes), followed by the
+ * opinions, each starting with a tag (1 byte) for its class and {@link Format}:
+ * <table>
+ * <caption>The sizes of the opinions in bytes, without the tag</caption>
+ * <tr><th></th><th>{@link Format#FIXED}</th><th>{@link Format#QUANTIZED}</th></tr>
+ * <tr><td>SubjectiveOpinion</td><td>41</td><td>13</td></tr>
+ * <tr><td>PureBayesian</td><td>24</td><td>10</td></tr>
+ * <tr><td>DiscreteBayesian of n buckets</td><td>12 + 8n</td><td>6 + 4n</td></tr>
+ * </table>
+ *
+ * Values are written in the byte order of the buffer. The same codec is used for Java serialization of these
+ * classes, see {@link SerialForm}.
+ */
+public final class OpinionCodec
+{
+    /**
+     * The version of the encoding, which is the first byte of every block.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * How the values of an opinion are encoded.
+     */
+    public enum Format
+    {
+        /**
+         * All values as doubles, so that the decoded opinion has exactly the values of the encoded opinion.
+         */
+        FIXED,
+        /**
+         * Uncertainty, evidence and weights as floats, and atomicities as unsigned 16-bit fractions, which are within
+         * 2^-17 of the encoded values. Belief is encoded as a 16-bit fraction of the committed mass 1-u, so that belief
+         * and disbelief are within 2^-17 of the encoded values and add up to 1-u, and a positive uncertainty is never
+         * decoded as 0, however small it is.
+         */
+        QUANTIZED
+    }
+
+    private static final int HEADER_SIZE = 5;
+    private static final int SUBJECTIVE = 0, PURE = 2, DISCRETE = 4;
+    private static final int QUANTIZED_BIT = 1;
+    private static final double Q = 65535.0D;
+    private static final OpinionOperator[] OPERATORS = OpinionOperator.values();
+
+    private OpinionCodec()
+    {
+    }
+
+    /**
+     * @return the amount of bytes that {@link #encode(Opinion[], int, int, Format, ByteBuffer)} writes for the opinions.
+     */
+    public static int encodedSize(Opinion[] opinions, int offset, int length, Format format)
+    {
+        checkRange(opinions, offset, length);
+        if (format == null) {
+            throw new NullPointerException("Format must not be null");
+        }
+        long size = HEADER_SIZE;
+        for (int i = offset; i < offset + length; i++) {
+            size += encodedSize(opinions[i], format);
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Encoded opinions exceed 2 GiB");
+        }
+        return (int) size;
+    }
+
+    private static int encodedSize(Opinion opinion, Format format)
+    {
+        boolean quantized = format == Format.QUANTIZED;
+        Class<?> c = opinion == null ? null : opinion.getClass();
+        if (c == SubjectiveOpinion.class) {
+            return 1 + (quantized ? 13 : 41);
+        }
+        if (c == PureBayesian.class) {
+            return 1 + (quantized ? 10 : 24);
+        }
+        if (c == DiscreteBayesian.class) {
+            int buckets = ((DiscreteBayesian) opinion).size();
+            return 1 + (quantized ? 6 + 4 * buckets : 12 + 8 * buckets);
+        }
+        if (opinion == null) {
+            throw new NullPointerException("Opinions must not be null");
+        }
+        throw new IllegalArgumentException("Cannot encode opinions of " + c.getName());
+    }
+
+    private static void checkRange(Object[] array, int offset, int length)
+    {
+        if (array == null) {
+            throw new NullPointerException("Opinions must not be null");
+        }
+        if ((offset < 0) || (length < 0) || (offset > array.length - length)) {
+            throw new IndexOutOfBoundsException("Range [" + offset + "," + offset + "+" + length
+                    + ") is not within an array of length " + array.length);
+        }
+    }
+
+    /**
+     * Writes a block with the opinions in opinions[offset, offset+length) at the position of the buffer, and advances
+     * the position.
+     *
+     * @throws BufferOverflowException if the block does not fit into the remaining bytes of the buffer, in which case
+     *                                 nothing is written.
+     * @throws IllegalArgumentException if an opinion is not exactly of one of the supported classes.
+     */
+    public static void encode(Opinion[] opinions, int offset, int length, Format format, ByteBuffer buffer)
+    {
+        if (encodedSize(opinions, offset, length, format) > buffer.remaining()) {
+            throw new BufferOverflowException();
+        }
+        boolean quantized = format == Format.QUANTIZED;
+        buffer.put((byte) VERSION);
+        buffer.putInt(length);
+        double[] values = new double[CompiledOpinionNetwork.REGISTER_SIZE];
+        for (int i = offset; i < offset + length; i++) {
+            Opinion o = opinions[i];
+            if (o instanceof SubjectiveOpinion) {
+                encode((SubjectiveOpinion) o, quantized, buffer, values);
+            } else if (o instanceof PureBayesian) {
+                encode((PureBayesian) o, quantized, buffer);
+            } else {
+                encode((DiscreteBayesian) o, quantized, buffer);
+            }
+        }
+    }
+
+    private static void encode(SubjectiveOpinion o, boolean quantized, ByteBuffer buffer, double[] values)
+    {
+        //a single snapshot, so that the values are consistent
+        o.snapshot(values, 0);
+        if (quantized) {
+            //uncertainties below the smallest float are rounded up, so that the opinion does not become dogmatic
+            float uncertainty = values[2] > 0.0D ? Math.max((float) values[2], Float.MIN_VALUE) : 0.0F;
+            double committed = values[0] + values[1];
+            buffer.put((byte) (SUBJECTIVE | QUANTIZED_BIT));
+            buffer.putShort(quantize(committed > 0.0D ? values[0] / committed : 0.0D));
+            buffer.putFloat(uncertainty);
+            buffer.putShort(quantize(values[3]));
+            buffer.putFloat((float) values[4]);
+        } else {
+            buffer.put((byte) SUBJECTIVE);
+            buffer.putDouble(values[0]);
+            buffer.putDouble(values[1]);
+            buffer.putDouble(values[2]);
+            buffer.putDouble(values[3]);
+            buffer.putDouble(values[4]);
+        }
+        buffer.put((byte) values[5]);
+    }
+
+    private static void encode(PureBayesian o, boolean quantized, ByteBuffer buffer)
+    {
+        synchronized (o)
+        {
+            if (quantized) {
+                buffer.put((byte) (PURE | QUANTIZED_BIT));
+                buffer.putFloat((float) o.getPositive());
+                buffer.putFloat((float) o.getNegative());
+                buffer.putShort(quantize(o.getAtomicity()));
+            } else {
+                buffer.put((byte) PURE);
+                buffer.putDouble(o.getPositive());
+                buffer.putDouble(o.getNegative());
+                buffer.putDouble(o.getAtomicity());
+            }
+        }
+    }
+
+    private static void encode(DiscreteBayesian o, boolean quantized, ByteBuffer buffer)
+    {
+        synchronized (o)
+        {
+            int size = o.size();
+            buffer.put((byte) (DISCRETE | (quantized ? QUANTIZED_BIT : 0)));
+            buffer.putInt(size);
+            if (quantized) {
+                buffer.putShort(quantize(o.getAtomicity()));
+                for (int i = 0; i < size; i++) {
+                    buffer.putFloat((float) o.getValue(i));
+                }
+            } else {
+                buffer.putDouble(o.getAtomicity());
+                for (int i = 0; i < size; i++) {
+                    buffer.putDouble(o.getValue(i));
+                }
+            }
+        }
+    }
+
+    private static short quantize(double fraction)
+    {
+        return (short) Math.round(fraction * Q);
+    }
+
+    private static double dequantize(short fraction)
+    {
+        return (fraction & 0xffff) / Q;
+    }
+
+    /**
+     * @return the amount of opinions in the block at the position of the buffer, without changing the position.
+     * @throws IllegalArgumentException if the block has an unsupported version.
+     */
+    public static int count(ByteBuffer buffer)
+    {
+        int version = buffer.get(buffer.position()) & 0xff;
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported codec version: " + version);
+        }
+        return buffer.getInt(buffer.position() + 1);
+    }
+
+    /**
+     * Reads the block at the position of the buffer into opinions, starting at offset, and advances the position. Each
+     * opinion is a new instance of the class that was encoded.
+     *
+     * @return the amount of opinions, see {@link #count(ByteBuffer)}.
+     * @throws IndexOutOfBoundsException if the opinions do not fit into the array from offset.
+     * @throws BufferUnderflowException if the block is truncated.
+     * @throws IllegalArgumentException if the block has an unsupported version, or is invalid.
+     */
+    public static int decode(ByteBuffer buffer, Opinion[] opinions, int offset)
+    {
+        int count = count(buffer);
+        checkRange(opinions, offset, count);
+        buffer.position(buffer.position() + HEADER_SIZE);
+        double[] values = new double[CompiledOpinionNetwork.REGISTER_SIZE];
+        for (int i = offset; i < offset + count; i++) {
+            opinions[i] = decode(buffer, values);
+        }
+        return count;
+    }
+
+    private static Opinion decode(ByteBuffer buffer, double[] values)
+    {
+        int tag = buffer.get();
+        boolean quantized = (tag & QUANTIZED_BIT) != 0;
+        switch (tag & ~QUANTIZED_BIT)
+        {
+            case SUBJECTIVE:
+                if (quantized) {
+                    double share = dequantize(buffer.getShort());
+                    double uncertainty = buffer.getFloat();
+                    if (!(uncertainty >= 0.0D && uncertainty <= 1.0D)) {
+                        throw new IllegalArgumentException("Invalid uncertainty: " + uncertainty);
+                    }
+                    double committed = 1.0D - uncertainty;
+                    values[0] = share * committed;
+                    values[1] = committed - values[0];
+                    values[2] = uncertainty;
+                    values[3] = dequantize(buffer.getShort());
+                    values[4] = buffer.getFloat();
+                } else {
+                    for (int i = 0; i < 5; i++) {
+                        values[i] = buffer.getDouble();
+                    }
+                }
+                values[5] = buffer.get();
+                if (values[5] >= OPERATORS.length) {
+                    throw new IllegalArgumentException("Unknown operator: " + values[5]);
+                }
+                return SubjectiveOpinion.fromSnapshot(values, 0);
+            case PURE:
+                if (quantized) {
+                    double positive = buffer.getFloat();
+                    double negative = buffer.getFloat();
+                    return new PureBayesian(positive, negative, dequantize(buffer.getShort()));
+                }
+                double positive = buffer.getDouble();
+                double negative = buffer.getDouble();
+                return new PureBayesian(positive, negative, buffer.getDouble());
+            case DISCRETE:
+                int size = buffer.getInt();
+                if ((size < 2) || (size > buffer.remaining())) {
+                    throw new IllegalArgumentException("Invalid amount of buckets: " + size);
+                }
+                double atomicity = quantized ? dequantize(buffer.getShort()) : buffer.getDouble();
+                DiscreteBayesian o = new DiscreteBayesian(size);
+                for (int i = 0; i < size; i++) {
+                    o.setValue(i, quantized ? buffer.getFloat() : buffer.getDouble());
+                }
+                o.setAtomicity(atomicity);
+                return o;
+            default:
+                throw new IllegalArgumentException("Unknown tag: " + tag);
+        }
+    }
+
+    /**
+     * The serialized form of opinions of the supported classes: a block of one opinion in {@link Format#FIXED}, so that
+     * the deserialized opinion has exactly the values of the serialized opinion.
+     */
+    static final class SerialForm
+            implements Externalizable
+    {
+        private static final long serialVersionUID = 1L;
+
+        private Opinion opinion;
+
+        public SerialForm()
+        {
+        }
+
+        SerialForm(Opinion opinion)
+        {
+            this.opinion = opinion;
+        }
+
+        @Override
+        public void writeExternal(ObjectOutput out) throws IOException
+        {
+            Opinion[] opinions = {this.opinion};
+            ByteBuffer buffer = ByteBuffer.allocate(encodedSize(opinions, 0, 1, Format.FIXED));
+            encode(opinions, 0, 1, Format.FIXED, buffer);
+            out.writeInt(buffer.capacity());
+            out.write(buffer.array());
+        }
+
+        @Override
+        public void readExternal(ObjectInput in) throws IOException
+        {
+            int length = in.readInt();
+            if (length < 0) {
+                throw new InvalidObjectException("Negative length: " + length);
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            Opinion[] opinions = new Opinion[1];
+            try {
+                if (decode(ByteBuffer.wrap(bytes), opinions, 0) != 1) {
+                    throw new InvalidObjectException("Expected a single opinion");
+                }
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | BufferUnderflowException e) {
+                InvalidObjectException invalid = new InvalidObjectException("Invalid encoded opinion");
+                invalid.initCause(e);
+                throw invalid;
+            }
+            this.opinion = opinions[0];
+        }
+
+        private Object readResolve() throws ObjectStreamException
+        {
+            return this.opinion;
+        }
+    }
+}
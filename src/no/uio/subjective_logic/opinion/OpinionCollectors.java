@@ -0,0 +1,178 @@
+package no.uio.subjective_logic.opinion;
+
+import java.util.Arrays;
+import java.util.stream.Collector;
+
+/**
+ * {@link Collector} implementations of the multi-source fusion operators of {@link SubjectiveOpinion}, so that opinions
+ * can be fused at the end of a stream pipeline without collecting them into a list first. All collectors support
+ * parallel streams, and produce the same results as the corresponding collection-based methods.
+ *
+ * In contrast to the collection-based methods, fusing a single opinion is allowed, and an empty stream causes an
+ * {@link OpinionArithmeticException}. Null elements cause a {@link NullPointerException}.
+ */
+public final class OpinionCollectors
+{
+    private OpinionCollectors()
+    {
+    }
+
+    /**
+     * @return a collector that performs cumulative belief fusion, see {@link SubjectiveOpinion#cumulativeCollectionFuse(java.util.Collection)}.
+     */
+    public static Collector<SubjectiveOpinion, ?, SubjectiveOpinion> cumulative()
+    {
+        return Collector.of(CumulativeFusionAccumulator::new, CumulativeFusionAccumulator::add,
+                CumulativeFusionAccumulator::merge, CumulativeFusionAccumulator::toSubjectiveOpinion);
+    }
+
+    /**
+     * @return a collector that performs weighted belief fusion, see {@link SubjectiveOpinion#weightedCollectionFuse(java.util.Collection)}.
+     */
+    public static Collector<SubjectiveOpinion, ?, SubjectiveOpinion> weighted()
+    {
+        return Collector.of(WeightedFusionAccumulator::new, WeightedFusionAccumulator::add,
+                WeightedFusionAccumulator::merge, WeightedFusionAccumulator::toSubjectiveOpinion);
+    }
+
+    /**
+     * The consensus phase of CC fusion must be complete before the compromise phase can start, so the belief, disbelief
+     * and uncertainty of every opinion are buffered in primitive arrays until the stream is finished.
+     *
+     * @return a collector that performs consensus &amp; compromise fusion, see {@link SubjectiveOpinion#ccCollectionFuse(java.util.Collection)}.
+     */
+    public static Collector<SubjectiveOpinion, ?, SubjectiveOpinion> consensusCompromise()
+    {
+        return Collector.of(ConsensusCompromiseBuffer::new, ConsensusCompromiseBuffer::add,
+                ConsensusCompromiseBuffer::merge, ConsensusCompromiseBuffer::toSubjectiveOpinion, Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * @return a collector that performs MIN fusion, see {@link SubjectiveOpinion#minimumCollectionFuse(java.util.Collection)}.
+     */
+    public static Collector<SubjectiveOpinion, ?, SubjectiveOpinion> minimum()
+    {
+        return Collector.of(
+                () -> new SubjectiveOpinion[1],
+                (min, o) -> {
+                    if (o == null) {
+                        throw new NullPointerException("Cannot fuse null opinions");
+                    }
+                    min[0] = min[0] == null ? o : min[0].minimum(o);
+                },
+                (left, right) -> {
+                    if (left[0] == null)
+                        return right;
+                    if (right[0] != null)
+                        left[0] = left[0].minimum(right[0]);
+                    return left;
+                },
+                min -> {
+                    if (min[0] == null) {
+                        throw new OpinionArithmeticException("Opinions must not be empty");
+                    }
+                    return min[0];
+                });
+    }
+
+    /**
+     * @return a collector that performs MAJORITY fusion, see {@link SubjectiveOpinion#majorityCollectionFuse(java.util.Collection)}.
+     */
+    public static Collector<SubjectiveOpinion, ?, SubjectiveOpinion> majority()
+    {
+        //votes[0] counts positive opinions, votes[1] negative ones and votes[2] all opinions
+        return Collector.of(
+                () -> new int[3],
+                (votes, o) -> {
+                    if (o == null) {
+                        throw new NullPointerException("Cannot fuse null opinions");
+                    }
+                    if (o.getExpectation() > o.getAtomicity())
+                        votes[0]++;
+                    else if (o.getExpectation() < o.getAtomicity())
+                        votes[1]++;
+                    votes[2]++;
+                },
+                (left, right) -> {
+                    left[0] += right[0];
+                    left[1] += right[1];
+                    left[2] += right[2];
+                    return left;
+                },
+                votes -> {
+                    if (votes[2] == 0) {
+                        throw new OpinionArithmeticException("Opinions must not be empty");
+                    }
+                    return SubjectiveOpinion.majority(votes[0], votes[1]);
+                },
+                Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * Buffers the belief, disbelief and uncertainty of the opinions for CC fusion, and checks that all base rates are equal.
+     */
+    private static final class ConsensusCompromiseBuffer
+    {
+        private double[] beliefs = new double[16];
+        private double[] disbeliefs = new double[16];
+        private double[] uncertainties = new double[16];
+        private int size = 0;
+        private double baseRate = -1;
+
+        void add(SubjectiveOpinion opinion)
+        {
+            if (opinion == null) {
+                throw new NullPointerException("Cannot fuse null opinions");
+            }
+            checkBaseRate(opinion.getAtomicity());
+            ensureCapacity(this.size + 1);
+            this.beliefs[this.size] = opinion.getBelief();
+            this.disbeliefs[this.size] = opinion.getDisbelief();
+            this.uncertainties[this.size] = opinion.getUncertainty();
+            this.size++;
+        }
+
+        ConsensusCompromiseBuffer merge(ConsensusCompromiseBuffer other)
+        {
+            if (other.size == 0)
+                return this;
+            checkBaseRate(other.baseRate);
+            ensureCapacity(this.size + other.size);
+            System.arraycopy(other.beliefs, 0, this.beliefs, this.size, other.size);
+            System.arraycopy(other.disbeliefs, 0, this.disbeliefs, this.size, other.size);
+            System.arraycopy(other.uncertainties, 0, this.uncertainties, this.size, other.size);
+            this.size = this.size + other.size;
+            return this;
+        }
+
+        SubjectiveOpinion toSubjectiveOpinion()
+        {
+            if (this.size == 0) {
+                throw new OpinionArithmeticException("Opinions must not be empty");
+            }
+            if (this.size == 1) {
+                return new SubjectiveOpinion(this.beliefs[0], this.disbeliefs[0], this.uncertainties[0], this.baseRate);
+            }
+            //the kernel overwrites the beliefs and disbeliefs, so this must be the last use of the buffer
+            return SubjectiveOpinion.ccCollectionFuse(this.beliefs, this.disbeliefs, this.uncertainties, this.size, this.baseRate);
+        }
+
+        private void checkBaseRate(double atomicity)
+        {
+            if (this.size == 0)
+                this.baseRate = atomicity;
+            else if (this.baseRate != atomicity)
+                throw new OpinionArithmeticException("Base rates for CC Fusion must be the same");
+        }
+
+        private void ensureCapacity(int capacity)
+        {
+            if (capacity > this.beliefs.length) {
+                int newLength = Math.max(capacity, 2 * this.beliefs.length);
+                this.beliefs = Arrays.copyOf(this.beliefs, newLength);
+                this.disbeliefs = Arrays.copyOf(this.disbeliefs, newLength);
+                this.uncertainties = Arrays.copyOf(this.uncertainties, newLength);
+            }
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package no.uio.subjective_logic.opinion;
+
+/**
+ * Scalar loops that evaluate binomial operators of {@link SubjectiveOpinion} over the primitive columns of
+ * {@link OpinionBatch}. There is no explicitly vectorized variant; whether the loops use SIMD instructions is up to the
+ * JIT compiler.
+ *
+ * Each operator is evaluated in passes over the columns. The arithmetic pass contains only the multiplications and
+ * additions of the operator, without method calls, rounding or allocation. Values that the operator rounds before it
+ * uses them, like the expectation in {@link #transitivity(OpinionBatch, OpinionBatch, OpinionBatch)}, are rounded in
+ * a pass of their own before it. The last pass, {@link #normalize(OpinionBatch, int, int)}, rounds, constrains and
+ * normalizes the results in the same way as SubjectiveOpinion does. All passes support the case that the result is
+ * one of the inputs.
+ *
+ * The opinions of a batch are always valid, as they are checked before they are stored. For valid inputs, the operators
+ * below compute valid results, except for deduction with adjusted conditionals, which is checked for all opinions before
+ * the first result is written. So no kernel fails after it has started to write to the result.
+ */
+final class OpinionKernels
+{
+    private OpinionKernels()
+    {
+    }
+
+    /**
+     * Writes the expectation of each opinion to result, see {@link SubjectiveOpinion#getExpectation()}.
+     */
+    static void expectation(OpinionBatch x, double[] result)
+    {
+        final double[] xb = x.belief, xu = x.uncertainty, xa = x.atomicity;
+        final int n = result.length;
+        for (int i = 0; i < n; i++) {
+            result[i] = xb[i] + xa[i] * xu[i];
+        }
+        for (int i = 0; i < n; i++) {
+            result[i] = OpinionBase.constrain(OpinionBase.adjust(result[i]));
+        }
+    }
+
+    /**
+     * The complement of each opinion, see {@link SubjectiveOpinion#not()}.
+     */
+    static void complement(OpinionBatch x, OpinionBatch result)
+    {
+        final double[] xb = x.belief, xd = x.disbelief, xu = x.uncertainty, xa = x.atomicity;
+        final double[] ob = result.belief, od = result.disbelief, ou = result.uncertainty, oa = result.atomicity;
+        final int n = x.size();
+        for (int i = 0; i < n; i++) {
+            double b = xb[i];
+            ob[i] = xd[i];
+            od[i] = b;
+            ou[i] = xu[i];
+            oa[i] = 1.0D - xa[i];
+        }
+        normalize(result, 0, n);
+    }
+
+    /**
+     * The erosion of each opinion, see {@link SubjectiveOpinion#erode(double)}.
+     */
+    static void erosion(OpinionBatch x, double factor, OpinionBatch result)
+    {
+        final double[] xb = x.belief, xd = x.disbelief, xa = x.atomicity;
+        final double[] ob = result.belief, od = result.disbelief, ou = result.uncertainty, oa = result.atomicity;
+        final int n = x.size();
+        final double f = 1.0D - factor;
+        for (int i = 0; i < n; i++) {
+            double b = xb[i] * f;
+            double d = xd[i] * f;
+            ob[i] = b;
+            od[i] = d;
+            ou[i] = 1.0D - b - d;
+            oa[i] = xa[i];
+        }
+        normalize(result, 0, n);
+    }
+
+    /**
+     * Discounts each opinion of y by an opinion with the given expectation, see {@link SubjectiveOpinion#discountBy(Opinion)}.
+     */
+    static void transitivity(double expectation, OpinionBatch y, OpinionBatch result)
+    {
+        final double[] yb = y.belief, yd = y.disbelief, ya = y.atomicity;
+        final double[] ob = result.belief, od = result.disbelief, ou = result.uncertainty, oa = result.atomicity;
+        final int n = y.size();
+        for (int i = 0; i < n; i++) {
+            double b = expectation * yb[i];
+            double d = expectation * yd[i];
+            ob[i] = b;
+            od[i] = d;
+            ou[i] = 1.0D - (d + b);
+            oa[i] = ya[i];
+        }
+        normalize(result, 0, n);
+    }
+
+    /**
+     * Discounts each opinion of y by the opinion of x at the same index, see {@link SubjectiveOpinion#discountBy(Opinion)}.
+     */
+    static void transitivity(OpinionBatch x, OpinionBatch y, OpinionBatch result)
+    {
+        final double[] xb = x.belief, xu = x.uncertainty, xa = x.atomicity;
+        final double[] yb = y.belief, yd = y.disbelief, ya = y.atomicity;
+        final double[] ob = result.belief, od = result.disbelief, ou = result.uncertainty, oa = result.atomicity;
+        final int n = y.size();
+        //the expectations of x are kept in the uncertainty of the result, which is written last
+        for (int i = 0; i < n; i++) {
+            ou[i] = xb[i] + xa[i] * xu[i];
+        }
+        for (int i = 0; i < n; i++) {
+            ou[i] = OpinionBase.constrain(OpinionBase.adjust(ou[i]));
+        }
+        for (int i = 0; i < n; i++) {
+            double e = ou[i];
+            double b = e * yb[i];
+            double d = e * yd[i];
+            ob[i] = b;
+            od[i] = d;
+            ou[i] = 1.0D - (d + b);
+            oa[i] = ya[i];
+        }
+        normalize(result, 0, n);
+    }
+
+    /**
+     * The binomial multiplication of the opinions of x and y at the same index, see {@link SubjectiveOpinion#and(Opinion)}.
+     */
+    static void multiplication(OpinionBatch x, OpinionBatch y, OpinionBatch result)
+    {
+        final double[] xb = x.belief, xd = x.disbelief, xu = x.uncertainty, xa = x.atomicity;
+        final double[] yb = y.belief, yd = y.disbelief, yu = y.uncertainty, ya = y.atomicity;
+        final double[] ob = result.belief, od = result.disbelief, ou = result.uncertainty, oa = result.atomicity;
+        final int n = x.size();
+        for (int i = 0; i < n; i++) {
+            double xbi = xb[i], xdi = xd[i], xui = xu[i], xai = xa[i];
+            double ybi = yb[i], ydi = yd[i], yui = yu[i], yai = ya[i];
+
+            double d = xdi + ydi - xdi * ydi;
+            double a = xai * yai;
+            double expec = (xbi + xai * xui) * (ybi + yai * yui);
+            double divisor = 1.0D - a;
+
+            //the relative weight of the opinions in a batch is always 1
+            ob[i] = divisor != 0.0D ? ((d - 1.0D) * a + expec) / divisor : xbi * ybi + (xbi * yui + xui * ybi) / 2.0D;
+            ou[i] = divisor != 0.0D ? -(d - 1.0D + expec) / divisor : (xbi * yui + ybi * xui) / 2.0D + xui * yui;
+            od[i] = d;
+            oa[i] = a;
+        }
+        normalize(result, 0, n);
+    }
+
+    /**
+     * The binomial comultiplication of the opinions of x and y at the same index, see {@link SubjectiveOpinion#or(Opinion)}.
+     */
+    static void coMultiplication(OpinionBatch x, OpinionBatch y, OpinionBatch result)
+    {
+        final double[] xb = x.belief, xd = x.disbelief, xu = x.uncertainty, xa = x.atomicity;
+        final double[] yb = y.belief, yd = y.disbelief, yu = y.uncertainty, ya = y.atomicity;
+        final double[] ob = result.belief, od = result.disbelief, ou = result.uncertainty, oa = result.atomicity;
+        final int n = x.size();
+        for (int i = 0; i < n; i++) {
+            double xbi = xb[i], xdi = xd[i], xui = xu[i], xai = xa[i];
+            double ybi = yb[i], ydi = yd[i], yui = yu[i], yai = ya[i];
+
+            double b = xbi + ybi - xbi * ybi;
+            double a = xai + yai - xai * yai;
+
+            //the relative weight of the opinions in a batch is always 1
+            double u = a != 0.0D ? xui * yui + (yai * xdi * yui + xai * xui * ydi) / a : xui * yui + (xdi * yui + xui * ydi) / 2.0D;
+
+            ob[i] = b;
+            od[i] = 1.0D - b - u;
+            ou[i] = u;
+            oa[i] = a;
+        }
+        normalize(result, 0, n);
+    }
+
+    /**
+     * Deduces an opinion from each opinion of x and the given conditionals, see {@link SubjectiveOpinion#deduce(PreparedConditionals)}.
+     * If the conditionals require no adjustment of the intermediate opinion I, only the multiplications and additions
+     * for I remain; otherwise each opinion is deduced separately by the prepared conditionals.
+     */
+    static void deduction(OpinionBatch x, PreparedConditionals conditionals, OpinionBatch result)
+    {
+        final double[] xb = x.belief, xd = x.disbelief, xu = x.uncertainty, xa = x.atomicity;
+        final double[] ob = result.belief, od = result.disbelief, ou = result.uncertainty, oa = result.atomicity;
+        final int n = x.size();
+        final double yTxBelief = conditionals.yTxBelief, yTxDisbelief = conditionals.yTxDisbelief, yTxUncertainty = conditionals.yTxUncertainty;
+        final double yFxBelief = conditionals.yFxBelief, yFxDisbelief = conditionals.yFxDisbelief, yFxUncertainty = conditionals.yFxUncertainty;
+        final double yAtomicity = conditionals.yAtomicity;
+
+        if (conditionals.isAdjusted()) {
+            double[] y = new double[4];
+            for (int i = 0; i < n; i++) {
+                conditionals.deduction(xb[i], xd[i], xu[i], xa[i], y);
+                check(y[0], y[1], y[2], y[3]);
+            }
+            for (int i = 0; i < n; i++) {
+                conditionals.deduction(xb[i], xd[i], xu[i], xa[i], y);
+                ob[i] = y[0];
+                od[i] = y[1];
+                ou[i] = y[2];
+                oa[i] = y[3];
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                double xbi = xb[i], xdi = xd[i], xui = xu[i], xai = xa[i];
+                double xni = 1.0D - xai;
+                ob[i] = xbi * yTxBelief + xdi * yFxBelief + xui * (yTxBelief * xai + yFxBelief * xni);
+                od[i] = xbi * yTxDisbelief + xdi * yFxDisbelief + xui * (yTxDisbelief * xai + yFxDisbelief * xni);
+                ou[i] = xbi * yTxUncertainty + xdi * yFxUncertainty + xui * (yTxUncertainty * xai + yFxUncertainty * xni);
+                oa[i] = yAtomicity;
+            }
+        }
+        normalize(result, 0, n);
+    }
+
+    /**
+     * Checks an opinion in the same way as the constructor of SubjectiveOpinion, before it is written to a batch.
+     *
+     * @throws IllegalArgumentException if the opinion is out of range.
+     */
+    static void check(double belief, double disbelief, double uncertainty, double atomicity)
+    {
+        double bdu = belief + disbelief + uncertainty;
+        double b = belief / bdu;
+        double u = uncertainty / bdu;
+        if ((b < 0.0D) || (b > 1.0D) || (u < 0.0D) || (u > 1.0D)) {
+            throw new IllegalArgumentException("Belief x or Uncertainty x, must be: 0 <= x <= 1");
+        }
+        if (b + u - 1.0D > 1.0E-010D) {
+            throw new IllegalArgumentException("Belief belief, Uncertainty uncertainty, must be: (belief + uncertainty) <= 1");
+        }
+        if ((atomicity < 0.0D) || (atomicity > 1.0D)) {
+            throw new IllegalArgumentException("Atomicity, x, must be: 0 <= x <= 1");
+        }
+    }
+
+    /**
+     * Normalizes the opinions at the indices from (inclusive) to to (exclusive) in the same way as creating a new
+     * SubjectiveOpinion with these values, followed by a consistency check with recalculation: belief and uncertainty
+     * are divided by the sum of belief, disbelief and uncertainty, and all values are rounded and constrained. The
+     * opinions must have been checked by {@link #check(double, double, double, double)}, or computed from valid
+     * opinions.
+     */
+    static void normalize(OpinionBatch batch, int from, int to)
+    {
+        final double[] ob = batch.belief, od = batch.disbelief, ou = batch.uncertainty;
+        for (int i = from; i < to; i++) {
+            double bdu = ob[i] + od[i] + ou[i];
+            double b = ob[i] / bdu;
+            double u = ou[i] / bdu;
+            double d = OpinionBase.constrain(OpinionBase.adjust(1.0D - (b + u)));
+            b = OpinionBase.constrain(OpinionBase.adjust(b));
+            u = OpinionBase.constrain(OpinionBase.adjust(u));
+
+            if (Math.abs(b + d + u - 1.0D) > 1.0E-010D)
+            {
+                bdu = b + d + u;
+                b = OpinionBase.constrain(OpinionBase.adjust(b / bdu));
+                u = OpinionBase.constrain(OpinionBase.adjust(u / bdu));
+                d = 1.0D - (b + u);
+            }
+
+            ob[i] = b;
+            od[i] = d;
+            ou[i] = u;
+        }
+    }
+}
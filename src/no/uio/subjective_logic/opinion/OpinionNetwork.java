@@ -0,0 +1,526 @@
+package no.uio.subjective_logic.opinion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A directed acyclic graph of opinions, whose nodes are either inputs, which refer to a {@link SubjectiveOpinion}, or
+ * applications of an {@link OpinionOperator} to other nodes. Nodes may be used as arguments of any amount of other nodes,
+ * so that common intermediate results are only computed once per evaluation.
+ *
+ * The arguments of a node must exist before the node is created, so the order in which nodes are created is a
+ * topological order of the graph, and evaluation visits the nodes in this order without recursion.
+ *
+ * Each evaluation first takes a snapshot of all input opinions, and then computes every node once from this snapshot,
+ * so later changes to the inputs do not affect an evaluation. The operators are computed like the corresponding methods
+ * of SubjectiveOpinion:
+ * <ul>
+ * <li>{@link OpinionOperator#Discount}(trust, opinion): opinion.discountBy(trust)</li>
+ * <li>{@link OpinionOperator#Fuse}, {@link OpinionOperator#And}, {@link OpinionOperator#Or}, {@link OpinionOperator#Add}:
+ * cumulativeFuse, and, or and add, from left to right</li>
+ * <li>{@link OpinionOperator#Subtract}, {@link OpinionOperator#UnAnd}, {@link OpinionOperator#UnOr}: subtract, unAnd and
+ * unOr of the first by the second argument</li>
+ * <li>{@link OpinionOperator#Not}: not</li>
+ * <li>{@link OpinionOperator#Deduce}(x, yTx, yFx): x.deduce(yTx, yFx)</li>
+ * <li>{@link OpinionOperator#Abduce}(y, xTy, xFy, baseRate): y.abduce(xTy, xFy, baseRate.getAtomicity())</li>
+ * </ul>
+ * {@link OpinionOperator#SimpleAnd} and {@link OpinionOperator#SimpleOr} are not supported.
+ *
+ * Independent nodes can also be computed in parallel on a {@link ForkJoinPool}, see
+ * {@link #evaluateParallel(ForkJoinPool, int, Node...)}. The results are the same as those of a sequential evaluation.
+ *
+ * Adding nodes is not thread-safe, but a network may be evaluated concurrently once it is built.
+ */
+public class OpinionNetwork
+{
+    private final List<Node> nodes = new ArrayList<>();
+
+    /**
+     * Adds an input node, whose value is taken from the given opinion at the start of each evaluation.
+     */
+    public Node input(SubjectiveOpinion opinion)
+    {
+        if (opinion == null) {
+            throw new NullPointerException("Opinion must not be null");
+        }
+        Node node = new Node(this, this.nodes.size(), null, new Node[0], opinion);
+        this.nodes.add(node);
+        return node;
+    }
+
+    /**
+     * Adds a node that applies the operator to the given arguments.
+     *
+     * @throws IllegalArgumentException if the operator is not supported, the amount of arguments does not match the
+     *                                  operator, or an argument belongs to another network.
+     */
+    public Node apply(OpinionOperator operator, Node... arguments)
+    {
+        if ((operator == null) || (arguments == null)) {
+            throw new NullPointerException();
+        }
+        if ((operator == OpinionOperator.SimpleAnd) || (operator == OpinionOperator.SimpleOr)) {
+            throw new IllegalArgumentException("Operator is not supported: " + operator.name());
+        }
+        if (!operator.checkArgCount(arguments.length)) {
+            throw new IllegalArgumentException("Operator " + operator.name() + " takes " + operator.getMinArgs() + " to "
+                    + operator.getMaxArgs() + " arguments, not " + arguments.length);
+        }
+        for (Node argument : arguments) {
+            if (argument == null) {
+                throw new NullPointerException("Argument must not be null");
+            }
+            if (argument.network != this) {
+                throw new IllegalArgumentException("Argument belongs to another network: " + argument);
+            }
+        }
+        Node node = new Node(this, this.nodes.size(), operator, arguments.clone(), null);
+        this.nodes.add(node);
+        return node;
+    }
+
+    public Node discount(Node trust, Node opinion)
+    {
+        return apply(OpinionOperator.Discount, trust, opinion);
+    }
+
+    public Node fuse(Node... opinions)
+    {
+        return apply(OpinionOperator.Fuse, opinions);
+    }
+
+    public Node and(Node... opinions)
+    {
+        return apply(OpinionOperator.And, opinions);
+    }
+
+    public Node or(Node... opinions)
+    {
+        return apply(OpinionOperator.Or, opinions);
+    }
+
+    public Node not(Node opinion)
+    {
+        return apply(OpinionOperator.Not, opinion);
+    }
+
+    public Node deduce(Node x, Node yTx, Node yFx)
+    {
+        return apply(OpinionOperator.Deduce, x, yTx, yFx);
+    }
+
+    /**
+     * @param baseRateX a node whose atomicity is used as the base rate of x.
+     */
+    public Node abduce(Node y, Node xTy, Node xFy, Node baseRateX)
+    {
+        return apply(OpinionOperator.Abduce, y, xTy, xFy, baseRateX);
+    }
+
+    /**
+     * @return all nodes, in the order they were created.
+     */
+    public List<Node> getNodes()
+    {
+        return Collections.unmodifiableList(this.nodes);
+    }
+
+    public int size()
+    {
+        return this.nodes.size();
+    }
+
+    /**
+     * Evaluates all nodes.
+     */
+    public Evaluation evaluate() throws OpinionArithmeticException
+    {
+        boolean[] required = new boolean[this.nodes.size()];
+        Arrays.fill(required, true);
+        return evaluate(required);
+    }
+
+    /**
+     * Evaluates the given nodes and the nodes they depend on, but no other nodes.
+     */
+    public Evaluation evaluate(Node... outputs) throws OpinionArithmeticException
+    {
+        return evaluate(required(outputs));
+    }
+
+    /**
+     * Evaluates all nodes, computing independent nodes in parallel, see {@link #evaluateParallel(ForkJoinPool, int, Node...)}.
+     */
+    public Evaluation evaluateParallel(ForkJoinPool pool, int costThreshold) throws OpinionArithmeticException
+    {
+        boolean[] required = new boolean[this.nodes.size()];
+        Arrays.fill(required, true);
+        return evaluateParallel(required, pool, costThreshold);
+    }
+
+    /**
+     * Evaluates the given nodes and the nodes they depend on, computing independent nodes in parallel.
+     *
+     * The nodes are grouped into levels, where the level of a node is one more than the highest level of its arguments,
+     * so that the nodes of one level only depend on nodes of lower levels. The nodes of a level are split into tasks
+     * whose estimated cost is at least the threshold, which are computed by the pool with work stealing. Levels that
+     * cannot be split into two such tasks are computed sequentially by the calling thread. The estimated cost of a node
+     * is the amount of its arguments, and higher for deduction and abduction.
+     *
+     * @param costThreshold the minimum estimated cost of a task, at least 1.
+     */
+    public Evaluation evaluateParallel(ForkJoinPool pool, int costThreshold, Node... outputs) throws OpinionArithmeticException
+    {
+        return evaluateParallel(required(outputs), pool, costThreshold);
+    }
+
+    /**
+     * @return for each node, whether it is one of the outputs or one of the nodes that they depend on.
+     */
+    private boolean[] required(Node... outputs)
+    {
+        if (outputs == null) {
+            throw new NullPointerException();
+        }
+        int size = this.nodes.size();
+        boolean[] required = new boolean[size];
+        for (Node output : outputs) {
+            if (output.network != this) {
+                throw new IllegalArgumentException("Node belongs to another network: " + output);
+            }
+            required[output.index] = true;
+        }
+        //arguments always have a lower index than the nodes that use them
+        for (int i = size - 1; i >= 0; i--) {
+            if (required[i]) {
+                for (Node argument : this.nodes.get(i).arguments) {
+                    required[argument.index] = true;
+                }
+            }
+        }
+        return required;
+    }
+
+    private Evaluation evaluate(boolean[] required) throws OpinionArithmeticException
+    {
+        SubjectiveOpinion[] values = snapshot(required);
+        for (int i = 0; i < required.length; i++) {
+            Node node = this.nodes.get(i);
+            if (required[i] && !node.isInput()) {
+                values[i] = compute(node, values);
+            }
+        }
+        return new Evaluation(this, values);
+    }
+
+    /**
+     * Takes the snapshot of all required inputs, before any node is computed, so that every node sees the same input values.
+     */
+    private SubjectiveOpinion[] snapshot(boolean[] required)
+    {
+        SubjectiveOpinion[] values = new SubjectiveOpinion[required.length];
+        for (int i = 0; i < required.length; i++) {
+            Node node = this.nodes.get(i);
+            if (required[i] && node.isInput()) {
+                values[i] = new SubjectiveOpinion(node.input);
+            }
+        }
+        return values;
+    }
+
+    private Evaluation evaluateParallel(boolean[] required, ForkJoinPool pool, int costThreshold)
+            throws OpinionArithmeticException
+    {
+        if (pool == null) {
+            throw new NullPointerException("Pool must not be null");
+        }
+        if (costThreshold < 1) {
+            throw new IllegalArgumentException("Cost threshold must be positive: " + costThreshold);
+        }
+        int size = required.length;
+        SubjectiveOpinion[] values = snapshot(required);
+
+        //sort the required operator nodes by level, with a counting sort
+        int[] level = new int[size];
+        int levels = 0;
+        for (int i = 0; i < size; i++) {
+            Node node = this.nodes.get(i);
+            if (required[i] && !node.isInput()) {
+                for (Node argument : node.arguments) {
+                    level[i] = Math.max(level[i], level[argument.index] + 1);
+                }
+                levels = Math.max(levels, level[i]);
+            }
+        }
+        int[] start = new int[levels + 2];
+        for (int i = 0; i < size; i++) {
+            if (required[i] && (level[i] > 0)) {
+                start[level[i] + 1]++;
+            }
+        }
+        for (int l = 1; l < start.length; l++) {
+            start[l] += start[l - 1];
+        }
+        int[] order = new int[start[levels + 1]];
+        int[] next = start.clone();
+        for (int i = 0; i < size; i++) {
+            if (required[i] && (level[i] > 0)) {
+                order[next[level[i]]++] = i;
+            }
+        }
+
+        for (int l = 1; l <= levels; l++)
+        {
+            int cost = 0;
+            for (int j = start[l]; j < start[l + 1]; j++) {
+                cost += cost(this.nodes.get(order[j]));
+            }
+            ComputeTask task = new ComputeTask(this.nodes, values, order, start[l], start[l + 1], cost, costThreshold);
+            if (cost < 2 * costThreshold)
+                task.compute();
+            else
+                pool.invoke(task);
+        }
+        return new Evaluation(this, values);
+    }
+
+    /**
+     * @return the estimated relative cost of computing the node.
+     */
+    static int cost(Node node)
+    {
+        switch (node.operator)
+        {
+            case Deduce:
+                return 4;
+            case Abduce:
+                //includes the reversal of the conditionals
+                return 16;
+            default:
+                return node.arguments.length;
+        }
+    }
+
+    /**
+     * Computes the nodes order[from] to order[to - 1], which do not depend on each other, splitting them into halves
+     * until the estimated cost of a task is below twice the threshold.
+     */
+    private static final class ComputeTask
+            extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Node> nodes;
+        private final SubjectiveOpinion[] values;
+        private final int[] order;
+        private final int from, to, cost, costThreshold;
+
+        ComputeTask(List<Node> nodes, SubjectiveOpinion[] values, int[] order, int from, int to, int cost, int costThreshold)
+        {
+            this.nodes = nodes;
+            this.values = values;
+            this.order = order;
+            this.from = from;
+            this.to = to;
+            this.cost = cost;
+            this.costThreshold = costThreshold;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if ((this.cost < 2 * this.costThreshold) || (this.to - this.from < 2))
+            {
+                for (int j = this.from; j < this.to; j++) {
+                    Node node = this.nodes.get(this.order[j]);
+                    this.values[node.index] = OpinionNetwork.compute(node, this.values);
+                }
+                return;
+            }
+            int middle = (this.from + this.to) >>> 1;
+            int leftCost = 0;
+            for (int j = this.from; j < middle; j++) {
+                leftCost += cost(this.nodes.get(this.order[j]));
+            }
+            invokeAll(new ComputeTask(this.nodes, this.values, this.order, this.from, middle, leftCost, this.costThreshold),
+                    new ComputeTask(this.nodes, this.values, this.order, middle, this.to, this.cost - leftCost, this.costThreshold));
+        }
+    }
+
+    /**
+     * Computes the value of an operator node from the values of its arguments, which are not modified.
+     */
+    static SubjectiveOpinion compute(Node node, SubjectiveOpinion[] values) throws OpinionArithmeticException
+    {
+        Node[] arguments = node.arguments;
+        SubjectiveOpinion x = values[arguments[0].index];
+        SubjectiveOpinion o = new SubjectiveOpinion();
+
+        switch (node.operator)
+        {
+            case Discount:
+                return values[arguments[1].index].discountByInto(x, o);
+            case Fuse:
+                x.cumulativeFuseInto(values[arguments[1].index], o);
+                for (int i = 2; i < arguments.length; i++) {
+                    o.cumulativeFuseInto(values[arguments[i].index], o);
+                }
+                return o;
+            case And:
+                x.andInto(values[arguments[1].index], o);
+                for (int i = 2; i < arguments.length; i++) {
+                    o.andInto(values[arguments[i].index], o);
+                }
+                return o;
+            case Or:
+                x.orInto(values[arguments[1].index], o);
+                for (int i = 2; i < arguments.length; i++) {
+                    o.orInto(values[arguments[i].index], o);
+                }
+                return o;
+            case Add:
+                o = x;
+                for (int i = 1; i < arguments.length; i++) {
+                    o = o.add(values[arguments[i].index]);
+                }
+                return o;
+            case Subtract:
+                return x.subtract(values[arguments[1].index]);
+            case UnAnd:
+                return x.unAnd(values[arguments[1].index]);
+            case UnOr:
+                return x.unOr(values[arguments[1].index]);
+            case Not:
+                return x.notInto(o);
+            case Deduce:
+                return x.deduceInto(values[arguments[1].index], values[arguments[2].index], o);
+            case Abduce:
+                return x.abduce(values[arguments[1].index], values[arguments[2].index],
+                        values[arguments[3].index].getAtomicity());
+            default:
+                throw new IllegalArgumentException("Operator is not supported: " + node.operator.name());
+        }
+    }
+
+    /**
+     * A node of an {@link OpinionNetwork}. Nodes are immutable, and can only be created by their network.
+     */
+    public static final class Node
+    {
+        final OpinionNetwork network;
+        final int index;
+        final OpinionOperator operator;
+        final Node[] arguments;
+        final SubjectiveOpinion input;
+
+        private Node(OpinionNetwork network, int index, OpinionOperator operator, Node[] arguments, SubjectiveOpinion input)
+        {
+            this.network = network;
+            this.index = index;
+            this.operator = operator;
+            this.arguments = arguments;
+            this.input = input;
+        }
+
+        /**
+         * @return the position of this node in the topological order of its network.
+         */
+        public int getIndex()
+        {
+            return this.index;
+        }
+
+        public boolean isInput()
+        {
+            return this.operator == null;
+        }
+
+        /**
+         * @return the operator of this node, or null for an input.
+         */
+        public OpinionOperator getOperator()
+        {
+            return this.operator;
+        }
+
+        /**
+         * @return the arguments of this node, which are empty for an input.
+         */
+        public List<Node> getArguments()
+        {
+            return Collections.unmodifiableList(Arrays.asList(this.arguments));
+        }
+
+        /**
+         * @return the opinion of an input node, or null for an operator node.
+         */
+        public SubjectiveOpinion getInput()
+        {
+            return this.input;
+        }
+
+        @Override
+        public String toString()
+        {
+            if (isInput()) {
+                return "#" + this.index;
+            }
+            Object[] args = new Object[this.arguments.length];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = "#" + this.arguments[i].index;
+            }
+            //the format of the associative operators only covers two arguments
+            if ((args.length > 2) && this.operator.isAssociative()) {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < args.length; i++) {
+                    sb.append(i == 0 ? this.operator.name() + "(" : ",").append(args[i]);
+                }
+                return sb.append(")").toString();
+            }
+            return this.operator.format(args);
+        }
+    }
+
+    /**
+     * The values of the nodes of a network from one evaluation.
+     */
+    public static final class Evaluation
+    {
+        private final OpinionNetwork network;
+        private final SubjectiveOpinion[] values;
+
+        Evaluation(OpinionNetwork network, SubjectiveOpinion[] values)
+        {
+            this.network = network;
+            this.values = values;
+        }
+
+        /**
+         * @return the value of the node, which belongs to this evaluation and is not shared with other evaluations.
+         * @throws IllegalStateException if the node was not evaluated.
+         */
+        public SubjectiveOpinion get(Node node)
+        {
+            if (node == null) {
+                throw new NullPointerException();
+            }
+            if ((node.network != this.network) || (node.index >= this.values.length)) {
+                throw new IllegalArgumentException("Node does not belong to this evaluation: " + node);
+            }
+            SubjectiveOpinion value = this.values[node.index];
+            if (value == null) {
+                throw new IllegalStateException("Node was not evaluated: " + node);
+            }
+            return value;
+        }
+
+        public boolean isEvaluated(Node node)
+        {
+            return (node.network == this.network) && (node.index < this.values.length) && (this.values[node.index] != null);
+        }
+    }
+}
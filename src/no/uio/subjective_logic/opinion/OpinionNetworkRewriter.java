@@ -0,0 +1,252 @@
+package no.uio.subjective_logic.opinion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rewrites an {@link OpinionNetwork} into an equivalent network with fewer nodes, using the algebraic properties of
+ * the {@link OpinionOperator}s:
+ * <ul>
+ * <li>Identical sub-expressions are computed by a single node. Inputs are identical if they refer to the same opinion
+ * object, and operator nodes are identical if they apply the same operator to the same arguments.</li>
+ * <li>The arguments of commutative operators are sorted, so that for example AND(x,y) and AND(y,x) become identical.</li>
+ * <li>Chains of an associative operator that takes any amount of arguments, like FUSE(FUSE(x,y),z), are flattened into
+ * a single node FUSE(x,y,z), unless an inner node is also used elsewhere.</li>
+ * <li>Nodes that the outputs do not depend on are removed.</li>
+ * </ul>
+ * As the operators are only associative and commutative up to rounding, the rewritten network computes the same
+ * opinions up to rounding. Distributivity is not used, as it would increase the amount of nodes.
+ */
+public final class OpinionNetworkRewriter
+{
+    private OpinionNetworkRewriter()
+    {
+    }
+
+    /**
+     * Rewrites the part of the network that the given outputs depend on.
+     *
+     * @return the rewritten network, and the rewritten node of each output.
+     */
+    public static Rewrite rewrite(OpinionNetwork network, OpinionNetwork.Node... outputs)
+    {
+        if ((network == null) || (outputs == null)) {
+            throw new NullPointerException();
+        }
+        List<OpinionNetwork.Node> nodes = network.getNodes();
+        int size = nodes.size();
+        for (OpinionNetwork.Node output : outputs) {
+            if (output.network != network) {
+                throw new IllegalArgumentException("Node belongs to another network: " + output);
+            }
+        }
+
+        //first pass: canonical terms, with the arguments of commutative operators sorted, and without duplicates
+        List<Term> terms = new ArrayList<>();
+        Map<Term, Integer> termIndex = new HashMap<>();
+        Map<SubjectiveOpinion, Integer> inputIndex = new IdentityHashMap<>();
+        int[] termOf = new int[size];
+        for (OpinionNetwork.Node node : nodes)
+        {
+            if (node.isInput())
+            {
+                Integer index = inputIndex.get(node.input);
+                if (index == null) {
+                    index = terms.size();
+                    terms.add(new Term(null, new int[0], node.input));
+                    inputIndex.put(node.input, index);
+                }
+                termOf[node.index] = index;
+                continue;
+            }
+            int[] arguments = new int[node.arguments.length];
+            for (int i = 0; i < arguments.length; i++) {
+                arguments[i] = termOf[node.arguments[i].index];
+            }
+            termOf[node.index] = intern(terms, termIndex, new Term(node.operator, arguments, null));
+        }
+
+        //count the uses of each term that the outputs depend on, where being an output counts as an additional use
+        int[] uses = new int[terms.size()];
+        boolean[] required = new boolean[terms.size()];
+        for (OpinionNetwork.Node output : outputs) {
+            required[termOf[output.index]] = true;
+            uses[termOf[output.index]]++;
+        }
+        for (int t = terms.size() - 1; t >= 0; t--) {
+            if (required[t]) {
+                for (int argument : terms.get(t).arguments) {
+                    required[argument] = true;
+                    uses[argument]++;
+                }
+            }
+        }
+
+        //second pass: flatten associative chains, where the inner term is used only once
+        int[][] flattened = new int[terms.size()][];
+        boolean[] inlined = new boolean[terms.size()];
+        for (int t = 0; t < terms.size(); t++)
+        {
+            Term term = terms.get(t);
+            if (!required[t] || term.isInput()) {
+                continue;
+            }
+            if (!isFlattenable(term.operator)) {
+                flattened[t] = term.arguments;
+                continue;
+            }
+            int length = 0;
+            for (int argument : term.arguments) {
+                inlined[argument] = (terms.get(argument).operator == term.operator) && (uses[argument] == 1);
+                length += inlined[argument] ? flattened[argument].length : 1;
+            }
+            int[] arguments = new int[length];
+            int i = 0;
+            for (int argument : term.arguments) {
+                if (inlined[argument]) {
+                    System.arraycopy(flattened[argument], 0, arguments, i, flattened[argument].length);
+                    i += flattened[argument].length;
+                } else {
+                    arguments[i++] = argument;
+                }
+            }
+            flattened[t] = arguments;
+        }
+
+        //third pass: build the network, without the inlined terms, again sorting and removing duplicates
+        OpinionNetwork rewritten = new OpinionNetwork();
+        Map<Term, OpinionNetwork.Node> rewrittenNodes = new HashMap<>();
+        OpinionNetwork.Node[] nodeOf = new OpinionNetwork.Node[terms.size()];
+        for (int t = 0; t < terms.size(); t++)
+        {
+            Term term = terms.get(t);
+            if (!required[t] || inlined[t]) {
+                continue;
+            }
+            if (term.isInput()) {
+                nodeOf[t] = rewritten.input(term.input);
+                continue;
+            }
+            int[] arguments = new int[flattened[t].length];
+            for (int i = 0; i < arguments.length; i++) {
+                arguments[i] = nodeOf[flattened[t][i]].index;
+            }
+            Term key = new Term(term.operator, arguments, null);
+            OpinionNetwork.Node node = rewrittenNodes.get(key);
+            if (node == null) {
+                OpinionNetwork.Node[] argumentNodes = new OpinionNetwork.Node[key.arguments.length];
+                for (int i = 0; i < argumentNodes.length; i++) {
+                    argumentNodes[i] = rewritten.getNodes().get(key.arguments[i]);
+                }
+                node = rewritten.apply(term.operator, argumentNodes);
+                rewrittenNodes.put(key, node);
+            }
+            nodeOf[t] = node;
+        }
+
+        OpinionNetwork.Node[] rewrittenOutputs = new OpinionNetwork.Node[outputs.length];
+        for (int i = 0; i < outputs.length; i++) {
+            rewrittenOutputs[i] = nodeOf[termOf[outputs[i].index]];
+        }
+        return new Rewrite(rewritten, outputs, rewrittenOutputs);
+    }
+
+    private static boolean isFlattenable(OpinionOperator operator)
+    {
+        return operator.isAssociative() && (operator.getMaxArgs() > 2);
+    }
+
+    private static int intern(List<Term> terms, Map<Term, Integer> termIndex, Term term)
+    {
+        Integer index = termIndex.get(term);
+        if (index == null) {
+            index = terms.size();
+            terms.add(term);
+            termIndex.put(term, index);
+        }
+        return index;
+    }
+
+    /**
+     * An operator applied to arguments, which are identified by their index. The arguments of commutative operators are
+     * sorted.
+     */
+    private static final class Term
+    {
+        final OpinionOperator operator;
+        final int[] arguments;
+        final SubjectiveOpinion input;
+
+        Term(OpinionOperator operator, int[] arguments, SubjectiveOpinion input)
+        {
+            this.operator = operator;
+            this.arguments = arguments;
+            this.input = input;
+            if ((operator != null) && operator.isCommutative()) {
+                Arrays.sort(arguments);
+            }
+        }
+
+        boolean isInput()
+        {
+            return this.operator == null;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof Term))
+                return false;
+            Term t = (Term) obj;
+            return (this.operator == t.operator) && (this.input == t.input) && Arrays.equals(this.arguments, t.arguments);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * (31 * (this.operator == null ? 0 : this.operator.hashCode()) + Arrays.hashCode(this.arguments))
+                    + System.identityHashCode(this.input);
+        }
+    }
+
+    /**
+     * The result of a rewrite.
+     */
+    public static final class Rewrite
+    {
+        private final OpinionNetwork network;
+        private final Map<OpinionNetwork.Node, OpinionNetwork.Node> outputs = new IdentityHashMap<>();
+
+        Rewrite(OpinionNetwork network, OpinionNetwork.Node[] outputs, OpinionNetwork.Node[] rewrittenOutputs)
+        {
+            this.network = network;
+            for (int i = 0; i < outputs.length; i++) {
+                this.outputs.put(outputs[i], rewrittenOutputs[i]);
+            }
+        }
+
+        /**
+         * @return the rewritten network.
+         */
+        public OpinionNetwork getNetwork()
+        {
+            return this.network;
+        }
+
+        /**
+         * @return the node of the rewritten network that computes the given output of the original network.
+         */
+        public OpinionNetwork.Node get(OpinionNetwork.Node output)
+        {
+            OpinionNetwork.Node node = this.outputs.get(output);
+            if (node == null) {
+                throw new IllegalArgumentException("Node is not an output of the rewrite: " + output);
+            }
+            return node;
+        }
+    }
+}
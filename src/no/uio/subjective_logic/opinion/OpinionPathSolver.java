@@ -0,0 +1,360 @@
+package no.uio.subjective_logic.opinion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Path algorithms over a directed trust graph, whose entities are numbered from 0 to size - 1, and whose edges carry
+ * the referral trust of one entity in another. Paths are extended and combined with an {@link OpinionSemiring}.
+ *
+ * The single-source algorithms compute the same trust as {@link TrustGraph}: a Bellman-Ford style relaxation that
+ * proceeds level by level, so that the trust in each entity is combined from the shortest paths only. Every path is
+ * counted once, so this is also meaningful for semirings that are not idempotent, like cumulative fusion. Each level
+ * only visits the successors of the entities reached by the previous level, so a single source takes time linear in
+ * the amount of entities and edges it reaches. The
+ * all-pairs variant runs the single-source algorithm for every source in parallel, and hands the results of each
+ * source to a consumer, so that only the results of the sources in progress are kept in memory.
+ *
+ * There is no Floyd-Warshall style algorithm: it combines paths in an order that depends on the numbering of the
+ * entities, and its result only matches the one of another order if discounting distributes over fusion and fusion is
+ * associative, which none of the fusion operators guarantees, not even up to rounding.
+ *
+ * In all results, the trust of an entity in itself and in unreachable entities is null. Changing the edges is not
+ * thread-safe, but the algorithms may run concurrently once the graph is built.
+ */
+public class OpinionPathSolver
+{
+    private final int size;
+    private final OpinionSemiring semiring;
+
+    //the edges of each entity, by target
+    private final List<List<Edge>> edges;
+
+    //the incoming and outgoing edges, in compressed sparse row format, built on demand
+    private volatile Adjacency adjacency;
+
+    public OpinionPathSolver(int size, OpinionSemiring semiring)
+    {
+        if (semiring == null) {
+            throw new NullPointerException("Semiring must not be null");
+        }
+        if (size < 0) {
+            throw new IllegalArgumentException("Size must not be negative: " + size);
+        }
+        this.size = size;
+        this.semiring = semiring;
+        this.edges = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            this.edges.add(new ArrayList<>(0));
+        }
+    }
+
+    /**
+     * Sets the trust of from in to, replacing a previous trust. The graph stores a copy of the opinion.
+     */
+    public void setTrust(int from, int to, Opinion trust)
+    {
+        if (trust == null) {
+            throw new NullPointerException("Opinion must not be null");
+        }
+        checkEntity(from);
+        checkEntity(to);
+        if (from == to) {
+            throw new IllegalArgumentException("An entity cannot trust itself: " + from);
+        }
+        List<Edge> out = this.edges.get(from);
+        SubjectiveOpinion copy = new SubjectiveOpinion(trust);
+        this.adjacency = null;
+        for (Edge edge : out) {
+            if (edge.to == to) {
+                edge.trust = copy;
+                return;
+            }
+        }
+        out.add(new Edge(to, copy));
+    }
+
+    /**
+     * Removes the trust of from in to.
+     *
+     * @return true iff there was such a trust.
+     */
+    public boolean removeTrust(int from, int to)
+    {
+        checkEntity(from);
+        checkEntity(to);
+        this.adjacency = null;
+        return this.edges.get(from).removeIf(edge -> edge.to == to);
+    }
+
+    private void checkEntity(int entity)
+    {
+        if ((entity < 0) || (entity >= this.size)) {
+            throw new IllegalArgumentException("Entity must be in [0," + this.size + "): " + entity);
+        }
+    }
+
+    public int size()
+    {
+        return this.size;
+    }
+
+    private Adjacency adjacency()
+    {
+        Adjacency adjacency = this.adjacency;
+        if (adjacency == null) {
+            adjacency = new Adjacency(this.size, this.edges);
+            this.adjacency = adjacency;
+        }
+        return adjacency;
+    }
+
+    /**
+     * @return the derived trust of source in each entity.
+     */
+    public SubjectiveOpinion[] singleSource(int source) throws OpinionArithmeticException
+    {
+        return singleSource(source, null);
+    }
+
+    /**
+     * Computes the derived trust of source in each entity, where the entities of each level are computed in parallel.
+     *
+     * @param pool the pool to compute on, or null to compute in the current thread.
+     */
+    public SubjectiveOpinion[] singleSource(int source, ForkJoinPool pool) throws OpinionArithmeticException
+    {
+        checkEntity(source);
+        Adjacency adjacency = adjacency();
+        SubjectiveOpinion[] trust = new SubjectiveOpinion[this.size];
+        int[] levels = new int[this.size];
+        Arrays.fill(levels, -1);
+        levels[source] = 0;
+        int[] frontier = new int[this.size];
+        int[] next = new int[this.size];
+        frontier[0] = source;
+        int frontierSize = 1;
+        for (int level = 0; frontierSize > 0; level++)
+        {
+            //the unreached successors of the frontier are exactly the entities of the next level
+            int reached = 0;
+            for (int f = 0; f < frontierSize; f++)
+            {
+                int u = frontier[f];
+                for (int i = adjacency.outOffsets[u]; i < adjacency.outOffsets[u + 1]; i++)
+                {
+                    int v = adjacency.targets[i];
+                    if (levels[v] < 0) {
+                        levels[v] = level + 1;
+                        next[reached++] = v;
+                    }
+                }
+            }
+            if (pool == null) {
+                relax(this.semiring, adjacency, source, trust, levels, level, next, 0, reached);
+            } else if (reached > 0) {
+                pool.invoke(new LevelTask(this.semiring, adjacency, source, trust, levels, level, next, 0, reached));
+            }
+            int[] swap = frontier;
+            frontier = next;
+            next = swap;
+            frontierSize = reached;
+        }
+        return trust;
+    }
+
+    /**
+     * Computes the trust in the entities next[from, to) of level + 1 from their predecessors on the given level.
+     */
+    private static void relax(OpinionSemiring semiring, Adjacency adjacency, int source, SubjectiveOpinion[] trust,
+            int[] levels, int level, int[] next, int from, int to)
+    {
+        List<SubjectiveOpinion> paths = new ArrayList<>();
+        for (int n = from; n < to; n++)
+        {
+            int v = next[n];
+            //the entities of the next level are already marked with level + 1, so they are never mistaken for
+            //predecessors, and their trust is not read by this pass
+            for (int i = adjacency.inOffsets[v]; i < adjacency.inOffsets[v + 1]; i++)
+            {
+                int u = adjacency.sources[i];
+                if (levels[u] != level) {
+                    continue;
+                }
+                paths.add(u == source ? new SubjectiveOpinion(adjacency.trust[i])
+                        : semiring.extend(trust[u], adjacency.trust[i]));
+            }
+            trust[v] = semiring.combine(paths);
+            paths.clear();
+        }
+    }
+
+    /**
+     * Computes the derived trust of every source in each entity, where the sources are computed in parallel, and
+     * passes the results of each source to the consumer. The consumer is called concurrently from the threads of the
+     * pool, in no particular order.
+     */
+    public void allPairs(ForkJoinPool pool, ObjIntConsumer<SubjectiveOpinion[]> consumer) throws OpinionArithmeticException
+    {
+        if ((pool == null) || (consumer == null)) {
+            throw new NullPointerException();
+        }
+        adjacency();
+        pool.invoke(new SourcesTask(this, consumer, 0, this.size));
+    }
+
+    /**
+     * @return the derived trust of every source in each entity, indexed by source and entity.
+     * @see #allPairs(ForkJoinPool, ObjIntConsumer)
+     */
+    public SubjectiveOpinion[][] allPairs(ForkJoinPool pool) throws OpinionArithmeticException
+    {
+        SubjectiveOpinion[][] trust = new SubjectiveOpinion[this.size][];
+        allPairs(pool, (result, source) -> trust[source] = result);
+        return trust;
+    }
+
+    private static final class Edge
+    {
+        final int to;
+        SubjectiveOpinion trust;
+
+        Edge(int to, SubjectiveOpinion trust)
+        {
+            this.to = to;
+            this.trust = trust;
+        }
+    }
+
+    /**
+     * The incoming edges of entity v are sources[inOffsets[v]] to sources[inOffsets[v+1]-1], with the trust in v, and
+     * its outgoing edges are targets[outOffsets[v]] to targets[outOffsets[v+1]-1].
+     */
+    private static final class Adjacency
+    {
+        final int[] inOffsets;
+        final int[] sources;
+        final SubjectiveOpinion[] trust;
+        final int[] outOffsets;
+        final int[] targets;
+
+        Adjacency(int size, List<List<Edge>> edges)
+        {
+            this.inOffsets = new int[size + 1];
+            this.outOffsets = new int[size + 1];
+            for (int from = 0; from < size; from++) {
+                List<Edge> out = edges.get(from);
+                this.outOffsets[from + 1] = this.outOffsets[from] + out.size();
+                for (Edge edge : out) {
+                    this.inOffsets[edge.to + 1]++;
+                }
+            }
+            for (int v = 0; v < size; v++) {
+                this.inOffsets[v + 1] += this.inOffsets[v];
+            }
+            this.sources = new int[this.inOffsets[size]];
+            this.trust = new SubjectiveOpinion[this.inOffsets[size]];
+            this.targets = new int[this.outOffsets[size]];
+            int[] next = Arrays.copyOf(this.inOffsets, size);
+            for (int from = 0; from < size; from++) {
+                int j = this.outOffsets[from];
+                for (Edge edge : edges.get(from)) {
+                    int i = next[edge.to]++;
+                    this.sources[i] = from;
+                    this.trust[i] = edge.trust;
+                    this.targets[j++] = edge.to;
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the trust in a range of the entities of the next level, see
+     * {@link #relax(OpinionSemiring, Adjacency, int, SubjectiveOpinion[], int[], int, int[], int, int)}.
+     */
+    private static final class LevelTask
+            extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+        private static final int THRESHOLD = 256;
+
+        private final OpinionSemiring semiring;
+        private final Adjacency adjacency;
+        private final int source;
+        private final SubjectiveOpinion[] trust;
+        private final int[] levels;
+        private final int level;
+        private final int[] next;
+        private final int from, to;
+
+        LevelTask(OpinionSemiring semiring, Adjacency adjacency, int source, SubjectiveOpinion[] trust, int[] levels,
+                int level, int[] next, int from, int to)
+        {
+            this.semiring = semiring;
+            this.adjacency = adjacency;
+            this.source = source;
+            this.trust = trust;
+            this.levels = levels;
+            this.level = level;
+            this.next = next;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (this.to - this.from > THRESHOLD)
+            {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new LevelTask(this.semiring, this.adjacency, this.source, this.trust, this.levels, this.level,
+                                this.next, this.from, middle),
+                        new LevelTask(this.semiring, this.adjacency, this.source, this.trust, this.levels, this.level,
+                                this.next, middle, this.to));
+                return;
+            }
+            relax(this.semiring, this.adjacency, this.source, this.trust, this.levels, this.level, this.next, this.from,
+                    this.to);
+        }
+    }
+
+    /**
+     * Runs the single-source algorithm for a range of sources.
+     */
+    private static final class SourcesTask
+            extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final OpinionPathSolver solver;
+        private final ObjIntConsumer<SubjectiveOpinion[]> consumer;
+        private final int from, to;
+
+        SourcesTask(OpinionPathSolver solver, ObjIntConsumer<SubjectiveOpinion[]> consumer, int from, int to)
+        {
+            this.solver = solver;
+            this.consumer = consumer;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (this.to - this.from > 1)
+            {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new SourcesTask(this.solver, this.consumer, this.from, middle),
+                        new SourcesTask(this.solver, this.consumer, middle, this.to));
+                return;
+            }
+            if (this.from < this.to) {
+                this.consumer.accept(this.solver.singleSource(this.from, null), this.from);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package no.uio.subjective_logic.opinion;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The operations that path algorithms over a trust graph need: extending the opinion along a path by discounting it
+ * with the trust in the previous entity, and combining the opinions along parallel paths by fusion. This resembles a
+ * semiring, where discounting is the multiplication and fusion the addition, but the laws of a semiring only hold up
+ * to rounding, and distributivity does not hold in general.
+ *
+ * Implementations for the fusion operators of {@link SubjectiveOpinion} are provided by {@link OpinionSemirings}. A
+ * missing path, the zero of the semiring, is represented by null, and is handled by the algorithms, see
+ * {@link OpinionPathSolver}. Implementations must be thread-safe.
+ */
+public interface OpinionSemiring
+{
+    /**
+     * Extends a path: computes the opinion of the source in the end of the path, given its trust in the previous entity
+     * and the opinion of the previous entity.
+     *
+     * @return a new opinion.
+     */
+    SubjectiveOpinion extend(SubjectiveOpinion trust, SubjectiveOpinion opinion) throws OpinionArithmeticException;
+
+    /**
+     * Combines the opinions along parallel paths. Combining a single opinion must return an equal opinion.
+     *
+     * @param opinions at least one opinion, which must not be changed.
+     */
+    SubjectiveOpinion combine(List<SubjectiveOpinion> opinions) throws OpinionArithmeticException;
+
+    /**
+     * Combines the opinions along two parallel paths.
+     */
+    default SubjectiveOpinion combine(SubjectiveOpinion x, SubjectiveOpinion y) throws OpinionArithmeticException
+    {
+        return combine(Arrays.asList(x, y));
+    }
+
+    /**
+     * @return true iff combining an opinion with itself results in the same opinion, so that counting a path more
+     * than once does not change the result.
+     */
+    boolean isIdempotent();
+}
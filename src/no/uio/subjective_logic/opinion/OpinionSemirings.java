@@ -0,0 +1,93 @@
+package no.uio.subjective_logic.opinion;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * {@link OpinionSemiring} implementations that extend paths with {@link SubjectiveOpinion#discountBy(Opinion)} and
+ * combine them with one of the multi-source fusion operators of {@link SubjectiveOpinion}.
+ */
+public final class OpinionSemirings
+{
+    private OpinionSemirings()
+    {
+    }
+
+    /**
+     * Cumulative fusion counts the evidence of every path, so it is not idempotent.
+     *
+     * @return a semiring that combines paths with {@link SubjectiveOpinion#cumulativeCollectionFuse(Collection)}.
+     */
+    public static OpinionSemiring cumulative()
+    {
+        return new FusionSemiring(SubjectiveOpinion::cumulativeCollectionFuse, false);
+    }
+
+    /**
+     * Weighted fusion of equal opinions results in the same opinion, but a path that is counted twice gets more weight
+     * than the other paths, so it is not idempotent in the sense of {@link OpinionSemiring#isIdempotent()}.
+     *
+     * @return a semiring that combines paths with {@link SubjectiveOpinion#weightedCollectionFuse(Collection)}.
+     */
+    public static OpinionSemiring weighted()
+    {
+        return new FusionSemiring(SubjectiveOpinion::weightedCollectionFuse, false);
+    }
+
+    /**
+     * CC fusion of equal opinions does not result in the same opinion, so it is not idempotent.
+     *
+     * @return a semiring that combines paths with {@link SubjectiveOpinion#ccCollectionFuse(Collection)}.
+     */
+    public static OpinionSemiring consensusCompromise()
+    {
+        return new FusionSemiring(SubjectiveOpinion::ccCollectionFuse, false);
+    }
+
+    /**
+     * @return a semiring that combines paths with {@link SubjectiveOpinion#minimumCollectionFuse(Collection)}.
+     */
+    public static OpinionSemiring minimum()
+    {
+        return new FusionSemiring(SubjectiveOpinion::minimumCollectionFuse, true);
+    }
+
+    private static final class FusionSemiring
+            implements OpinionSemiring
+    {
+        private final Function<Collection<SubjectiveOpinion>, SubjectiveOpinion> fusion;
+        private final boolean idempotent;
+
+        FusionSemiring(Function<Collection<SubjectiveOpinion>, SubjectiveOpinion> fusion, boolean idempotent)
+        {
+            this.fusion = fusion;
+            this.idempotent = idempotent;
+        }
+
+        @Override
+        public SubjectiveOpinion extend(SubjectiveOpinion trust, SubjectiveOpinion opinion) throws OpinionArithmeticException
+        {
+            return opinion.discountByInto(trust, new SubjectiveOpinion());
+        }
+
+        @Override
+        public SubjectiveOpinion combine(List<SubjectiveOpinion> opinions) throws OpinionArithmeticException
+        {
+            //not all collection-based fusion operators accept a single opinion
+            if (opinions.size() == 1) {
+                if (opinions.get(0) == null) {
+                    throw new NullPointerException("Cannot fuse null opinions");
+                }
+                return opinions.get(0);
+            }
+            return this.fusion.apply(opinions);
+        }
+
+        @Override
+        public boolean isIdempotent()
+        {
+            return this.idempotent;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package no.uio.subjective_logic.opinion;
+
+/**
+ * An immutable snapshot of the conditionals y|x and y|!x, prepared for deducing many opinions y from different
+ * antecedents x, see {@link SubjectiveOpinion#deduce(Opinion, Opinion)}.
+ *
+ * Everything that only depends on the conditionals is computed once when the conditionals are prepared: the check of
+ * the atomicities, whether the intermediate opinion I needs to be adjusted at all, the classification of the
+ * conditionals (case II, where y|x has more belief and less disbelief than y|!x, or case I otherwise), the threshold
+ * that distinguishes the cases A and B, and the constant factors of the adjustment in each case. What remains per
+ * antecedent is the computation of I, two comparisons and one adjustment formula. The deduced opinions are exactly the
+ * same as those of SubjectiveOpinion.
+ *
+ * Later changes to the opinions the conditionals were prepared from are not reflected; prepare them again instead.
+ *
+ * Use {@link Conditionals#prepare()} or {@link #PreparedConditionals(Opinion, Opinion)} to create instances, and
+ * {@link SubjectiveOpinion#deduce(PreparedConditionals)}, {@link BinomialOpinion#deduce(PreparedConditionals)} or
+ * {@link OpinionBatch#deduce(PreparedConditionals)} to deduce opinions.
+ */
+public final class PreparedConditionals
+{
+    //index of the adjustment in the case A or B, if the antecedent's expectation is at most (1) or above (2) its atomicity
+    private static final int CASE_A_1 = 0;
+    private static final int CASE_A_2 = 1;
+    private static final int CASE_B_1 = 2;
+    private static final int CASE_B_2 = 3;
+
+    final double yTxBelief, yTxDisbelief, yTxUncertainty;
+    final double yFxBelief, yFxDisbelief, yFxUncertainty;
+    final double yAtomicity;
+
+    private final boolean adjusted;
+    private final double caseAThreshold;
+
+    /*
+     * In each case, the adjustment is k = w * u * (c - reference) * factor / (e * divisor1 * divisor2), where w is the
+     * atomicity of x or its complement, u is the uncertainty of x, c is the belief or disbelief of I, and e is the
+     * expectation of x in the cases 1 or the disbelief of x plus its uncertainty weighted by the complement of its
+     * atomicity in the cases 2. If the divisor is not positive, k = (c - reference) * factor.
+     */
+    private final boolean[] weightedByAtomicity = new boolean[4];
+    private final boolean[] ofBelief = new boolean[4];
+    private final double[] reference = new double[4];
+    private final double[] factor = new double[4];
+    private final double[] divisor1 = new double[4];
+    private final double[] divisor2 = new double[4];
+
+    /**
+     * Prepares the conditionals y|x and y|!x.
+     *
+     * @throws OpinionArithmeticException if the atomicities of the conditionals are not equal.
+     */
+    public PreparedConditionals(Opinion yTx, Opinion yFx) throws OpinionArithmeticException
+    {
+        if ((yTx == null) || (yFx == null)) {
+            throw new NullPointerException("The conditionals must not be null");
+        }
+        //a single snapshot of each conditional, so that its values are consistent
+        double[] values = new double[2 * SubjectiveOpinion.SNAPSHOT_SIZE];
+        yTx.toSubjectiveOpinion().snapshot(values, 0);
+        yFx.toSubjectiveOpinion().snapshot(values, SubjectiveOpinion.SNAPSHOT_SIZE);
+        if (Math.abs(values[3] - values[SubjectiveOpinion.SNAPSHOT_SIZE + 3]) > 1.0E-010D) {
+            throw new OpinionArithmeticException("The atomicities of both sub-conditionals must be equal");
+        }
+        double tb = this.yTxBelief = values[0];
+        double td = this.yTxDisbelief = values[1];
+        this.yTxUncertainty = values[2];
+        double fb = this.yFxBelief = values[SubjectiveOpinion.SNAPSHOT_SIZE];
+        double fd = this.yFxDisbelief = values[SubjectiveOpinion.SNAPSHOT_SIZE + 1];
+        this.yFxUncertainty = values[SubjectiveOpinion.SNAPSHOT_SIZE + 2];
+        double a = this.yAtomicity = values[3];
+
+        this.adjusted = SubjectiveOpinion.isDeductionAdjusted(tb, td, fb, fd);
+
+        if ((tb > fb) && (td < fd))
+        {
+            //case II
+            this.caseAThreshold = fb + a * (1.0D - fb - td);
+            setCase(CASE_A_1, true, true, fb, 1.0D, a, 1.0D);
+            setCase(CASE_A_2, true, false, td, tb - fb, a, fd - td);
+            setCase(CASE_B_1, false, true, fb, fd - td, 1.0D - a, tb - fb);
+            setCase(CASE_B_2, false, false, td, 1.0D, 1.0D - a, 1.0D);
+        }
+        else
+        {
+            //case I
+            this.caseAThreshold = tb + a * (1.0D - tb - fd);
+            setCase(CASE_A_1, false, false, fd, fb - tb, a, td - fd);
+            setCase(CASE_A_2, false, true, tb, 1.0D, a, 1.0D);
+            setCase(CASE_B_1, true, false, fd, 1.0D, 1.0D - a, 1.0D);
+            setCase(CASE_B_2, true, true, tb, td - fd, 1.0D - a, fb - tb);
+        }
+    }
+
+    private void setCase(int index, boolean weightedByAtomicity, boolean ofBelief, double reference, double factor,
+                         double divisor1, double divisor2)
+    {
+        this.weightedByAtomicity[index] = weightedByAtomicity;
+        this.ofBelief[index] = ofBelief;
+        this.reference[index] = reference;
+        this.factor[index] = factor;
+        this.divisor1[index] = divisor1;
+        this.divisor2[index] = divisor2;
+    }
+
+    /**
+     * @return the positive conditional y|x.
+     */
+    public BinomialOpinion getPositive()
+    {
+        return new BinomialOpinion(this.yTxBelief, this.yTxDisbelief, this.yTxUncertainty, this.yAtomicity);
+    }
+
+    /**
+     * @return the negative conditional y|!x.
+     */
+    public BinomialOpinion getNegative()
+    {
+        return new BinomialOpinion(this.yFxBelief, this.yFxDisbelief, this.yFxUncertainty, this.yAtomicity);
+    }
+
+    /**
+     * @return the atomicity of both conditionals, which is also the atomicity of all deduced opinions.
+     */
+    public double getAtomicity()
+    {
+        return this.yAtomicity;
+    }
+
+    /**
+     * @return false iff the deduced opinions do not need to be adjusted, so that deduction is linear in the antecedent.
+     */
+    public boolean isAdjusted()
+    {
+        return this.adjusted;
+    }
+
+    /**
+     * Deduces an opinion from x, in the same way as
+     * {@link SubjectiveOpinion#deduction(double, double, double, double, double, double, double, double, double, double, double, double[], int)}.
+     *
+     * @param result receives belief, disbelief, uncertainty and atomicity of the deduced opinion, which still need to be
+     *               normalized.
+     */
+    void deduction(double xBelief, double xDisbelief, double xUncertainty, double xAtomicity, double[] result)
+    {
+        deduction(xBelief, xDisbelief, xUncertainty, xAtomicity, result, 0, null);
+    }
+
+    /**
+     * Deduces an opinion from x as a new {@link BinomialOpinion}, without an intermediate array.
+     */
+    BinomialOpinion deduction(double xBelief, double xDisbelief, double xUncertainty, double xAtomicity)
+    {
+        return deduction(xBelief, xDisbelief, xUncertainty, xAtomicity, null, 0, null);
+    }
+
+    /**
+     * Deduces an opinion from x into the target or into result at offset, or returns it if neither is given, see
+     * {@link SubjectiveOpinion#deduced(double, double, double, double, double[], int, SubjectiveOpinion)}.
+     */
+    BinomialOpinion deduction(double xBelief, double xDisbelief, double xUncertainty, double xAtomicity, double[] result, int offset,
+                   SubjectiveOpinion target)
+    {
+        final double tb = this.yTxBelief, td = this.yTxDisbelief, tu = this.yTxUncertainty;
+        final double fb = this.yFxBelief, fd = this.yFxDisbelief, fu = this.yFxUncertainty;
+        final double a = this.yAtomicity;
+        final double xNegation = 1.0D - xAtomicity;
+
+        double b = xBelief * tb + xDisbelief * fb + xUncertainty * (tb * xAtomicity + fb * xNegation);
+        double d = xBelief * td + xDisbelief * fd + xUncertainty * (td * xAtomicity + fd * xNegation);
+        double u = xBelief * tu + xDisbelief * fu + xUncertainty * (tu * xAtomicity + fu * xNegation);
+
+        //the intermediate opinion I, normalized like a new SubjectiveOpinion
+        double bdu = b + d + u;
+        b = b / bdu;
+        u = u / bdu;
+        final double IBelief = OpinionBase.constrain(OpinionBase.adjust(b));
+        final double IDisbelief = OpinionBase.constrain(OpinionBase.adjust(1.0D - (b + u)));
+        final double IUncertainty = OpinionBase.constrain(OpinionBase.adjust(u));
+
+        if (!this.adjusted)
+        {
+            return SubjectiveOpinion.deduced(IBelief, IDisbelief, IUncertainty, a, result, offset, target);
+        }
+
+        double xExpectation = OpinionBase.constrain(OpinionBase.adjust(xBelief + xAtomicity * xUncertainty));
+        double expec = tb * xAtomicity + fb * xNegation + a * (tu * xAtomicity + fu * xNegation);
+
+        boolean case_1 = xExpectation <= xAtomicity;
+        int i = (expec <= this.caseAThreshold ? CASE_A_1 : CASE_B_1) + (case_1 ? 0 : 1);
+
+        double delta = (this.ofBelief[i] ? IBelief : IDisbelief) - this.reference[i];
+        double divisor = (case_1 ? xExpectation : xDisbelief + xNegation * xUncertainty) * this.divisor1[i] * this.divisor2[i];
+        double k;
+        if (divisor > 0.0D)
+            k = (this.weightedByAtomicity[i] ? xAtomicity : xNegation) * xUncertainty * delta * this.factor[i] / divisor;
+        else
+            k = delta * this.factor[i];
+
+        return SubjectiveOpinion.deduced(OpinionBase.adjust(IBelief - k * a), OpinionBase.adjust(IDisbelief - k * (1.0D - a)),
+                OpinionBase.adjust(IUncertainty + k), a, result, offset, target);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "PreparedConditionals(positive=" + getPositive() + ", negative=" + getNegative() + ")";
+    }
+}
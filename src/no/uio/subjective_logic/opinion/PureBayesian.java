@@ -1,5 +1,6 @@
 package no.uio.subjective_logic.opinion;
 
+import java.io.ObjectStreamException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -517,4 +518,12 @@ public class PureBayesian extends OpinionBase
 
     return SubjectiveOpinion.smoothAverage(opinions).toPureBayesian();
   }
+
+  /**
+   * Serializes opinions of this class, but not of subclasses, in the compact form of {@link OpinionCodec}.
+   */
+  private Object writeReplace() throws ObjectStreamException
+  {
+    return new OpinionCodec.SerialForm(this);
+  }
 }
\ No newline at end of file
@@ -0,0 +1,266 @@
+package no.uio.subjective_logic.opinion;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded cache of reversed conditionals, see {@link SubjectiveOpinion#reverseConditionals(SubjectiveOpinion, SubjectiveOpinion, double)},
+ * for repeated abduction with the same conditionals and base rate, see
+ * {@link SubjectiveOpinion#abduce(Conditionals, double, ReversedConditionalsCache)}.
+ *
+ * The reversed conditionals are stored as {@link PreparedConditionals}, so that they are immutable and do not need to be
+ * prepared for deduction again. Entries are evicted in least-recently-used order when the maximum size is exceeded, and
+ * optionally when they have not been accessed for a given time.
+ *
+ * Entries are looked up by the belief, disbelief, uncertainty and atomicity of both conditionals and the base rate.
+ * By default, these must be exactly equal. With a positive quantum, all values are rounded to multiples of the quantum
+ * first, so that conditionals that differ by less than the quantum may share an entry; the abduced opinions then may
+ * differ from those without a cache by about the quantum.
+ *
+ * Instances are thread-safe.
+ */
+public final class ReversedConditionalsCache
+{
+    private final int maximumSize;
+    private final long expireAfterAccessNanos;
+    private final double quantum;
+
+    private final LinkedHashMap<Key, CachedConditionals> entries;
+
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long evictionCount = 0;
+
+    /**
+     * Creates a cache whose entries are only evicted when the maximum size is exceeded.
+     *
+     * @param maximumSize the maximum amount of entries.
+     */
+    public ReversedConditionalsCache(int maximumSize)
+    {
+        this(maximumSize, 0, TimeUnit.NANOSECONDS, 0.0D);
+    }
+
+    /**
+     * @param maximumSize the maximum amount of entries.
+     * @param expireAfterAccess the time after the last access after which an entry is evicted, or 0 for no expiry.
+     * @param unit the unit of expireAfterAccess.
+     * @param quantum the quantum that all values are rounded to for the lookup, or 0 for exact lookups.
+     */
+    public ReversedConditionalsCache(int maximumSize, long expireAfterAccess, TimeUnit unit, double quantum)
+    {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+        }
+        if (expireAfterAccess < 0) {
+            throw new IllegalArgumentException("Expiry must not be negative: " + expireAfterAccess);
+        }
+        if (!(quantum >= 0.0D) || Double.isInfinite(quantum)) {
+            throw new IllegalArgumentException("Quantum must not be negative: " + quantum);
+        }
+        this.maximumSize = maximumSize;
+        this.expireAfterAccessNanos = unit.toNanos(expireAfterAccess);
+        this.quantum = quantum;
+        this.entries = new LinkedHashMap<Key, CachedConditionals>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CachedConditionals> eldest)
+            {
+                if (size() > ReversedConditionalsCache.this.maximumSize) {
+                    ReversedConditionalsCache.this.evictionCount++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the reversed conditionals x|y and x|!y, from the cache or by reversing the given conditionals.
+     *
+     * @param yTx the conditional y|x.
+     * @param yFx the conditional y|!x.
+     * @param baseRateX the base rate of x.
+     */
+    public PreparedConditionals get(SubjectiveOpinion yTx, SubjectiveOpinion yFx, double baseRateX) throws OpinionArithmeticException
+    {
+        if ((baseRateX < 0.0D) || (baseRateX > 1.0D)) {
+            throw new IllegalArgumentException("Base Rate x, must be: 0 <= x <= 1");
+        }
+        if ((yTx == null) || (yFx == null)) {
+            throw new NullPointerException();
+        }
+        Key key = new Key(quantize(yTx.getBelief()), quantize(yTx.getDisbelief()), quantize(yTx.getUncertainty()),
+                quantize(yTx.getAtomicity()), quantize(yFx.getBelief()), quantize(yFx.getDisbelief()),
+                quantize(yFx.getUncertainty()), quantize(yFx.getAtomicity()), quantize(baseRateX));
+        long now = this.expireAfterAccessNanos > 0 ? System.nanoTime() : 0L;
+
+        synchronized (this)
+        {
+            CachedConditionals entry = this.entries.get(key);
+            if ((entry != null) && isExpired(entry, now)) {
+                this.entries.remove(key);
+                this.evictionCount++;
+                entry = null;
+            }
+            if (entry != null) {
+                this.hitCount++;
+                entry.lastAccess = now;
+                return entry.conditionals;
+            }
+            this.missCount++;
+        }
+
+        //reversing is expensive, so it is done without holding the lock; concurrent misses may reverse twice
+        Conditionals reversed = SubjectiveOpinion.reverseConditionals(yTx, yFx, baseRateX);
+        PreparedConditionals conditionals = reversed.prepare();
+
+        synchronized (this)
+        {
+            expire(now);
+            this.entries.put(key, new CachedConditionals(conditionals, now));
+        }
+        return conditionals;
+    }
+
+    private long quantize(double value)
+    {
+        //+0.0 so that -0.0 and 0.0 are equal
+        return this.quantum > 0.0D ? Math.round(value / this.quantum) : Double.doubleToLongBits(value + 0.0D);
+    }
+
+    private boolean isExpired(CachedConditionals entry, long now)
+    {
+        return (this.expireAfterAccessNanos > 0) && (now - entry.lastAccess >= this.expireAfterAccessNanos);
+    }
+
+    /**
+     * Evicts the expired entries, which are the least recently used ones.
+     */
+    private void expire(long now)
+    {
+        if (this.expireAfterAccessNanos <= 0)
+            return;
+        Iterator<CachedConditionals> it = this.entries.values().iterator();
+        while (it.hasNext() && isExpired(it.next(), now)) {
+            it.remove();
+            this.evictionCount++;
+        }
+    }
+
+    /**
+     * Removes all entries. The statistics are not reset.
+     */
+    public synchronized void clear()
+    {
+        this.entries.clear();
+    }
+
+    /**
+     * @return the current amount of entries, including expired entries that have not been evicted yet.
+     */
+    public synchronized int size()
+    {
+        return this.entries.size();
+    }
+
+    public int getMaximumSize()
+    {
+        return this.maximumSize;
+    }
+
+    /**
+     * @return the amount of lookups that were answered from the cache.
+     */
+    public synchronized long getHitCount()
+    {
+        return this.hitCount;
+    }
+
+    /**
+     * @return the amount of lookups that reversed the conditionals.
+     */
+    public synchronized long getMissCount()
+    {
+        return this.missCount;
+    }
+
+    /**
+     * @return the amount of entries that were evicted because of the maximum size or because they expired.
+     */
+    public synchronized long getEvictionCount()
+    {
+        return this.evictionCount;
+    }
+
+    /**
+     * @return the ratio of hits to lookups, or 1 if there were no lookups yet.
+     */
+    public synchronized double getHitRate()
+    {
+        long lookups = this.hitCount + this.missCount;
+        return lookups == 0 ? 1.0D : (double) this.hitCount / lookups;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return "ReversedConditionalsCache(size=" + this.entries.size() + ", maximumSize=" + this.maximumSize
+                + ", hits=" + this.hitCount + ", misses=" + this.missCount + ", evictions=" + this.evictionCount + ")";
+    }
+
+    private static final class CachedConditionals
+    {
+        final PreparedConditionals conditionals;
+        long lastAccess;
+
+        CachedConditionals(PreparedConditionals conditionals, long lastAccess)
+        {
+            this.conditionals = conditionals;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    /**
+     * The quantized values of both conditionals and the base rate.
+     */
+    private static final class Key
+    {
+        private final long tb, td, tu, ta, fb, fd, fu, fa, br;
+        private final int hash;
+
+        Key(long tb, long td, long tu, long ta, long fb, long fd, long fu, long fa, long br)
+        {
+            this.tb = tb;
+            this.td = td;
+            this.tu = tu;
+            this.ta = ta;
+            this.fb = fb;
+            this.fd = fd;
+            this.fu = fu;
+            this.fa = fa;
+            this.br = br;
+
+            long h = ((((((((tb * 31 + td) * 31 + tu) * 31 + ta) * 31 + fb) * 31 + fd) * 31 + fu) * 31 + fa) * 31) + br;
+            this.hash = (int) (h ^ (h >>> 32));
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof Key))
+                return false;
+            Key k = (Key) obj;
+            return (this.tb == k.tb) && (this.td == k.td) && (this.tu == k.tu) && (this.ta == k.ta) && (this.fb == k.fb)
+                    && (this.fd == k.fd) && (this.fu == k.fu) && (this.fa == k.fa) && (this.br == k.br);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return this.hash;
+        }
+    }
+}
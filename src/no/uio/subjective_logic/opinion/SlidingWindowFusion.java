@@ -0,0 +1,399 @@
+package no.uio.subjective_logic.opinion;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fuses the most recent opinions per key, such as the output of a detector per pseudonym over the last seconds. The
+ * opinions of each key are kept in a ring buffer, and an opinion leaves the window when it is older than the maximum
+ * age, or when the window is full and a newer opinion arrives. The ring buffer grows with the amount of opinions in the
+ * window, so the maximum size is only a bound, and can be {@link #UNBOUNDED} if the maximum age is finite.
+ *
+ * The fused opinion of a window is the same as that of {@link SubjectiveOpinion#cumulativeCollectionFuse(java.util.Collection)}
+ * or {@link SubjectiveOpinion#weightedCollectionFuse(java.util.Collection)} of the opinions in the window, oldest first,
+ * up to rounding. As in {@link CumulativeFusionAccumulator} and {@link WeightedFusionAccumulator}, the fused opinion only
+ * depends on sums over the opinions in evidence space, so adding an opinion adds its terms to the sums, and removing an
+ * opinion subtracts them again. Both take constant time, independent of the size of the window.
+ *
+ * Dogmatic opinions are summed separately and counted, so the fusion switches back to the non-dogmatic sums exactly
+ * when the last dogmatic opinion leaves the window. Subtraction loses precision when the terms that were removed are
+ * much larger than the remaining sums, for example when a nearly dogmatic opinion leaves the window; in that case the
+ * sums are recomputed from the ring buffer, which is rare enough that the amortized cost stays constant.
+ *
+ * Times are given by the caller, and must not decrease per key. Instances are thread-safe; each window is only
+ * accessed while its entry in a {@link ConcurrentHashMap} is locked.
+ *
+ * @param <K> the type of the keys.
+ */
+public class SlidingWindowFusion<K>
+{
+    /**
+     * The fusion operators that a window supports.
+     */
+    public enum Fusion
+    {
+        CUMULATIVE, WEIGHTED
+    }
+
+    /**
+     * The maximum size of windows that are only bounded by the age of their opinions.
+     */
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    //the sums are recomputed when the terms removed since the last recomputation exceed the sums by this factor
+    private static final double DRIFT_LIMIT = 1.0E4D;
+    //the initial capacity of the ring buffer of a window
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final Fusion fusion;
+    private final int maxSize;
+    private final double maxAge;
+    private final Map<K, Window> windows = new ConcurrentHashMap<>();
+
+    /**
+     * Creates windows that are only bounded by the age of their opinions.
+     *
+     * @param fusion the fusion operator.
+     * @param maxAge the maximum age of an opinion, which must be finite.
+     */
+    public SlidingWindowFusion(Fusion fusion, double maxAge)
+    {
+        this(fusion, UNBOUNDED, maxAge);
+    }
+
+    /**
+     * @param fusion the fusion operator.
+     * @param maxSize the maximum amount of opinions per window, at least 1, or {@link #UNBOUNDED} to only evict by age.
+     * @param maxAge the maximum age of an opinion, or infinity to only evict by size.
+     * @throws IllegalArgumentException if the windows are bounded by neither size nor age.
+     */
+    public SlidingWindowFusion(Fusion fusion, int maxSize, double maxAge)
+    {
+        if (fusion == null) {
+            throw new NullPointerException("Fusion must not be null");
+        }
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maxSize);
+        }
+        if (!(maxAge >= 0.0D)) {
+            throw new IllegalArgumentException("Maximum age must not be negative: " + maxAge);
+        }
+        if ((maxSize == UNBOUNDED) && Double.isInfinite(maxAge)) {
+            throw new IllegalArgumentException("Windows must be bounded by size or age");
+        }
+        this.fusion = fusion;
+        this.maxSize = maxSize;
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Adds an opinion to the window of the key, after evicting the opinions that are too old at the given time.
+     *
+     * @throws IllegalArgumentException if the time is before the time of the newest opinion of the window.
+     */
+    public void add(K key, Opinion opinion, double time)
+    {
+        if ((key == null) || (opinion == null)) {
+            throw new NullPointerException();
+        }
+        if (Double.isNaN(time)) {
+            throw new IllegalArgumentException("Time must not be NaN");
+        }
+        SubjectiveOpinion o = opinion.toSubjectiveOpinion();
+        this.windows.compute(key, (k, window) -> {
+            if (window == null) {
+                window = new Window(Math.min(this.maxSize, INITIAL_CAPACITY));
+            } else if ((window.size > 0) && (time < window.times[window.newest()])) {
+                throw new IllegalArgumentException("Time " + time + " is before the newest opinion at " + window.times[window.newest()]);
+            }
+            window.evict(time - this.maxAge);
+            if (window.size == this.maxSize) {
+                window.removeOldest();
+            }
+            window.add(o, time, this.maxSize);
+            return window;
+        });
+    }
+
+    /**
+     * Evicts the opinions that are too old at the given time from the window of the key, and removes the window if it is empty.
+     *
+     * @return the fusion of the opinions in the window of the key at the given time, or null if the window is empty.
+     */
+    public SubjectiveOpinion get(K key, double time)
+    {
+        SubjectiveOpinion[] result = new SubjectiveOpinion[1];
+        this.windows.computeIfPresent(key, (k, window) -> {
+            window.evict(time - this.maxAge);
+            if (window.size == 0) {
+                return null;
+            }
+            result[0] = window.fuse(this.fusion);
+            return window;
+        });
+        return result[0];
+    }
+
+    /**
+     * @return the amount of opinions in the window of the key, without evicting old opinions.
+     */
+    public int size(K key)
+    {
+        int[] size = new int[1];
+        this.windows.computeIfPresent(key, (k, window) -> {
+            size[0] = window.size;
+            return window;
+        });
+        return size[0];
+    }
+
+    /**
+     * Evicts the opinions that are too old at the given time from all windows, and removes the empty windows.
+     */
+    public void evictAll(double time)
+    {
+        for (K key : this.windows.keySet()) {
+            this.windows.computeIfPresent(key, (k, window) -> {
+                window.evict(time - this.maxAge);
+                return window.size == 0 ? null : window;
+            });
+        }
+    }
+
+    /**
+     * Removes the window of the key.
+     *
+     * @return true iff there was a window.
+     */
+    public boolean remove(K key)
+    {
+        return this.windows.remove(key) != null;
+    }
+
+    public Fusion getFusion()
+    {
+        return this.fusion;
+    }
+
+    public int getMaxSize()
+    {
+        return this.maxSize;
+    }
+
+    public double getMaxAge()
+    {
+        return this.maxAge;
+    }
+
+    /**
+     * A ring buffer of opinions, with the sums of both CBF and WBF over them.
+     */
+    private static final class Window
+    {
+        double[] beliefs, disbeliefs, uncertainties, atomicities, weights, times;
+        //a snapshot of the opinion that is added
+        final double[] values = new double[SubjectiveOpinion.SNAPSHOT_SIZE];
+        int oldest = 0;
+        int size = 0;
+
+        int dogmaticCount = 0;
+        //the amount of non-dogmatic opinions, and of those that are not vacuous
+        int evidenceCount = 0;
+        int confidentCount = 0;
+        double dogmaticWeight, dogmaticBelief, dogmaticDisbelief;
+        //CBF: sums of b/u and d/u
+        double beliefEvidence, disbeliefEvidence;
+        //WBF: sums of b*c/u, d*c/u, c/u, c and a*c, and the sum of all atomicities
+        double weightedBelief, weightedDisbelief, confidenceOverUncertainty, confidence, weightedAtomicity, atomicitySum;
+
+        //the magnitude of the terms removed since the sums were last recomputed
+        double removed;
+
+        Window(int capacity)
+        {
+            this.beliefs = new double[capacity];
+            this.disbeliefs = new double[capacity];
+            this.uncertainties = new double[capacity];
+            this.atomicities = new double[capacity];
+            this.weights = new double[capacity];
+            this.times = new double[capacity];
+        }
+
+        int newest()
+        {
+            return (this.oldest + this.size - 1) % this.times.length;
+        }
+
+        /**
+         * Adds an opinion, and grows the ring buffer up to the given maximum size if it is full.
+         */
+        void add(SubjectiveOpinion o, double time, int maxSize)
+        {
+            if (this.size == this.times.length) {
+                grow((int) Math.min(2L * this.size, maxSize));
+            }
+            //a single snapshot, so that the values are consistent
+            o.snapshot(this.values, 0);
+            int i = (this.oldest + this.size) % this.times.length;
+            this.beliefs[i] = this.values[0];
+            this.disbeliefs[i] = this.values[1];
+            this.uncertainties[i] = this.values[2];
+            this.atomicities[i] = this.values[3];
+            this.weights[i] = this.values[4];
+            this.times[i] = time;
+            this.size++;
+            accumulate(i, 1.0D);
+        }
+
+        /**
+         * Copies the opinions to new arrays of the given capacity, with the oldest opinion at index 0.
+         */
+        private void grow(int capacity)
+        {
+            this.beliefs = copy(this.beliefs, capacity);
+            this.disbeliefs = copy(this.disbeliefs, capacity);
+            this.uncertainties = copy(this.uncertainties, capacity);
+            this.atomicities = copy(this.atomicities, capacity);
+            this.weights = copy(this.weights, capacity);
+            this.times = copy(this.times, capacity);
+            this.oldest = 0;
+        }
+
+        private double[] copy(double[] ring, int capacity)
+        {
+            double[] copy = new double[capacity];
+            int head = Math.min(this.size, ring.length - this.oldest);
+            System.arraycopy(ring, this.oldest, copy, 0, head);
+            System.arraycopy(ring, 0, copy, head, this.size - head);
+            return copy;
+        }
+
+        /**
+         * Removes the opinions whose time is before the given time.
+         */
+        void evict(double before)
+        {
+            while ((this.size > 0) && (this.times[this.oldest] < before)) {
+                removeOldest();
+            }
+        }
+
+        void removeOldest()
+        {
+            int i = this.oldest;
+            this.oldest = (this.oldest + 1) % this.times.length;
+            this.size--;
+            accumulate(i, -1.0D);
+            if (this.size == 0) {
+                clearSums();
+                return;
+            }
+            //sums over no opinions are exactly 0, whatever the rounding errors of the subtractions
+            if (this.dogmaticCount == 0) {
+                this.dogmaticWeight = 0.0D;
+                this.dogmaticBelief = 0.0D;
+                this.dogmaticDisbelief = 0.0D;
+            }
+            if (this.evidenceCount == 0) {
+                this.beliefEvidence = 0.0D;
+                this.disbeliefEvidence = 0.0D;
+            }
+            if (this.confidentCount == 0) {
+                this.weightedBelief = 0.0D;
+                this.weightedDisbelief = 0.0D;
+                this.confidenceOverUncertainty = 0.0D;
+                this.confidence = 0.0D;
+                this.weightedAtomicity = 0.0D;
+            }
+            double magnitude = this.dogmaticWeight + this.beliefEvidence + this.disbeliefEvidence + this.confidenceOverUncertainty;
+            if (this.removed > DRIFT_LIMIT * magnitude) {
+                recompute();
+            }
+        }
+
+        /**
+         * Adds (sign 1) or subtracts (sign -1) the terms of the opinion at index i to or from the sums.
+         */
+        private void accumulate(int i, double sign)
+        {
+            double b = this.beliefs[i], d = this.disbeliefs[i], u = this.uncertainties[i], a = this.atomicities[i];
+            this.atomicitySum += sign * a;
+            if (u == 0.0D) {
+                double w = this.weights[i];
+                this.dogmaticCount += (int) sign;
+                this.dogmaticWeight += sign * w;
+                this.dogmaticBelief += sign * w * b;
+                this.dogmaticDisbelief += sign * w * d;
+                if (sign < 0.0D) {
+                    this.removed += w;
+                }
+            } else {
+                double c = 1.0D - u;
+                double cOverU = c / u;
+                this.evidenceCount += (int) sign;
+                if (c > 0.0D) {
+                    this.confidentCount += (int) sign;
+                }
+                this.beliefEvidence += sign * (b / u);
+                this.disbeliefEvidence += sign * (d / u);
+                this.weightedBelief += sign * (b * cOverU);
+                this.weightedDisbelief += sign * (d * cOverU);
+                this.confidenceOverUncertainty += sign * cOverU;
+                this.confidence += sign * c;
+                this.weightedAtomicity += sign * (a * c);
+                if (sign < 0.0D) {
+                    this.removed += (b + d) / u + cOverU;
+                }
+            }
+        }
+
+        private void clearSums()
+        {
+            this.dogmaticCount = 0;
+            this.evidenceCount = 0;
+            this.confidentCount = 0;
+            this.dogmaticWeight = 0.0D;
+            this.dogmaticBelief = 0.0D;
+            this.dogmaticDisbelief = 0.0D;
+            this.beliefEvidence = 0.0D;
+            this.disbeliefEvidence = 0.0D;
+            this.weightedBelief = 0.0D;
+            this.weightedDisbelief = 0.0D;
+            this.confidenceOverUncertainty = 0.0D;
+            this.confidence = 0.0D;
+            this.weightedAtomicity = 0.0D;
+            this.atomicitySum = 0.0D;
+            this.removed = 0.0D;
+        }
+
+        private void recompute()
+        {
+            clearSums();
+            for (int j = 0; j < this.size; j++) {
+                accumulate((this.oldest + j) % this.times.length, 1.0D);
+            }
+        }
+
+        SubjectiveOpinion fuse(Fusion fusion)
+        {
+            //the atomicity of dogmatic and CBF results is that of the oldest opinion, as in the accumulators
+            double atomicity = this.atomicities[this.oldest];
+            if (this.dogmaticCount > 0) {
+                return SubjectiveOpinion.fusionResult(this.dogmaticBelief / this.dogmaticWeight,
+                        this.dogmaticDisbelief / this.dogmaticWeight, 0.0D, atomicity, this.dogmaticWeight);
+            }
+            if (fusion == Fusion.CUMULATIVE) {
+                double divisor = 1.0D + this.beliefEvidence + this.disbeliefEvidence;
+                return SubjectiveOpinion.fusionResult(this.beliefEvidence / divisor, this.disbeliefEvidence / divisor,
+                        1.0D / divisor, atomicity, 0.0D);
+            }
+            if (this.confidentCount > 0) {
+                return SubjectiveOpinion.fusionResult(this.weightedBelief / this.confidenceOverUncertainty,
+                        this.weightedDisbelief / this.confidenceOverUncertainty,
+                        this.confidence / this.confidenceOverUncertainty,
+                        this.weightedAtomicity / this.confidence, 0.0D);
+            }
+            return SubjectiveOpinion.fusionResult(0.0D, 0.0D, 1.0D, this.atomicitySum / this.size, 0.0D);
+        }
+    }
+}
@@ -1,5 +1,10 @@
 package no.uio.subjective_logic.opinion;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
+import java.io.ObjectStreamField;
 import java.util.*;
 
 public class SubjectiveOpinion extends OpinionBase
@@ -8,24 +13,100 @@ public class SubjectiveOpinion extends OpinionBase
     private static final String TO_STRING_FORMAT = "(belief=%1$1.3f, disbelief=%2$1.3f, uncertainty=%3$1.3f, atomicity=%4$1.3f, e=%5$1.3f, rd=%6$1.3f)";
     public static final SubjectiveOpinion UNCERTAIN = new SubjectiveOpinion(0.0D, 0.0D, 1.0D, 0.5D);
 
-    private double atomicity = 0.5D;
+    //the serialized form of the fields that were replaced by the state snapshot
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("atomicity", double.class),
+            new ObjectStreamField("belief", double.class),
+            new ObjectStreamField("disbelief", double.class),
+            new ObjectStreamField("cachedExpectation", double.class),
+            new ObjectStreamField("lastOp", OpinionOperator.class),
+            new ObjectStreamField("recalculate", boolean.class),
+            new ObjectStreamField("relativeWeight", double.class),
+            new ObjectStreamField("uncertainty", double.class)
+    };
 
-    private double belief = 0.0D;
+    /**
+     * The current values of this opinion. Readers never lock: they read the snapshot once, and get belief, disbelief,
+     * uncertainty, atomicity and expectation of the same write. Writers publish a new snapshot while holding the
+     * monitor of this opinion.
+     */
+    private transient volatile State state = State.UNCERTAIN;
 
-    private double disbelief = 0.0D;
+    /**
+     * An immutable snapshot of the values of an opinion. The values are rounded and constrained, and the expectation is
+     * computed, when the snapshot is created. The last operator and the relative weight are part of the snapshot, so
+     * that they are always published together with the values they belong to.
+     */
+    private static final class State
+    {
+        static final State UNCERTAIN = new State(0.0D, 0.0D, 1.0D, 0.5D);
 
-    private double cachedExpectation = 0.5D;
+        final double belief;
+        final double disbelief;
+        final double uncertainty;
+        final double atomicity;
+        final double expectation;
+        final OpinionOperator lastOp;
+        final double relativeWeight;
 
-    private OpinionOperator lastOp = null;
+        State(double belief, double disbelief, double uncertainty, double atomicity)
+        {
+            this(belief, disbelief, uncertainty, atomicity, null, 1.0D);
+        }
 
-    private boolean recalculate = false;
+        State(double belief, double disbelief, double uncertainty, double atomicity, OpinionOperator lastOp, double relativeWeight)
+        {
+            this.belief = OpinionBase.constrain(OpinionBase.adjust(belief));
+            this.disbelief = OpinionBase.constrain(OpinionBase.adjust(disbelief));
+            this.uncertainty = OpinionBase.constrain(OpinionBase.adjust(uncertainty));
+            this.atomicity = OpinionBase.constrain(OpinionBase.adjust(atomicity));
+            this.expectation = OpinionBase.constrain(OpinionBase.adjust(this.belief + this.atomicity * this.uncertainty));
+            this.lastOp = lastOp;
+            this.relativeWeight = relativeWeight;
+        }
 
-    private double relativeWeight = 1.0D;
+        private State(State s, OpinionOperator lastOp, double relativeWeight)
+        {
+            this.belief = s.belief;
+            this.disbelief = s.disbelief;
+            this.uncertainty = s.uncertainty;
+            this.atomicity = s.atomicity;
+            this.expectation = s.expectation;
+            this.lastOp = lastOp;
+            this.relativeWeight = relativeWeight;
+        }
 
-    private double uncertainty = 1.0D;
+        /**
+         * Returns a snapshot with the given values, and the last operator and relative weight of this snapshot.
+         */
+        State withValues(double belief, double disbelief, double uncertainty, double atomicity)
+        {
+            return new State(belief, disbelief, uncertainty, atomicity, this.lastOp, this.relativeWeight);
+        }
+
+        State withOperator(OpinionOperator lastOp)
+        {
+            return new State(this, lastOp, this.relativeWeight);
+        }
+
+        State withRelativeWeight(double relativeWeight)
+        {
+            return new State(this, this.lastOp, relativeWeight);
+        }
+    }
 
     private static SubjectiveOpinion abduction(SubjectiveOpinion y, SubjectiveOpinion yTx, SubjectiveOpinion yFx, double baseRateX)
             throws OpinionArithmeticException
+    {
+        return abduction(y, yTx, yFx, baseRateX, null);
+    }
+
+    /**
+     * @param cache the cache for the reversed conditionals, or null to reverse them every time.
+     */
+    private static SubjectiveOpinion abduction(SubjectiveOpinion y, SubjectiveOpinion yTx, SubjectiveOpinion yFx, double baseRateX,
+                                               ReversedConditionalsCache cache)
+            throws OpinionArithmeticException
     {
         if ((baseRateX < 0.0D) || (baseRateX > 1.0D)) {
             throw new IllegalArgumentException("Base Rate x, must be: 0 <= x <= 1");
@@ -39,13 +120,17 @@ public class SubjectiveOpinion extends OpinionBase
         {
             o = createVacuousOpinion(baseRateX);
         }
+        else if (cache != null)
+        {
+            o = deduction(y, cache.get(yTx, yFx, baseRateX), new SubjectiveOpinion());
+        }
         else
         {
             Conditionals conditionals = reverseConditionals(yTx, yFx, baseRateX);
             o = deduction(y, conditionals.getPositive().toSubjectiveOpinion(), conditionals.getNegative().toSubjectiveOpinion());
         }
 
-        o.lastOp = OpinionOperator.Abduce;
+        o.state = o.state.withOperator(OpinionOperator.Abduce);
 
         return o;
     }
@@ -59,7 +144,6 @@ public class SubjectiveOpinion extends OpinionBase
     {
         synchronized (x)
         {
-            x.setDependants();
 
             double new_e = OpinionBase.constrain(OpinionBase.adjust(expectation));
 
@@ -125,8 +209,6 @@ public class SubjectiveOpinion extends OpinionBase
             throw new IllegalArgumentException("Limiting value, r, must be: 0<= r <=1");
         }
 
-        x.setDependants();
-        y.setDependants();
         try
         {
             double oBelief = (x.getBelief() - y.getBelief()) / (1.0D - y.getBelief());
@@ -154,9 +236,8 @@ public class SubjectiveOpinion extends OpinionBase
 
             SubjectiveOpinion o = new SubjectiveOpinion(oBelief, oDisbelief, oUncertainty, oAtomicity);
             o.checkConsistency();
-            o.recalculate = true;
 
-            o.lastOp = OpinionOperator.UnOr;
+            o.state = o.state.withOperator(OpinionOperator.UnOr);
 
             return o;
         }
@@ -166,51 +247,41 @@ public class SubjectiveOpinion extends OpinionBase
     }
 
     private static SubjectiveOpinion complement(SubjectiveOpinion x)
+    {
+        return complement(x, new SubjectiveOpinion());
+    }
+
+    private static SubjectiveOpinion complement(SubjectiveOpinion x, SubjectiveOpinion o)
     {
         if (x == null) {
             throw new NullPointerException();
         }
-        synchronized (x)
-        {
-            SubjectiveOpinion o = new SubjectiveOpinion(x.getDisbelief(), x.getBelief(), x.getUncertainty(), 1.0D - x.getAtomicity());
-
-            o.checkConsistency(true);
+        State s = x.state;
+        o.store(s.disbelief, s.belief, s.uncertainty, 1.0D - s.atomicity, OpinionOperator.Not, 1.0D);
 
-            o.lastOp = OpinionOperator.Not;
+        o.checkConsistency(true);
 
-            return o;
-        }
+        return o;
     }
 
     private static SubjectiveOpinion coMultiplication(SubjectiveOpinion x, SubjectiveOpinion y)
+    {
+        return coMultiplication(x, y, new SubjectiveOpinion());
+    }
+
+    private static SubjectiveOpinion coMultiplication(SubjectiveOpinion x, SubjectiveOpinion y, SubjectiveOpinion o)
     {
         if ((x == null) || (y == null)) {
             throw new NullPointerException();
         }
 
-        double r = x.getRelativeWeight(y, OpinionOperator.Or);
-
-        x.setDependants();
-        y.setDependants();
+        State sx = x.state, sy = y.state;
+        double[] result = new double[4];
+        coMultiplication(sx.belief, sx.disbelief, sx.uncertainty, sx.atomicity, sy.belief, sy.disbelief, sy.uncertainty, sy.atomicity,
+                x.getRelativeWeight(y, OpinionOperator.Or), result, 0);
 
-        double oBelief = x.getBelief() + y.getBelief() - x.getBelief() * y.getBelief();
-        double oAtomicity = x.getAtomicity() + y.getAtomicity() - x.getAtomicity() * y.getAtomicity();
-
-        double oUncertainty;
-        if ( oAtomicity != 0.0D) {
-            oUncertainty = x.getUncertainty() * y.getUncertainty() + (y.getAtomicity() * x.getDisbelief() * y.getUncertainty() + x.getAtomicity() * x.getUncertainty() * y.getDisbelief()) / oAtomicity;
-        } else {
-            oUncertainty = x.getUncertainty() * y.getUncertainty() + (x.getDisbelief() * y.getUncertainty() + r * x.getUncertainty() * y.getDisbelief()) / (r + 1.0D);
-        }
-
-        double oDisbelief = 1.0D - oBelief - oUncertainty;
-
-        SubjectiveOpinion o = new SubjectiveOpinion(oBelief, oDisbelief, oUncertainty, oAtomicity);
+        o.store(result[0], result[1], result[2], result[3], OpinionOperator.Or, sx.relativeWeight + sy.relativeWeight);
         o.checkConsistency();
-        o.recalculate = true;
-
-        o.lastOp = OpinionOperator.Or;
-        o.setRelativeWeight(x.relativeWeight + y.relativeWeight);
 
         return o;
     }
@@ -240,181 +311,83 @@ public class SubjectiveOpinion extends OpinionBase
             }
         }
 
-        //Step 1: consensus phase
-        final double consensusBelief = opinions.stream().mapToDouble(o -> o.getBelief()).min().getAsDouble();
-        final double consensusDisbelief = opinions.stream().mapToDouble(o -> o.getDisbelief()).min().getAsDouble();
+        final int n = opinions.size();
+        final double[] beliefs = new double[n];
+        final double[] disbeliefs = new double[n];
+        final double[] uncertainties = new double[n];
 
-        final double consensusMass = consensusBelief + consensusDisbelief;
-
-        List<Double> residueBeliefs = new ArrayList<>(opinions.size());
-        List<Double> residueDisbeliefs = new ArrayList<>(opinions.size());
-        List<Double> uncertainties = new ArrayList<>(opinions.size());
+        int idx = 0;
         for (SubjectiveOpinion so : opinions) {
-            //note: this max should not be necessary..
-            residueBeliefs.add(Math.max(so.getBelief()-consensusBelief,0));
-            residueDisbeliefs.add(Math.max(so.getDisbelief()-consensusDisbelief,0));
-            uncertainties.add(so.getUncertainty());
+            beliefs[idx] = so.getBelief();
+            disbeliefs[idx] = so.getDisbelief();
+            uncertainties[idx] = so.getUncertainty();
+            idx++;
         }
 
-        //Step 2: Compromise phase
+        return ccCollectionFuse(beliefs, disbeliefs, uncertainties, n, baseRate);
+    }
 
-        double productOfUncertainties = opinions.stream().mapToDouble(o -> o.getUncertainty()).reduce(1.0D, (acc, u) -> acc * u);
+    /**
+     * Implements the consensus, compromise and normalization phases of {@link #ccCollectionFuse(Collection)} for the
+     * first n opinions given by their belief, disbelief and uncertainty, which all have the given base rate.
+     * Note that the beliefs and disbeliefs are overwritten with the residue beliefs and disbeliefs.
+     */
+    static SubjectiveOpinion ccCollectionFuse(double[] beliefs, double[] disbeliefs, double[] uncertainties, int n, double baseRate)
+            throws OpinionArithmeticException
+    {
+        //Step 1: consensus phase
+        double consensusBelief = Double.POSITIVE_INFINITY;
+        double consensusDisbelief = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            consensusBelief = Math.min(consensusBelief, beliefs[i]);
+            consensusDisbelief = Math.min(consensusDisbelief, disbeliefs[i]);
+        }
 
-        double compromiseBeliefAccumulator = 0;
-        double compromiseDisbeliefAccumulator = 0;
-        double compromiseXAccumulator = 0; //this is what will later become uncertainty
+        final double consensusMass = consensusBelief + consensusDisbelief;
 
-        //this computation consists of 4 sub-sums that will be added independently.
-        for (int i=0; i<opinions.size(); i++) {
-            double bResI = residueBeliefs.get(i);
-            double dResI = residueDisbeliefs.get(i);
-            double uI = uncertainties.get(i);
-            double uWithoutI = productOfUncertainties / uI;
+        //Step 2: Compromise phase
 
-            //sub-sum 1:
-            compromiseBeliefAccumulator = compromiseBeliefAccumulator + bResI * uWithoutI;
-            compromiseDisbeliefAccumulator = compromiseDisbeliefAccumulator + dResI * uWithoutI;
-            //note: compromiseXAccumulator is unchanged, since b^{ResI}_X() of the entire domain is 0
+        //The compromise sums range over all 4^n assignments of {NIL, TRUE, FALSE, DOMAIN} to the sources.
+        //For binary domains, only the following assignments have a non-zero contribution:
+        // - exactly one source is assigned TRUE (FALSE), all others DOMAIN: b^{ResI} * prod{j != i} u^j
+        // - all sources are assigned TRUE (FALSE): prod{j} b^{ResJ} (prod{j} d^{ResJ})
+        // - all sources are assigned TRUE or FALSE, and both occur: this is the only contribution to the
+        //   belief mass on the entire domain, and equals prod{j} (b^{ResJ} + d^{ResJ}) minus the two cases above.
+        //Assignments that contain NIL, or that contain DOMAIN in any other combination, have a zero product.
+        //This reduces the computation to O(n), without enumerating the assignments.
+        final double[] uncertaintyPrefix = new double[n + 1];
+        uncertaintyPrefix[0] = 1.0D;
+        double productOfResidueBeliefs = 1.0D;
+        double productOfResidueDisbeliefs = 1.0D;
+        double productOfResidueMasses = 1.0D;
+        for (int i = 0; i < n; i++) {
+            //note: this max should not be necessary..
+            beliefs[i] = Math.max(beliefs[i] - consensusBelief, 0);
+            disbeliefs[i] = Math.max(disbeliefs[i] - consensusDisbelief, 0);
+
+            uncertaintyPrefix[i + 1] = uncertaintyPrefix[i] * uncertainties[i];
+            productOfResidueBeliefs = productOfResidueBeliefs * beliefs[i];
+            productOfResidueDisbeliefs = productOfResidueDisbeliefs * disbeliefs[i];
+            productOfResidueMasses = productOfResidueMasses * (beliefs[i] + disbeliefs[i]);
         }
-        //sub-sums 2,3,4 are all related to different permutations of possible values
-        for(List<Domain> permutation : tabulateOptions(opinions.size())){
-            Domain intersection = permutation.stream().reduce(Domain.DOMAIN, (acc, p) -> acc.intersect(p));
-            Domain union = permutation.stream().reduce(Domain.NIL, (acc, p) -> acc.union(p));
-
-            //sub-sum 2: intersection of elements in permutation is x
-            if(intersection.equals(Domain.TRUE)) {
-                // --> add to belief
-                double prod = 1;
-                if(permutation.contains(Domain.DOMAIN))
-                    prod = 0;
-                else
-                    for (int j=0; j<permutation.size();j++)
-                        switch (permutation.get(j)){
-                            case DOMAIN:
-                                prod = 0; // multiplication by 0
-                                break;
-                            case TRUE:
-                                prod = prod * residueBeliefs.get(j) * 1;
-                                break;
-                        }
-                compromiseBeliefAccumulator = compromiseBeliefAccumulator + prod;
-            } else if (intersection.equals(Domain.FALSE)) {
-                // --> add to disbelief
-                double prod = 1;
-                if(permutation.contains(Domain.DOMAIN))
-                    prod = 0;
-                else
-                    for (int j=0; j<permutation.size();j++)
-                        switch (permutation.get(j)){
-                            case DOMAIN:
-                                prod = 0; // multiplication by 0
-                                break;
-                            case FALSE:
-                                prod = prod * residueDisbeliefs.get(j) * 1;
-                                break;
-                        }
-                compromiseDisbeliefAccumulator = compromiseDisbeliefAccumulator + prod;
-            }
+        final double productOfUncertainties = uncertaintyPrefix[n];
 
-            switch (union){
-                case DOMAIN:
-                    if(!intersection.equals(Domain.NIL)) {
-                        //sub-sum 3: union of elements in permutation is x, and intersection of elements in permutation is not NIL
-
-                        //Note: this is always zero for binary domains, as explained by the following:
-                        //double prod = 1;
-                        //for (int j=0; j<permutation.size(); j++) {
-                        //    switch (permutation.get(j)) {
-                        //        case NIL:
-                        //        case DOMAIN:
-                        //            prod = 0; //because residue belief over NIL/DOMAIN is zero here
-                        //            break;
-                        //        case TRUE:
-                        //        case FALSE:
-                        //            prod = 0; //because 1-a(y|x) is zero here, since a(y|x)=1 when x=y, and this must occur, since a(x|!x) occurring implies the intersection is NIL
-                        //            break;
-                        //    }
-                        //}
+        double compromiseBeliefAccumulator = productOfResidueBeliefs;
+        double compromiseDisbeliefAccumulator = productOfResidueDisbeliefs;
+        //this is what will later become uncertainty
+        double compromiseXAccumulator = productOfResidueMasses - productOfResidueBeliefs - productOfResidueDisbeliefs;
 
-                    }
-                    else {
-                        //sub-sum 4: union of elements in permutation is x, and intersection of elements in permutation is NIL
-                        double prod = 1;
-                        for (int j=0; j<permutation.size(); j++) {
-                            switch (permutation.get(j)) {
-                                case NIL:
-                                case DOMAIN:
-                                    prod = 0; //because residue belief over NIL/DOMAIN is zero here
-                                    break;
-                                case TRUE:
-                                    prod = prod * residueBeliefs.get(j);
-                                    break;
-                                case FALSE:
-                                    prod = prod * residueDisbeliefs.get(j);
-                                    break;
-                            }
-                        }
-                        compromiseXAccumulator = compromiseXAccumulator + prod;
-                    }
-                    break;
-                case NIL:
-                    //union of NIL means we have nothing to add
-                    //sub-sum 3: union of elements in permutation is x, and intersection of elements in permutation is not NIL
-                    //sub-sum 4: union of elements in permutation is x, and intersection of elements in permutation is NIL
-                    break;
-                case TRUE:
-                    //sub-sum 3: this is always zero for TRUE and FALSE, since 1-a(y_i|y_j)=0 in binary domains, where the relative base rate is either 1 if the union is x
-
-                    //sub-sum 4: union of elements in permutation is x, and intersection of elements in permutation is NIL
-                    if(intersection.equals(Domain.NIL)){
-                        //union is true, intersection is nil --> compute the product
-                        double prod = 1;
-                        for (int j=0; j<permutation.size(); j++) {
-                            switch (permutation.get(j)) { //other cases will not occur
-                                case TRUE:
-                                    prod = prod * residueBeliefs.get(j);
-                                    break;
-                                case FALSE:
-                                    prod = prod * residueDisbeliefs.get(j);
-                                    break;
-                                case NIL:
-                                    prod = 0;
-                                    break;
-                                default:
-                                    throw new RuntimeException();
-                            }
-                        }
-                        compromiseBeliefAccumulator = compromiseBeliefAccumulator + prod;
-                    }
-                    break;
-                case FALSE:
-                    //sub-sum 3: this is always zero for TRUE and FALSE, since 1-a(y_i|y_j)=0 in binary domains, where the relative base rate is either 1 if the union is x
-                    //sub-sum 4: union of elements in permutation is x, and intersection of elements in permutation is NIL
-                    if(intersection.equals(Domain.NIL)){
-                        //union is true, intersection is nil --> compute the product
-                        double prod = 1;
-                        for (int j=0; j<permutation.size(); j++) {
-                            switch (permutation.get(j)) { //other cases will not occur
-                                case TRUE:
-                                    prod = prod * residueBeliefs.get(j);
-                                    break;
-                                case FALSE:
-                                    prod = prod * residueDisbeliefs.get(j);
-                                    break;
-                                case NIL:
-                                    prod = 0;
-                                    break;
-                                default:
-                                    throw new RuntimeException();
-                            }
-                        }
-                        compromiseDisbeliefAccumulator= compromiseDisbeliefAccumulator + prod;
-                    }
-                    break;
-                default:
-                    break;
+        //the product of uncertainties without source i is computed from prefix and suffix products,
+        //rather than by dividing by u^i, so that dogmatic sources do not produce 0/0.
+        double uncertaintySuffix = 1.0D;
+        for (int i = n - 1; i >= 0; i--) {
+            double uWithoutI = uncertaintyPrefix[i] * uncertaintySuffix;
 
-            }
+            compromiseBeliefAccumulator = compromiseBeliefAccumulator + beliefs[i] * uWithoutI;
+            compromiseDisbeliefAccumulator = compromiseDisbeliefAccumulator + disbeliefs[i] * uWithoutI;
+            //note: compromiseXAccumulator is unchanged, since b^{ResI}_X() of the entire domain is 0
+
+            uncertaintySuffix = uncertaintySuffix * uncertainties[i];
         }
 
         double compromiseBelief = compromiseBeliefAccumulator;
@@ -508,27 +481,6 @@ public class SubjectiveOpinion extends OpinionBase
         }
     }
 
-    private static Set<List<Domain>> tabulateOptions(int size) {
-        if (size == 1) {
-            Set<List<Domain>> result = new HashSet<List<Domain>>();
-            for(Domain item : Domain.values()){
-                List l = new ArrayList<Domain>();
-                l.add(item);
-                result.add(l);
-            }
-            return result;
-        }
-        Set<List<Domain>> result = new HashSet();
-        for (List<Domain> tuple : tabulateOptions(size - 1)) {
-            for (Domain d : Domain.values()) {
-                List newList = new ArrayList(tuple);
-                newList.add(d);
-                result.add(newList);
-            }
-        }
-        return result;
-    }
-
     public SubjectiveOpinion minimum(SubjectiveOpinion other) {
         if (this.getExpectation() < other.getExpectation())
             return this;
@@ -579,6 +531,16 @@ public class SubjectiveOpinion extends OpinionBase
             else if (so.getExpectation() > so.getAtomicity())
                 pos++;
         }
+        return majority(pos, neg);
+    }
+
+    /**
+     * @param pos the amount of opinions whose expectation is greater than their base rate.
+     * @param neg the amount of opinions whose expectation is less than their base rate.
+     * @return the result of MAJORITY fusion, see {@link #majorityCollectionFuse(Collection)}.
+     */
+    static SubjectiveOpinion majority(int pos, int neg)
+    {
         if(pos>neg)
             return new SubjectiveOpinion(1,0,0,0.5);
         else if(pos<neg)
@@ -712,55 +674,28 @@ public class SubjectiveOpinion extends OpinionBase
      * @throws OpinionArithmeticException
      */
     private static SubjectiveOpinion cumulativeFusion(SubjectiveOpinion x, SubjectiveOpinion y) throws OpinionArithmeticException
+    {
+        return cumulativeFusion(x, y, new SubjectiveOpinion());
+    }
+
+    private static SubjectiveOpinion cumulativeFusion(SubjectiveOpinion x, SubjectiveOpinion y, SubjectiveOpinion o) throws OpinionArithmeticException
     {
         if ((x == null) || (y == null)) {
             throw new NullPointerException();
         }
 
-        double totalWeight = x.getRelativeWeight() + y.getRelativeWeight();
-        double weightX = x.getRelativeWeight(), weightY = y.getRelativeWeight();
-        double k = x.getUncertainty() + y.getUncertainty() - x.getUncertainty() * y.getUncertainty();
-        double l = x.getUncertainty() + y.getUncertainty() - 2.0D * x.getUncertainty() * y.getUncertainty();
-
-        double resultBelief, resultDisbelief, resultUncertainty, resultAtomicity;
-
-        if (k != 0.0D)
-        {
-            if (l != 0.0D)
-            {
-                resultBelief = (x.getBelief() * y.getUncertainty() + y.getBelief() * x.getUncertainty()) / k;
-                resultDisbelief = (x.getDisbelief() * y.getUncertainty() + y.getDisbelief() * x.getUncertainty()) / k;
-                resultUncertainty = x.getUncertainty() * y.getUncertainty() / k;
-                resultAtomicity = (y.getAtomicity() * x.getUncertainty() + x.getAtomicity() * y.getUncertainty() - (x.getAtomicity() + y.getAtomicity()) * x.getUncertainty() * y.getUncertainty()) / l;
-            }
-            else if (Math.abs(x.getAtomicity() - y.getAtomicity()) <= 1.0E-010D)
-            {
-                resultBelief = 0.0D;
-                resultDisbelief = 0.0D;
-                resultUncertainty = 1.0D;
-                resultAtomicity = x.getAtomicity();
-            }
-            else
-            {
-                throw new OpinionArithmeticException("Relative atomicities are not equal");
-            }
-
-        }
-        else
-        {
-            resultBelief = (x.getBelief() * weightX + y.getBelief() * weightY)/totalWeight;
-            resultDisbelief = (x.getDisbelief() * weightX + y.getDisbelief() * weightY)/totalWeight;
-            resultUncertainty = 0.0D;
-            resultAtomicity = (x.getAtomicity() * weightX + y.getAtomicity() * weightY)/totalWeight;
-        }
+        State sx = x.state, sy = y.state;
+        double weightX = sx.uncertainty == 0.0D ? sx.relativeWeight : 0.0D;
+        double weightY = sy.uncertainty == 0.0D ? sy.relativeWeight : 0.0D;
+        double[] result = new double[4];
+        cumulativeFusion(sx.belief, sx.disbelief, sx.uncertainty, sx.atomicity, weightX,
+                sy.belief, sy.disbelief, sy.uncertainty, sy.atomicity, weightY, result, 0);
 
-        SubjectiveOpinion o = new SubjectiveOpinion(resultBelief, resultDisbelief, resultUncertainty, resultAtomicity);
+        //relative weight represents how many opinions were fused in
+        o.store(result[0], result[1], result[2], result[3], OpinionOperator.Fuse, weightX + weightY);
 
         o.checkConsistency(true);
 
-        o.lastOp = OpinionOperator.Fuse;
-        o.setRelativeWeight(totalWeight); //relative weight represents how many opinions were fused in
-
         return o;
     }
 
@@ -789,73 +724,119 @@ public class SubjectiveOpinion extends OpinionBase
             return new SubjectiveOpinion(opinions.iterator().next());
         }
 
-        //fusion as defined by Jøsang
-        double resultBelief, resultDisbelief, resultUncertainty, resultRelativeWeight = 0, resultAtomicity = -1;
-
-        Collection<SubjectiveOpinion> dogmatic = new ArrayList<>(opinions.size());
-        Iterator<SubjectiveOpinion> it = opinions.iterator();
-        boolean first = true;
-        while(it.hasNext()) {
-            SubjectiveOpinion o = it.next();
-            if(first) {
-                resultAtomicity = o.getAtomicity();
-                first = false;
-            }
-            //dogmatic iff uncertainty is zero.
-            if (o.getUncertainty() == 0)
-                dogmatic.add(o);
-        }
-
-        if(dogmatic.isEmpty()){
-            //there are no dogmatic opinions -- case I/Eq16 of 10.23919/ICIF.2017.8009820
-            double productOfUncertainties = opinions.stream().mapToDouble(o -> o.getUncertainty()).reduce(1.0D, (acc, u) -> acc * u);
-
-            double numerator = 0.0D;
-            double beliefAccumulator = 0.0D;
-            double disbeliefAccumulator = 0.0D;
-
-            //this computes the top and bottom sums in Eq16, but ignores the - (N-1) * productOfUncertainties in the numerator (see below)
-            for (SubjectiveOpinion o : opinions) {
-                //productWithoutO = product of uncertainties without o's uncertainty
-                //this can be rewritten:
-                //prod {C_j != C } u^{C_j} = (u^C)^-1 * prod{C_j} u^{C_j} = 1/(u^C) * prod{C_j} u^{C_j}
-                //so instead of n-1 multiplications, we only need a division
-                double productWithoutO = productOfUncertainties / o.getUncertainty();
-
-                beliefAccumulator = beliefAccumulator + productWithoutO * o.getBelief();
-                disbeliefAccumulator = disbeliefAccumulator + productWithoutO * o.getDisbelief();
-                numerator = numerator + productWithoutO;
-            }
-
-            //this completes the numerator:
-            numerator = numerator - (opinions.size() - 1) * productOfUncertainties;
-
-            resultBelief = beliefAccumulator / numerator;
-            resultDisbelief = disbeliefAccumulator / numerator;
-            resultUncertainty = productOfUncertainties / numerator;
+        //fusion as defined by Jøsang, see CumulativeFusionAccumulator for details
+        CumulativeFusionAccumulator accumulator = new CumulativeFusionAccumulator();
+        for (SubjectiveOpinion o : opinions) {
+            accumulator.add(o);
+        }
+        return accumulator.toSubjectiveOpinion();
+    }
 
-            resultRelativeWeight = 0;
-        } else {
-            //at least 1 dogmatic opinion
-            //note: this computation assumes that the relative weight represents how many opinions have been fused into that opinion.
-            //for a normal multi-source fusion operation, this should be 1, in which case the gamma's in Eq17 are 1/N as noted in the text (i.e., all opinions count equally)
-            //however, this formulation also allows partial fusion beforehand, by "remembering" the amount of dogmatic (!) opinions in o.relativeWeight.
+    /**
+     * Creates the result of a fusion operation.
+     *
+     * @param relativeWeight the amount of dogmatic opinions that were fused into the result, or 0 if there were none.
+     */
+    static SubjectiveOpinion fusionResult(double belief, double disbelief, double uncertainty, double atomicity, double relativeWeight)
+    {
+        SubjectiveOpinion result = new SubjectiveOpinion(belief, disbelief, uncertainty, atomicity);
+        result.setRelativeWeight(relativeWeight);
+        result.state = result.state.withOperator(OpinionOperator.Fuse);
+        return result;
+    }
 
-            double totalWeight = dogmatic.stream().mapToDouble( o -> o.getRelativeWeight()).sum();
+    /**
+     * Creates an opinion from values that were read from an opinion with {@link #snapshot(double[], int)}, without
+     * normalizing them again.
+     */
+    static SubjectiveOpinion fromSnapshot(double[] values, int offset)
+    {
+        SubjectiveOpinion o = new SubjectiveOpinion();
+        int lastOp = (int) values[offset + 5];
+        o.state = new State(values[offset], values[offset + 1], values[offset + 2], values[offset + 3],
+                lastOp < 0 ? null : OpinionOperator.values()[lastOp], values[offset + 4]);
+        return o;
+    }
 
-            resultBelief = dogmatic.stream().mapToDouble(o-> o.getRelativeWeight()/totalWeight * (o).getBelief()).sum();
+    /**
+     * The amount of values that {@link #snapshot(double[], int)} writes.
+     */
+    static final int SNAPSHOT_SIZE = 6;
 
-            resultDisbelief = dogmatic.stream().mapToDouble(o-> o.getRelativeWeight()/totalWeight * (o).getDisbelief()).sum();
+    /**
+     * Writes belief, disbelief, uncertainty and atomicity of a single snapshot, the relative weight (also if the opinion
+     * is not dogmatic) and the ordinal of the last operator, or -1 if there is none, to values.
+     */
+    void snapshot(double[] values, int offset)
+    {
+        State s = this.state;
+        values[offset] = s.belief;
+        values[offset + 1] = s.disbelief;
+        values[offset + 2] = s.uncertainty;
+        values[offset + 3] = s.atomicity;
+        values[offset + 4] = s.relativeWeight;
+        values[offset + 5] = s.lastOp == null ? -1 : s.lastOp.ordinal();
+    }
 
-            resultUncertainty = 0.0D;
+    /**
+     * Writes a snapshot of the given values to values at offset, normalized in the same way as {@link #store} followed
+     * by {@link #checkConsistency(boolean)}.
+     */
+    static void storeSnapshot(double[] values, int offset, double belief, double disbelief, double uncertainty, double atomicity,
+                              OpinionOperator lastOp, double relativeWeight, boolean recalculate) throws OpinionArithmeticException
+    {
+        double bdu = belief + disbelief + uncertainty;
+        double b = belief / bdu;
+        double u = uncertainty / bdu;
+        if ((b < 0.0D) || (b > 1.0D) || (u < 0.0D) || (u > 1.0D)) {
+            throw new IllegalArgumentException("Belief x or Uncertainty x, must be: 0 <= x <= 1");
+        }
+        if (b + u - 1.0D > 1.0E-010D) {
+            throw new IllegalArgumentException("Belief belief, Uncertainty uncertainty, must be: (belief + uncertainty) <= 1");
+        }
+        if ((atomicity < 0.0D) || (atomicity > 1.0D)) {
+            throw new IllegalArgumentException("Atomicity, x, must be: 0 <= x <= 1");
+        }
+        state(values, offset, b, 1.0D - (b + u), u, atomicity);
+        values[offset + 4] = relativeWeight;
+        values[offset + 5] = lastOp.ordinal();
 
-            resultRelativeWeight = totalWeight;
+        double sum = values[offset] + values[offset + 1] + values[offset + 2];
+        if (Math.abs(sum - 1.0D) > 1.0E-010D)
+        {
+            if (!recalculate) {
+                throw new OpinionArithmeticException("Belief, disbelief and uncertainty do not add up to 1: belief + disbelief + uncertainty != 1");
+            }
+            b = OpinionBase.constrain(OpinionBase.adjust(values[offset] / sum));
+            u = OpinionBase.constrain(OpinionBase.adjust(values[offset + 2] / sum));
+            state(values, offset, b, 1.0D - (b + u), u, values[offset + 3]);
         }
+    }
 
-        SubjectiveOpinion result = new SubjectiveOpinion(resultBelief, resultDisbelief, resultUncertainty, resultAtomicity);
-        result.setRelativeWeight(resultRelativeWeight);
-        result.lastOp = OpinionOperator.Fuse;
-        return result;
+    /**
+     * Writes the values to values at offset, rounded and constrained like a new {@link State}.
+     */
+    private static void state(double[] values, int offset, double belief, double disbelief, double uncertainty, double atomicity)
+    {
+        values[offset] = OpinionBase.constrain(OpinionBase.adjust(belief));
+        values[offset + 1] = OpinionBase.constrain(OpinionBase.adjust(disbelief));
+        values[offset + 2] = OpinionBase.constrain(OpinionBase.adjust(uncertainty));
+        values[offset + 3] = OpinionBase.constrain(OpinionBase.adjust(atomicity));
+    }
+
+    /**
+     * Fuses the snapshots at x and y like {@link #cumulativeFuse(Opinion)}, and writes the snapshot of the result to o,
+     * which may be x or y.
+     *
+     * @throws OpinionArithmeticException if the opinions cannot be fused, in which case values is not changed.
+     */
+    static void cumulativeFusion(double[] values, int x, int y, int o) throws OpinionArithmeticException
+    {
+        double weightX = values[x + 2] == 0.0D ? values[x + 4] : 0.0D;
+        double weightY = values[y + 2] == 0.0D ? values[y + 4] : 0.0D;
+        cumulativeFusion(values[x], values[x + 1], values[x + 2], values[x + 3], weightX,
+                values[y], values[y + 1], values[y + 2], values[y + 3], weightY, values, o);
+        storeSnapshot(values, o, values[o], values[o + 1], values[o + 2], values[o + 3], OpinionOperator.Fuse, weightX + weightY, true);
     }
 
     /**
@@ -880,89 +861,12 @@ public class SubjectiveOpinion extends OpinionBase
             return new SubjectiveOpinion(opinions.iterator().next());
         }
 
-        double resultBelief, resultDisbelief, resultUncertainty, resultRelativeWeight = 0, resultAtomicity;
-
-        Collection<SubjectiveOpinion> dogmatic = new ArrayList<>(opinions.size());
-        Iterator<SubjectiveOpinion> it = opinions.iterator();
-        while(it.hasNext()) {
-            SubjectiveOpinion o = it.next();
-            //dogmatic iff uncertainty is zero.
-            if (o.getUncertainty() == 0)
-                dogmatic.add(o);
-        }
-
-        if (dogmatic.isEmpty() && opinions.stream().anyMatch(o -> o.getCertainty() > 0)) {
-            //Case 1: no dogmatic opinions, at least one non-vacuous opinion
-            double productOfUncertainties = opinions.stream().mapToDouble(o -> o.getUncertainty()).reduce(1.0D, (acc, u) -> acc * u);
-            double sumOfUncertainties = opinions.stream().mapToDouble(o -> o.getUncertainty()).sum();
-
-            double numerator = 0.0D;
-            double beliefAccumulator = 0.0D;
-            double disbeliefAccumulator = 0.0D;
-            double atomicityAccumulator = 0.0D;
-
-            for (SubjectiveOpinion o : opinions) {
-                //prod = product of uncertainties without o's uncertainty
-                double prod = productOfUncertainties / o.getUncertainty();
-
-                //recall certainty = 1 - uncertainty
-                beliefAccumulator = beliefAccumulator + prod * o.getBelief() * o.getCertainty();
-                disbeliefAccumulator = disbeliefAccumulator + prod * o.getDisbelief() * o.getCertainty();
-                atomicityAccumulator = atomicityAccumulator + o.getAtomicity() * o.getCertainty();
-                numerator = numerator + prod;
-            }
-
-            numerator = numerator - opinions.size() * productOfUncertainties;
-
-            resultBelief = beliefAccumulator / numerator;
-            resultDisbelief = disbeliefAccumulator / numerator;
-            resultUncertainty = (opinions.size() - sumOfUncertainties) * productOfUncertainties / numerator;
-            resultAtomicity = atomicityAccumulator / (opinions.size() - sumOfUncertainties);
-        } else if (opinions.stream().allMatch(o -> o.getUncertainty() == 1)) {
-            //Case 3 -- everything is vacuous
-            resultBelief = 0;
-            resultDisbelief = 0;
-            resultUncertainty = 1;
-            boolean first = true;
-
-            //all confidences are zero, so the weight for each opinion is the same -> use a plain average for the resultAtomicity
-            resultAtomicity = 0;
-            for (Opinion o : opinions) {
-                if (first) {
-                    resultAtomicity = resultAtomicity + o.getAtomicity();
-                    first = false;
-                }
-            }
-            resultAtomicity = resultAtomicity / ((double)opinions.size());
-
-        } else {
-            //Case 2 -- dogmatic opinions are involved
-            double totalWeight = dogmatic.stream().mapToDouble( o -> o.getRelativeWeight()).sum();
-
-            resultBelief = dogmatic.stream().mapToDouble(o-> o.getRelativeWeight()/totalWeight * o.getBelief()).sum();
-
-            resultDisbelief = dogmatic.stream().mapToDouble(o-> o.getRelativeWeight()/totalWeight * o.getDisbelief()).sum();
-
-            resultUncertainty = 0.0D;
-
-            resultRelativeWeight = totalWeight;
-
-            //note: the for loop below will always set resultAtomicity correctly.
-            resultAtomicity = -1;
-            boolean first = true;
-            for(Opinion o : opinions){
-                if (first) {
-                    resultAtomicity = o.getAtomicity();
-                    first = false;
-                }
-            }
+        //see WeightedFusionAccumulator for details on the three cases
+        WeightedFusionAccumulator accumulator = new WeightedFusionAccumulator();
+        for (SubjectiveOpinion o : opinions) {
+            accumulator.add(o);
         }
-
-        SubjectiveOpinion result = new SubjectiveOpinion(resultBelief, resultDisbelief, resultUncertainty, resultAtomicity);
-
-        result.setRelativeWeight(resultRelativeWeight);
-        result.lastOp = OpinionOperator.Fuse;
-        return result;
+        return accumulator.toSubjectiveOpinion();
     }
 
     /**
@@ -995,137 +899,354 @@ public class SubjectiveOpinion extends OpinionBase
 
     private static SubjectiveOpinion deduction(SubjectiveOpinion x, SubjectiveOpinion yTx, SubjectiveOpinion yFx)
             throws OpinionArithmeticException
+    {
+        return deduction(x, yTx, yFx, new SubjectiveOpinion());
+    }
+
+    private static SubjectiveOpinion deduction(SubjectiveOpinion x, SubjectiveOpinion yTx, SubjectiveOpinion yFx, SubjectiveOpinion o)
+            throws OpinionArithmeticException
     {
         if ((x == null) || (yTx == null) || (yFx == null)) {
             throw new NullPointerException();
         }
-        if (Math.abs(yTx.getAtomicity() - yFx.getAtomicity()) > 1.0E-010D) {
+        //a single snapshot of each argument, as they are not copied by the into operators
+        State s = x.state, t = yTx.state, f = yFx.state;
+        if (Math.abs(t.atomicity - f.atomicity) > 1.0E-010D) {
             throw new OpinionArithmeticException("The atomicities of both sub-conditionals must be equal");
         }
-        x.setDependants();
 
-        final double IBelief, IDisbelief, IUncertainty, IAtomicity;
-        IAtomicity = yTx.getAtomicity();
-        IBelief = x.getBelief() * yTx.getBelief() + x.getDisbelief() * yFx.getBelief() + x.getUncertainty() * (yTx.getBelief() * x.getAtomicity() + yFx.getBelief() * (1.0D - x.getAtomicity()));
-        IDisbelief = x.getBelief() * yTx.getDisbelief() + x.getDisbelief() * yFx.getDisbelief() + x.getUncertainty() * (yTx.getDisbelief() * x.getAtomicity() + yFx.getDisbelief() * (1.0D - x.getAtomicity()));
-        IUncertainty = x.getBelief() * yTx.getUncertainty() + x.getDisbelief() * yFx.getUncertainty() + x.getUncertainty() * (yTx.getUncertainty() * x.getAtomicity() + yFx.getUncertainty() * (1.0D - x.getAtomicity()));
+        deduction(s.belief, s.disbelief, s.uncertainty, s.atomicity, t.belief, t.disbelief, t.uncertainty, t.atomicity,
+                f.belief, f.disbelief, f.uncertainty, null, 0, o);
+        o.checkConsistency(true);
 
-        final SubjectiveOpinion I = new SubjectiveOpinion(IBelief, IDisbelief, IUncertainty, IAtomicity);
+        return o;
+    }
 
-        I.setDependants(true);
-        SubjectiveOpinion y;
-        if (((yTx.getBelief() >= yFx.getBelief()) && (yTx.getDisbelief() >= yFx.getDisbelief())) || ((yTx.getBelief() <= yFx.getBelief()) && (yTx.getDisbelief() <= yFx.getDisbelief())))
-        {
-            y = I;
+    private static SubjectiveOpinion deduction(SubjectiveOpinion x, PreparedConditionals conditionals, SubjectiveOpinion o)
+    {
+        if ((x == null) || (conditionals == null)) {
+            throw new NullPointerException();
         }
-        else
+        State s = x.state;
+        conditionals.deduction(s.belief, s.disbelief, s.uncertainty, s.atomicity, null, 0, o);
+        o.checkConsistency(true);
+
+        return o;
+    }
+
+    /**
+     * Computes the deduction of y from x and the conditionals y|x and y|!x on primitive values, so that it can be
+     * shared by {@link #deduce(Opinion, Opinion)} and {@link OpinionBatch}. The atomicities of both sub-conditionals
+     * must have been checked to be equal by the caller.
+     *
+     * @param yAtomicity the atomicity of both sub-conditionals.
+     * @param result receives belief, disbelief, uncertainty and atomicity of the deduced opinion at offset, which still
+     *               need to be normalized, see {@link #checkConsistency(boolean)}.
+     */
+    static void deduction(double xBelief, double xDisbelief, double xUncertainty, double xAtomicity,
+                          double yTxBelief, double yTxDisbelief, double yTxUncertainty, double yAtomicity,
+                          double yFxBelief, double yFxDisbelief, double yFxUncertainty, double[] result, int offset)
+    {
+        deduction(xBelief, xDisbelief, xUncertainty, xAtomicity, yTxBelief, yTxDisbelief, yTxUncertainty, yAtomicity,
+                yFxBelief, yFxDisbelief, yFxUncertainty, result, offset, null);
+    }
+
+    /**
+     * The deduction of y as a new {@link BinomialOpinion}, without an intermediate array, see
+     * {@link #deduction(double, double, double, double, double, double, double, double, double, double, double, double[], int)}.
+     */
+    static BinomialOpinion deduction(double xBelief, double xDisbelief, double xUncertainty, double xAtomicity,
+                                     double yTxBelief, double yTxDisbelief, double yTxUncertainty, double yAtomicity,
+                                     double yFxBelief, double yFxDisbelief, double yFxUncertainty)
+    {
+        return deduction(xBelief, xDisbelief, xUncertainty, xAtomicity, yTxBelief, yTxDisbelief, yTxUncertainty, yAtomicity,
+                yFxBelief, yFxDisbelief, yFxUncertainty, null, 0, null);
+    }
+
+    /**
+     * The deduction of y, see {@link #deduced(double, double, double, double, double[], int, SubjectiveOpinion)}.
+     */
+    private static BinomialOpinion deduction(double xBelief, double xDisbelief, double xUncertainty, double xAtomicity,
+                                  double yTxBelief, double yTxDisbelief, double yTxUncertainty, double yAtomicity,
+                                  double yFxBelief, double yFxDisbelief, double yFxUncertainty, double[] result, int offset,
+                                  SubjectiveOpinion target)
+    {
+        double b = xBelief * yTxBelief + xDisbelief * yFxBelief + xUncertainty * (yTxBelief * xAtomicity + yFxBelief * (1.0D - xAtomicity));
+        double d = xBelief * yTxDisbelief + xDisbelief * yFxDisbelief + xUncertainty * (yTxDisbelief * xAtomicity + yFxDisbelief * (1.0D - xAtomicity));
+        double u = xBelief * yTxUncertainty + xDisbelief * yFxUncertainty + xUncertainty * (yTxUncertainty * xAtomicity + yFxUncertainty * (1.0D - xAtomicity));
+
+        //the intermediate opinion I, normalized like a new SubjectiveOpinion
+        double bdu = b + d + u;
+        b = b / bdu;
+        u = u / bdu;
+        final double IBelief = OpinionBase.constrain(OpinionBase.adjust(b));
+        final double IDisbelief = OpinionBase.constrain(OpinionBase.adjust(1.0D - (b + u)));
+        final double IUncertainty = OpinionBase.constrain(OpinionBase.adjust(u));
+
+        if (!isDeductionAdjusted(yTxBelief, yTxDisbelief, yFxBelief, yFxDisbelief))
         {
-            double expec = yTx.getBelief() * x.getAtomicity() + yFx.getBelief() * (1.0D - x.getAtomicity()) + yTx.getAtomicity() * (yTx.getUncertainty() * x.getAtomicity() + yFx.getUncertainty() * (1.0D - x.getAtomicity()));
+            return deduced(IBelief, IDisbelief, IUncertainty, yAtomicity, result, offset, target);
+        }
+
+        double k = deductionAdjustment(xBelief, xDisbelief, xUncertainty, xAtomicity, yTxBelief, yTxDisbelief, yTxUncertainty,
+                yAtomicity, yFxBelief, yFxDisbelief, yFxUncertainty, IBelief, IDisbelief);
+        return deduced(OpinionBase.adjust(IBelief - k * yAtomicity), OpinionBase.adjust(IDisbelief - k * (1.0D - yAtomicity)),
+                OpinionBase.adjust(IUncertainty + k), yAtomicity, result, offset, target);
+    }
+
+    /**
+     * Stores a deduced opinion in the target if it is not null, writes it to result at offset if that is not null, or
+     * returns it as a new {@link BinomialOpinion} otherwise, so that the object operators need no intermediate array.
+     *
+     * @return the deduced opinion if neither a target nor a result is given, null otherwise.
+     */
+    static BinomialOpinion deduced(double belief, double disbelief, double uncertainty, double atomicity, double[] result,
+                                   int offset, SubjectiveOpinion target)
+    {
+        if (target != null) {
+            target.store(belief, disbelief, uncertainty, atomicity, OpinionOperator.Deduce, 1.0D);
+            return null;
+        }
+        if (result == null) {
+            return new BinomialOpinion(belief, disbelief, uncertainty, atomicity);
+        }
+        result[offset] = belief;
+        result[offset + 1] = disbelief;
+        result[offset + 2] = uncertainty;
+        result[offset + 3] = atomicity;
+        return null;
+    }
+
+    /**
+     * @return false iff the deduced opinion is the intermediate opinion I, which only depends on the conditionals.
+     */
+    static boolean isDeductionAdjusted(double yTxBelief, double yTxDisbelief, double yFxBelief, double yFxDisbelief)
+    {
+        return !(((yTxBelief >= yFxBelief) && (yTxDisbelief >= yFxDisbelief)) || ((yTxBelief <= yFxBelief) && (yTxDisbelief <= yFxDisbelief)));
+    }
+
+    /**
+     * Computes the adjustment k of the intermediate opinion I of a deduction, if {@link #isDeductionAdjusted} holds.
+     */
+    static double deductionAdjustment(double xBelief, double xDisbelief, double xUncertainty, double xAtomicity,
+                                      double yTxBelief, double yTxDisbelief, double yTxUncertainty, double yAtomicity,
+                                      double yFxBelief, double yFxDisbelief, double yFxUncertainty, double IBelief, double IDisbelief)
+    {
+        double xExpectation = OpinionBase.constrain(OpinionBase.adjust(xBelief + xAtomicity * xUncertainty));
+
+        double expec = yTxBelief * xAtomicity + yFxBelief * (1.0D - xAtomicity) + yAtomicity * (yTxUncertainty * xAtomicity + yFxUncertainty * (1.0D - xAtomicity));
 
-            boolean case_II = (yTx.getBelief() > yFx.getBelief()) && (yTx.getDisbelief() < yFx.getDisbelief());
+        boolean case_II = (yTxBelief > yFxBelief) && (yTxDisbelief < yFxDisbelief);
 
-            boolean case_1 = x.getExpectation() <= x.getAtomicity();
-            double k;
-            if (case_II)
+        boolean case_1 = xExpectation <= xAtomicity;
+        double k;
+        if (case_II)
+        {
+            boolean case_A = expec <= yFxBelief + yAtomicity * (1.0D - yFxBelief - yTxDisbelief);
+            if (case_A)
             {
-                boolean case_A = expec <= yFx.getBelief() + yTx.getAtomicity() * (1.0D - yFx.getBelief() - yTx.getDisbelief());
-                if (case_A)
+                if (case_1)
                 {
-                    if (case_1)
-                    {
-                        double divisor;
-                        if ((divisor = x.getExpectation() * yTx.getAtomicity()) > 0.0D)
-                            k = x.getAtomicity() * x.getUncertainty() * (I.getBelief() - yFx.getBelief()) / divisor;
-                        else
-                            k = I.getBelief() - yFx.getBelief();
-                    }
+                    double divisor;
+                    if ((divisor = xExpectation * yAtomicity) > 0.0D)
+                        k = xAtomicity * xUncertainty * (IBelief - yFxBelief) / divisor;
                     else
-                    {
-                        double divisor;
-                        if ((divisor = (x.getDisbelief() + (1.0D - x.getAtomicity()) * x.getUncertainty()) * yTx.getAtomicity() * (yFx.getDisbelief() - yTx.getDisbelief())) > 0.0D)
-                            k = x.getAtomicity() * x.getUncertainty() * (I.getDisbelief() - yTx.getDisbelief()) * (yTx.getBelief() - yFx.getBelief()) / divisor;
-                        else
-                            k = (I.getDisbelief() - yTx.getDisbelief()) * (yTx.getBelief() - yFx.getBelief());
-                    }
+                        k = IBelief - yFxBelief;
                 }
                 else
                 {
-                    if (case_1)
-                    {
-                        double divisor;
-                        if ((divisor = x.getExpectation() * (1.0D - yTx.getAtomicity()) * (yTx.getBelief() - yFx.getBelief())) > 0.0D)
-                            k = (1.0D - x.getAtomicity()) * x.getUncertainty() * (I.getBelief() - yFx.getBelief()) * (yFx.getDisbelief() - yTx.getDisbelief()) / divisor;
-                        else
-                            k = (I.getBelief() - yFx.getBelief()) * (yFx.getDisbelief() - yTx.getDisbelief());
-                    }
+                    double divisor;
+                    if ((divisor = (xDisbelief + (1.0D - xAtomicity) * xUncertainty) * yAtomicity * (yFxDisbelief - yTxDisbelief)) > 0.0D)
+                        k = xAtomicity * xUncertainty * (IDisbelief - yTxDisbelief) * (yTxBelief - yFxBelief) / divisor;
                     else
-                    {
-                        double divisor;
-                        if ((divisor = (x.getDisbelief() + (1.0D - x.getAtomicity()) * x.getUncertainty()) * (1.0D - yTx.getAtomicity())) > 0.0D)
-                            k = (1.0D - x.getAtomicity()) * x.getUncertainty() * (I.getDisbelief() - yTx.getDisbelief()) / divisor;
-                        else {
-                            k = I.getDisbelief() - yTx.getDisbelief();
-                        }
-                    }
+                        k = (IDisbelief - yTxDisbelief) * (yTxBelief - yFxBelief);
                 }
             }
             else
             {
-                boolean case_A = expec <= yTx.getBelief() + yTx.getAtomicity() * (1.0D - yTx.getBelief() - yFx.getDisbelief());
-                if (case_A)
+                if (case_1)
                 {
-                    if (case_1)
-                    {
-                        double divisor;
-                        if ((divisor = x.getExpectation() * yTx.getAtomicity() * (yTx.getDisbelief() - yFx.getDisbelief())) > 0.0D)
-                            k = (1.0D - x.getAtomicity()) * x.getUncertainty() * (I.getDisbelief() - yFx.getDisbelief()) * (yFx.getBelief() - yTx.getBelief()) / divisor;
-                        else
-                            k = (I.getDisbelief() - yFx.getDisbelief()) * (yFx.getBelief() - yTx.getBelief());
-                    }
+                    double divisor;
+                    if ((divisor = xExpectation * (1.0D - yAtomicity) * (yTxBelief - yFxBelief)) > 0.0D)
+                        k = (1.0D - xAtomicity) * xUncertainty * (IBelief - yFxBelief) * (yFxDisbelief - yTxDisbelief) / divisor;
                     else
-                    {
-                        double divisor;
-                        if ((divisor = (x.getDisbelief() + (1.0D - x.getAtomicity()) * x.getUncertainty()) * yTx.getAtomicity()) > 0.0D)
-                            k = (1.0D - x.getAtomicity()) * x.getUncertainty() * (I.getBelief() - yTx.getBelief()) / divisor;
-                        else
-                            k = I.getBelief() - yTx.getBelief();
-                    }
+                        k = (IBelief - yFxBelief) * (yFxDisbelief - yTxDisbelief);
                 }
                 else
                 {
-                    if (case_1)
-                    {
-                        double divisor;
-                        if ((divisor = x.getExpectation() * (1.0D - yTx.getAtomicity())) > 0.0D)
-                            k = x.getAtomicity() * x.getUncertainty() * (I.getDisbelief() - yFx.getDisbelief()) / divisor;
-                        else
-                            k = I.getDisbelief() - yFx.getDisbelief();
+                    double divisor;
+                    if ((divisor = (xDisbelief + (1.0D - xAtomicity) * xUncertainty) * (1.0D - yAtomicity)) > 0.0D)
+                        k = (1.0D - xAtomicity) * xUncertainty * (IDisbelief - yTxDisbelief) / divisor;
+                    else {
+                        k = IDisbelief - yTxDisbelief;
                     }
+                }
+            }
+        }
+        else
+        {
+            boolean case_A = expec <= yTxBelief + yAtomicity * (1.0D - yTxBelief - yFxDisbelief);
+            if (case_A)
+            {
+                if (case_1)
+                {
+                    double divisor;
+                    if ((divisor = xExpectation * yAtomicity * (yTxDisbelief - yFxDisbelief)) > 0.0D)
+                        k = (1.0D - xAtomicity) * xUncertainty * (IDisbelief - yFxDisbelief) * (yFxBelief - yTxBelief) / divisor;
                     else
-                    {
-                        double divisor;
-                        if ((divisor = (x.getDisbelief() + (1.0D - x.getAtomicity()) * x.getUncertainty()) * (1.0D - yTx.getAtomicity()) * (yFx.getBelief() - yTx.getBelief())) > 0.0D)
-                            k = x.getAtomicity() * x.getUncertainty() * (I.getBelief() - yTx.getBelief()) * (yTx.getDisbelief() - yFx.getDisbelief()) / divisor;
-                        else {
-                            k = (I.getBelief() - yTx.getBelief()) * (yTx.getDisbelief() - yFx.getDisbelief());
-                        }
+                        k = (IDisbelief - yFxDisbelief) * (yFxBelief - yTxBelief);
+                }
+                else
+                {
+                    double divisor;
+                    if ((divisor = (xDisbelief + (1.0D - xAtomicity) * xUncertainty) * yAtomicity) > 0.0D)
+                        k = (1.0D - xAtomicity) * xUncertainty * (IBelief - yTxBelief) / divisor;
+                    else
+                        k = IBelief - yTxBelief;
+                }
+            }
+            else
+            {
+                if (case_1)
+                {
+                    double divisor;
+                    if ((divisor = xExpectation * (1.0D - yAtomicity)) > 0.0D)
+                        k = xAtomicity * xUncertainty * (IDisbelief - yFxDisbelief) / divisor;
+                    else
+                        k = IDisbelief - yFxDisbelief;
+                }
+                else
+                {
+                    double divisor;
+                    if ((divisor = (xDisbelief + (1.0D - xAtomicity) * xUncertainty) * (1.0D - yAtomicity) * (yFxBelief - yTxBelief)) > 0.0D)
+                        k = xAtomicity * xUncertainty * (IBelief - yTxBelief) * (yTxDisbelief - yFxDisbelief) / divisor;
+                    else {
+                        k = (IBelief - yTxBelief) * (yTxDisbelief - yFxDisbelief);
                     }
                 }
             }
-            double yAtomicity, yBelief, yDisbelief, yUncertainty;
-            yAtomicity = yTx.getAtomicity();
-
-            yBelief = OpinionBase.adjust(I.getBelief() - k * yAtomicity);
-            yDisbelief = OpinionBase.adjust(I.getDisbelief() - k * (1.0D - yAtomicity));
-            yUncertainty = OpinionBase.adjust(I.getUncertainty() + k);
-
-            y = new SubjectiveOpinion(yAtomicity, yBelief, yDisbelief, yUncertainty);
-            y.checkConsistency(true);
         }
-
-        y.lastOp = OpinionOperator.Deduce;
-
-        return y;
+        return k;
+    }
+
+    /**
+     * Computes the binomial multiplication of x and y on primitive values, see {@link #and(Opinion)}.
+     *
+     * @param r the relative weight of x to y, see {@link #getRelativeWeight(SubjectiveOpinion, OpinionOperator)}.
+     * @param result receives belief, disbelief, uncertainty and atomicity at offset, which still need to be normalized.
+     */
+    static void multiplication(double xBelief, double xDisbelief, double xUncertainty, double xAtomicity,
+                               double yBelief, double yDisbelief, double yUncertainty, double yAtomicity,
+                               double r, double[] result, int offset)
+    {
+        double oDisbelief = xDisbelief + yDisbelief - xDisbelief * yDisbelief;
+        double oAtomicity = xAtomicity * yAtomicity;
+        double expec = OpinionBase.constrain(OpinionBase.adjust(xBelief + xAtomicity * xUncertainty)) * (yBelief + yAtomicity * yUncertainty);
+        double divisor = 1.0D - oAtomicity;
+
+        double oBelief, oUncertainty;
+        if (divisor != 0.0D) {
+            oBelief = ((oDisbelief - 1.0D) * oAtomicity + expec) / divisor;
+            oUncertainty = -(oDisbelief - 1.0D + expec) / divisor;
+        } else {
+            oBelief = xBelief * yBelief + (r * xBelief * yUncertainty + xUncertainty * yBelief) / (r + 1.0D);
+            oUncertainty = (xBelief * yUncertainty + r * yBelief * xUncertainty) / (r + 1.0D) + xUncertainty * yUncertainty;
+        }
+        result[offset] = oBelief;
+        result[offset + 1] = oDisbelief;
+        result[offset + 2] = oUncertainty;
+        result[offset + 3] = oAtomicity;
+    }
+
+    /**
+     * Computes the binomial comultiplication of x and y on primitive values, see {@link #or(Opinion)}.
+     *
+     * @param r the relative weight of x to y, see {@link #getRelativeWeight(SubjectiveOpinion, OpinionOperator)}.
+     * @param result receives belief, disbelief, uncertainty and atomicity at offset, which still need to be normalized.
+     */
+    static void coMultiplication(double xBelief, double xDisbelief, double xUncertainty, double xAtomicity,
+                                 double yBelief, double yDisbelief, double yUncertainty, double yAtomicity,
+                                 double r, double[] result, int offset)
+    {
+        double oBelief = xBelief + yBelief - xBelief * yBelief;
+        double oAtomicity = xAtomicity + yAtomicity - xAtomicity * yAtomicity;
+
+        double oUncertainty;
+        if (oAtomicity != 0.0D) {
+            oUncertainty = xUncertainty * yUncertainty + (yAtomicity * xDisbelief * yUncertainty + xAtomicity * xUncertainty * yDisbelief) / oAtomicity;
+        } else {
+            oUncertainty = xUncertainty * yUncertainty + (xDisbelief * yUncertainty + r * xUncertainty * yDisbelief) / (r + 1.0D);
+        }
+        result[offset] = oBelief;
+        result[offset + 1] = 1.0D - oBelief - oUncertainty;
+        result[offset + 2] = oUncertainty;
+        result[offset + 3] = oAtomicity;
+    }
+
+    /**
+     * Computes the discounting of y by x on primitive values, see {@link #discountBy(Opinion)}.
+     *
+     * @param result receives belief, disbelief, uncertainty and atomicity at offset, which still need to be normalized.
+     */
+    static void transitivity(double xBelief, double xUncertainty, double xAtomicity,
+                             double yBelief, double yDisbelief, double yAtomicity, double[] result, int offset)
+    {
+        double e = OpinionBase.constrain(OpinionBase.adjust(xBelief + xAtomicity * xUncertainty));
+        result[offset] = e * yBelief;
+        result[offset + 1] = e * yDisbelief;
+        result[offset + 2] = 1 - e * (yDisbelief + yBelief);
+        result[offset + 3] = yAtomicity;
+    }
+
+    /**
+     * Computes the cumulative fusion of x and y on primitive values, see {@link #cumulativeFuse(Opinion)}.
+     *
+     * @param xWeight the relative weight of x, see {@link #getRelativeWeight()}.
+     * @param yWeight the relative weight of y.
+     * @param result receives belief, disbelief, uncertainty and atomicity at offset, which still need to be normalized.
+     * @throws OpinionArithmeticException if both opinions are vacuous, with different atomicities.
+     */
+    static void cumulativeFusion(double xBelief, double xDisbelief, double xUncertainty, double xAtomicity, double xWeight,
+                                 double yBelief, double yDisbelief, double yUncertainty, double yAtomicity, double yWeight,
+                                 double[] result, int offset) throws OpinionArithmeticException
+    {
+        double totalWeight = xWeight + yWeight;
+        double k = xUncertainty + yUncertainty - xUncertainty * yUncertainty;
+        double l = xUncertainty + yUncertainty - 2.0D * xUncertainty * yUncertainty;
+
+        double resultBelief, resultDisbelief, resultUncertainty, resultAtomicity;
+        if (k != 0.0D)
+        {
+            if (l != 0.0D)
+            {
+                resultBelief = (xBelief * yUncertainty + yBelief * xUncertainty) / k;
+                resultDisbelief = (xDisbelief * yUncertainty + yDisbelief * xUncertainty) / k;
+                resultUncertainty = xUncertainty * yUncertainty / k;
+                resultAtomicity = (yAtomicity * xUncertainty + xAtomicity * yUncertainty - (xAtomicity + yAtomicity) * xUncertainty * yUncertainty) / l;
+            }
+            else if (Math.abs(xAtomicity - yAtomicity) <= 1.0E-010D)
+            {
+                resultBelief = 0.0D;
+                resultDisbelief = 0.0D;
+                resultUncertainty = 1.0D;
+                resultAtomicity = xAtomicity;
+            }
+            else
+            {
+                throw new OpinionArithmeticException("Relative atomicities are not equal");
+            }
+        }
+        else
+        {
+            resultBelief = (xBelief * xWeight + yBelief * yWeight) / totalWeight;
+            resultDisbelief = (xDisbelief * xWeight + yDisbelief * yWeight) / totalWeight;
+            resultUncertainty = 0.0D;
+            resultAtomicity = (xAtomicity * xWeight + yAtomicity * yWeight) / totalWeight;
+        }
+        result[offset] = resultBelief;
+        result[offset + 1] = resultDisbelief;
+        result[offset + 2] = resultUncertainty;
+        result[offset + 3] = resultAtomicity;
     }
 
     private static SubjectiveOpinion clippedOpinion(double b, double u, double a) throws OpinionArithmeticException
@@ -1176,10 +1297,8 @@ public class SubjectiveOpinion extends OpinionBase
         }
 
         SubjectiveOpinion o = new SubjectiveOpinion(resBelief, resDisbelief, resUncertainty, resAtomicity);
-        o.adjust();
 
         o.checkConsistency();
-        o.recalculate = true;
 
         return o;
     }
@@ -1193,8 +1312,6 @@ public class SubjectiveOpinion extends OpinionBase
             throw new OpinionArithmeticException("Atomicity of divisor is zero");
         }
 
-        x.setDependants();
-        y.setDependants();
 
         if (y.getExpectation() - x.getExpectation() < -1.0E-010D) {
             throw new OpinionArithmeticException("Expectation of divisor cannot be less than of numerator");
@@ -1225,9 +1342,8 @@ public class SubjectiveOpinion extends OpinionBase
                 }
             }
             o.checkConsistency();
-            o.recalculate = true;
 
-            o.lastOp = OpinionOperator.UnAnd;
+            o.state = o.state.withOperator(OpinionOperator.UnAnd);
 
             return o;
         }
@@ -1238,6 +1354,11 @@ public class SubjectiveOpinion extends OpinionBase
     }
 
     private static SubjectiveOpinion erosion(SubjectiveOpinion x, double factor)
+    {
+        return erosion(x, factor, new SubjectiveOpinion());
+    }
+
+    private static SubjectiveOpinion erosion(SubjectiveOpinion x, double factor, SubjectiveOpinion o)
     {
         if (x == null) {
             throw new NullPointerException();
@@ -1245,21 +1366,19 @@ public class SubjectiveOpinion extends OpinionBase
         if ((factor < 0.0D) || (factor > 1.0D)) {
             throw new IllegalArgumentException("Erosion Factor, f must be: 0 <= f <= 1");
         }
-        synchronized (x)
-        {
-            double f = 1.0D - factor;
+        State s = x.state;
+        double f = 1.0D - factor;
 
-            double oBelief = OpinionBase.constrain(OpinionBase.adjust(x.getBelief() * f));
-            double oDisbelief = OpinionBase.constrain(OpinionBase.adjust(x.getDisbelief() * f));
-            double oUncertainty = OpinionBase.constrain(OpinionBase.adjust(1.0D - oBelief - oDisbelief));
-            double oAtomicity = x.getAtomicity();
+        double oBelief = OpinionBase.constrain(OpinionBase.adjust(s.belief * f));
+        double oDisbelief = OpinionBase.constrain(OpinionBase.adjust(s.disbelief * f));
+        double oUncertainty = OpinionBase.constrain(OpinionBase.adjust(1.0D - oBelief - oDisbelief));
+        double oAtomicity = s.atomicity;
 
-            SubjectiveOpinion o = new SubjectiveOpinion(oBelief, oDisbelief, oUncertainty, oAtomicity);
+        o.store(oBelief, oDisbelief, oUncertainty, oAtomicity, null, 1.0D);
 
-            o.checkConsistency(true);
+        o.checkConsistency(true);
 
-            return o;
-        }
+        return o;
     }
 
     /**
@@ -1376,7 +1495,6 @@ public class SubjectiveOpinion extends OpinionBase
     {
         synchronized (this)
         {
-            this.setDependants();
             double u;
             double d;
             double a;
@@ -1412,49 +1530,34 @@ public class SubjectiveOpinion extends OpinionBase
                 }
             }
 
-            this.belief = b;
-            this.disbelief = d;
-            this.uncertainty = u;
-            this.atomicity = a;
+            this.state = this.state.withValues(b, d, u, a);
 
             this.checkConsistency(true);
         }
     }
 
     private static SubjectiveOpinion multiply(SubjectiveOpinion x, SubjectiveOpinion y)
+    {
+        return multiply(x, y, new SubjectiveOpinion());
+    }
+
+    private static SubjectiveOpinion multiply(SubjectiveOpinion x, SubjectiveOpinion y, SubjectiveOpinion o)
     {
         if ((x == null) || (y == null)) {
             throw new NullPointerException();
         }
 
-        x.setDependants();
-        y.setDependants();
-
-        double divisor, expec;
-        double r = x.getRelativeWeight(y, OpinionOperator.Or);
 
-        double oDisbelief = x.getDisbelief() + y.getDisbelief() - x.getDisbelief() * y.getDisbelief();
-        double oAtomicity = x.getAtomicity() * y.getAtomicity();
-        expec = x.getExpectation() * (y.getBelief() + y.getAtomicity() * y.getUncertainty());
-        divisor = 1.0D - oAtomicity;
-
-        double oBelief, oUncertainty;
-        if (divisor != 0.0D) {
-            oBelief = ((oDisbelief - 1.0D) * oAtomicity + expec) / divisor;
-            oUncertainty = -(oDisbelief - 1.0D + expec) / divisor;
-        } else {
-            oBelief = x.getBelief() * y.getBelief() + (r * x.getBelief() * y.getUncertainty() + x.getUncertainty() * y.getBelief()) / (r + 1.0D);
-            oUncertainty = (x.getBelief() * y.getUncertainty() + r * y.getBelief() * x.getUncertainty()) / (r + 1.0D) + x.getUncertainty() * y.getUncertainty();
-        }
+        State sx = x.state, sy = y.state;
+        double[] result = new double[4];
+        multiplication(sx.belief, sx.disbelief, sx.uncertainty, sx.atomicity, sy.belief, sy.disbelief, sy.uncertainty, sy.atomicity,
+                x.getRelativeWeight(y, OpinionOperator.Or), result, 0);
 
-        SubjectiveOpinion o = new SubjectiveOpinion(oBelief, oDisbelief, oUncertainty, oAtomicity);
+        o.store(result[0], result[1], result[2], result[3], OpinionOperator.And,
+                (sx.uncertainty == 0.0D ? sx.relativeWeight : 0.0D) + (sy.uncertainty == 0.0D ? sy.relativeWeight : 0.0D));
 
-        o.adjust();
         o.checkConsistency(true);
 
-        o.lastOp = OpinionOperator.And;
-        o.setRelativeWeight(x.getRelativeWeight() + y.getRelativeWeight());
-
         return o;
     }
 
@@ -1509,13 +1612,11 @@ public class SubjectiveOpinion extends OpinionBase
         }
         SubjectiveOpinion o = new SubjectiveOpinion();
 
-        x.setDependants();
-        y.setDependants();
 
         double divisor;
-        o.belief = x.getBelief() * y.getBelief();
-        o.disbelief = x.getDisbelief() + y.getDisbelief() - x.getDisbelief() * y.getDisbelief();
-        o.uncertainty = x.getBelief() * y.getUncertainty() + y.getBelief() * x.getUncertainty() + x.getUncertainty() * y.getUncertainty();
+        o.state = new State(x.getBelief() * y.getBelief(),
+                x.getDisbelief() + y.getDisbelief() - x.getDisbelief() * y.getDisbelief(),
+                x.getBelief() * y.getUncertainty() + y.getBelief() * x.getUncertainty() + x.getUncertainty() * y.getUncertainty(), o.getAtomicity());
         divisor = x.getBelief() * y.getUncertainty() + y.getBelief() * x.getUncertainty() + x.getUncertainty() * y.getUncertainty();
         if (divisor != 0.0D)
         {
@@ -1523,30 +1624,30 @@ public class SubjectiveOpinion extends OpinionBase
         }
         else if ((y.getUncertainty() == 0.0D) && (x.getUncertainty() == 0.0D) && (x.getDisbelief() != 1.0D) && (y.getDisbelief() != 1.0D))
         {
-            o.setAtomicity(((y.getAtomicity() * x.getBelief() + x.relativeWeight * x.getAtomicity() * y.getBelief()) / (x.getBelief() + x.relativeWeight * y.getBelief())));
+            o.setAtomicity(((y.getAtomicity() * x.getBelief() + x.state.relativeWeight * x.getAtomicity() * y.getBelief()) / (x.getBelief() + x.state.relativeWeight * y.getBelief())));
         }
         else if ((x.getDisbelief() == 1.0D) && (y.getUncertainty() != 0.0D))
         {
-            o.setAtomicity(((y.getAtomicity() * y.getUncertainty() + x.relativeWeight * x.getAtomicity() * y.getBelief() + x.relativeWeight * x.getAtomicity() * y.getAtomicity() * y.getUncertainty()) / (
-                    y.getUncertainty() + x.relativeWeight - x.relativeWeight * y.getDisbelief())));
+            o.setAtomicity(((y.getAtomicity() * y.getUncertainty() + x.state.relativeWeight * x.getAtomicity() * y.getBelief() + x.state.relativeWeight * x.getAtomicity() * y.getAtomicity() * y.getUncertainty()) / (
+                    y.getUncertainty() + x.state.relativeWeight - x.state.relativeWeight * y.getDisbelief())));
         }
         else if ((y.getDisbelief() == 1.0D) && (x.getUncertainty() != 0.0D))
         {
-            o.setAtomicity(((x.relativeWeight * y.getAtomicity() * x.getBelief() + x.getAtomicity() * x.getUncertainty() + x.relativeWeight * x.getAtomicity() * y.getAtomicity() * x.getUncertainty()) / (
-                    x.relativeWeight + x.getUncertainty() - x.relativeWeight * x.getDisbelief())));
+            o.setAtomicity(((x.state.relativeWeight * y.getAtomicity() * x.getBelief() + x.getAtomicity() * x.getUncertainty() + x.state.relativeWeight * x.getAtomicity() * y.getAtomicity() * x.getUncertainty()) / (
+                    x.state.relativeWeight + x.getUncertainty() - x.state.relativeWeight * x.getDisbelief())));
         }
         else if ((x.getDisbelief() == 1.0D) && (y.getUncertainty() == 0.0D))
         {
-            o.setAtomicity(((x.relativeWeight * y.getAtomicity() + x.getAtomicity() * y.getBelief()) / (x.relativeWeight + y.getBelief())));
+            o.setAtomicity(((x.state.relativeWeight * y.getAtomicity() + x.getAtomicity() * y.getBelief()) / (x.state.relativeWeight + y.getBelief())));
         }
         else if ((y.getDisbelief() == 1.0D) && (x.getUncertainty() == 0.0D))
         {
-            o.setAtomicity(((y.getAtomicity() * x.getBelief() + x.relativeWeight * x.getAtomicity()) / (x.getBelief() + x.relativeWeight)));
+            o.setAtomicity(((y.getAtomicity() * x.getBelief() + x.state.relativeWeight * x.getAtomicity()) / (x.getBelief() + x.state.relativeWeight)));
         }
         else if ((x.getDisbelief() == 1.0D) && (y.getDisbelief() == 1.0D))
         {
-            o.setAtomicity(((y.relativeWeight * y.getAtomicity() + x.relativeWeight * x.getAtomicity() + x.relativeWeight * y.relativeWeight * x.getAtomicity() * y.getAtomicity()) / (
-                    y.relativeWeight + x.relativeWeight + x.relativeWeight * y.relativeWeight)));
+            o.setAtomicity(((y.state.relativeWeight * y.getAtomicity() + x.state.relativeWeight * x.getAtomicity() + x.state.relativeWeight * y.state.relativeWeight * x.getAtomicity() * y.getAtomicity()) / (
+                    y.state.relativeWeight + x.state.relativeWeight + x.state.relativeWeight * y.state.relativeWeight)));
         }
         else
         {
@@ -1554,7 +1655,7 @@ public class SubjectiveOpinion extends OpinionBase
         }
 
         o.checkConsistency(true);
-        o.lastOp = OpinionOperator.SimpleAnd;
+        o.state = o.state.withOperator(OpinionOperator.SimpleAnd);
         o.setRelativeWeight(x.getRelativeWeight() + y.getRelativeWeight());
 
         return o;
@@ -1568,13 +1669,11 @@ public class SubjectiveOpinion extends OpinionBase
         }
         SubjectiveOpinion o = new SubjectiveOpinion();
 
-        x.setDependants();
-        y.setDependants();
 
         double divisor;
-        o.belief = x.getBelief() + y.getBelief() - x.getBelief() * y.getBelief();
-        o.disbelief = x.getDisbelief() * y.getDisbelief();
-        o.uncertainty = x.getDisbelief() * y.getUncertainty() + y.getDisbelief() * x.getUncertainty() + x.getUncertainty() * y.getUncertainty();
+        o.state = new State(x.getBelief() + y.getBelief() - x.getBelief() * y.getBelief(),
+                x.getDisbelief() * y.getDisbelief(),
+                x.getDisbelief() * y.getUncertainty() + y.getDisbelief() * x.getUncertainty() + x.getUncertainty() * y.getUncertainty(), o.getAtomicity());
         divisor = x.getUncertainty() + y.getUncertainty() - x.getBelief() * y.getUncertainty() - y.getBelief() * x.getUncertainty() - x.getUncertainty() * y.getUncertainty();
 
         if (divisor != 0.0D)
@@ -1624,12 +1723,10 @@ public class SubjectiveOpinion extends OpinionBase
         }
         SubjectiveOpinion o = new SubjectiveOpinion();
 
-        x.setDependants();
-        y.setDependants();
 
-        o.belief = x.getBelief() * y.getBelief();
-        o.disbelief = x.getDisbelief() + y.getDisbelief() - x.getDisbelief() * y.getDisbelief();
-        o.uncertainty = x.getBelief() * y.getUncertainty() + y.getBelief() * x.getUncertainty() + x.getUncertainty() * y.getUncertainty();
+        o.state = new State(x.getBelief() * y.getBelief(),
+                x.getDisbelief() + y.getDisbelief() - x.getDisbelief() * y.getDisbelief(),
+                x.getBelief() * y.getUncertainty() + y.getBelief() * x.getUncertainty() + x.getUncertainty() * y.getUncertainty(), o.getAtomicity());
 
         double divisor = x.getBelief() * y.getUncertainty() + y.getBelief() * x.getUncertainty() + x.getUncertainty() * y.getUncertainty();
 
@@ -1679,13 +1776,11 @@ public class SubjectiveOpinion extends OpinionBase
         }
         SubjectiveOpinion o = new SubjectiveOpinion();
 
-        x.setDependants();
-        y.setDependants();
 
         double divisor;
-        o.belief = x.getBelief() + y.getBelief() - x.getBelief() * y.getBelief();
-        o.disbelief = x.getDisbelief() * y.getDisbelief();
-        o.uncertainty = x.getDisbelief() * y.getUncertainty() + y.getDisbelief() * x.getUncertainty() + x.getUncertainty() * y.getUncertainty();
+        o.state = new State(x.getBelief() + y.getBelief() - x.getBelief() * y.getBelief(),
+                x.getDisbelief() * y.getDisbelief(),
+                x.getDisbelief() * y.getUncertainty() + y.getDisbelief() * x.getUncertainty() + x.getUncertainty() * y.getUncertainty(), o.getAtomicity());
         divisor = x.getUncertainty() + y.getUncertainty() - x.getBelief() * y.getUncertainty() - y.getBelief() * x.getUncertainty() - x.getUncertainty() * y.getUncertainty();
         if (divisor != 0.0D)
         {
@@ -1694,33 +1789,33 @@ public class SubjectiveOpinion extends OpinionBase
         }
         else if ((y.getUncertainty() == 0.0D) && (x.getUncertainty() == 0.0D) && (x.getDisbelief() != 0.0D) && (y.getDisbelief() != 0.0D))
         {
-            o.setAtomicity(((x.relativeWeight * x.getAtomicity() * y.getDisbelief() + y.getAtomicity() * x.getDisbelief()) / (x.relativeWeight * y.getDisbelief() + x.getDisbelief())));
+            o.setAtomicity(((x.state.relativeWeight * x.getAtomicity() * y.getDisbelief() + y.getAtomicity() * x.getDisbelief()) / (x.state.relativeWeight * y.getDisbelief() + x.getDisbelief())));
         }
         else if ((x.getBelief() == 1.0D) && (y.getUncertainty() != 0.0D))
         {
-            o.setAtomicity(((x.relativeWeight * x.getAtomicity() * y.getDisbelief() + x.relativeWeight * x.getAtomicity() * y.getUncertainty() + x.relativeWeight * y.getUncertainty() * y.getAtomicity() + y.getUncertainty() * y.getAtomicity() - x.relativeWeight *
+            o.setAtomicity(((x.state.relativeWeight * x.getAtomicity() * y.getDisbelief() + x.state.relativeWeight * x.getAtomicity() * y.getUncertainty() + x.state.relativeWeight * y.getUncertainty() * y.getAtomicity() + y.getUncertainty() * y.getAtomicity() - x.state.relativeWeight *
                     x.getAtomicity() * y.getAtomicity() * y.getUncertainty()) / (
-                    x.relativeWeight + y.getUncertainty() - x.relativeWeight * y.getBelief())));
+                    x.state.relativeWeight + y.getUncertainty() - x.state.relativeWeight * y.getBelief())));
         }
         else if ((y.getBelief() == 1.0D) && (x.getUncertainty() != 0.0D))
         {
-            o.setAtomicity(((x.relativeWeight * x.getUncertainty() * x.getAtomicity() + x.getUncertainty() * x.getAtomicity() + x.relativeWeight * y.getAtomicity() * x.getDisbelief() + x.relativeWeight * y.getAtomicity() * x.getUncertainty() - x.relativeWeight *
+            o.setAtomicity(((x.state.relativeWeight * x.getUncertainty() * x.getAtomicity() + x.getUncertainty() * x.getAtomicity() + x.state.relativeWeight * y.getAtomicity() * x.getDisbelief() + x.state.relativeWeight * y.getAtomicity() * x.getUncertainty() - x.state.relativeWeight *
                     x.getAtomicity() * y.getAtomicity() * x.getUncertainty()) / (
-                    x.getUncertainty() + x.relativeWeight - x.relativeWeight * x.getBelief())));
+                    x.getUncertainty() + x.state.relativeWeight - x.state.relativeWeight * x.getBelief())));
         }
         else if ((x.getBelief() == 1.0D) && (y.getUncertainty() == 0.0D))
         {
-            o.setAtomicity(((x.getAtomicity() * y.getDisbelief() + x.relativeWeight * y.getAtomicity()) / (y.getDisbelief() + x.relativeWeight)));
+            o.setAtomicity(((x.getAtomicity() * y.getDisbelief() + x.state.relativeWeight * y.getAtomicity()) / (y.getDisbelief() + x.state.relativeWeight)));
         }
         else if ((y.getBelief() == 1.0D) && (x.getUncertainty() == 0.0D))
         {
-            o.setAtomicity(((x.relativeWeight * x.getAtomicity() + y.getAtomicity() * x.getDisbelief()) / (x.relativeWeight + x.getDisbelief())));
+            o.setAtomicity(((x.state.relativeWeight * x.getAtomicity() + y.getAtomicity() * x.getDisbelief()) / (x.state.relativeWeight + x.getDisbelief())));
         }
         else if ((x.getBelief() == 1.0D) && (y.getBelief() == 1.0D))
         {
-            o.setAtomicity(((x.relativeWeight * y.relativeWeight * x.getAtomicity() + x.relativeWeight * x.getAtomicity() + x.relativeWeight * y.relativeWeight * y.getAtomicity() +
-                    y.relativeWeight * y.getAtomicity() - x.relativeWeight * y.relativeWeight * x.getAtomicity() * y.getAtomicity()) / (
-                    x.relativeWeight + y.relativeWeight + x.relativeWeight * y.relativeWeight)));
+            o.setAtomicity(((x.state.relativeWeight * y.state.relativeWeight * x.getAtomicity() + x.state.relativeWeight * x.getAtomicity() + x.state.relativeWeight * y.state.relativeWeight * y.getAtomicity() +
+                    y.state.relativeWeight * y.getAtomicity() - x.state.relativeWeight * y.state.relativeWeight * x.getAtomicity() * y.getAtomicity()) / (
+                    x.state.relativeWeight + y.state.relativeWeight + x.state.relativeWeight * y.state.relativeWeight)));
         }
         else
         {
@@ -1728,7 +1823,7 @@ public class SubjectiveOpinion extends OpinionBase
         }
 
         o.checkConsistency(true);
-        o.lastOp = OpinionOperator.SimpleOr;
+        o.state = o.state.withOperator(OpinionOperator.SimpleOr);
         o.setRelativeWeight(x.getRelativeWeight() + y.getRelativeWeight());
 
         return o;
@@ -1768,7 +1863,6 @@ public class SubjectiveOpinion extends OpinionBase
 
         SubjectiveOpinion o = new SubjectiveOpinion(oBelief, oDisbelief, oUncertainty, oAtomicity);
 
-        o.adjust();
         o.checkConsistency(true);
 
         return o;
@@ -1791,7 +1885,7 @@ public class SubjectiveOpinion extends OpinionBase
         }
         SubjectiveOpinion o = clippedOpinion(b, u, a);
 
-        o.lastOp = OpinionOperator.Subtract;
+        o.state = o.state.withOperator(OpinionOperator.Subtract);
 
         return o;
     }
@@ -1825,7 +1919,7 @@ public class SubjectiveOpinion extends OpinionBase
         }
         SubjectiveOpinion o = clippedOpinion(b, u, a);
 
-        o.lastOp = OpinionOperator.Add;
+        o.state = o.state.withOperator(OpinionOperator.Add);
 
         return o;
     }
@@ -1847,29 +1941,30 @@ public class SubjectiveOpinion extends OpinionBase
         }
         SubjectiveOpinion o = clippedOpinion(b, u, a);
 
-        o.lastOp = OpinionOperator.Add;
+        o.state = o.state.withOperator(OpinionOperator.Add);
 
         return o;
     }
 
     private static SubjectiveOpinion transitivity(SubjectiveOpinion x, SubjectiveOpinion y)
+    {
+        return transitivity(x, y, new SubjectiveOpinion());
+    }
+
+    private static SubjectiveOpinion transitivity(SubjectiveOpinion x, SubjectiveOpinion y, SubjectiveOpinion o)
     {
         if ((x == null) || (y == null)) {
             throw new NullPointerException();
         }
         //TODO submit this code upstream: the old code does not correspond to the book's description of transitivity.
-        double e = x.getExpectation();
-        double newBelief = e * y.getBelief();
-        double newDisbelief = e * y.getDisbelief();
-        double newUncertainty = 1-e*(y.getDisbelief() + y.getBelief());
-        double newAtomicity = y.getAtomicity();
+        State sx = x.state, sy = y.state;
+        double[] result = new double[4];
+        transitivity(sx.belief, sx.uncertainty, sx.atomicity, sy.belief, sy.disbelief, sy.atomicity, result, 0);
 
-        SubjectiveOpinion o = new SubjectiveOpinion(newBelief, newDisbelief, newUncertainty, newAtomicity);
+        o.store(result[0], result[1], result[2], result[3], OpinionOperator.Discount, 1.0D);
 
         o.checkConsistency(true);
 
-        o.lastOp = OpinionOperator.Discount;
-
         return o;
     }
 
@@ -1879,7 +1974,7 @@ public class SubjectiveOpinion extends OpinionBase
 
     public SubjectiveOpinion(double atomicity)
     {
-        this.atomicity = atomicity;
+        this.state = new State(0.0D, 0.0D, 1.0D, atomicity);
     }
 
     public SubjectiveOpinion(double belief, boolean dogmatic)
@@ -1916,14 +2011,7 @@ public class SubjectiveOpinion extends OpinionBase
         }
         SubjectiveOpinion x = o.toSubjectiveOpinion();
 
-        this.belief = x.getBelief();
-        this.disbelief = x.getDisbelief();
-        this.uncertainty = x.getUncertainty();
-        this.atomicity = x.getAtomicity();
-        this.cachedExpectation = x.getExpectation();
-        this.relativeWeight = x.relativeWeight;
-        this.lastOp = x.lastOp;
-        this.recalculate = x.recalculate;
+        this.state = x.state;
     }
 
     public SubjectiveOpinion(SubjectiveOpinion o)
@@ -1931,19 +2019,7 @@ public class SubjectiveOpinion extends OpinionBase
         if (o == null) {
             throw new NullPointerException("Opinion must not be null");
         }
-        synchronized (o)
-        {
-            o.setDependants();
-
-            this.belief = o.getBelief();
-            this.disbelief = o.getDisbelief();
-            this.uncertainty = o.getUncertainty();
-            this.atomicity = o.getAtomicity();
-            this.cachedExpectation = o.getExpectation();
-            this.relativeWeight = o.relativeWeight;
-            this.lastOp = o.lastOp;
-            this.recalculate = o.recalculate;
-        }
+        this.state = o.state;
     }
 
     /**
@@ -1990,6 +2066,30 @@ public class SubjectiveOpinion extends OpinionBase
         return abduction(new SubjectiveOpinion(this), new SubjectiveOpinion(xTy), new SubjectiveOpinion(xFy), baseRateX);
     }
 
+    /**
+     * Abduction that takes the reversed conditionals from the given cache, see {@link ReversedConditionalsCache}.
+     */
+    public final SubjectiveOpinion abduce(Conditionals conditionals, double baseRateX, ReversedConditionalsCache cache)
+            throws OpinionArithmeticException
+    {
+        if (conditionals == null) {
+            throw new NullPointerException();
+        }
+        return abduce(conditionals.getPositive(), conditionals.getNegative(), baseRateX, cache);
+    }
+
+    /**
+     * Abduction that takes the reversed conditionals from the given cache, see {@link ReversedConditionalsCache}.
+     */
+    public final SubjectiveOpinion abduce(Opinion xTy, Opinion xFy, double baseRateX, ReversedConditionalsCache cache)
+            throws OpinionArithmeticException
+    {
+        if ((xTy == null) || (xFy == null) || (cache == null)) {
+            throw new NullPointerException();
+        }
+        return abduction(this, xTy.toSubjectiveOpinion(), xFy.toSubjectiveOpinion(), baseRateX, cache);
+    }
+
     public final SubjectiveOpinion add(Opinion opinion)
             throws OpinionArithmeticException
     {
@@ -1999,13 +2099,6 @@ public class SubjectiveOpinion extends OpinionBase
         return sum(new SubjectiveOpinion(this), new SubjectiveOpinion(opinion));
     }
 
-    private void adjust()
-    {
-        this.belief = OpinionBase.constrain(OpinionBase.adjust(this.getBelief()));
-        this.disbelief = OpinionBase.constrain(OpinionBase.adjust(this.getDisbelief()));
-        this.uncertainty = OpinionBase.constrain(OpinionBase.adjust(this.getUncertainty()));
-    }
-
     public SubjectiveOpinion adjustExpectation(double expectation)
     {
         SubjectiveOpinion o = new SubjectiveOpinion(this);
@@ -2029,6 +2122,20 @@ public class SubjectiveOpinion extends OpinionBase
         return multiply(new SubjectiveOpinion(this), new SubjectiveOpinion(opinion));
     }
 
+    /**
+     * Computes {@link #and(Opinion)} into the given target instead of a new opinion. The arguments are not copied, and a
+     * property change event is only created if the target has listeners. The target may be this opinion or one of the arguments.
+     *
+     * @return the target
+     */
+    public final SubjectiveOpinion andInto(Opinion opinion, SubjectiveOpinion target)
+    {
+        if ((opinion == null) || (target == null)) {
+            throw new NullPointerException("Opinion must not be null");
+        }
+        return multiply(this, opinion.toSubjectiveOpinion(), target);
+    }
+
     public final SubjectiveOpinion average(Opinion opinion)
     {
         Collection<Opinion> opinions = new ArrayList<>();
@@ -2039,6 +2146,42 @@ public class SubjectiveOpinion extends OpinionBase
         return smoothAverage(opinions).toSubjectiveOpinion();
     }
 
+    /**
+     * Replaces the values of this opinion, and fires an "opinion" property change event if there are listeners. The
+     * values are normalized in the same way as by {@link #SubjectiveOpinion(double, double, double, double)}, so that
+     * computing into an existing opinion gives the same result as creating a new one.
+     */
+    private void store(double belief, double disbelief, double uncertainty, double atomicity, OpinionOperator lastOp, double relativeWeight)
+    {
+        double bdu = belief + disbelief + uncertainty;
+        double b = belief / bdu;
+        double u = uncertainty / bdu;
+        if ((b < 0.0D) || (b > 1.0D) || (u < 0.0D) || (u > 1.0D)) {
+            throw new IllegalArgumentException("Belief x or Uncertainty x, must be: 0 <= x <= 1");
+        }
+        if (b + u - 1.0D > 1.0E-010D) {
+            throw new IllegalArgumentException("Belief belief, Uncertainty uncertainty, must be: (belief + uncertainty) <= 1");
+        }
+        if ((atomicity < 0.0D) || (atomicity > 1.0D)) {
+            throw new IllegalArgumentException("Atomicity, x, must be: 0 <= x <= 1");
+        }
+        State s = new State(b, 1.0D - (b + u), u, atomicity, lastOp, relativeWeight);
+        Opinion old = null;
+
+        synchronized (this)
+        {
+            //only copy the old values if someone is listening, as the target of an operator usually has no listeners
+            if (this.changeSupport.hasListeners("opinion")) {
+                old = new SubjectiveOpinion(this);
+            }
+            this.state = s;
+        }
+
+        if (old != null) {
+            this.changeSupport.firePropertyChange("opinion", old, this);
+        }
+    }
+
     private void checkConsistency() throws OpinionArithmeticException
     {
         checkConsistency(false);
@@ -2046,41 +2189,38 @@ public class SubjectiveOpinion extends OpinionBase
 
     private void checkConsistency(boolean recalculate) throws OpinionArithmeticException
     {
-        synchronized (this)
+        //the values of a snapshot are already rounded and constrained
+        State s = this.state;
+        if ((s.atomicity < 0.0D) || (s.atomicity > 1.0D)) {
+            throw new OpinionArithmeticException("Atomicity out of range, atomicity: 0 <= atomicity <= 1");
+        }
+        if (recalculate)
         {
-            if ((this.getAtomicity() < 0.0D) || (this.getAtomicity() > 1.0D)) {
-                throw new OpinionArithmeticException("Atomicity out of range, atomicity: 0 <= atomicity <= 1");
-            }
-            if (recalculate)
+            synchronized (this)
             {
-                this.belief = OpinionBase.constrain(OpinionBase.adjust(this.getBelief()));
-                this.disbelief = OpinionBase.constrain(OpinionBase.adjust(this.getDisbelief()));
-                this.uncertainty = OpinionBase.constrain(OpinionBase.adjust(this.getUncertainty()));
-
-                if (Math.abs(this.getBelief() + this.getDisbelief() + this.getUncertainty() - 1.0D) > 1.0E-010D)
+                s = this.state;
+                if (Math.abs(s.belief + s.disbelief + s.uncertainty - 1.0D) > 1.0E-010D)
                 {
-                    double bdu = this.getBelief() + this.getDisbelief() + this.getUncertainty();
-                    this.belief = OpinionBase.constrain(OpinionBase.adjust(this.getBelief() / bdu));
-                    this.uncertainty = OpinionBase.constrain(OpinionBase.adjust(this.getUncertainty() / bdu));
-                    this.disbelief = 1.0D - (this.getBelief() + this.getUncertainty());
+                    double bdu = s.belief + s.disbelief + s.uncertainty;
+                    double b = OpinionBase.constrain(OpinionBase.adjust(s.belief / bdu));
+                    double u = OpinionBase.constrain(OpinionBase.adjust(s.uncertainty / bdu));
+                    this.state = s.withValues(b, 1.0D - (b + u), u, s.atomicity);
                 }
-
-                this.recalculate = true;
             }
-            else
-            {
-                if ((this.getBelief() < 0.0D) || (this.getBelief() > 1.0D)) {
-                    throw new OpinionArithmeticException("Belief out of range, belief: 0 <= belief <= 1");
-                }
-                if ((this.getDisbelief() < 0.0D) || (this.getDisbelief() > 1.0D)) {
-                    throw new OpinionArithmeticException("Disbelief out of range, disbelief: 0 <= disbelief <= 1");
-                }
-                if ((this.getUncertainty() < 0.0D) || (this.getUncertainty() > 1.0D)) {
-                    throw new OpinionArithmeticException("Uncertainty out of range, uncertainty: 0 <= uncertainty <= 1");
-                }
-                if (Math.abs(this.getBelief() + this.getDisbelief() + this.getUncertainty() - 1.0D) > 1.0E-010D)
-                    throw new OpinionArithmeticException("Belief, disbelief and uncertainty do not add up to 1: belief + disbelief + uncertainty != 1");
+        }
+        else
+        {
+            if ((s.belief < 0.0D) || (s.belief > 1.0D)) {
+                throw new OpinionArithmeticException("Belief out of range, belief: 0 <= belief <= 1");
+            }
+            if ((s.disbelief < 0.0D) || (s.disbelief > 1.0D)) {
+                throw new OpinionArithmeticException("Disbelief out of range, disbelief: 0 <= disbelief <= 1");
             }
+            if ((s.uncertainty < 0.0D) || (s.uncertainty > 1.0D)) {
+                throw new OpinionArithmeticException("Uncertainty out of range, uncertainty: 0 <= uncertainty <= 1");
+            }
+            if (Math.abs(s.belief + s.disbelief + s.uncertainty - 1.0D) > 1.0E-010D)
+                throw new OpinionArithmeticException("Belief, disbelief and uncertainty do not add up to 1: belief + disbelief + uncertainty != 1");
         }
     }
 
@@ -2089,6 +2229,20 @@ public class SubjectiveOpinion extends OpinionBase
         return erosion(this, OpinionBase.erosionFactorFromHalfLife(halfLife, time));
     }
 
+    /**
+     * Computes {@link #decay(double, double)} into the given target instead of a new opinion. The arguments are not copied, and a
+     * property change event is only created if the target has listeners. The target may be this opinion or one of the arguments.
+     *
+     * @return the target
+     */
+    public final SubjectiveOpinion decayInto(double halfLife, double time, SubjectiveOpinion target)
+    {
+        if (target == null) {
+            throw new NullPointerException("Opinion must not be null");
+        }
+        return erosion(this, OpinionBase.erosionFactorFromHalfLife(halfLife, time), target);
+    }
+
     public final SubjectiveOpinion deduce(Conditionals conditionals) throws OpinionArithmeticException
     {
         if (conditionals == null) {
@@ -2098,6 +2252,34 @@ public class SubjectiveOpinion extends OpinionBase
                 conditionals.getNegative()));
     }
 
+    /**
+     * Deduction with conditionals that were prepared for repeated use, see {@link PreparedConditionals}.
+     */
+    public final SubjectiveOpinion deduce(PreparedConditionals conditionals)
+    {
+        if (conditionals == null) {
+            throw new NullPointerException("The conditionals must not be null");
+        }
+        return deduction(this, conditionals, new SubjectiveOpinion());
+    }
+
+    /**
+     * Computes {@link #deduce(PreparedConditionals)} into the given target instead of a new opinion. The arguments are not copied, and a
+     * property change event is only created if the target has listeners. The target may be this opinion or one of the arguments.
+     *
+     * @return the target
+     */
+    public final SubjectiveOpinion deduceInto(PreparedConditionals conditionals, SubjectiveOpinion target)
+    {
+        if (conditionals == null) {
+            throw new NullPointerException("The conditionals must not be null");
+        }
+        if (target == null) {
+            throw new NullPointerException("Opinion must not be null");
+        }
+        return deduction(this, conditionals, target);
+    }
+
     public final SubjectiveOpinion deduce(Opinion yTx, Opinion yFx)
             throws OpinionArithmeticException
     {
@@ -2107,6 +2289,37 @@ public class SubjectiveOpinion extends OpinionBase
         return deduction(new SubjectiveOpinion(this), new SubjectiveOpinion(yTx), new SubjectiveOpinion(yFx));
     }
 
+    /**
+     * Computes {@link #deduce(Conditionals)} into the given target instead of a new opinion. The arguments are not copied, and a
+     * property change event is only created if the target has listeners. The target may be this opinion or one of the arguments.
+     *
+     * @return the target
+     */
+    public final SubjectiveOpinion deduceInto(Conditionals conditionals, SubjectiveOpinion target) throws OpinionArithmeticException
+    {
+        if (conditionals == null) {
+            throw new NullPointerException("The conditionals must not be null");
+        }
+        return deduceInto(conditionals.getPositive(), conditionals.getNegative(), target);
+    }
+
+    /**
+     * Computes {@link #deduce(Opinion, Opinion)} into the given target instead of a new opinion. The arguments are not copied, and a
+     * property change event is only created if the target has listeners. The target may be this opinion or one of the arguments.
+     *
+     * @return the target
+     */
+    public final SubjectiveOpinion deduceInto(Opinion yTx, Opinion yFx, SubjectiveOpinion target) throws OpinionArithmeticException
+    {
+        if ((yTx == null) || (yFx == null)) {
+            throw new NullPointerException("The conditionals must not be null");
+        }
+        if (target == null) {
+            throw new NullPointerException("Opinion must not be null");
+        }
+        return deduction(this, yTx.toSubjectiveOpinion(), yFx.toSubjectiveOpinion(), target);
+    }
+
     /** @deprecated */
     public final SubjectiveOpinion discount(Opinion opinion)
     {
@@ -2124,6 +2337,20 @@ public class SubjectiveOpinion extends OpinionBase
         return transitivity(new SubjectiveOpinion(opinion), new SubjectiveOpinion(this));
     }
 
+    /**
+     * Computes {@link #discountBy(Opinion)} into the given target instead of a new opinion. The arguments are not copied, and a
+     * property change event is only created if the target has listeners. The target may be this opinion or one of the arguments.
+     *
+     * @return the target
+     */
+    public final SubjectiveOpinion discountByInto(Opinion opinion, SubjectiveOpinion target)
+    {
+        if ((opinion == null) || (target == null)) {
+            throw new NullPointerException("Opinion must not be null");
+        }
+        return transitivity(opinion.toSubjectiveOpinion(), this, target);
+    }
+
     public final SubjectiveOpinion dogmaticOpinion()
     {
         SubjectiveOpinion o = new SubjectiveOpinion(this);
@@ -2166,6 +2393,20 @@ public class SubjectiveOpinion extends OpinionBase
         return erosion(this, factor);
     }
 
+    /**
+     * Computes {@link #erode(double)} into the given target instead of a new opinion. The arguments are not copied, and a
+     * property change event is only created if the target has listeners. The target may be this opinion or one of the arguments.
+     *
+     * @return the target
+     */
+    public final SubjectiveOpinion erodeInto(double factor, SubjectiveOpinion target)
+    {
+        if (target == null) {
+            throw new NullPointerException("Opinion must not be null");
+        }
+        return erosion(this, factor, target);
+    }
+
     public final SubjectiveOpinion cumulativeFuse(Opinion opinion)
             throws OpinionArithmeticException
     {
@@ -2177,6 +2418,21 @@ public class SubjectiveOpinion extends OpinionBase
         return cumulativeFusion(copy1, copy2);
     }
 
+    /**
+     * Computes {@link #cumulativeFuse(Opinion)} into the given target instead of a new opinion. The arguments are not copied, and a
+     * property change event is only created if the target has listeners. The target may be this opinion or one of the arguments.
+     *
+     * @return the target
+     */
+    public final SubjectiveOpinion cumulativeFuseInto(Opinion opinion, SubjectiveOpinion target)
+            throws OpinionArithmeticException
+    {
+        if ((opinion == null) || (target == null)) {
+            throw new NullPointerException("Opinion must not be null");
+        }
+        return cumulativeFusion(this, opinion.toSubjectiveOpinion(), target);
+    }
+
     /**
      * @deprecated
      * @param opinion
@@ -2210,12 +2466,12 @@ public class SubjectiveOpinion extends OpinionBase
     @Override
     public final double getAtomicity()
     {
-        return this.atomicity;
+        return this.state.atomicity;
     }
 
     public final double getBelief()
     {
-        return this.belief;
+        return this.state.belief;
     }
 
     public final double getCertainty()
@@ -2228,23 +2484,20 @@ public class SubjectiveOpinion extends OpinionBase
 
     public final double getDisbelief()
     {
-        return this.disbelief;
+        return this.state.disbelief;
     }
 
     @Override
     public final double getExpectation()
     {
-        synchronized (this)
-        {
-            setDependants();
-            return this.cachedExpectation;
-        }
+        return this.state.expectation;
     }
 
     public double getRelativeWeight()
     {
-        if(this.isDogmatic())
-            return this.relativeWeight;
+        State s = this.state;
+        if(s.uncertainty == 0.0D)
+            return s.relativeWeight;
         else
             return 0.0D;
     }
@@ -2254,32 +2507,31 @@ public class SubjectiveOpinion extends OpinionBase
         if (opinion == null) {
             throw new NullPointerException("Opinion must not be null");
         }
-        if ((operator != null) && (this.lastOp == operator) && (operator.isAssociative())) {
-            return this.relativeWeight / opinion.relativeWeight;
+        State s = this.state;
+        if ((operator != null) && (s.lastOp == operator) && (operator.isAssociative())) {
+            return s.relativeWeight / opinion.state.relativeWeight;
         }
         return 1.0D;
     }
 
     public final double getUncertainty()
     {
-        return this.uncertainty;
+        return this.state.uncertainty;
     }
 
     public SubjectiveOpinion increasedUncertainty()
     {
-        synchronized (this)
-        {
-            double sqrt_u = OpinionBase.adjust(Math.sqrt(this.getUncertainty()));
-            double k = 1.0D - (sqrt_u - this.getUncertainty()) / (this.getBelief() + this.getDisbelief());
+        State s = this.state;
+        double sqrt_u = OpinionBase.adjust(Math.sqrt(s.uncertainty));
+        double k = 1.0D - (sqrt_u - s.uncertainty) / (s.belief + s.disbelief);
 
-            double brBelief = OpinionBase.adjust(this.getBelief() * k);
-            double brUncertainty = sqrt_u;
-            double brDisbelief = OpinionBase.adjust(this.getDisbelief() * k);
+        double brBelief = OpinionBase.adjust(s.belief * k);
+        double brUncertainty = sqrt_u;
+        double brDisbelief = OpinionBase.adjust(s.disbelief * k);
 
-            SubjectiveOpinion br = new SubjectiveOpinion(brBelief, brDisbelief, brUncertainty);
+        SubjectiveOpinion br = new SubjectiveOpinion(brBelief, brDisbelief, brUncertainty);
 
-            return br;
-        }
+        return br;
     }
 
     public boolean isAbsolute()
@@ -2336,6 +2588,20 @@ public class SubjectiveOpinion extends OpinionBase
         return complement(this);
     }
 
+    /**
+     * Computes {@link #not()} into the given target instead of a new opinion. The arguments are not copied, and a
+     * property change event is only created if the target has listeners. The target may be this opinion or one of the arguments.
+     *
+     * @return the target
+     */
+    public final SubjectiveOpinion notInto(SubjectiveOpinion target)
+    {
+        if (target == null) {
+            throw new NullPointerException("Opinion must not be null");
+        }
+        return complement(this, target);
+    }
+
     public final SubjectiveOpinion or(Opinion opinion)
     {
         if (opinion == null) {
@@ -2344,6 +2610,20 @@ public class SubjectiveOpinion extends OpinionBase
         return coMultiplication(new SubjectiveOpinion(this), new SubjectiveOpinion(opinion));
     }
 
+    /**
+     * Computes {@link #or(Opinion)} into the given target instead of a new opinion. The arguments are not copied, and a
+     * property change event is only created if the target has listeners. The target may be this opinion or one of the arguments.
+     *
+     * @return the target
+     */
+    public final SubjectiveOpinion orInto(Opinion opinion, SubjectiveOpinion target)
+    {
+        if ((opinion == null) || (target == null)) {
+            throw new NullPointerException("Opinion must not be null");
+        }
+        return coMultiplication(this, opinion.toSubjectiveOpinion(), target);
+    }
+
     public final void set(double belief, double disbelief, double uncertainty)
     {
         if ((this.getBelief() < 0.0D) || (this.getDisbelief() < 0.0D) || (this.getUncertainty() < 0.0D)) {
@@ -2365,17 +2645,7 @@ public class SubjectiveOpinion extends OpinionBase
 
         SubjectiveOpinion o = opinion.toSubjectiveOpinion();
 
-        synchronized (o)
-        {
-            this.belief = o.getBelief();
-            this.disbelief = o.getDisbelief();
-            this.uncertainty = o.getUncertainty();
-            this.atomicity =o.getAtomicity();
-            this.cachedExpectation = o.getExpectation();
-            this.recalculate = o.recalculate;
-            this.lastOp = o.lastOp;
-            this.relativeWeight = o.relativeWeight;
-        }
+        this.state = o.state;
 
         this.changeSupport.firePropertyChange("opinion", old, this);
     }
@@ -2385,18 +2655,19 @@ public class SubjectiveOpinion extends OpinionBase
         if ((atomicity < 0.0D) || (atomicity > 1.0D)) {
             throw new IllegalArgumentException("Atomicity, x, must be: 0 <= x <= 1");
         }
-        if (atomicity == this.atomicity) {
-            return;
-        }
-        double old = this.atomicity;
+        double old;
 
         synchronized (this)
         {
-            this.atomicity = atomicity;
-            this.recalculate = true;
+            State s = this.state;
+            old = s.atomicity;
+            if (atomicity == old) {
+                return;
+            }
+            this.state = s.withValues(s.belief, s.disbelief, s.uncertainty, atomicity);
         }
 
-        this.changeSupport.firePropertyChange("atomicity", old, this.atomicity);
+        this.changeSupport.firePropertyChange("atomicity", old, this.getAtomicity());
     }
 
     private void setBelief(double belief)
@@ -2427,36 +2698,12 @@ public class SubjectiveOpinion extends OpinionBase
 
         synchronized (this)
         {
-            this.belief = belief;
-            this.uncertainty = uncertainty;
-            this.disbelief = (1.0D - (belief + uncertainty));
-            this.recalculate = true;
+            this.state = this.state.withValues(belief, 1.0D - (belief + uncertainty), uncertainty, this.state.atomicity);
         }
 
         this.changeSupport.firePropertyChange("opinion", old, this);
     }
 
-    private synchronized void setDependants()
-    {
-        if (this.recalculate)
-        {
-            this.belief = OpinionBase.constrain(OpinionBase.adjust(this.getBelief()));
-            this.disbelief = OpinionBase.constrain(OpinionBase.adjust(this.getDisbelief()));
-            this.uncertainty = OpinionBase.constrain(OpinionBase.adjust(this.getUncertainty()));
-            this.atomicity = OpinionBase.constrain(OpinionBase.adjust(this.getAtomicity()));
-            this.cachedExpectation = OpinionBase.constrain(OpinionBase.adjust(this.getBelief() + this.getAtomicity() * this.getUncertainty()));
-            this.recalculate = false;
-        }
-    }
-
-    private synchronized void setDependants(boolean force)
-    {
-        if (force) {
-            this.recalculate = true;
-        }
-        setDependants();
-    }
-
     private void setDisbelief(double disbelief)
     {
         setDisbelief(disbelief, false);
@@ -2485,10 +2732,7 @@ public class SubjectiveOpinion extends OpinionBase
 
         synchronized (this)
         {
-            this.disbelief = disbelief;
-            this.uncertainty = uncertainty;
-            this.belief = 1.0D - (disbelief + uncertainty);
-            this.recalculate = true;
+            this.state = this.state.withValues(1.0D - (disbelief + uncertainty), disbelief, uncertainty, this.state.atomicity);
         }
 
         this.changeSupport.firePropertyChange("opinion", old, this);
@@ -2496,14 +2740,19 @@ public class SubjectiveOpinion extends OpinionBase
 
     private void setRelativeWeight(double weight)
     {
-        if (weight == this.relativeWeight) {
-            return;
-        }
-        Double old = this.relativeWeight;
+        double old;
 
-        this.relativeWeight = weight;
+        synchronized (this)
+        {
+            State s = this.state;
+            old = s.relativeWeight;
+            if (weight == old) {
+                return;
+            }
+            this.state = s.withRelativeWeight(weight);
+        }
 
-        this.changeSupport.firePropertyChange("relativeWeight", old, this.relativeWeight);
+        this.changeSupport.firePropertyChange("relativeWeight", old, weight);
     }
 
     public final SubjectiveOpinion subtract(Opinion opinion)
@@ -2514,6 +2763,16 @@ public class SubjectiveOpinion extends OpinionBase
         return subtraction(new SubjectiveOpinion(this), new SubjectiveOpinion(opinion));
     }
 
+    /**
+     * @return an immutable BinomialOpinion with the values of this opinion. The values are read from a single snapshot,
+     * so they are consistent even if the opinion is modified concurrently.
+     */
+    public BinomialOpinion toBinomialOpinion()
+    {
+        State s = this.state;
+        return new BinomialOpinion(s.belief, s.disbelief, s.uncertainty, s.atomicity);
+    }
+
     public DiscreteBayesian toDiscreteBayesian(int size)
     {
         if (size < 2) {
@@ -2527,32 +2786,31 @@ public class SubjectiveOpinion extends OpinionBase
     {
         PureBayesian bayesian = new PureBayesian();
 
-        synchronized (this)
+        State state = this.state;
+        if (state.uncertainty == 0.0D)
         {
-            if (this.getUncertainty() == 0.0D)
-            {
-                bayesian.setPositive(1.797693134862316E+297D);
-                bayesian.setNegative(1.797693134862316E+297D);
-            }
-            else
-            {
-                double r = 2.0D * this.getBelief() / this.getUncertainty();
-                double s = 2.0D * this.getDisbelief() / this.getUncertainty();
-
-                bayesian.setPositive(Double.isInfinite(r) ? 1.797693134862316E+297D : r);
-                bayesian.setNegative(Double.isInfinite(s) ? 1.797693134862316E+297D : s);
-            }
+            bayesian.setPositive(1.797693134862316E+297D);
+            bayesian.setNegative(1.797693134862316E+297D);
+        }
+        else
+        {
+            double r = 2.0D * state.belief / state.uncertainty;
+            double s = 2.0D * state.disbelief / state.uncertainty;
 
-            bayesian.setAtomicity(this.getAtomicity());
+            bayesian.setPositive(Double.isInfinite(r) ? 1.797693134862316E+297D : r);
+            bayesian.setNegative(Double.isInfinite(s) ? 1.797693134862316E+297D : s);
         }
 
+        bayesian.setAtomicity(state.atomicity);
+
         return bayesian;
     }
 
     @Override
     public String toString()
     {
-        return String.format(TO_STRING_FORMAT, this.getBelief(), this.getDisbelief(), this.getUncertainty(), this.getAtomicity(), getExpectation(), this.relativeWeight);
+        State s = this.state;
+        return String.format(TO_STRING_FORMAT, s.belief, s.disbelief, s.uncertainty, s.atomicity, s.expectation, s.relativeWeight);
     }
 
     @Override
@@ -2578,7 +2836,16 @@ public class SubjectiveOpinion extends OpinionBase
     }
 
     public void setUncertainty(double u) {
-        this.uncertainty = u;
+        Opinion old;
+
+        synchronized (this)
+        {
+            old = new SubjectiveOpinion(this);
+            State s = this.state;
+            this.state = s.withValues(s.belief, s.disbelief, u, s.atomicity);
+        }
+
+        this.changeSupport.firePropertyChange("opinion", old, this);
     }
 
 
@@ -2610,4 +2877,35 @@ public class SubjectiveOpinion extends OpinionBase
 
         return SubjectiveOpinion.fromProjection(beliefProjection, average.getAtomicity());
     }
+
+    /**
+     * Serializes opinions of this class, but not of subclasses, in the compact form of {@link OpinionCodec}. Streams
+     * with the previous form are still read by {@link #readObject(ObjectInputStream)}.
+     */
+    private Object writeReplace() throws ObjectStreamException
+    {
+        return new OpinionCodec.SerialForm(this);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException
+    {
+        State s = this.state;
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("atomicity", s.atomicity);
+        fields.put("belief", s.belief);
+        fields.put("disbelief", s.disbelief);
+        fields.put("cachedExpectation", s.expectation);
+        fields.put("lastOp", s.lastOp);
+        fields.put("recalculate", false);
+        fields.put("relativeWeight", s.relativeWeight);
+        fields.put("uncertainty", s.uncertainty);
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+    {
+        ObjectInputStream.GetField fields = in.readFields();
+        this.state = new State(fields.get("belief", 0.0D), fields.get("disbelief", 0.0D), fields.get("uncertainty", 1.0D),
+                fields.get("atomicity", 0.5D), (OpinionOperator) fields.get("lastOp", null), fields.get("relativeWeight", 1.0D));
+    }
 }
\ No newline at end of file
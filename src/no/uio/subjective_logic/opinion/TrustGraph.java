@@ -0,0 +1,394 @@
+package no.uio.subjective_logic.opinion;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collector;
+
+/**
+ * A directed graph of trust relations, where each edge from one entity to another carries the referral trust of the
+ * first in the second as a {@link SubjectiveOpinion}.
+ *
+ * The derived trust of a source in a target is computed along the shortest paths from the source to the target: the
+ * trust in each entity at distance k+1 is the fusion, over all its predecessors at distance k, of the trust of the
+ * predecessor in the entity, discounted by the derived trust in the predecessor (see {@link SubjectiveOpinion#discountBy(Opinion)}).
+ * Longer paths and cycles are ignored, so that no evidence is counted twice along a path. The fusion operator can be
+ * chosen, see {@link OpinionCollectors}; the default is cumulative fusion.
+ *
+ * The derived trust of a source in all entities is computed by a single breadth-first search, and cached until an
+ * edge is changed that starts at an entity that the search reached. Edges that cannot affect the derived trust of a
+ * source do not invalidate its cached results. The trust in a single target only searches up to the distance of the
+ * target, and caches this partial result. The results of at most a given amount of sources are cached; the least
+ * recently used one is evicted when another source is added.
+ *
+ * The graph stores copies of the trust opinions, so later changes to the opinions passed to
+ * {@link #setTrust(Object, Object, Opinion)} are not reflected. Instances are thread-safe.
+ *
+ * @param <N> the type of the entities, which must implement equals and hashCode.
+ */
+public class TrustGraph<N>
+{
+    /**
+     * The default maximum amount of sources whose derived trust is cached.
+     */
+    public static final int DEFAULT_CACHED_SOURCES = 1024;
+
+    private final Collector<SubjectiveOpinion, ?, SubjectiveOpinion> fusion;
+    private final int maximumDepth;
+    private final int maximumCachedSources;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    //guarded by lock
+    private final Map<N, Map<N, SubjectiveOpinion>> edges = new HashMap<>();
+    private int edgeCount = 0;
+
+    //the derived trust of each source in least recently used order, and the sources whose results depend on the
+    //out-edges of each entity; both are guarded by the monitor of cache
+    private final LinkedHashMap<N, Result<N>> cache;
+    private final Map<N, Set<N>> dependentSources = new HashMap<>();
+
+    /**
+     * Creates a graph that fuses parallel paths with cumulative fusion, without a limit on the length of paths.
+     */
+    public TrustGraph()
+    {
+        this(OpinionCollectors.cumulative(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param fusion the fusion of the trust along parallel paths.
+     * @param maximumDepth the maximum length of a path, at least 1.
+     */
+    public TrustGraph(Collector<SubjectiveOpinion, ?, SubjectiveOpinion> fusion, int maximumDepth)
+    {
+        this(fusion, maximumDepth, DEFAULT_CACHED_SOURCES);
+    }
+
+    /**
+     * @param fusion the fusion of the trust along parallel paths.
+     * @param maximumDepth the maximum length of a path, at least 1.
+     * @param maximumCachedSources the maximum amount of sources whose derived trust is cached, or 0 to not cache.
+     */
+    public TrustGraph(Collector<SubjectiveOpinion, ?, SubjectiveOpinion> fusion, int maximumDepth, int maximumCachedSources)
+    {
+        if (fusion == null) {
+            throw new NullPointerException("Fusion must not be null");
+        }
+        if (maximumDepth < 1) {
+            throw new IllegalArgumentException("Maximum depth must be positive: " + maximumDepth);
+        }
+        if (maximumCachedSources < 0) {
+            throw new IllegalArgumentException("Maximum amount of cached sources must not be negative: " + maximumCachedSources);
+        }
+        this.fusion = fusion;
+        this.maximumDepth = maximumDepth;
+        this.maximumCachedSources = maximumCachedSources;
+        this.cache = new LinkedHashMap<N, Result<N>>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<N, Result<N>> eldest)
+            {
+                if (size() > TrustGraph.this.maximumCachedSources) {
+                    removeDependencies(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Sets the trust of from in to, replacing a previous trust.
+     */
+    public void setTrust(N from, N to, Opinion trust)
+    {
+        if ((from == null) || (to == null) || (trust == null)) {
+            throw new NullPointerException();
+        }
+        if (from.equals(to)) {
+            throw new IllegalArgumentException("An entity cannot trust itself: " + from);
+        }
+        SubjectiveOpinion copy = new SubjectiveOpinion(trust);
+        this.lock.writeLock().lock();
+        try {
+            Map<N, SubjectiveOpinion> out = this.edges.get(from);
+            if (out == null) {
+                out = new LinkedHashMap<>();
+                this.edges.put(from, out);
+            }
+            if (out.put(to, copy) == null) {
+                this.edgeCount++;
+            }
+            invalidate(from);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the trust of from in to.
+     *
+     * @return true iff there was such a trust.
+     */
+    public boolean removeTrust(N from, N to)
+    {
+        if ((from == null) || (to == null)) {
+            throw new NullPointerException();
+        }
+        this.lock.writeLock().lock();
+        try {
+            Map<N, SubjectiveOpinion> out = this.edges.get(from);
+            if ((out == null) || (out.remove(to) == null)) {
+                return false;
+            }
+            if (out.isEmpty()) {
+                this.edges.remove(from);
+            }
+            this.edgeCount--;
+            invalidate(from);
+            return true;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the cached results of all sources whose search expanded the given entity.
+     */
+    private void invalidate(N entity)
+    {
+        synchronized (this.cache)
+        {
+            Set<N> sources = this.dependentSources.remove(entity);
+            if (sources == null) {
+                return;
+            }
+            for (N source : sources) {
+                Result<N> result = this.cache.remove(source);
+                if (result != null) {
+                    removeDependencies(source, result);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the source from the dependent sources of the entities its search expanded, and removes empty sets.
+     */
+    private void removeDependencies(N source, Result<N> result)
+    {
+        for (N entity : result.expanded) {
+            Set<N> sources = this.dependentSources.get(entity);
+            if ((sources != null) && sources.remove(source) && sources.isEmpty()) {
+                this.dependentSources.remove(entity);
+            }
+        }
+    }
+
+    /**
+     * @return a copy of the direct trust of from in to, or null if there is none.
+     */
+    public SubjectiveOpinion getTrust(N from, N to)
+    {
+        this.lock.readLock().lock();
+        try {
+            Map<N, SubjectiveOpinion> out = this.edges.get(from);
+            SubjectiveOpinion trust = out == null ? null : out.get(to);
+            return trust == null ? null : new SubjectiveOpinion(trust);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the derived trust of source in target, or null if target cannot be reached from source.
+     */
+    public SubjectiveOpinion deriveTrust(N source, N target) throws OpinionArithmeticException
+    {
+        if ((source == null) || (target == null)) {
+            throw new NullPointerException();
+        }
+        if (source.equals(target)) {
+            return null;
+        }
+        SubjectiveOpinion trust = derive(source, target).trust.get(target);
+        return trust == null ? null : new SubjectiveOpinion(trust);
+    }
+
+    /**
+     * @return the derived trust of source in all entities that can be reached from it.
+     */
+    public Map<N, SubjectiveOpinion> deriveTrust(N source) throws OpinionArithmeticException
+    {
+        Map<N, SubjectiveOpinion> result = new HashMap<>();
+        for (Map.Entry<N, SubjectiveOpinion> e : derive(source, null).trust.entrySet()) {
+            result.put(e.getKey(), new SubjectiveOpinion(e.getValue()));
+        }
+        return result;
+    }
+
+    /**
+     * @param target the only entity whose trust is needed, or null for all entities.
+     * @return a result that contains the trust in target, or in all entities if target is null.
+     */
+    private Result<N> derive(N source, N target) throws OpinionArithmeticException
+    {
+        if (source == null) {
+            throw new NullPointerException();
+        }
+        this.lock.readLock().lock();
+        try {
+            //the cache is only invalidated while holding the write lock, so the edges cannot change while searching
+            Result<N> result;
+            synchronized (this.cache)
+            {
+                result = this.cache.get(source);
+            }
+            if ((result != null) && (result.complete || ((target != null) && result.trust.containsKey(target)))) {
+                return result;
+            }
+            result = search(source, target);
+            if (this.maximumCachedSources > 0) {
+                synchronized (this.cache)
+                {
+                    //concurrent searches of the same source replace each other, and register the same dependencies
+                    Result<N> previous = this.cache.put(source, result);
+                    if (previous != null) {
+                        removeDependencies(source, previous);
+                    }
+                    for (N entity : result.expanded) {
+                        this.dependentSources.computeIfAbsent(entity, k -> new HashSet<>()).add(source);
+                    }
+                }
+            }
+            return result;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Computes the derived trust of source by a breadth-first search, and records the entities it expanded. If a
+     * target is given, the search stops after the level that reached it.
+     */
+    private Result<N> search(N source, N target) throws OpinionArithmeticException
+    {
+        Map<N, SubjectiveOpinion> trust = new HashMap<>();
+        Set<N> reached = new HashSet<>();
+        reached.add(source);
+        List<N> level = Collections.singletonList(source);
+        List<N> expanded = new ArrayList<>();
+
+        boolean complete = true;
+        for (int depth = 0; (depth < this.maximumDepth) && !level.isEmpty(); depth++)
+        {
+            if ((target != null) && trust.containsKey(target)) {
+                complete = false;
+                break;
+            }
+            //the discounted trust of the predecessors at the previous level, in each entity of the next level
+            Map<N, List<SubjectiveOpinion>> next = new LinkedHashMap<>();
+            for (N from : level)
+            {
+                expanded.add(from);
+                Map<N, SubjectiveOpinion> out = this.edges.get(from);
+                if (out == null) {
+                    continue;
+                }
+                SubjectiveOpinion trustInFrom = depth == 0 ? null : trust.get(from);
+                for (Map.Entry<N, SubjectiveOpinion> edge : out.entrySet())
+                {
+                    N to = edge.getKey();
+                    if (reached.contains(to)) {
+                        continue;
+                    }
+                    List<SubjectiveOpinion> opinions = next.get(to);
+                    if (opinions == null) {
+                        opinions = new ArrayList<>(1);
+                        next.put(to, opinions);
+                    }
+                    opinions.add(trustInFrom == null ? edge.getValue()
+                            : edge.getValue().discountByInto(trustInFrom, new SubjectiveOpinion()));
+                }
+            }
+            for (Map.Entry<N, List<SubjectiveOpinion>> e : next.entrySet()) {
+                List<SubjectiveOpinion> opinions = e.getValue();
+                trust.put(e.getKey(), opinions.size() == 1 ? opinions.get(0) : opinions.stream().collect(this.fusion));
+                reached.add(e.getKey());
+            }
+            level = new ArrayList<>(next.keySet());
+        }
+        return new Result<>(Collections.unmodifiableMap(trust), expanded, complete);
+    }
+
+    /**
+     * @return the amount of trust relations.
+     */
+    public int getEdgeCount()
+    {
+        this.lock.readLock().lock();
+        try {
+            return this.edgeCount;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the amount of sources whose derived trust is cached.
+     */
+    public int getCachedSourceCount()
+    {
+        synchronized (this.cache)
+        {
+            return this.cache.size();
+        }
+    }
+
+    public int getMaximumCachedSources()
+    {
+        return this.maximumCachedSources;
+    }
+
+    /**
+     * Removes all cached results.
+     */
+    public void clearCache()
+    {
+        this.lock.writeLock().lock();
+        try {
+            synchronized (this.cache)
+            {
+                this.cache.clear();
+                this.dependentSources.clear();
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The derived trust of a source, and the entities whose out-edges the search read.
+     */
+    private static final class Result<N>
+    {
+        final Map<N, SubjectiveOpinion> trust;
+        final List<N> expanded;
+        //false if the search stopped at the level of a target
+        final boolean complete;
+
+        Result(Map<N, SubjectiveOpinion> trust, List<N> expanded, boolean complete)
+        {
+            this.trust = trust;
+            this.expanded = expanded;
+            this.complete = complete;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package no.uio.subjective_logic.opinion;
+
+/**
+ * A mutable accumulator for weighted belief fusion (WBF) of multiple sources, which accepts opinions one at a time.
+ *
+ * The fused opinion is the same as the one computed by {@link SubjectiveOpinion#weightedCollectionFuse(java.util.Collection)}.
+ * Only a constant amount of state is kept, and the partial states of two accumulators can be merged, so that opinions can
+ * be fused shard by shard and the results combined afterwards.
+ *
+ * In Case 1 (no dogmatic opinions, at least one non-vacuous opinion), numerator and denominator of the multi-source WBF
+ * equations can be divided by the product of all uncertainties. With c = 1 - u, this gives
+ * b = sum(b*c/u) / sum(c/u), u = sum(c) / sum(c/u) and a = sum(a*c) / sum(c),
+ * so the result only depends on sums over the sources. Vacuous opinions do not contribute to these sums.
+ *
+ * In Case 2 (dogmatic opinions are involved), only the dogmatic opinions are fused, weighted by their relative weight.
+ * In Case 3 (all opinions are vacuous), the result is vacuous with the average base rate of all opinions.
+ *
+ * Instances are not thread-safe.
+ */
+public class WeightedFusionAccumulator
+{
+    private int count = 0;
+
+    private double atomicity = -1;
+
+    private double atomicitySum = 0.0D;
+
+    //Case 1: confidence-weighted sums over the non-dogmatic opinions
+    private double weightedBelief = 0.0D;
+    private double weightedDisbelief = 0.0D;
+    private double confidenceOverUncertainty = 0.0D;
+    private double confidence = 0.0D;
+    private double weightedAtomicity = 0.0D;
+
+    //Case 2: relative weight and weighted belief/disbelief sums over the dogmatic opinions
+    private int dogmaticCount = 0;
+    private double dogmaticWeight = 0.0D;
+    private double dogmaticBelief = 0.0D;
+    private double dogmaticDisbelief = 0.0D;
+
+    //the snapshot of the opinion that is added
+    private final double[] values = new double[SubjectiveOpinion.SNAPSHOT_SIZE];
+
+    public WeightedFusionAccumulator()
+    {
+    }
+
+    /**
+     * Adds an opinion to the fusion.
+     *
+     * @param opinion the opinion of another source.
+     * @return this accumulator.
+     */
+    public WeightedFusionAccumulator add(SubjectiveOpinion opinion)
+    {
+        if (opinion == null) {
+            throw new NullPointerException("Opinion must not be null");
+        }
+        //a single snapshot, so that the values are consistent
+        opinion.snapshot(this.values, 0);
+        accumulate(this.values[0], this.values[1], this.values[2], this.values[3], this.values[4]);
+        return this;
+    }
+
+    /**
+     * Adds an opinion with a relative weight of 1 to the fusion.
+     *
+     * @return this accumulator.
+     */
+    public WeightedFusionAccumulator add(double belief, double disbelief, double uncertainty, double atomicity)
+    {
+        return add(belief, disbelief, uncertainty, atomicity, 1.0D);
+    }
+
+    /**
+     * Adds an opinion to the fusion.
+     *
+     * @param relativeWeight the amount of dogmatic opinions that were previously fused into this opinion; only used if
+     *                       the opinion is dogmatic.
+     * @return this accumulator.
+     */
+    public WeightedFusionAccumulator add(double belief, double disbelief, double uncertainty, double atomicity, double relativeWeight)
+    {
+        if ((belief < 0.0D) || (disbelief < 0.0D) || (uncertainty < 0.0D) || (atomicity < 0.0D) || (atomicity > 1.0D)) {
+            throw new IllegalArgumentException("Belief, Disbelief, Uncertainty and Atomicity, x, must be: 0 <= x <= 1");
+        }
+        if (Math.abs(belief + disbelief + uncertainty - 1.0D) > OpinionBase.TOLERANCE) {
+            throw new IllegalArgumentException("Belief, disbelief and uncertainty do not add up to 1: belief + disbelief + uncertainty != 1");
+        }
+        accumulate(belief, disbelief, uncertainty, atomicity, relativeWeight);
+        return this;
+    }
+
+    private void accumulate(double belief, double disbelief, double uncertainty, double atomicity, double relativeWeight)
+    {
+        if (this.count == 0) {
+            this.atomicity = atomicity;
+        }
+        this.count++;
+        this.atomicitySum = this.atomicitySum + atomicity;
+
+        //dogmatic iff uncertainty is zero.
+        if (uncertainty == 0.0D) {
+            this.dogmaticCount++;
+            this.dogmaticWeight = this.dogmaticWeight + relativeWeight;
+            this.dogmaticBelief = this.dogmaticBelief + relativeWeight * belief;
+            this.dogmaticDisbelief = this.dogmaticDisbelief + relativeWeight * disbelief;
+        } else {
+            double c = 1.0D - uncertainty;
+            double cOverU = c / uncertainty;
+
+            this.weightedBelief = this.weightedBelief + belief * cOverU;
+            this.weightedDisbelief = this.weightedDisbelief + disbelief * cOverU;
+            this.confidenceOverUncertainty = this.confidenceOverUncertainty + cOverU;
+            this.confidence = this.confidence + c;
+            this.weightedAtomicity = this.weightedAtomicity + atomicity * c;
+        }
+    }
+
+    /**
+     * Merges the partial state of another accumulator into this one. The result is the same as if all opinions of the
+     * other accumulator had been added to this one, after the opinions already added to this one.
+     *
+     * @param other the accumulator to merge, which is not modified.
+     * @return this accumulator.
+     */
+    public WeightedFusionAccumulator merge(WeightedFusionAccumulator other)
+    {
+        if (other == null) {
+            throw new NullPointerException("Accumulator must not be null");
+        }
+        if (this.count == 0) {
+            this.atomicity = other.atomicity;
+        }
+        this.count = this.count + other.count;
+        this.atomicitySum = this.atomicitySum + other.atomicitySum;
+
+        this.weightedBelief = this.weightedBelief + other.weightedBelief;
+        this.weightedDisbelief = this.weightedDisbelief + other.weightedDisbelief;
+        this.confidenceOverUncertainty = this.confidenceOverUncertainty + other.confidenceOverUncertainty;
+        this.confidence = this.confidence + other.confidence;
+        this.weightedAtomicity = this.weightedAtomicity + other.weightedAtomicity;
+
+        this.dogmaticCount = this.dogmaticCount + other.dogmaticCount;
+        this.dogmaticWeight = this.dogmaticWeight + other.dogmaticWeight;
+        this.dogmaticBelief = this.dogmaticBelief + other.dogmaticBelief;
+        this.dogmaticDisbelief = this.dogmaticDisbelief + other.dogmaticDisbelief;
+        return this;
+    }
+
+    /**
+     * @return the amount of opinions added so far.
+     */
+    public int size()
+    {
+        return this.count;
+    }
+
+    public boolean isEmpty()
+    {
+        return this.count == 0;
+    }
+
+    /**
+     * @return true iff at least one dogmatic opinion was added, in which case the fused opinion is dogmatic.
+     */
+    public boolean isDogmatic()
+    {
+        return this.dogmaticCount > 0;
+    }
+
+    /**
+     * Removes all opinions, so that the accumulator can be reused.
+     */
+    public void clear()
+    {
+        this.count = 0;
+        this.atomicity = -1;
+        this.atomicitySum = 0.0D;
+        this.weightedBelief = 0.0D;
+        this.weightedDisbelief = 0.0D;
+        this.confidenceOverUncertainty = 0.0D;
+        this.confidence = 0.0D;
+        this.weightedAtomicity = 0.0D;
+        this.dogmaticCount = 0;
+        this.dogmaticWeight = 0.0D;
+        this.dogmaticBelief = 0.0D;
+        this.dogmaticDisbelief = 0.0D;
+    }
+
+    /**
+     * Computes the fused opinion of all opinions added so far. The accumulator is not modified, so more opinions can be
+     * added afterwards.
+     *
+     * @return a new SubjectiveOpinion that represents the fused evidence based on confidence-weighted averaging of evidence.
+     * @throws OpinionArithmeticException if no opinions were added.
+     */
+    public SubjectiveOpinion toSubjectiveOpinion() throws OpinionArithmeticException
+    {
+        if (this.count == 0) {
+            throw new OpinionArithmeticException("Opinions must not be empty");
+        }
+
+        if (isDogmatic()) {
+            //Case 2 -- dogmatic opinions are involved
+            return SubjectiveOpinion.fusionResult(this.dogmaticBelief / this.dogmaticWeight, this.dogmaticDisbelief / this.dogmaticWeight,
+                    0.0D, this.atomicity, this.dogmaticWeight);
+        }
+
+        if (this.confidence > 0.0D) {
+            //Case 1: no dogmatic opinions, at least one non-vacuous opinion
+            return SubjectiveOpinion.fusionResult(this.weightedBelief / this.confidenceOverUncertainty,
+                    this.weightedDisbelief / this.confidenceOverUncertainty,
+                    this.confidence / this.confidenceOverUncertainty,
+                    this.weightedAtomicity / this.confidence, 0.0D);
+        }
+
+        //Case 3 -- everything is vacuous
+        //all confidences are zero, so the weight for each opinion is the same -> use a plain average for the atomicity
+        return SubjectiveOpinion.fusionResult(0.0D, 0.0D, 1.0D, this.atomicitySum / this.count, 0.0D);
+    }
+}
@@ -0,0 +1,57 @@
+package de.uulm.vs.subjectivelogic.test;
+
+import no.uio.subjective_logic.opinion.BinomialOpinion;
+import no.uio.subjective_logic.opinion.OpinionBatch;
+import no.uio.subjective_logic.opinion.SubjectiveOpinion;
+import org.junit.Assert;
+
+/**
+ * Assertions on the values of opinions, shared by the tests.
+ */
+public final class OpinionAssert {
+    public static final double DELTA = 1e-9;
+
+    private OpinionAssert() {
+    }
+
+    /**
+     * Asserts that belief, disbelief, uncertainty and atomicity are equal up to delta.
+     */
+    public static void assertEqualOpinion(SubjectiveOpinion expected, SubjectiveOpinion actual, double delta) {
+        Assert.assertNotNull(actual);
+        Assert.assertEquals(expected.getBelief(), actual.getBelief(), delta);
+        Assert.assertEquals(expected.getDisbelief(), actual.getDisbelief(), delta);
+        Assert.assertEquals(expected.getUncertainty(), actual.getUncertainty(), delta);
+        Assert.assertEquals(expected.getAtomicity(), actual.getAtomicity(), delta);
+    }
+
+    /**
+     * Asserts that belief, disbelief, uncertainty and atomicity are equal up to {@link #DELTA}.
+     */
+    public static void assertEqualOpinion(SubjectiveOpinion expected, SubjectiveOpinion actual) {
+        assertEqualOpinion(expected, actual, DELTA);
+    }
+
+    public static void assertEqualOpinion(SubjectiveOpinion expected, BinomialOpinion actual) {
+        Assert.assertNotNull(actual);
+        Assert.assertEquals(expected.getBelief(), actual.getBelief(), DELTA);
+        Assert.assertEquals(expected.getDisbelief(), actual.getDisbelief(), DELTA);
+        Assert.assertEquals(expected.getUncertainty(), actual.getUncertainty(), DELTA);
+        Assert.assertEquals(expected.getAtomicity(), actual.getAtomicity(), DELTA);
+    }
+
+    public static void assertEqualOpinion(SubjectiveOpinion expected, OpinionBatch batch, int index) {
+        Assert.assertEquals(expected.getBelief(), batch.getBelief(index), DELTA);
+        Assert.assertEquals(expected.getDisbelief(), batch.getDisbelief(index), DELTA);
+        Assert.assertEquals(expected.getUncertainty(), batch.getUncertainty(index), DELTA);
+        Assert.assertEquals(expected.getAtomicity(), batch.getAtomicity(index), DELTA);
+    }
+
+    /**
+     * Asserts that belief, disbelief, uncertainty, atomicity and relative weight are exactly the same.
+     */
+    public static void assertSameOpinion(SubjectiveOpinion expected, SubjectiveOpinion actual) {
+        assertEqualOpinion(expected, actual, 0.0);
+        Assert.assertEquals(expected.getRelativeWeight(), actual.getRelativeWeight(), 0.0);
+    }
+}
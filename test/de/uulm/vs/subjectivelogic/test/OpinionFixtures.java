@@ -0,0 +1,43 @@
+package de.uulm.vs.subjectivelogic.test;
+
+import no.uio.subjective_logic.opinion.SubjectiveOpinion;
+
+import java.util.Random;
+
+/**
+ * Random opinions for the tests, drawn from the random generator of each test so that its seed decides the opinions.
+ */
+public final class OpinionFixtures {
+    private OpinionFixtures() {
+    }
+
+    /**
+     * @return a non-dogmatic opinion with uniformly distributed belief, and disbelief uniformly distributed in what is left.
+     */
+    public static SubjectiveOpinion randomOpinion(Random random, double atomicity) {
+        return randomOpinion(random, atomicity, 0.0, 0.0);
+    }
+
+    /**
+     * @return a dogmatic opinion with probability dogmaticShare, and a non-dogmatic opinion otherwise.
+     */
+    public static SubjectiveOpinion randomOpinion(Random random, double atomicity, double dogmaticShare) {
+        return randomOpinion(random, atomicity, dogmaticShare, 0.0);
+    }
+
+    /**
+     * @return a dogmatic opinion with probability dogmaticShare, a vacuous opinion with probability vacuousShare, and a
+     * non-dogmatic opinion otherwise.
+     */
+    public static SubjectiveOpinion randomOpinion(Random random, double atomicity, double dogmaticShare, double vacuousShare) {
+        //the shares only draw a random number if they are used, so that the other opinions do not depend on them
+        double p = dogmaticShare + vacuousShare > 0.0 ? random.nextDouble() : 1.0;
+        double b = random.nextDouble();
+        if (p < dogmaticShare)
+            return new SubjectiveOpinion(b, 1 - b, 0.0, atomicity);
+        if (p < dogmaticShare + vacuousShare)
+            return new SubjectiveOpinion(0.0, 0.0, 1.0, atomicity);
+        double d = random.nextDouble() * (1 - b);
+        return new SubjectiveOpinion(b, d, 1 - b - d, atomicity);
+    }
+}
@@ -0,0 +1,78 @@
+package de.uulm.vs.subjectivelogic.test;
+
+import no.uio.subjective_logic.opinion.BinomialOpinion;
+import no.uio.subjective_logic.opinion.SubjectiveOpinion;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static de.uulm.vs.subjectivelogic.test.OpinionAssert.assertEqualOpinion;
+import static de.uulm.vs.subjectivelogic.test.OpinionFixtures.randomOpinion;
+
+public class TestBinomialOpinion {
+    private final Logger l = LogManager.getLogger(getClass());
+
+    private final Random random = new Random(7);
+
+    @Test
+    public void testOperators() {
+        l.info("Testing operators of BinomialOpinion against SubjectiveOpinion..");
+
+        SubjectiveOpinion[] specials = {new SubjectiveOpinion(1, 0, 0, 0.5), new SubjectiveOpinion(0, 1, 0, 0.5),
+                new SubjectiveOpinion(0, 0, 1, 0.5), new SubjectiveOpinion(0.2, 0.3, 0.5, 1)};
+        for (int i = 0; i < 2000; i++) {
+            SubjectiveOpinion x = i < specials.length ? specials[i] : randomOpinion(random, random.nextDouble());
+            SubjectiveOpinion y = randomOpinion(random, random.nextDouble());
+            BinomialOpinion bx = x.toBinomialOpinion(), by = BinomialOpinion.of(y);
+
+            Assert.assertEquals(x.getExpectation(), bx.getExpectation(), 1e-9);
+            assertEqualOpinion(x.not(), bx.not());
+            assertEqualOpinion(x.and(y), bx.and(by));
+            assertEqualOpinion(x.or(y), bx.or(by));
+            assertEqualOpinion(x.discountBy(y), bx.discountBy(by));
+            assertEqualOpinion(x.erode(0.25), bx.erode(0.25));
+            assertEqualOpinion(x.decay(10, 3), bx.decay(10, 3));
+            assertEqualOpinion(x.uncertainOpinion(), bx.uncertainOpinion());
+
+            double baseRate = random.nextDouble();
+            SubjectiveOpinion yTx = randomOpinion(random, baseRate), yFx = randomOpinion(random, baseRate);
+            assertEqualOpinion(x.deduce(yTx, yFx), bx.deduce(yTx.toBinomialOpinion(), yFx.toBinomialOpinion()));
+
+            SubjectiveOpinion z = randomOpinion(random, x.getAtomicity());
+            assertEqualOpinion(x.cumulativeFuse(z), bx.cumulativeFuse(z.toBinomialOpinion()));
+        }
+    }
+
+    @Test
+    public void testCumulativeFusionEdgeCases() {
+        l.info("Testing cumulative fusion of dogmatic and vacuous BinomialOpinions..");
+
+        SubjectiveOpinion pd = new SubjectiveOpinion(1, 0, 0, 0.5), nd = new SubjectiveOpinion(0, 1, 0, 0.5);
+        SubjectiveOpinion v = new SubjectiveOpinion(0, 0, 1, 0.3);
+        assertEqualOpinion(pd.cumulativeFuse(nd), pd.toBinomialOpinion().cumulativeFuse(nd.toBinomialOpinion()));
+        assertEqualOpinion(v.cumulativeFuse(v), v.toBinomialOpinion().cumulativeFuse(v.toBinomialOpinion()));
+
+        //the relative weight is not carried over, so chained fusion of dogmatic opinions weights them differently
+        BinomialOpinion chained = pd.toBinomialOpinion().cumulativeFuse(pd.toBinomialOpinion()).cumulativeFuse(nd.toBinomialOpinion());
+        Assert.assertEquals(0.5, chained.getBelief(), 1e-9);
+        Assert.assertEquals(2.0 / 3.0, pd.cumulativeFuse(pd).cumulativeFuse(nd).getBelief(), 1e-9);
+    }
+
+    @Test
+    public void testConversion() {
+        l.info("Testing conversion between BinomialOpinion and SubjectiveOpinion..");
+
+        for (int i = 0; i < 100; i++) {
+            SubjectiveOpinion o = randomOpinion(random, random.nextDouble());
+            BinomialOpinion b = o.toBinomialOpinion();
+            Assert.assertEquals(o, b.toSubjectiveOpinion());
+            Assert.assertEquals(b, BinomialOpinion.of(b.toSubjectiveOpinion()));
+        }
+        for (double p = 0; p <= 1; p += 0.05) {
+            assertEqualOpinion(SubjectiveOpinion.fromProjection(p, 0.3), BinomialOpinion.fromProjection(p, 0.3));
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package de.uulm.vs.subjectivelogic.test;
 
 import no.uio.subjective_logic.opinion.Opinion;
+import no.uio.subjective_logic.opinion.OpinionBase;
 import no.uio.subjective_logic.opinion.SubjectiveOpinion;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -9,6 +10,9 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+
+import static de.uulm.vs.subjectivelogic.test.OpinionFixtures.randomOpinion;
 
 public class TestCCF extends TestFusionSetup {
     private final Logger l = LogManager.getLogger(getClass());
@@ -91,4 +95,91 @@ public class TestCCF extends TestFusionSetup {
         Assert.assertEquals(result4, realRes4);
         Assert.assertEquals(result5, realRes5);
     }
+
+    @Test
+    public void testCCBatchFusion_enumeration() {
+        l.info("Comparing SubjectiveLogic.ccCollectionFuse(o) with the enumeration of all domain assignments..");
+
+        Random random = new Random(42);
+        for (int n = 2; n <= 6; n++) {
+            for (int round = 0; round < 20; round++) {
+                List<SubjectiveOpinion> opinions = new ArrayList<>();
+                for (int i = 0; i < n; i++) {
+                    opinions.add(randomOpinion(random, 0.5));
+                }
+
+                SubjectiveOpinion batchFuse = SubjectiveOpinion.ccCollectionFuse(opinions);
+                SubjectiveOpinion reference = enumerateCCFusion(opinions);
+
+                Assert.assertEquals(reference.getBelief(), batchFuse.getBelief(), OpinionBase.TOLERANCE);
+                Assert.assertEquals(reference.getDisbelief(), batchFuse.getDisbelief(), OpinionBase.TOLERANCE);
+                Assert.assertEquals(reference.getUncertainty(), batchFuse.getUncertainty(), OpinionBase.TOLERANCE);
+            }
+        }
+    }
+
+    @Test(timeout = 1000)
+    public void testCCBatchFusion_manySources() {
+        l.info("Testing SubjectiveLogic.ccCollectionFuse(o) with many sources..");
+
+        List<SubjectiveOpinion> opinions = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            opinions.add(new SubjectiveOpinion(i % 2 == 0 ? C1 : C2));
+        }
+        opinions.add(new SubjectiveOpinion(C3));
+
+        SubjectiveOpinion batchFuse = SubjectiveOpinion.ccCollectionFuse(opinions);
+
+        Assert.assertTrue(batchFuse.isConsistent());
+    }
+
+    /**
+     * Reference implementation of the compromise phase that sums over all 4^n assignments of the binary domain lattice.
+     */
+    private static SubjectiveOpinion enumerateCCFusion(List<SubjectiveOpinion> opinions) {
+        int n = opinions.size();
+        double consensusBelief = opinions.stream().mapToDouble(SubjectiveOpinion::getBelief).min().getAsDouble();
+        double consensusDisbelief = opinions.stream().mapToDouble(SubjectiveOpinion::getDisbelief).min().getAsDouble();
+        double productOfUncertainties = opinions.stream().mapToDouble(SubjectiveOpinion::getUncertainty).reduce(1.0D, (acc, u) -> acc * u);
+
+        double compromiseBelief = 0, compromiseDisbelief = 0, compromiseUncertainty = 0;
+        for (SubjectiveOpinion o : opinions) {
+            compromiseBelief += (o.getBelief() - consensusBelief) * productOfUncertainties / o.getUncertainty();
+            compromiseDisbelief += (o.getDisbelief() - consensusDisbelief) * productOfUncertainties / o.getUncertainty();
+        }
+
+        SubjectiveOpinion.Domain[] domains = SubjectiveOpinion.Domain.values();
+        for (int assignment = 0; assignment < (1 << (2 * n)); assignment++) {
+            SubjectiveOpinion.Domain intersection = SubjectiveOpinion.Domain.DOMAIN;
+            SubjectiveOpinion.Domain union = SubjectiveOpinion.Domain.NIL;
+            double prod = 1;
+            for (int j = 0; j < n; j++) {
+                SubjectiveOpinion.Domain d = domains[(assignment >> (2 * j)) & 3];
+                intersection = intersection.intersect(d);
+                union = union.union(d);
+                switch (d) {
+                    case TRUE:
+                        prod = prod * (opinions.get(j).getBelief() - consensusBelief);
+                        break;
+                    case FALSE:
+                        prod = prod * (opinions.get(j).getDisbelief() - consensusDisbelief);
+                        break;
+                    default:
+                        prod = 0;
+                }
+            }
+            if (intersection == SubjectiveOpinion.Domain.TRUE)
+                compromiseBelief += prod;
+            else if (intersection == SubjectiveOpinion.Domain.FALSE)
+                compromiseDisbelief += prod;
+            else if (intersection == SubjectiveOpinion.Domain.NIL && union == SubjectiveOpinion.Domain.DOMAIN)
+                compromiseUncertainty += prod;
+        }
+
+        double compromiseMass = compromiseBelief + compromiseDisbelief + compromiseUncertainty;
+        double normalizationFactor = (1 - consensusBelief - consensusDisbelief - productOfUncertainties) / compromiseMass;
+        return new SubjectiveOpinion(consensusBelief + normalizationFactor * compromiseBelief,
+                consensusDisbelief + normalizationFactor * compromiseDisbelief,
+                productOfUncertainties + normalizationFactor * compromiseUncertainty, 0.5);
+    }
 }
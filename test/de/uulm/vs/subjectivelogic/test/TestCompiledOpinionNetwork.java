@@ -0,0 +1,132 @@
+package de.uulm.vs.subjectivelogic.test;
+
+import no.uio.subjective_logic.opinion.CompiledOpinionNetwork;
+import no.uio.subjective_logic.opinion.OpinionNetwork;
+import no.uio.subjective_logic.opinion.OpinionOperator;
+import no.uio.subjective_logic.opinion.SubjectiveOpinion;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static de.uulm.vs.subjectivelogic.test.OpinionAssert.assertSameOpinion;
+import static de.uulm.vs.subjectivelogic.test.OpinionFixtures.randomOpinion;
+
+public class TestCompiledOpinionNetwork {
+    private final Logger l = LogManager.getLogger(getClass());
+
+    private final Random random = new Random(29);
+
+    private OpinionNetwork.Node[] randomArguments(List<OpinionNetwork.Node> nodes, int min, int max) {
+        OpinionNetwork.Node[] arguments = new OpinionNetwork.Node[min + random.nextInt(max - min + 1)];
+        for (int i = 0; i < arguments.length; i++) {
+            arguments[i] = nodes.get(random.nextInt(nodes.size()));
+        }
+        return arguments;
+    }
+
+    private OpinionNetwork randomNetwork(List<OpinionNetwork.Node> outputs) {
+        OpinionNetwork network = new OpinionNetwork();
+        OpinionNetwork.Node yTx = network.input(randomOpinion(random, 0.4, 1.0 / 6, 1.0 / 6));
+        OpinionNetwork.Node yFx = network.input(randomOpinion(random, 0.4, 1.0 / 6, 1.0 / 6));
+        List<OpinionNetwork.Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            nodes.add(network.input(randomOpinion(random, random.nextBoolean() ? 0.5 : random.nextDouble(), 1.0 / 6, 1.0 / 6)));
+        }
+        for (int i = 0; i < 30; i++) {
+            switch (random.nextInt(14) / 2) {
+                case 0:
+                    nodes.add(network.not(nodes.get(random.nextInt(nodes.size()))));
+                    break;
+                case 1:
+                    nodes.add(network.and(randomArguments(nodes, 2, 4)));
+                    break;
+                case 2:
+                    nodes.add(network.or(randomArguments(nodes, 2, 4)));
+                    break;
+                case 3:
+                    nodes.add(network.discount(nodes.get(random.nextInt(nodes.size())), nodes.get(random.nextInt(nodes.size()))));
+                    break;
+                case 4:
+                    nodes.add(network.fuse(randomArguments(nodes, 2, 4)));
+                    break;
+                case 5:
+                    nodes.add(network.deduce(nodes.get(random.nextInt(nodes.size())), yTx, yFx));
+                    break;
+                default:
+                    //the operators without a register implementation
+                    if (random.nextBoolean())
+                        nodes.add(network.apply(OpinionOperator.Add, randomArguments(nodes, 2, 3)));
+                    else
+                        nodes.add(network.apply(OpinionOperator.UnOr, randomArguments(nodes, 2, 2)));
+            }
+        }
+        for (int i = 0; i < 5; i++) {
+            outputs.add(nodes.get(nodes.size() - 1 - random.nextInt(15)));
+        }
+        return network;
+    }
+
+    @Test
+    public void testCompiledEvaluation() {
+        l.info("Testing that compiled networks compute exactly the same opinions as OpinionNetwork..");
+
+        int compared = 0;
+        for (int n = 0; n < 300; n++) {
+            List<OpinionNetwork.Node> outputs = new ArrayList<>();
+            OpinionNetwork network = randomNetwork(outputs);
+            OpinionNetwork.Node[] o = outputs.toArray(new OpinionNetwork.Node[0]);
+            CompiledOpinionNetwork compiled = CompiledOpinionNetwork.compile(network, o);
+
+            OpinionNetwork.Evaluation expected;
+            try {
+                expected = network.evaluate(o);
+            } catch (RuntimeException e) {
+                try {
+                    compiled.evaluate();
+                    Assert.fail("Compiled evaluation must fail as the evaluation of the network: " + e);
+                } catch (RuntimeException e2) {
+                    Assert.assertEquals(e.getClass(), e2.getClass());
+                }
+                continue;
+            }
+            SubjectiveOpinion[] actual = compiled.evaluate();
+            double[] values = new double[4 * o.length];
+            compiled.evaluate(values);
+            for (int i = 0; i < o.length; i++) {
+                SubjectiveOpinion e = expected.get(o[i]);
+                assertSameOpinion(e, actual[i]);
+                Assert.assertEquals(e.getBelief(), values[4 * i], 0);
+                Assert.assertEquals(e.getDisbelief(), values[4 * i + 1], 0);
+                Assert.assertEquals(e.getUncertainty(), values[4 * i + 2], 0);
+                Assert.assertEquals(e.getAtomicity(), values[4 * i + 3], 0);
+                compared++;
+            }
+        }
+        l.info("Compared " + compared + " outputs");
+        Assert.assertTrue(compared > 200);
+    }
+
+    @Test
+    public void testRegisterReuse() {
+        l.info("Testing that registers are reused and inputs are read on each evaluation..");
+
+        SubjectiveOpinion x = new SubjectiveOpinion(0.6, 0.2, 0.2, 0.5);
+        OpinionNetwork network = new OpinionNetwork();
+        OpinionNetwork.Node node = network.input(x);
+        for (int i = 0; i < 100; i++) {
+            node = network.not(node);
+        }
+        CompiledOpinionNetwork compiled = CompiledOpinionNetwork.compile(network, node);
+        Assert.assertEquals(100, compiled.getInstructionCount());
+        Assert.assertTrue(compiled.getRegisterCount() <= 3);
+        Assert.assertEquals(network.evaluate().get(node), compiled.evaluate()[0]);
+
+        x.set(new SubjectiveOpinion(0.1, 0.8, 0.1, 0.5));
+        Assert.assertEquals(0.1, compiled.evaluate()[0].getBelief(), 1e-10);
+    }
+}
@@ -1,5 +1,6 @@
 package de.uulm.vs.subjectivelogic.test;
 
+import no.uio.subjective_logic.opinion.CumulativeFusionAccumulator;
 import no.uio.subjective_logic.opinion.Opinion;
 import no.uio.subjective_logic.opinion.OpinionBase;
 import no.uio.subjective_logic.opinion.SubjectiveOpinion;
@@ -269,4 +270,45 @@ public class TestCumulativeFusion extends TestFusionSetup {
         Assert.assertEquals(result5, realRes5);
     }
 
+    @Test
+    public void testCumulativeFusionAccumulator() {
+        l.info("Testing CumulativeFusionAccumulator against the pairwise and collection-based cumulative fusion..");
+
+        CumulativeFusionAccumulator accumulator = new CumulativeFusionAccumulator();
+        for (SubjectiveOpinion o : triSourceExample) {
+            accumulator.add(o);
+        }
+        Assert.assertEquals(3, accumulator.size());
+        Assert.assertEquals(SubjectiveOpinion.cumulativeCollectionFuse(triSourceExample), accumulator.toSubjectiveOpinion());
+
+        //snapshots do not modify the accumulator
+        accumulator.add(soPP);
+        List<SubjectiveOpinion> opinions = new ArrayList<>(triSourceExample);
+        opinions.add(soPP);
+        Assert.assertEquals(SubjectiveOpinion.cumulativeCollectionFuse(opinions), accumulator.toSubjectiveOpinion());
+
+        //raw values
+        CumulativeFusionAccumulator raw = new CumulativeFusionAccumulator();
+        for (SubjectiveOpinion o : opinions) {
+            raw.add(o.getBelief(), o.getDisbelief(), o.getUncertainty(), o.getAtomicity());
+        }
+        Assert.assertEquals(accumulator.toSubjectiveOpinion(), raw.toSubjectiveOpinion());
+
+        //once a dogmatic opinion is added, the result is dogmatic
+        accumulator.add(soPD);
+        accumulator.add(soND);
+        accumulator.add(soND);
+        Assert.assertTrue(accumulator.isDogmatic());
+        Assert.assertEquals(SubjectiveOpinion.cumulativeCollectionFuse(soPDsoNDsoND), accumulator.toSubjectiveOpinion());
+        Assert.assertEquals(3.0D, accumulator.toSubjectiveOpinion().getRelativeWeight(), OpinionBase.TOLERANCE);
+
+        accumulator.clear();
+        Assert.assertTrue(accumulator.isEmpty());
+        try {
+            accumulator.toSubjectiveOpinion();
+            Assert.fail("Fused an empty accumulator");
+        } catch (ArithmeticException e) {
+            l.info("Correct exception for empty accumulator");
+        }
+    }
 }
@@ -0,0 +1,67 @@
+package de.uulm.vs.subjectivelogic.test;
+
+import no.uio.subjective_logic.opinion.DecayingOpinionStore;
+import no.uio.subjective_logic.opinion.SubjectiveOpinion;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static de.uulm.vs.subjectivelogic.test.OpinionAssert.assertSameOpinion;
+
+public class TestDecayingOpinionStore {
+    private final Logger l = LogManager.getLogger(getClass());
+
+    @Test
+    public void testLazyDecay() {
+        l.info("Testing lazy decay against decay..");
+
+        SubjectiveOpinion x = new SubjectiveOpinion(0.6, 0.3, 0.1, 0.4);
+        DecayingOpinionStore<String> store = new DecayingOpinionStore<>(5.0);
+        store.put("a", x, 10.0);
+        store.put("b", x, 10.0, 0.7);
+        store.put("c", x, 10.0, 0.0);
+        Assert.assertEquals(3, store.size());
+        Assert.assertEquals(10.0, store.getLastUpdate("a"), 0.0);
+        Assert.assertTrue(Double.isNaN(store.getLastUpdate("d")));
+        Assert.assertNull(store.get("d", 10.0));
+
+        for (double time : new double[]{10.0, 11.0, 12.5, 17.0, 265.0, 266.0, 1000.25}) {
+            assertSameOpinion(x.decay(5.0, time - 10.0), store.get("a", time));
+            assertSameOpinion(x.decay(0.7, time - 10.0), store.get("b", time));
+            assertSameOpinion(x.decay(0.0, time - 10.0), store.get("c", time));
+        }
+
+        //the stored opinion is a copy
+        x.set(0.1, 0.1, 0.8);
+        Assert.assertEquals(0.6, store.get("a", 10.0).getBelief(), 1e-12);
+
+        try {
+            store.get("a", 9.0);
+            Assert.fail("Reading before the last update must be rejected");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+
+        Assert.assertTrue(store.remove("a"));
+        Assert.assertFalse(store.remove("a"));
+        Assert.assertFalse(store.containsKey("a"));
+    }
+
+    @Test
+    public void testFuse() {
+        l.info("Testing fusion into decayed entries..");
+
+        SubjectiveOpinion x = new SubjectiveOpinion(0.6, 0.2, 0.2, 0.5);
+        SubjectiveOpinion y = new SubjectiveOpinion(0.2, 0.5, 0.3, 0.5);
+        DecayingOpinionStore<Integer> store = new DecayingOpinionStore<>(3.0);
+
+        assertSameOpinion(x, store.fuse(1, x, 2.0));
+        Assert.assertEquals(2.0, store.getLastUpdate(1), 0.0);
+
+        SubjectiveOpinion expected = x.decay(3.0, 4.0).cumulativeFuse(y);
+        assertSameOpinion(expected, store.fuse(1, y, 6.0));
+        Assert.assertEquals(6.0, store.getLastUpdate(1), 0.0);
+        assertSameOpinion(expected.decay(3.0, 1.5), store.get(1, 7.5));
+    }
+}
@@ -0,0 +1,135 @@
+package de.uulm.vs.subjectivelogic.test;
+
+import no.uio.subjective_logic.opinion.EventTimeWindowFusion;
+import no.uio.subjective_logic.opinion.OpinionCollectors;
+import no.uio.subjective_logic.opinion.SubjectiveOpinion;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static de.uulm.vs.subjectivelogic.test.OpinionAssert.assertEqualOpinion;
+import static de.uulm.vs.subjectivelogic.test.OpinionFixtures.randomOpinion;
+
+public class TestEventTimeWindowFusion {
+    private final Logger l = LogManager.getLogger(getClass());
+
+    private final Random random = new Random(11);
+
+    @Test
+    public void testTumbling() {
+        l.info("Testing tumbling windows with out-of-order and late opinions..");
+
+        List<EventTimeWindowFusion.Result<String>> results = new ArrayList<>();
+        List<EventTimeWindowFusion.Element<String>> late = new ArrayList<>();
+        EventTimeWindowFusion<String> stage = EventTimeWindowFusion.tumbling(100, OpinionCollectors.cumulative(),
+                results::add, late::add);
+
+        //the opinions of each window in arrival order, by key and start
+        Map<String, List<SubjectiveOpinion>> expected = new HashMap<>();
+        long watermark = 0;
+        int lateCount = 0;
+        for (int i = 0; i < 2000; i++) {
+            String key = "v" + random.nextInt(5);
+            //up to 150 time units out of order
+            long time = watermark + random.nextInt(250) - 150;
+            SubjectiveOpinion o = randomOpinion(random, 0.5);
+            long start = Math.floorDiv(time, 100) * 100;
+            boolean accepted = stage.add(key, o, time);
+            Assert.assertEquals(start + 100 > stage.getWatermark(), accepted);
+            if (accepted)
+                expected.computeIfAbsent(key + "@" + start, k -> new ArrayList<>()).add(o);
+            else
+                lateCount++;
+            if (i % 10 == 9) {
+                watermark += 20;
+                stage.advanceWatermark(watermark);
+            }
+        }
+        stage.advanceWatermark(Long.MAX_VALUE);
+        Assert.assertEquals(0, stage.getOpenWindowCount());
+        Assert.assertEquals(lateCount, late.size());
+        Assert.assertTrue(lateCount > 0);
+
+        Assert.assertEquals(expected.size(), results.size());
+        long lastEnd = Long.MIN_VALUE;
+        for (EventTimeWindowFusion.Result<String> result : results) {
+            Assert.assertTrue(result.getEnd() >= lastEnd);
+            lastEnd = result.getEnd();
+            Assert.assertEquals(100, result.getEnd() - result.getStart());
+            List<SubjectiveOpinion> opinions = expected.get(result.getKey() + "@" + result.getStart());
+            Assert.assertEquals(opinions.size(), result.getCount());
+            assertEqualOpinion(SubjectiveOpinion.cumulativeCollectionFuse(opinions), result.getOpinion());
+        }
+    }
+
+    @Test
+    public void testSession() {
+        l.info("Testing session windows..");
+
+        List<EventTimeWindowFusion.Result<Integer>> results = new ArrayList<>();
+        List<EventTimeWindowFusion.Element<Integer>> late = new ArrayList<>();
+        EventTimeWindowFusion<Integer> stage = EventTimeWindowFusion.session(10, OpinionCollectors.minimum(),
+                results::add, late::add);
+
+        SubjectiveOpinion high = new SubjectiveOpinion(0.8, 0.1, 0.1, 0.5);
+        SubjectiveOpinion low = new SubjectiveOpinion(0.1, 0.8, 0.1, 0.5);
+        stage.add(1, high, 0);
+        stage.add(1, high, 5);
+        stage.add(1, high, 30);
+        Assert.assertEquals(2, stage.getOpenWindowCount());
+        //bridges the first session and merges it with [12,22), but does not reach the second session
+        stage.add(1, low, 12);
+        //merges with the second session, which now starts at 25
+        stage.add(1, high, 25);
+        stage.add(2, low, 3);
+        Assert.assertEquals(3, stage.getOpenWindowCount());
+
+        stage.advanceWatermark(22);
+        Assert.assertEquals(2, results.size());
+        Assert.assertEquals(Integer.valueOf(2), results.get(0).getKey());
+        Assert.assertEquals(3, results.get(0).getStart());
+        Assert.assertEquals(13, results.get(0).getEnd());
+        Assert.assertEquals(Integer.valueOf(1), results.get(1).getKey());
+        Assert.assertEquals(0, results.get(1).getStart());
+        Assert.assertEquals(22, results.get(1).getEnd());
+        Assert.assertEquals(3, results.get(1).getCount());
+        assertEqualOpinion(low, results.get(1).getOpinion());
+
+        //the session [5,15) has already been emitted
+        Assert.assertFalse(stage.add(1, low, 5));
+        Assert.assertEquals(1, late.size());
+        Assert.assertEquals(5, late.get(0).getTime());
+
+        stage.advanceWatermark(40);
+        Assert.assertEquals(3, results.size());
+        Assert.assertEquals(25, results.get(2).getStart());
+        Assert.assertEquals(40, results.get(2).getEnd());
+        Assert.assertEquals(2, results.get(2).getCount());
+        assertEqualOpinion(high, results.get(2).getOpinion());
+        Assert.assertEquals(0, stage.getOpenWindowCount());
+    }
+
+    @Test
+    public void testMajority() {
+        l.info("Testing tumbling windows with MAJORITY fusion..");
+
+        List<EventTimeWindowFusion.Result<Integer>> results = new ArrayList<>();
+        EventTimeWindowFusion<Integer> stage = EventTimeWindowFusion.tumbling(10, OpinionCollectors.majority(),
+                results::add, e -> Assert.fail("No opinion is late"));
+        SubjectiveOpinion high = new SubjectiveOpinion(0.8, 0.1, 0.1, 0.5);
+        SubjectiveOpinion low = new SubjectiveOpinion(0.1, 0.8, 0.1, 0.5);
+        stage.add(1, high, 1);
+        stage.add(1, low, 2);
+        stage.add(1, high, 9);
+        stage.advanceWatermark(10);
+        Assert.assertEquals(1, results.size());
+        assertEqualOpinion(new SubjectiveOpinion(1, 0, 0, 0.5), results.get(0).getOpinion());
+    }
+}
@@ -0,0 +1,133 @@
+package de.uulm.vs.subjectivelogic.test;
+
+import no.uio.subjective_logic.opinion.GlobalTrust;
+import no.uio.subjective_logic.opinion.OpinionBatch;
+import no.uio.subjective_logic.opinion.SubjectiveOpinion;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static de.uulm.vs.subjectivelogic.test.OpinionAssert.assertEqualOpinion;
+import static de.uulm.vs.subjectivelogic.test.OpinionFixtures.randomOpinion;
+
+public class TestGlobalTrust {
+    private final Logger l = LogManager.getLogger(getClass());
+
+    private final Random random = new Random(19);
+
+    /**
+     * One step of the iteration with the object-based operators.
+     */
+    private static SubjectiveOpinion[] step(SubjectiveOpinion[] trust, SubjectiveOpinion[] priors, int[] from, int[] to,
+                                            OpinionBatch local) {
+        List<List<SubjectiveOpinion>> paths = new ArrayList<>();
+        for (SubjectiveOpinion prior : priors) {
+            List<SubjectiveOpinion> list = new ArrayList<>();
+            list.add(prior);
+            paths.add(list);
+        }
+        for (int i = 0; i < from.length; i++)
+            paths.get(to[i]).add(local.get(i).discountBy(trust[from[i]]));
+        SubjectiveOpinion[] result = new SubjectiveOpinion[trust.length];
+        for (int v = 0; v < trust.length; v++)
+            result[v] = SubjectiveOpinion.cumulativeCollectionFuse(paths.get(v));
+        return result;
+    }
+
+    @Test
+    public void testIteration() {
+        l.info("Testing global trust against the object-based operators..");
+
+        int n = 200, m = 1000;
+        int[] from = new int[m];
+        int[] to = new int[m];
+        OpinionBatch local = new OpinionBatch(m);
+        for (int i = 0; i < m; i++) {
+            from[i] = random.nextInt(n);
+            do {
+                to[i] = random.nextInt(n);
+            } while (to[i] == from[i]);
+            local.set(i, randomOpinion(random, 0.5));
+        }
+        SubjectiveOpinion vacuous = new SubjectiveOpinion(0.0, 0.0, 1.0, 0.5);
+        SubjectiveOpinion pretrusted = new SubjectiveOpinion(0.9, 0.0, 0.1, 0.5);
+
+        GlobalTrust sequential = new GlobalTrust(n, from, to, local, vacuous);
+        GlobalTrust parallel = new GlobalTrust(n, from, to, local, vacuous);
+        SubjectiveOpinion[] priors = new SubjectiveOpinion[n];
+        for (int v = 0; v < n; v++)
+            priors[v] = vacuous;
+        for (int v = 0; v < 5; v++) {
+            sequential.setPrior(v, pretrusted);
+            parallel.setPrior(v, pretrusted);
+            priors[v] = pretrusted;
+        }
+
+        //the priors are the start of the iteration
+        SubjectiveOpinion[] expected = new SubjectiveOpinion[n];
+        for (int v = 0; v < n; v++)
+            expected[v] = vacuous;
+        for (int k = 0; k < 5; k++)
+            expected = step(expected, priors, from, to, local);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Assert.assertEquals(5, sequential.iterate(null, 1, 0.0, 5));
+            Assert.assertEquals(5, parallel.iterate(pool, 7, 0.0, 5));
+            for (int v = 0; v < n; v++) {
+                assertEqualOpinion(expected[v], sequential.getTrust(v));
+                //the partitioning does not change the results
+                Assert.assertEquals(sequential.getTrust(v).getBelief(), parallel.getTrust(v).getBelief(), 0.0);
+                Assert.assertEquals(sequential.getTrust(v).getUncertainty(), parallel.getTrust(v).getUncertainty(), 0.0);
+            }
+
+            int steps = parallel.iterate(pool, 7, 1e-12, 1000);
+            Assert.assertTrue(steps < 1000);
+            Assert.assertTrue(parallel.isConverged(1e-12));
+            Assert.assertEquals(5 + steps, parallel.getIterations());
+
+            //the result is a fixed point of a step
+            OpinionBatch result = parallel.getTrust();
+            SubjectiveOpinion[] trust = new SubjectiveOpinion[n];
+            for (int v = 0; v < n; v++)
+                trust[v] = result.get(v);
+            SubjectiveOpinion[] again = step(trust, priors, from, to, local);
+            for (int v = 0; v < n; v++)
+                assertEqualOpinion(trust[v], again[v]);
+
+            //a converged iteration does not step again, until it is reset
+            Assert.assertEquals(0, parallel.iterate(pool, 7, 1e-12, 1000));
+            parallel.reset();
+            Assert.assertEquals(0, parallel.getIterations());
+            assertEqualOpinion(pretrusted, parallel.getTrust(0));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testValidation() {
+        l.info("Testing validation of the local trust..");
+
+        OpinionBatch local = new OpinionBatch(1);
+        SubjectiveOpinion prior = new SubjectiveOpinion(0.0, 0.0, 1.0, 0.5);
+        try {
+            new GlobalTrust(2, new int[]{1}, new int[]{1}, local, prior);
+            Assert.fail("Self trust must be rejected");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+        try {
+            new GlobalTrust(2, new int[]{0}, new int[]{2}, local, prior);
+            Assert.fail("Unknown entities must be rejected");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package de.uulm.vs.subjectivelogic.test;
+
+import no.uio.subjective_logic.opinion.IncrementalNetworkEvaluator;
+import no.uio.subjective_logic.opinion.OpinionArithmeticException;
+import no.uio.subjective_logic.opinion.OpinionNetwork;
+import no.uio.subjective_logic.opinion.SubjectiveOpinion;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.beans.IndexedPropertyChangeEvent;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static de.uulm.vs.subjectivelogic.test.OpinionAssert.assertSameOpinion;
+
+public class TestIncrementalNetworkEvaluator {
+    private final Logger l = LogManager.getLogger(getClass());
+
+    private final SubjectiveOpinion a = new SubjectiveOpinion(0.6, 0.2, 0.2, 0.3);
+    private final SubjectiveOpinion b = new SubjectiveOpinion(0.3, 0.3, 0.4, 0.3);
+    private final SubjectiveOpinion c = new SubjectiveOpinion(0.2, 0.2, 0.6, 0.3);
+    private final SubjectiveOpinion d = new SubjectiveOpinion(0.5, 0.4, 0.1, 0.3);
+
+    private final OpinionNetwork network = new OpinionNetwork();
+    private final OpinionNetwork.Node na = network.input(a), nb = network.input(b), nc = network.input(c), nd = network.input(d);
+    private final OpinionNetwork.Node left = network.and(na, nb);
+    private final OpinionNetwork.Node right = network.or(nc, nd);
+    private final OpinionNetwork.Node top = network.fuse(left, right);
+
+    private void assertUpToDate(IncrementalNetworkEvaluator evaluator) {
+        OpinionNetwork.Evaluation evaluation = network.evaluate();
+        for (OpinionNetwork.Node node : network.getNodes()) {
+            SubjectiveOpinion expected = evaluation.get(node), actual = evaluator.get(node);
+            assertSameOpinion(expected, actual);
+        }
+    }
+
+    @Test
+    public void testIncrementalUpdate() {
+        l.info("Testing that only dependent nodes are recomputed..");
+
+        IncrementalNetworkEvaluator evaluator = new IncrementalNetworkEvaluator(network);
+        assertUpToDate(evaluator);
+        Assert.assertEquals(network.size(), evaluator.getRecomputedCount());
+
+        //multiple changes before the next read are handled by one update
+        a.set(new SubjectiveOpinion(0.1, 0.7, 0.2, 0.3));
+        a.set(new SubjectiveOpinion(0.2, 0.6, 0.2, 0.3));
+        Assert.assertTrue(evaluator.isDirty());
+        assertUpToDate(evaluator);
+        Assert.assertFalse(evaluator.isDirty());
+        //a, left and top
+        Assert.assertEquals(network.size() + 3, evaluator.getRecomputedCount());
+
+        a.setAtomicity(0.4);
+        d.set(new SubjectiveOpinion(0.3, 0.3, 0.4, 0.3));
+        assertUpToDate(evaluator);
+        Assert.assertEquals(network.size() + 3 + 5, evaluator.getRecomputedCount());
+
+        evaluator.close();
+        b.set(new SubjectiveOpinion(0.4, 0.4, 0.2, 0.3));
+        Assert.assertFalse(evaluator.isDirty());
+    }
+
+    @Test
+    public void testUnchangedValues() {
+        l.info("Testing that recomputation stops at unchanged values..");
+
+        SubjectiveOpinion x = new SubjectiveOpinion(0.6, 0.2, 0.2, 0.3);
+        OpinionNetwork network = new OpinionNetwork();
+        //AND with an absolute disbelief is an absolute disbelief, whatever x is
+        OpinionNetwork.Node and = network.and(network.input(x), network.input(new SubjectiveOpinion(0, 1, 0, 0.3)));
+        OpinionNetwork.Node not = network.not(and);
+
+        IncrementalNetworkEvaluator evaluator = new IncrementalNetworkEvaluator(network);
+        SubjectiveOpinion before = evaluator.get(not);
+        x.set(new SubjectiveOpinion(0.1, 0.3, 0.6, 0.3));
+        Assert.assertEquals(before, evaluator.get(not));
+        //x and the AND, but not the NOT
+        Assert.assertEquals(network.size() + 2, evaluator.getRecomputedCount());
+    }
+
+    @Test
+    public void testScheduledUpdate() throws InterruptedException {
+        l.info("Testing batched updates on an executor..");
+
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            IncrementalNetworkEvaluator evaluator = new IncrementalNetworkEvaluator(network, executor, 50, TimeUnit.MILLISECONDS);
+            evaluator.update();
+
+            Set<Integer> changed = ConcurrentHashMap.newKeySet();
+            CountDownLatch latch = new CountDownLatch(1);
+            evaluator.addPropertyChangeListener(evt -> {
+                int index = ((IndexedPropertyChangeEvent) evt).getIndex();
+                changed.add(index);
+                if (index == top.getIndex())
+                    latch.countDown();
+            });
+
+            c.set(new SubjectiveOpinion(0.7, 0.2, 0.1, 0.3));
+            d.set(new SubjectiveOpinion(0.1, 0.1, 0.8, 0.3));
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+            Assert.assertFalse(evaluator.isDirty());
+
+            //c, d, right and top, in a single update
+            Assert.assertEquals(network.size() + 4, evaluator.getRecomputedCount());
+            Assert.assertFalse(changed.contains(left.getIndex()));
+            Assert.assertTrue(changed.contains(right.getIndex()));
+            assertUpToDate(evaluator);
+            evaluator.close();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testIntoOperators() {
+        l.info("Testing that operators into an input are noticed..");
+
+        IncrementalNetworkEvaluator evaluator = new IncrementalNetworkEvaluator(network);
+        assertUpToDate(evaluator);
+        a.erodeInto(0.5, a);
+        Assert.assertTrue(evaluator.isDirty());
+        assertUpToDate(evaluator);
+        c.andInto(d, c);
+        assertUpToDate(evaluator);
+        evaluator.close();
+    }
+
+    @Test
+    public void testFailedNode() {
+        l.info("Testing that a failed node does not block the other nodes..");
+
+        SubjectiveOpinion x = new SubjectiveOpinion(0, 0, 1, 0.3), y = new SubjectiveOpinion(0, 0, 1, 0.6);
+        OpinionNetwork network = new OpinionNetwork();
+        //the fusion of vacuous opinions with different atomicities fails
+        OpinionNetwork.Node fused = network.fuse(network.input(x), network.input(y));
+        OpinionNetwork.Node not = network.not(fused);
+        OpinionNetwork.Node independent = network.not(network.input(a));
+
+        IncrementalNetworkEvaluator evaluator = new IncrementalNetworkEvaluator(network);
+        for (OpinionNetwork.Node node : new OpinionNetwork.Node[]{fused, not}) {
+            try {
+                evaluator.get(node);
+                Assert.fail("Node cannot be computed");
+            } catch (OpinionArithmeticException e) {
+                //expected
+            }
+        }
+        Assert.assertEquals(a.not(), evaluator.get(independent));
+        a.set(new SubjectiveOpinion(0.1, 0.7, 0.2, 0.3));
+        Assert.assertEquals(a.not(), evaluator.get(independent));
+
+        x.setAtomicity(0.6);
+        Assert.assertEquals(y.not(), evaluator.get(not));
+        evaluator.close();
+    }
+}
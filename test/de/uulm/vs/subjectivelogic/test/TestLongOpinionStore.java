@@ -0,0 +1,120 @@
+package de.uulm.vs.subjectivelogic.test;
+
+import no.uio.subjective_logic.opinion.LongOpinionStore;
+import no.uio.subjective_logic.opinion.SubjectiveOpinion;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static de.uulm.vs.subjectivelogic.test.OpinionAssert.assertSameOpinion;
+import static de.uulm.vs.subjectivelogic.test.OpinionFixtures.randomOpinion;
+
+public class TestLongOpinionStore {
+    private final Logger l = LogManager.getLogger(getClass());
+
+    private final Random random = new Random(23);
+
+    @Test
+    public void testReference() {
+        l.info("Testing put, fuse and remove against a HashMap..");
+
+        //a single small segment, so that the table grows and probe sequences wrap around
+        LongOpinionStore store = new LongOpinionStore(0, 1);
+        Map<Long, SubjectiveOpinion> reference = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            //keys that collide in the lowest bits
+            long key = (random.nextInt(500) << 20) - 3000L * (1L << 20);
+            switch (random.nextInt(4)) {
+                case 0:
+                    SubjectiveOpinion o = randomOpinion(random, 0.5, 0.1);
+                    store.put(key, o);
+                    reference.put(key, o);
+                    break;
+                case 1:
+                    Assert.assertEquals(reference.remove(key) != null, store.remove(key));
+                    break;
+                default:
+                    o = randomOpinion(random, 0.5, 0.1);
+                    store.fuse(key, o);
+                    SubjectiveOpinion entry = reference.get(key);
+                    reference.put(key, entry == null ? o : entry.cumulativeFuse(o));
+            }
+            Assert.assertEquals(reference.size(), store.size());
+        }
+        for (long key = -3000L << 20; key < 0; key += 1 << 20) {
+            SubjectiveOpinion expected = reference.get(key);
+            Assert.assertEquals(expected != null, store.containsKey(key));
+            if (expected == null) {
+                Assert.assertNull(store.get(key));
+                Assert.assertTrue(Double.isNaN(store.getExpectation(key)));
+            } else {
+                assertSameOpinion(expected, store.get(key));
+                Assert.assertEquals(expected.getExpectation(), store.getExpectation(key), 0.0);
+            }
+        }
+
+        store.clear();
+        Assert.assertEquals(0, store.size());
+        Assert.assertFalse(store.containsKey(reference.keySet().iterator().next()));
+    }
+
+    @Test
+    public void testDogmatic() {
+        l.info("Testing fusion of dogmatic entries..");
+
+        LongOpinionStore store = new LongOpinionStore();
+        SubjectiveOpinion x = new SubjectiveOpinion(0.7, 0.3, 0.0, 0.5);
+        SubjectiveOpinion y = new SubjectiveOpinion(0.2, 0.8, 0.0, 0.5);
+        store.fuse(7L, x);
+        store.fuse(7L, y);
+        store.fuse(7L, y);
+        assertSameOpinion(x.cumulativeFuse(y).cumulativeFuse(y), store.get(7L));
+        Assert.assertEquals(3.0, store.get(7L).getRelativeWeight(), 0.0);
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws InterruptedException {
+        l.info("Testing concurrent fuse and update..");
+
+        LongOpinionStore store = new LongOpinionStore(1000, 4);
+        SubjectiveOpinion vacuous = new SubjectiveOpinion(0.0, 0.0, 1.0, 0.5);
+        int threads = 4;
+        int keys = 1000;
+        int rounds = 20;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(new Thread(() -> {
+                for (int r = 0; r < rounds; r++) {
+                    for (long key = 0; key < keys; key++) {
+                        //counts the updates in the atomicity of the entry
+                        store.update(key, o -> o == null
+                                ? new SubjectiveOpinion(0.0, 0.0, 1.0, 0.001)
+                                : new SubjectiveOpinion(0.0, 0.0, 1.0, o.getAtomicity() + 0.001));
+                        store.fuse(keys + key, vacuous);
+                    }
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        Assert.assertEquals(2 * keys, store.size());
+        for (long key = 0; key < keys; key++) {
+            Assert.assertEquals(threads * rounds * 0.001, store.get(key).getAtomicity(), 1e-9);
+            assertSameOpinion(vacuous, store.get(keys + key));
+        }
+        Assert.assertNull(store.update(0L, o -> null));
+        Assert.assertFalse(store.containsKey(0L));
+    }
+}
@@ -0,0 +1,157 @@
+package de.uulm.vs.subjectivelogic.test;
+
+import no.uio.subjective_logic.opinion.MappedOpinionStore;
+import no.uio.subjective_logic.opinion.SubjectiveOpinion;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static de.uulm.vs.subjectivelogic.test.OpinionAssert.assertSameOpinion;
+import static de.uulm.vs.subjectivelogic.test.OpinionFixtures.randomOpinion;
+
+public class TestMappedOpinionStore {
+    private final Logger l = LogManager.getLogger(getClass());
+
+    private final Random random = new Random(41);
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReopen() throws IOException {
+        l.info("Testing put, fuse and remove across reopening..");
+
+        Path file = folder.getRoot().toPath().resolve("opinions.bin");
+        int capacity = 1000;
+        SubjectiveOpinion[] reference = new SubjectiveOpinion[capacity];
+        double[] times = new double[capacity];
+        try (MappedOpinionStore store = MappedOpinionStore.create(file, capacity)) {
+            for (int i = 0; i < 5000; i++) {
+                int index = random.nextInt(capacity);
+                double time = i;
+                switch (random.nextInt(4)) {
+                    case 0:
+                        SubjectiveOpinion o = randomOpinion(random, 0.5, 0.1);
+                        store.put(index, o, time);
+                        reference[index] = o;
+                        times[index] = time;
+                        break;
+                    case 1:
+                        Assert.assertEquals(reference[index] != null, store.remove(index));
+                        reference[index] = null;
+                        break;
+                    default:
+                        o = randomOpinion(random, 0.5, 0.1);
+                        store.fuse(index, o, time);
+                        reference[index] = reference[index] == null ? o : reference[index].cumulativeFuse(o);
+                        times[index] = time;
+                }
+            }
+            store.checkpoint();
+            Assert.assertEquals(1, store.getCheckpointCount());
+        }
+
+        try (MappedOpinionStore store = MappedOpinionStore.open(file)) {
+            Assert.assertEquals(capacity, store.getCapacity());
+            Assert.assertEquals(1, store.getCheckpointCount());
+            for (int index = 0; index < capacity; index++) {
+                Assert.assertEquals(reference[index] != null, store.contains(index));
+                if (reference[index] == null) {
+                    Assert.assertNull(store.get(index));
+                    Assert.assertTrue(Double.isNaN(store.getTime(index)));
+                } else {
+                    assertSameOpinion(reference[index], store.get(index));
+                    Assert.assertEquals(times[index], store.getTime(index), 0.0);
+                }
+            }
+
+            //a snapshot is a store of its own
+            Path copy = folder.getRoot().toPath().resolve("copy.bin");
+            store.snapshot(copy);
+            store.put(0, new SubjectiveOpinion(1.0, 0.0, 0.0, 0.5), -1.0);
+            try (MappedOpinionStore snapshot = MappedOpinionStore.open(copy)) {
+                for (int index = 0; index < capacity; index++) {
+                    if (reference[index] == null) {
+                        Assert.assertNull(snapshot.get(index));
+                    } else {
+                        assertSameOpinion(reference[index], snapshot.get(index));
+                        Assert.assertEquals(times[index], snapshot.getTime(index), 0.0);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidFiles() throws IOException {
+        l.info("Testing invalid files and indices..");
+
+        Path file = folder.newFile("empty.bin").toPath();
+        try {
+            MappedOpinionStore.open(file);
+            Assert.fail("An empty file is not a store");
+        } catch (IOException e) {
+            //expected
+        }
+
+        Path store = folder.getRoot().toPath().resolve("store.bin");
+        MappedOpinionStore.create(store, 3).close();
+        Files.write(store, new byte[1], StandardOpenOption.APPEND);
+        try {
+            MappedOpinionStore.open(store);
+            Assert.fail("The size of the file does not match");
+        } catch (IOException e) {
+            //expected
+        }
+
+        try (MappedOpinionStore s = MappedOpinionStore.create(folder.getRoot().toPath().resolve("small.bin"), 3)) {
+            s.get(3);
+            Assert.fail("Index is out of bounds");
+        } catch (IndexOutOfBoundsException e) {
+            //expected
+        }
+    }
+
+    @Test
+    public void testConcurrentFusion() throws Exception {
+        l.info("Testing concurrent fusion of dogmatic opinions..");
+
+        int capacity = 200;
+        int threads = 4;
+        int rounds = 50;
+        SubjectiveOpinion dogmatic = new SubjectiveOpinion(0.5, 0.5, 0.0, 0.5);
+        try (MappedOpinionStore store = MappedOpinionStore.create(folder.getRoot().toPath().resolve("c.bin"), capacity)) {
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(new Thread(() -> {
+                    for (int r = 0; r < rounds; r++) {
+                        for (int index = 0; index < capacity; index++) {
+                            store.fuse(index, dogmatic, r);
+                        }
+                    }
+                }));
+            }
+            for (Thread worker : workers) {
+                worker.start();
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            //the relative weights of fused dogmatic opinions add up
+            for (int index = 0; index < capacity; index++) {
+                Assert.assertEquals(threads * rounds, store.get(index).getRelativeWeight(), 0.0);
+            }
+        }
+    }
+}
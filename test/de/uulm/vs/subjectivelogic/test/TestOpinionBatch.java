@@ -0,0 +1,129 @@
+package de.uulm.vs.subjectivelogic.test;
+
+import no.uio.subjective_logic.opinion.Conditionals;
+import no.uio.subjective_logic.opinion.OpinionBatch;
+import no.uio.subjective_logic.opinion.SubjectiveOpinion;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static de.uulm.vs.subjectivelogic.test.OpinionAssert.assertEqualOpinion;
+import static de.uulm.vs.subjectivelogic.test.OpinionFixtures.randomOpinion;
+
+public class TestOpinionBatch {
+    private final Logger l = LogManager.getLogger(getClass());
+
+    private final Random random = new Random(42);
+
+    private List<SubjectiveOpinion> randomOpinions(int size) {
+        List<SubjectiveOpinion> opinions = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            opinions.add(randomOpinion(random, random.nextDouble()));
+        }
+        opinions.add(new SubjectiveOpinion(1, 0, 0, 0.5));
+        opinions.add(new SubjectiveOpinion(0, 0, 1, 0.2));
+        return opinions;
+    }
+
+    @Test
+    public void testBulkOperators() {
+        l.info("Testing bulk operators of OpinionBatch against SubjectiveOpinion..");
+
+        List<SubjectiveOpinion> opinions = randomOpinions(1000);
+        OpinionBatch batch = new OpinionBatch(opinions);
+        Assert.assertEquals(opinions.size(), batch.size());
+
+        SubjectiveOpinion trust = randomOpinion(random, 0.5);
+        OpinionBatch trusts = new OpinionBatch(randomOpinions(1000));
+        double[] expectations = batch.expectations();
+
+        OpinionBatch not = batch.not();
+        OpinionBatch eroded = batch.erode(0.3);
+        OpinionBatch discounted = batch.discountBy(trust);
+        OpinionBatch discountedEach = batch.discountBy(trusts);
+        OpinionBatch and = batch.and(trusts);
+        OpinionBatch or = batch.or(trusts);
+
+        for (int i = 0; i < opinions.size(); i++) {
+            SubjectiveOpinion o = opinions.get(i);
+            Assert.assertEquals(o.getExpectation(), expectations[i], 1e-9);
+            assertEqualOpinion(o.not(), not, i);
+            assertEqualOpinion(o.erode(0.3), eroded, i);
+            assertEqualOpinion(o.discountBy(trust), discounted, i);
+            assertEqualOpinion(o.discountBy(trusts.get(i)), discountedEach, i);
+            assertEqualOpinion(o.and(trusts.get(i)), and, i);
+            assertEqualOpinion(o.or(trusts.get(i)), or, i);
+        }
+
+        //in place
+        batch.not(batch);
+        for (int i = 0; i < opinions.size(); i++) {
+            assertEqualOpinion(opinions.get(i).not(), batch, i);
+        }
+    }
+
+    @Test
+    public void testBulkDeduction() {
+        l.info("Testing bulk deduction of OpinionBatch against SubjectiveOpinion..");
+
+        List<SubjectiveOpinion> opinions = randomOpinions(1000);
+        OpinionBatch batch = new OpinionBatch(opinions);
+
+        //cover both the case where the intermediate opinion is the result, and the cases that need adjustment
+        for (int j = 0; j < 20; j++) {
+            double baseRate = random.nextDouble();
+            Conditionals conditionals = new Conditionals(randomOpinion(random, baseRate), randomOpinion(random, baseRate));
+            OpinionBatch deduced = batch.deduce(conditionals);
+            for (int i = 0; i < opinions.size(); i++) {
+                SubjectiveOpinion expected = opinions.get(i).deduce(conditionals);
+                Assert.assertEquals(baseRate, expected.getAtomicity(), 1e-9);
+                assertEqualOpinion(expected, deduced, i);
+            }
+        }
+    }
+
+    @Test
+    public void testBulkFromProjection() {
+        l.info("Testing OpinionBatch.fromProjection..");
+
+        double[] projections = new double[1001];
+        for (int i = 0; i < projections.length; i++) {
+            projections[i] = i / 1000.0;
+        }
+        for (double baseRate : new double[]{0, 0.3, 0.5, 1}) {
+            OpinionBatch batch = OpinionBatch.fromProjection(projections, baseRate);
+            for (int i = 0; i < projections.length; i++) {
+                assertEqualOpinion(SubjectiveOpinion.fromProjection(projections[i], baseRate), batch, i);
+                Assert.assertEquals(projections[i], batch.getExpectation(i), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidValues() {
+        l.info("Testing that invalid values leave OpinionBatch unchanged..");
+
+        List<SubjectiveOpinion> opinions = randomOpinions(10);
+        OpinionBatch batch = new OpinionBatch(opinions);
+        try {
+            batch.set(0, 0.2, 0.3, 0.5, 1.5);
+            Assert.fail("Atomicity is out of range");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+        try {
+            batch.erode(2.0, batch);
+            Assert.fail("Erosion factor is out of range");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+        for (int i = 0; i < opinions.size(); i++) {
+            assertEqualOpinion(opinions.get(i), batch, i);
+        }
+    }
+}
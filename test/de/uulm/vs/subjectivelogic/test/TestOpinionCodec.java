@@ -0,0 +1,180 @@
+package de.uulm.vs.subjectivelogic.test;
+
+import no.uio.subjective_logic.opinion.DiscreteBayesian;
+import no.uio.subjective_logic.opinion.Opinion;
+import no.uio.subjective_logic.opinion.OpinionCodec;
+import no.uio.subjective_logic.opinion.PureBayesian;
+import no.uio.subjective_logic.opinion.SubjectiveOpinion;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static de.uulm.vs.subjectivelogic.test.OpinionAssert.assertEqualOpinion;
+import static de.uulm.vs.subjectivelogic.test.OpinionFixtures.randomOpinion;
+
+public class TestOpinionCodec {
+    private final Logger l = LogManager.getLogger(getClass());
+
+    private final Random random = new Random(53);
+
+    private Opinion[] randomOpinions(int count) {
+        Opinion[] opinions = new Opinion[count];
+        for (int i = 0; i < count; i++) {
+            double b = random.nextDouble();
+            double d = random.nextDouble() * (1 - b);
+            switch (random.nextInt(4)) {
+                case 0:
+                    opinions[i] = new PureBayesian(random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble());
+                    break;
+                case 1:
+                    double[] buckets = new double[2 + random.nextInt(5)];
+                    for (int j = 0; j < buckets.length; j++)
+                        buckets[j] = random.nextDouble() * 10;
+                    opinions[i] = new DiscreteBayesian(buckets, random.nextDouble());
+                    break;
+                case 2:
+                    //dogmatic, with a relative weight and an operator
+                    opinions[i] = new SubjectiveOpinion(b, 1 - b, 0.0, 0.5)
+                            .cumulativeFuse(new SubjectiveOpinion(d, 1 - d, 0.0, 0.5));
+                    break;
+                default:
+                    opinions[i] = randomOpinion(random, random.nextDouble());
+            }
+        }
+        return opinions;
+    }
+
+    private static void assertEqualDecoded(Opinion expected, Opinion actual, double delta) {
+        Assert.assertEquals(expected.getClass(), actual.getClass());
+        Assert.assertEquals(expected.getAtomicity(), actual.getAtomicity(), delta);
+        Assert.assertEquals(expected.getExpectation(), actual.getExpectation(), delta);
+        if (expected instanceof SubjectiveOpinion) {
+            SubjectiveOpinion x = (SubjectiveOpinion) expected, y = (SubjectiveOpinion) actual;
+            assertEqualOpinion(x, y, 2 * delta);
+            Assert.assertEquals(x.getRelativeWeight(), y.getRelativeWeight(), delta * x.getRelativeWeight());
+        } else if (expected instanceof PureBayesian) {
+            PureBayesian x = (PureBayesian) expected, y = (PureBayesian) actual;
+            Assert.assertEquals(x.getPositive(), y.getPositive(), delta * x.getPositive());
+            Assert.assertEquals(x.getNegative(), y.getNegative(), delta * x.getNegative());
+        } else {
+            double[] x = ((DiscreteBayesian) expected).values(), y = ((DiscreteBayesian) actual).values();
+            Assert.assertEquals(x.length, y.length);
+            for (int i = 0; i < x.length; i++)
+                Assert.assertEquals(x[i], y[i], delta * x[i]);
+        }
+    }
+
+    private void testFormat(OpinionCodec.Format format, double delta) {
+        Opinion[] opinions = randomOpinions(1000);
+        int size = OpinionCodec.encodedSize(opinions, 10, 900, format);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(size + 7);
+        buffer.position(3);
+        OpinionCodec.encode(opinions, 10, 900, format, buffer);
+        Assert.assertEquals(3 + size, buffer.position());
+
+        buffer.flip();
+        buffer.position(3);
+        Assert.assertEquals(900, OpinionCodec.count(buffer));
+        Opinion[] decoded = new Opinion[901];
+        Assert.assertEquals(900, OpinionCodec.decode(buffer, decoded, 1));
+        Assert.assertFalse(buffer.hasRemaining());
+        Assert.assertNull(decoded[0]);
+        for (int i = 0; i < 900; i++)
+            assertEqualDecoded(opinions[10 + i], decoded[1 + i], delta);
+    }
+
+    @Test
+    public void testFixed() {
+        l.info("Testing fixed-width encoding..");
+        testFormat(OpinionCodec.Format.FIXED, 0.0);
+    }
+
+    @Test
+    public void testQuantized() {
+        l.info("Testing quantized encoding..");
+        testFormat(OpinionCodec.Format.QUANTIZED, 1e-4);
+
+        Opinion[] opinions = {new SubjectiveOpinion(0.3, 0.2, 0.5, 0.5)};
+        Assert.assertEquals(5 + 14, OpinionCodec.encodedSize(opinions, 0, 1, OpinionCodec.Format.QUANTIZED));
+    }
+
+    @Test
+    public void testQuantizedNearDogmatic() {
+        l.info("Testing quantized encoding of near-dogmatic opinions..");
+
+        double[] uncertainties = {1e-5, 7e-6, 1e-7, 1e-12, 1e-30, 0.0, 1.0};
+        Opinion[] opinions = new Opinion[uncertainties.length];
+        for (int i = 0; i < uncertainties.length; i++)
+            opinions[i] = new SubjectiveOpinion(0.6 * (1 - uncertainties[i]), 0.4 * (1 - uncertainties[i]), uncertainties[i], 0.5);
+        ByteBuffer buffer = ByteBuffer.allocate(OpinionCodec.encodedSize(opinions, 0, opinions.length, OpinionCodec.Format.QUANTIZED));
+        OpinionCodec.encode(opinions, 0, opinions.length, OpinionCodec.Format.QUANTIZED, buffer);
+        buffer.flip();
+        Opinion[] decoded = new Opinion[opinions.length];
+        OpinionCodec.decode(buffer, decoded, 0);
+        for (int i = 0; i < uncertainties.length; i++) {
+            SubjectiveOpinion x = (SubjectiveOpinion) opinions[i], y = (SubjectiveOpinion) decoded[i];
+            assertEqualOpinion(x, y, 1e-4);
+            //the uncertainty is relatively exact, and a positive uncertainty stays positive
+            Assert.assertEquals(x.getUncertainty(), y.getUncertainty(), 1e-7 * x.getUncertainty());
+            Assert.assertEquals(x.getUncertainty() > 0.0, y.getUncertainty() > 0.0);
+            Assert.assertEquals(1.0, y.getBelief() + y.getDisbelief() + y.getUncertainty(), 1e-15);
+        }
+    }
+
+    @Test
+    public void testInvalid() {
+        l.info("Testing invalid buffers..");
+
+        Opinion[] opinions = randomOpinions(10);
+        ByteBuffer buffer = ByteBuffer.allocate(OpinionCodec.encodedSize(opinions, 0, 10, OpinionCodec.Format.FIXED) - 1);
+        try {
+            OpinionCodec.encode(opinions, 0, 10, OpinionCodec.Format.FIXED, buffer);
+            Assert.fail("Buffer is too small");
+        } catch (BufferOverflowException e) {
+            Assert.assertEquals(0, buffer.position());
+        }
+
+        buffer = ByteBuffer.allocate(100);
+        buffer.put((byte) 99);
+        buffer.flip();
+        try {
+            OpinionCodec.decode(buffer, new Opinion[1], 0);
+            Assert.fail("Version is not supported");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        l.info("Testing serialization in the compact form..");
+
+        Opinion[] opinions = randomOpinions(100);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(opinions);
+        }
+        Opinion[] copies;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copies = (Opinion[]) in.readObject();
+        }
+        for (int i = 0; i < opinions.length; i++)
+            assertEqualDecoded(opinions[i], copies[i], 0.0);
+
+        //a single opinion is much smaller than with default serialization of all fields and the listener support
+        bytes.reset();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(new SubjectiveOpinion(0.3, 0.2, 0.5, 0.5));
+        }
+        Assert.assertTrue(bytes.size() < 150);
+    }
+}
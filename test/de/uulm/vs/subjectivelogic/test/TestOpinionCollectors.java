@@ -0,0 +1,85 @@
+package de.uulm.vs.subjectivelogic.test;
+
+import no.uio.subjective_logic.opinion.OpinionArithmeticException;
+import no.uio.subjective_logic.opinion.OpinionBase;
+import no.uio.subjective_logic.opinion.OpinionCollectors;
+import no.uio.subjective_logic.opinion.SubjectiveOpinion;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static de.uulm.vs.subjectivelogic.test.OpinionAssert.assertEqualOpinion;
+import static de.uulm.vs.subjectivelogic.test.OpinionFixtures.randomOpinion;
+
+public class TestOpinionCollectors extends TestFusionSetup {
+    private final Logger l = LogManager.getLogger(getClass());
+
+    private List<SubjectiveOpinion> randomOpinions(int size, boolean dogmatic) {
+        Random random = new Random(size);
+        List<SubjectiveOpinion> opinions = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            opinions.add(randomOpinion(random, 0.5));
+        }
+        if (dogmatic) {
+            opinions.add(new SubjectiveOpinion(soPD));
+            opinions.add(new SubjectiveOpinion(soND));
+        }
+        return opinions;
+    }
+
+    @Test
+    public void testSequentialCollectors() {
+        l.info("Testing collectors against the collection-based fusion operators..");
+
+        for (List<SubjectiveOpinion> opinions : Arrays.asList(triSourceExample, soPDsoNDsoP, soPPsoPsoN, soPDsoPDsoND)) {
+            Assert.assertEquals(SubjectiveOpinion.cumulativeCollectionFuse(opinions), opinions.stream().collect(OpinionCollectors.cumulative()));
+            Assert.assertEquals(SubjectiveOpinion.weightedCollectionFuse(opinions), opinions.stream().collect(OpinionCollectors.weighted()));
+            Assert.assertEquals(SubjectiveOpinion.ccCollectionFuse(opinions), opinions.stream().collect(OpinionCollectors.consensusCompromise()));
+            Assert.assertEquals(SubjectiveOpinion.minimumCollectionFuse(opinions), opinions.stream().collect(OpinionCollectors.minimum()));
+            Assert.assertEquals(SubjectiveOpinion.majorityCollectionFuse(opinions), opinions.stream().collect(OpinionCollectors.majority()));
+        }
+    }
+
+    @Test
+    public void testParallelCollectors() {
+        l.info("Testing collectors on parallel streams..");
+
+        for (boolean dogmatic : new boolean[]{false, true}) {
+            List<SubjectiveOpinion> opinions = randomOpinions(10000, dogmatic);
+
+            assertEqualOpinion(SubjectiveOpinion.cumulativeCollectionFuse(opinions), opinions.parallelStream().collect(OpinionCollectors.cumulative()));
+            assertEqualOpinion(SubjectiveOpinion.weightedCollectionFuse(opinions), opinions.parallelStream().collect(OpinionCollectors.weighted()));
+            assertEqualOpinion(SubjectiveOpinion.ccCollectionFuse(opinions), opinions.parallelStream().collect(OpinionCollectors.consensusCompromise()));
+            Assert.assertEquals(SubjectiveOpinion.minimumCollectionFuse(opinions), opinions.parallelStream().collect(OpinionCollectors.minimum()));
+            Assert.assertEquals(SubjectiveOpinion.majorityCollectionFuse(opinions), opinions.parallelStream().collect(OpinionCollectors.majority()));
+        }
+    }
+
+    @Test
+    public void testEmptyAndSingle() {
+        l.info("Testing collectors on empty and singleton streams..");
+
+        Assert.assertEquals(soP, Stream.of(soP).collect(OpinionCollectors.cumulative()));
+        Assert.assertEquals(soP, Stream.of(soP).collect(OpinionCollectors.consensusCompromise()));
+
+        try {
+            Stream.<SubjectiveOpinion>empty().collect(OpinionCollectors.weighted());
+            Assert.fail("Fused an empty stream");
+        } catch (OpinionArithmeticException e) {
+            l.info("Correct exception for empty stream");
+        }
+        try {
+            Stream.of(soP, new SubjectiveOpinion(0.1, 0.1, 0.8, 0.2)).collect(OpinionCollectors.consensusCompromise());
+            Assert.fail("CC fused opinions with different base rates");
+        } catch (OpinionArithmeticException e) {
+            l.info("Correct exception for different base rates");
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package de.uulm.vs.subjectivelogic.test;
+
+import no.uio.subjective_logic.opinion.OpinionNetwork;
+import no.uio.subjective_logic.opinion.OpinionOperator;
+import no.uio.subjective_logic.opinion.SubjectiveOpinion;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static de.uulm.vs.subjectivelogic.test.OpinionAssert.assertSameOpinion;
+
+public class TestOpinionNetwork {
+    private final Logger l = LogManager.getLogger(getClass());
+
+    @Test
+    public void testEvaluation() {
+        l.info("Testing evaluation of an opinion network against the operators of SubjectiveOpinion..");
+
+        SubjectiveOpinion trust1 = new SubjectiveOpinion(0.7, 0.1, 0.2, 0.5);
+        SubjectiveOpinion trust2 = new SubjectiveOpinion(0.4, 0.3, 0.3, 0.5);
+        SubjectiveOpinion detector1 = new SubjectiveOpinion(0.6, 0.2, 0.2, 0.3);
+        SubjectiveOpinion detector2 = new SubjectiveOpinion(0.5, 0.1, 0.4, 0.3);
+        SubjectiveOpinion detector3 = new SubjectiveOpinion(0.2, 0.5, 0.3, 0.6);
+        SubjectiveOpinion yTx = new SubjectiveOpinion(0.8, 0.1, 0.1, 0.4);
+        SubjectiveOpinion yFx = new SubjectiveOpinion(0.1, 0.7, 0.2, 0.4);
+
+        OpinionNetwork network = new OpinionNetwork();
+        OpinionNetwork.Node t1 = network.input(trust1), t2 = network.input(trust2);
+        OpinionNetwork.Node d1 = network.input(detector1), d2 = network.input(detector2), d3 = network.input(detector3);
+        OpinionNetwork.Node positive = network.input(yTx), negative = network.input(yFx);
+        OpinionNetwork.Node fused = network.fuse(network.discount(t1, d1), network.discount(t2, d2), network.discount(t1, d3));
+        OpinionNetwork.Node deduced = network.deduce(fused, positive, negative);
+        OpinionNetwork.Node and = network.and(deduced, network.not(d3), fused);
+        OpinionNetwork.Node or = network.or(and, deduced);
+        OpinionNetwork.Node sum = network.apply(OpinionOperator.Add, network.apply(OpinionOperator.Subtract, d3, d1), d1);
+
+        OpinionNetwork.Evaluation evaluation = network.evaluate();
+
+        SubjectiveOpinion expectedFused = detector1.discountBy(trust1).cumulativeFuse(detector2.discountBy(trust2))
+                .cumulativeFuse(detector3.discountBy(trust1));
+        SubjectiveOpinion expectedDeduced = expectedFused.deduce(yTx, yFx);
+        SubjectiveOpinion expectedAnd = expectedDeduced.and(detector3.not()).and(expectedFused);
+        assertSameOpinion(expectedFused, evaluation.get(fused));
+        assertSameOpinion(expectedDeduced, evaluation.get(deduced));
+        assertSameOpinion(expectedAnd, evaluation.get(and));
+        assertSameOpinion(expectedAnd.or(expectedDeduced), evaluation.get(or));
+        assertSameOpinion(detector3.subtract(detector1).add(detector1), evaluation.get(sum));
+        Assert.assertEquals(OpinionOperator.Fuse, fused.getOperator());
+        Assert.assertEquals(Arrays.asList(fused, positive, negative), deduced.getArguments());
+    }
+
+    @Test
+    public void testSnapshot() {
+        l.info("Testing that evaluations do not change with their inputs..");
+
+        SubjectiveOpinion trust = new SubjectiveOpinion(0.7, 0.1, 0.2, 0.5);
+        SubjectiveOpinion opinion = new SubjectiveOpinion(0.6, 0.2, 0.2, 0.3);
+        OpinionNetwork network = new OpinionNetwork();
+        OpinionNetwork.Node discounted = network.discount(network.input(trust), network.input(opinion));
+
+        OpinionNetwork.Evaluation before = network.evaluate();
+        SubjectiveOpinion expected = opinion.discountBy(trust);
+        opinion.set(new SubjectiveOpinion(0.1, 0.8, 0.1, 0.3));
+        OpinionNetwork.Evaluation after = network.evaluate();
+
+        assertSameOpinion(expected, before.get(discounted));
+        assertSameOpinion(opinion.discountBy(trust), after.get(discounted));
+    }
+
+    @Test
+    public void testPartialEvaluation() {
+        l.info("Testing that only required nodes are evaluated..");
+
+        OpinionNetwork network = new OpinionNetwork();
+        OpinionNetwork.Node x = network.input(new SubjectiveOpinion(0.6, 0.2, 0.2, 0.3));
+        OpinionNetwork.Node y = network.input(new SubjectiveOpinion(0.3, 0.3, 0.4, 0.3));
+        OpinionNetwork.Node z = network.input(new SubjectiveOpinion(0.2, 0.2, 0.6, 0.3));
+        OpinionNetwork.Node xy = network.and(x, y);
+        OpinionNetwork.Node xz = network.or(x, z);
+
+        OpinionNetwork.Evaluation evaluation = network.evaluate(xy);
+        Assert.assertTrue(evaluation.isEvaluated(xy));
+        Assert.assertTrue(evaluation.isEvaluated(x));
+        Assert.assertFalse(evaluation.isEvaluated(z));
+        Assert.assertFalse(evaluation.isEvaluated(xz));
+        try {
+            evaluation.get(xz);
+            Assert.fail("Only required nodes must be evaluated");
+        } catch (IllegalStateException e) {
+            //expected
+        }
+    }
+
+    @Test
+    public void testInvalidNodes() {
+        l.info("Testing that invalid nodes are rejected..");
+
+        OpinionNetwork network = new OpinionNetwork();
+        OpinionNetwork.Node x = network.input(new SubjectiveOpinion(0.6, 0.2, 0.2, 0.3));
+        OpinionNetwork.Node foreign = new OpinionNetwork().input(new SubjectiveOpinion(0.6, 0.2, 0.2, 0.3));
+
+        for (Runnable r : Arrays.<Runnable>asList(
+                () -> network.apply(OpinionOperator.Deduce, x, x),
+                () -> network.apply(OpinionOperator.SimpleAnd, x, x),
+                () -> network.and(x, foreign))) {
+            try {
+                r.run();
+                Assert.fail("Invalid node must be rejected");
+            } catch (IllegalArgumentException e) {
+                //expected
+            }
+        }
+        Assert.assertEquals(1, network.size());
+    }
+}
@@ -0,0 +1,114 @@
+package de.uulm.vs.subjectivelogic.test;
+
+import no.uio.subjective_logic.opinion.OpinionNetwork;
+import no.uio.subjective_logic.opinion.OpinionNetworkRewriter;
+import no.uio.subjective_logic.opinion.OpinionOperator;
+import no.uio.subjective_logic.opinion.SubjectiveOpinion;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static de.uulm.vs.subjectivelogic.test.OpinionAssert.assertEqualOpinion;
+import static de.uulm.vs.subjectivelogic.test.OpinionFixtures.randomOpinion;
+
+public class TestOpinionNetworkRewriter {
+    private final Logger l = LogManager.getLogger(getClass());
+
+    private final Random random = new Random(23);
+
+    @Test
+    public void testRewrite() {
+        l.info("Testing flattening, canonicalization and deduplication..");
+
+        SubjectiveOpinion a = new SubjectiveOpinion(0.6, 0.2, 0.2, 0.3);
+        SubjectiveOpinion b = new SubjectiveOpinion(0.3, 0.3, 0.4, 0.3);
+        SubjectiveOpinion c = new SubjectiveOpinion(0.2, 0.2, 0.6, 0.3);
+        SubjectiveOpinion x = new SubjectiveOpinion(0.5, 0.4, 0.1, 0.6);
+
+        OpinionNetwork network = new OpinionNetwork();
+        OpinionNetwork.Node f1 = network.fuse(network.fuse(network.input(a), network.input(b)), network.input(c));
+        OpinionNetwork.Node f2 = network.fuse(network.input(a), network.fuse(network.input(b), network.input(c)));
+        OpinionNetwork.Node nx = network.input(x);
+        OpinionNetwork.Node output = network.or(network.and(f1, nx), network.and(nx, f2));
+        network.not(output);
+
+        OpinionNetworkRewriter.Rewrite rewrite = OpinionNetworkRewriter.rewrite(network, output);
+        OpinionNetwork rewritten = rewrite.getNetwork();
+        //a, b, c, x, FUSE(a,b,c), AND and OR
+        Assert.assertEquals(7, rewritten.size());
+        OpinionNetwork.Node or = rewrite.get(output);
+        Assert.assertEquals(OpinionOperator.Or, or.getOperator());
+        OpinionNetwork.Node and = or.getArguments().get(0);
+        Assert.assertEquals(Arrays.asList(and, and), or.getArguments());
+        Assert.assertEquals(3, and.getArguments().get(0).getArguments().size());
+
+        assertEqualOpinion(network.evaluate().get(output), rewritten.evaluate().get(or));
+    }
+
+    @Test
+    public void testSharedChain() {
+        l.info("Testing that shared nodes are not flattened..");
+
+        OpinionNetwork network = new OpinionNetwork();
+        OpinionNetwork.Node inner = network.and(network.input(new SubjectiveOpinion(0.6, 0.2, 0.2, 0.3)),
+                network.input(new SubjectiveOpinion(0.3, 0.3, 0.4, 0.3)));
+        OpinionNetwork.Node outer = network.and(inner, network.input(new SubjectiveOpinion(0.2, 0.2, 0.6, 0.3)));
+        OpinionNetwork.Node not = network.not(inner);
+
+        OpinionNetworkRewriter.Rewrite rewrite = OpinionNetworkRewriter.rewrite(network, outer, not);
+        Assert.assertEquals(network.size(), rewrite.getNetwork().size());
+        Assert.assertEquals(2, rewrite.get(outer).getArguments().size());
+
+        //without the NOT, the inner AND is only used once
+        rewrite = OpinionNetworkRewriter.rewrite(network, outer);
+        Assert.assertEquals(4, rewrite.getNetwork().size());
+        Assert.assertEquals(3, rewrite.get(outer).getArguments().size());
+    }
+
+    @Test
+    public void testRandomNetworks() {
+        l.info("Testing that rewritten random networks compute the same opinions..");
+
+        for (int n = 0; n < 50; n++) {
+            OpinionNetwork network = new OpinionNetwork();
+            List<SubjectiveOpinion> opinions = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                opinions.add(randomOpinion(random, 0.5));
+            }
+            List<OpinionNetwork.Node> nodes = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                OpinionNetwork.Node x = i < 10 ? network.input(opinions.get(random.nextInt(opinions.size())))
+                        : nodes.get(random.nextInt(nodes.size()));
+                OpinionNetwork.Node y = nodes.isEmpty() ? x : nodes.get(random.nextInt(nodes.size()));
+                switch (random.nextInt(4)) {
+                    case 0:
+                        nodes.add(network.and(x, y));
+                        break;
+                    case 1:
+                        nodes.add(network.or(x, y));
+                        break;
+                    case 2:
+                        nodes.add(network.fuse(x, y));
+                        break;
+                    default:
+                        nodes.add(i < 10 ? x : network.discount(y, x));
+                }
+            }
+            OpinionNetwork.Node[] outputs = nodes.subList(30, 40).toArray(new OpinionNetwork.Node[0]);
+            OpinionNetworkRewriter.Rewrite rewrite = OpinionNetworkRewriter.rewrite(network, outputs);
+            Assert.assertTrue(rewrite.getNetwork().size() <= network.size());
+
+            OpinionNetwork.Evaluation expected = network.evaluate();
+            OpinionNetwork.Evaluation actual = rewrite.getNetwork().evaluate();
+            for (OpinionNetwork.Node output : outputs) {
+                assertEqualOpinion(expected.get(output), actual.get(rewrite.get(output)));
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package de.uulm.vs.subjectivelogic.test;
+
+import no.uio.subjective_logic.opinion.OpinionPathSolver;
+import no.uio.subjective_logic.opinion.OpinionSemiring;
+import no.uio.subjective_logic.opinion.OpinionSemirings;
+import no.uio.subjective_logic.opinion.SubjectiveOpinion;
+import no.uio.subjective_logic.opinion.TrustGraph;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static de.uulm.vs.subjectivelogic.test.OpinionAssert.assertEqualOpinion;
+import static de.uulm.vs.subjectivelogic.test.OpinionAssert.assertSameOpinion;
+import static de.uulm.vs.subjectivelogic.test.OpinionFixtures.randomOpinion;
+
+public class TestOpinionPathSolver {
+    private final Logger l = LogManager.getLogger(getClass());
+
+    private final Random random = new Random(5);
+
+    @Test
+    public void testSemirings() {
+        l.info("Testing the fusion semirings..");
+
+        SubjectiveOpinion x = new SubjectiveOpinion(0.6, 0.2, 0.2, 0.5);
+        SubjectiveOpinion y = new SubjectiveOpinion(0.3, 0.4, 0.3, 0.5);
+        for (OpinionSemiring semiring : Arrays.asList(OpinionSemirings.cumulative(), OpinionSemirings.weighted(),
+                OpinionSemirings.consensusCompromise(), OpinionSemirings.minimum())) {
+            assertEqualOpinion(y.discountBy(x), semiring.extend(x, y));
+            assertEqualOpinion(x, semiring.combine(Arrays.asList(x)));
+            if (semiring.isIdempotent())
+                assertEqualOpinion(x, semiring.combine(x, x));
+        }
+        assertEqualOpinion(SubjectiveOpinion.cumulativeCollectionFuse(Arrays.asList(x, y)),
+                OpinionSemirings.cumulative().combine(x, y));
+        Assert.assertSame(y, OpinionSemirings.minimum().combine(x, y));
+    }
+
+    @Test
+    public void testSingleSource() {
+        l.info("Testing single-source and all-pairs trust against the trust graph..");
+
+        int n = 60;
+        OpinionPathSolver solver = new OpinionPathSolver(n, OpinionSemirings.cumulative());
+        TrustGraph<Integer> graph = new TrustGraph<>();
+        for (int e = 0; e < 4 * n; e++) {
+            int from = random.nextInt(n);
+            int to = random.nextInt(n);
+            if (from == to)
+                continue;
+            SubjectiveOpinion trust = randomOpinion(random, 0.5);
+            solver.setTrust(from, to, trust);
+            graph.setTrust(from, to, trust);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            SubjectiveOpinion[][] allPairs = solver.allPairs(pool);
+            for (int source = 0; source < n; source++) {
+                Map<Integer, SubjectiveOpinion> expected = graph.deriveTrust(source);
+                SubjectiveOpinion[] sequential = solver.singleSource(source);
+                SubjectiveOpinion[] parallel = solver.singleSource(source, pool);
+                for (int v = 0; v < n; v++) {
+                    SubjectiveOpinion e = expected.get(v);
+                    if (e == null) {
+                        Assert.assertNull(sequential[v]);
+                        Assert.assertNull(parallel[v]);
+                        Assert.assertNull(allPairs[source][v]);
+                    } else {
+                        assertEqualOpinion(e, sequential[v]);
+                        assertEqualOpinion(e, parallel[v]);
+                        assertEqualOpinion(e, allPairs[source][v]);
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelism() {
+        l.info("Testing that the results do not depend on the parallelism..");
+
+        int n = 80;
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (OpinionSemiring semiring : Arrays.asList(OpinionSemirings.cumulative(), OpinionSemirings.weighted(),
+                    OpinionSemirings.consensusCompromise(), OpinionSemirings.minimum())) {
+                OpinionPathSolver solver = new OpinionPathSolver(n, semiring);
+                for (int e = 0; e < 4 * n; e++) {
+                    int from = random.nextInt(n);
+                    int to = random.nextInt(n);
+                    if (from != to)
+                        solver.setTrust(from, to, randomOpinion(random, 0.5));
+                }
+                SubjectiveOpinion[][] allPairs = solver.allPairs(pool);
+                for (int source = 0; source < n; source++) {
+                    SubjectiveOpinion[] sequential = solver.singleSource(source);
+                    SubjectiveOpinion[] parallel = solver.singleSource(source, pool);
+                    for (int v = 0; v < n; v++) {
+                        if (sequential[v] == null) {
+                            Assert.assertNull(parallel[v]);
+                            Assert.assertNull(allPairs[source][v]);
+                        } else {
+                            assertSameOpinion(sequential[v], parallel[v]);
+                            assertSameOpinion(sequential[v], allPairs[source][v]);
+                        }
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testCurrentThread() {
+        l.info("Testing a long chain without a pool..");
+
+        //counts the threads that combine paths
+        Thread current = Thread.currentThread();
+        OpinionSemiring cumulative = OpinionSemirings.cumulative();
+        int[] foreign = new int[1];
+        OpinionSemiring semiring = new OpinionSemiring() {
+            @Override
+            public SubjectiveOpinion extend(SubjectiveOpinion trust, SubjectiveOpinion opinion) {
+                return cumulative.extend(trust, opinion);
+            }
+
+            @Override
+            public SubjectiveOpinion combine(List<SubjectiveOpinion> opinions) {
+                if (Thread.currentThread() != current)
+                    foreign[0]++;
+                return cumulative.combine(opinions);
+            }
+
+            @Override
+            public boolean isIdempotent() {
+                return false;
+            }
+        };
+
+        //a chain, with a wide level of 2000 entities in its middle
+        int n = 20000;
+        OpinionPathSolver solver = new OpinionPathSolver(n, semiring);
+        SubjectiveOpinion trust = new SubjectiveOpinion(0.9, 0.0, 0.1, 0.5);
+        for (int v = 0; v + 1 < n; v++)
+            solver.setTrust(v, v + 1, trust);
+        for (int v = 2; v < 2002; v++)
+            solver.setTrust(1, v, trust);
+        SubjectiveOpinion[] result = solver.singleSource(0, null);
+        Assert.assertEquals(0, foreign[0]);
+        Assert.assertNull(result[0]);
+        assertSameOpinion(trust, result[1]);
+        assertEqualOpinion(trust.discountBy(trust), result[1500]);
+        Assert.assertNotNull(result[n - 1]);
+    }
+}
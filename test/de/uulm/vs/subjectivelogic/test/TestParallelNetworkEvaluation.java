@@ -0,0 +1,90 @@
+package de.uulm.vs.subjectivelogic.test;
+
+import no.uio.subjective_logic.opinion.OpinionArithmeticException;
+import no.uio.subjective_logic.opinion.OpinionNetwork;
+import no.uio.subjective_logic.opinion.SubjectiveOpinion;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static de.uulm.vs.subjectivelogic.test.OpinionAssert.assertSameOpinion;
+import static de.uulm.vs.subjectivelogic.test.OpinionFixtures.randomOpinion;
+
+public class TestParallelNetworkEvaluation {
+    private final Logger l = LogManager.getLogger(getClass());
+
+    private final Random random = new Random(17);
+
+    /**
+     * @return a network with many independent discount-then-fuse branches, that are combined by AND, OR and deduction.
+     */
+    private OpinionNetwork randomNetwork(List<OpinionNetwork.Node> outputs) {
+        OpinionNetwork network = new OpinionNetwork();
+        OpinionNetwork.Node yTx = network.input(new SubjectiveOpinion(0.8, 0.1, 0.1, 0.4));
+        OpinionNetwork.Node yFx = network.input(new SubjectiveOpinion(0.1, 0.7, 0.2, 0.4));
+        List<OpinionNetwork.Node> trust = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            trust.add(network.input(randomOpinion(random, 0.5)));
+        }
+        List<OpinionNetwork.Node> rules = new ArrayList<>();
+        for (int rule = 0; rule < 20; rule++) {
+            OpinionNetwork.Node[] branches = new OpinionNetwork.Node[30];
+            for (int i = 0; i < branches.length; i++) {
+                branches[i] = network.discount(trust.get(random.nextInt(trust.size())), network.input(randomOpinion(random, 0.3)));
+            }
+            OpinionNetwork.Node fused = network.fuse(branches);
+            rules.add(network.deduce(fused, yTx, yFx));
+            rules.add(network.not(fused));
+        }
+        outputs.add(network.and(rules.subList(0, 10).toArray(new OpinionNetwork.Node[0])));
+        outputs.add(network.or(rules.subList(10, rules.size()).toArray(new OpinionNetwork.Node[0])));
+        return network;
+    }
+
+    @Test
+    public void testParallelEvaluation() {
+        l.info("Testing that parallel evaluation gives the same results as sequential evaluation..");
+
+        List<OpinionNetwork.Node> outputs = new ArrayList<>();
+        OpinionNetwork network = randomNetwork(outputs);
+        OpinionNetwork.Evaluation expected = network.evaluate();
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int threshold : new int[] { 1, 8, 64, Integer.MAX_VALUE / 4 }) {
+                OpinionNetwork.Evaluation actual = network.evaluateParallel(pool, threshold);
+                for (OpinionNetwork.Node node : network.getNodes()) {
+                    SubjectiveOpinion e = expected.get(node), a = actual.get(node);
+                    assertSameOpinion(e, a);
+                }
+            }
+
+            OpinionNetwork.Evaluation partial = network.evaluateParallel(pool, 4, outputs.get(0));
+            Assert.assertEquals(expected.get(outputs.get(0)), partial.get(outputs.get(0)));
+            Assert.assertFalse(partial.isEvaluated(outputs.get(1)));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(expected = OpinionArithmeticException.class)
+    public void testFailure() {
+        l.info("Testing that failures are thrown by parallel evaluation..");
+
+        OpinionNetwork network = new OpinionNetwork();
+        OpinionNetwork.Node x = network.input(new SubjectiveOpinion(0.6, 0.2, 0.2, 0.3));
+        //conditionals with different atomicities cannot be used for deduction
+        OpinionNetwork.Node yTx = network.input(new SubjectiveOpinion(0.8, 0.1, 0.1, 0.4));
+        OpinionNetwork.Node yFx = network.input(new SubjectiveOpinion(0.1, 0.7, 0.2, 0.6));
+        for (int i = 0; i < 16; i++) {
+            network.deduce(x, yTx, yFx);
+        }
+        network.evaluateParallel(ForkJoinPool.commonPool(), 1);
+    }
+}
@@ -0,0 +1,81 @@
+package de.uulm.vs.subjectivelogic.test;
+
+import no.uio.subjective_logic.opinion.BinomialOpinion;
+import no.uio.subjective_logic.opinion.Conditionals;
+import no.uio.subjective_logic.opinion.OpinionArithmeticException;
+import no.uio.subjective_logic.opinion.OpinionBatch;
+import no.uio.subjective_logic.opinion.PreparedConditionals;
+import no.uio.subjective_logic.opinion.SubjectiveOpinion;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static de.uulm.vs.subjectivelogic.test.OpinionAssert.assertSameOpinion;
+import static de.uulm.vs.subjectivelogic.test.OpinionFixtures.randomOpinion;
+
+public class TestPreparedConditionals {
+    private final Logger l = LogManager.getLogger(getClass());
+
+    private final Random random = new Random(11);
+
+    private double randomAtomicity() {
+        int i = random.nextInt(10);
+        return i == 0 ? 0 : i == 1 ? 1 : random.nextDouble();
+    }
+
+    @Test
+    public void testDeduction() {
+        l.info("Testing deduction with prepared conditionals against SubjectiveOpinion.deduce..");
+
+        for (int j = 0; j < 500; j++) {
+            double baseRate = randomAtomicity();
+            Conditionals conditionals = new Conditionals(randomOpinion(random, baseRate, 1.0 / 8, 1.0 / 8),
+                    randomOpinion(random, baseRate, 1.0 / 8, 1.0 / 8));
+            PreparedConditionals prepared = conditionals.prepare();
+            Assert.assertEquals(baseRate, prepared.getAtomicity(), 1e-10);
+
+            List<SubjectiveOpinion> opinions = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                opinions.add(randomOpinion(random, randomAtomicity(), 1.0 / 8, 1.0 / 8));
+            }
+            OpinionBatch batch = new OpinionBatch(opinions).deduce(prepared);
+
+            for (int i = 0; i < opinions.size(); i++) {
+                SubjectiveOpinion x = opinions.get(i);
+                SubjectiveOpinion expected = x.deduce(conditionals);
+                assertSameOpinion(expected, x.deduce(prepared));
+                //BinomialOpinion and OpinionBatch normalize the values of x again, so their results are only equal up to rounding
+                Assert.assertEquals(expected, BinomialOpinion.of(x).deduce(prepared).toSubjectiveOpinion());
+                Assert.assertEquals(expected.getBelief(), batch.getBelief(i), SubjectiveOpinion.TOLERANCE);
+                Assert.assertEquals(expected.getDisbelief(), batch.getDisbelief(i), SubjectiveOpinion.TOLERANCE);
+                Assert.assertEquals(expected.getUncertainty(), batch.getUncertainty(i), SubjectiveOpinion.TOLERANCE);
+            }
+        }
+    }
+
+    @Test
+    public void testSnapshot() {
+        l.info("Testing that prepared conditionals do not change with the conditionals..");
+
+        SubjectiveOpinion positive = new SubjectiveOpinion(0.8, 0.1, 0.1, 0.3);
+        Conditionals conditionals = new Conditionals(positive, new SubjectiveOpinion(0.1, 0.7, 0.2, 0.3));
+        PreparedConditionals prepared = conditionals.prepare();
+        SubjectiveOpinion x = new SubjectiveOpinion(0.6, 0.2, 0.2, 0.5);
+        SubjectiveOpinion before = x.deduce(conditionals);
+
+        positive.set(new SubjectiveOpinion(0.2, 0.2, 0.6, 0.3));
+
+        assertSameOpinion(before, x.deduce(prepared));
+        Assert.assertNotEquals(before, x.deduce(conditionals));
+    }
+
+    @Test(expected = OpinionArithmeticException.class)
+    public void testDifferentAtomicities() {
+        new PreparedConditionals(new SubjectiveOpinion(0.5, 0.5, 0, 0.2), new SubjectiveOpinion(0.5, 0.5, 0, 0.3));
+    }
+}
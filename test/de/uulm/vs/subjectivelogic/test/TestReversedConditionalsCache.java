@@ -0,0 +1,168 @@
+package de.uulm.vs.subjectivelogic.test;
+
+import no.uio.subjective_logic.opinion.Conditionals;
+import no.uio.subjective_logic.opinion.OpinionArithmeticException;
+import no.uio.subjective_logic.opinion.PreparedConditionals;
+import no.uio.subjective_logic.opinion.ReversedConditionalsCache;
+import no.uio.subjective_logic.opinion.SubjectiveOpinion;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static de.uulm.vs.subjectivelogic.test.OpinionAssert.assertSameOpinion;
+import static de.uulm.vs.subjectivelogic.test.OpinionFixtures.randomOpinion;
+
+public class TestReversedConditionalsCache {
+    private final Logger l = LogManager.getLogger(getClass());
+
+    private final Random random = new Random(5);
+
+    private Conditionals randomConditionals() {
+        double baseRate = random.nextDouble();
+        return new Conditionals(randomOpinion(random, baseRate), randomOpinion(random, baseRate));
+    }
+
+    private static boolean canReverse(Conditionals conditionals, double baseRate) {
+        //the reversed conditionals may not have the same atomicities after rounding, so they cannot always be used for deduction
+        try {
+            SubjectiveOpinion.reverseConditionals(conditionals, baseRate).prepare();
+            return true;
+        } catch (OpinionArithmeticException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return random conditionals that can be reversed with the base rates 0.3 and 0.7.
+     */
+    private Conditionals reversibleConditionals() {
+        Conditionals conditionals;
+        do {
+            conditionals = randomConditionals();
+        } while (!canReverse(conditionals, 0.3) || !canReverse(conditionals, 0.7));
+        return conditionals;
+    }
+
+    private static PreparedConditionals get(ReversedConditionalsCache cache, Conditionals conditionals, double baseRate) {
+        return cache.get(conditionals.getPositive().toSubjectiveOpinion(), conditionals.getNegative().toSubjectiveOpinion(), baseRate);
+    }
+
+    @Test
+    public void testAbduction() {
+        l.info("Testing abduction with cached reversed conditionals..");
+
+        ReversedConditionalsCache cache = new ReversedConditionalsCache(100);
+        List<Conditionals> conditionals = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            conditionals.add(reversibleConditionals());
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            Conditionals c = conditionals.get(i % conditionals.size());
+            double baseRate = i % 20 < 10 ? 0.3 : 0.7;
+            SubjectiveOpinion y = new SubjectiveOpinion(random.nextDouble(), random.nextDouble(), random.nextDouble(), c.getPositive().getAtomicity());
+
+            SubjectiveOpinion expected;
+            try {
+                expected = y.abduce(c, baseRate);
+            } catch (RuntimeException e) {
+                //deduction with the reversed conditionals is not possible for every opinion
+                try {
+                    y.abduce(c, baseRate, cache);
+                    Assert.fail("Abduction with the cache must fail as abduction without it");
+                } catch (RuntimeException e2) {
+                    Assert.assertEquals(e.getClass(), e2.getClass());
+                }
+                continue;
+            }
+            SubjectiveOpinion actual = y.abduce(c, baseRate, cache);
+            assertSameOpinion(expected, actual);
+        }
+
+        Assert.assertEquals(20, cache.getMissCount());
+        Assert.assertEquals(980, cache.getHitCount());
+        Assert.assertEquals(0.98, cache.getHitRate(), 1e-10);
+        Assert.assertEquals(20, cache.size());
+        Assert.assertEquals(0, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testEviction() throws InterruptedException {
+        l.info("Testing eviction of cached reversed conditionals..");
+
+        ReversedConditionalsCache cache = new ReversedConditionalsCache(2);
+        Conditionals a = reversibleConditionals(), b = reversibleConditionals(), c = reversibleConditionals();
+
+        PreparedConditionals reversed = get(cache, a, 0.3);
+        get(cache, b, 0.3);
+        Assert.assertSame(reversed, get(cache, a, 0.3));
+        //b is the least recently used entry
+        get(cache, c, 0.3);
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(1, cache.getEvictionCount());
+        Assert.assertSame(reversed, get(cache, a, 0.3));
+        Assert.assertEquals(2, cache.getHitCount());
+        get(cache, b, 0.3);
+        Assert.assertEquals(4, cache.getMissCount());
+
+        ReversedConditionalsCache expiring = new ReversedConditionalsCache(10, 20, TimeUnit.MILLISECONDS, 0);
+        get(expiring, a, 0.3);
+        get(expiring, a, 0.3);
+        Thread.sleep(50);
+        get(expiring, a, 0.3);
+        Assert.assertEquals(1, expiring.getHitCount());
+        Assert.assertEquals(2, expiring.getMissCount());
+        Assert.assertEquals(1, expiring.getEvictionCount());
+    }
+
+    @Test
+    public void testFailure() {
+        l.info("Testing that failed reversals are not cached..");
+
+        ReversedConditionalsCache cache = new ReversedConditionalsCache(10);
+        Conditionals conditionals;
+        do {
+            conditionals = randomConditionals();
+        } while (canReverse(conditionals, 0.3));
+        SubjectiveOpinion y = new SubjectiveOpinion(conditionals.getPositive().getAtomicity());
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                y.abduce(conditionals, 0.3, cache);
+                Assert.fail("Abduction with the cache must fail as abduction without it");
+            } catch (OpinionArithmeticException e) {
+                //expected
+            }
+        }
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testQuantization() {
+        l.info("Testing quantized lookups of reversed conditionals..");
+
+        ReversedConditionalsCache exact = new ReversedConditionalsCache(10);
+        ReversedConditionalsCache quantized = new ReversedConditionalsCache(10, 0, TimeUnit.SECONDS, 1e-3);
+        SubjectiveOpinion y = new SubjectiveOpinion(0.5, 0.2, 0.3, 0.4);
+
+        Conditionals c1 = new Conditionals(new SubjectiveOpinion(0.7, 0.2, 0.1, 0.4), new SubjectiveOpinion(0.1, 0.6, 0.3, 0.4));
+        Conditionals c2 = new Conditionals(new SubjectiveOpinion(0.7000001, 0.2, 0.0999999, 0.4), new SubjectiveOpinion(0.1, 0.6, 0.3, 0.4));
+
+        SubjectiveOpinion r1 = y.abduce(c1, 0.5, quantized);
+        SubjectiveOpinion r2 = y.abduce(c2, 0.5, quantized);
+        y.abduce(c1, 0.5, exact);
+        y.abduce(c2, 0.5, exact);
+
+        Assert.assertEquals(1, quantized.getHitCount());
+        Assert.assertEquals(0, exact.getHitCount());
+        Assert.assertEquals(r1, r2);
+        Assert.assertEquals(y.abduce(c2, 0.5).getExpectation(), r2.getExpectation(), 1e-3);
+    }
+}
@@ -0,0 +1,123 @@
+package de.uulm.vs.subjectivelogic.test;
+
+import no.uio.subjective_logic.opinion.SlidingWindowFusion;
+import no.uio.subjective_logic.opinion.SubjectiveOpinion;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Random;
+
+import static de.uulm.vs.subjectivelogic.test.OpinionAssert.assertEqualOpinion;
+
+public class TestSlidingWindowFusion {
+    private final Logger l = LogManager.getLogger(getClass());
+
+    private final Random random = new Random(31);
+
+    private SubjectiveOpinion randomOpinion() {
+        if (random.nextInt(12) == 0) {
+            //nearly dogmatic, with a lot of evidence
+            double b = random.nextDouble();
+            return new SubjectiveOpinion(b * (1 - 1e-9), (1 - b) * (1 - 1e-9), 1e-9, 0.5);
+        }
+        return OpinionFixtures.randomOpinion(random, random.nextDouble(), 1.0 / 11, 1.0 / 11);
+    }
+
+    private void testFusion(SlidingWindowFusion.Fusion fusion, int maxSize, double maxAge) {
+        SlidingWindowFusion<String> windows = new SlidingWindowFusion<>(fusion, maxSize, maxAge);
+        //the reference window, with the times of the opinions
+        Deque<SubjectiveOpinion> window = new ArrayDeque<>();
+        Deque<Double> times = new ArrayDeque<>();
+
+        double time = 0.0;
+        for (int i = 0; i < 3000; i++) {
+            time += random.nextDouble() * (random.nextInt(20) == 0 ? 6.0 : 1.0);
+            SubjectiveOpinion o = randomOpinion();
+            windows.add("x", o, time);
+            window.addLast(o);
+            times.addLast(time);
+            while (window.size() > maxSize || times.peekFirst() < time - maxAge) {
+                window.removeFirst();
+                times.removeFirst();
+            }
+            Assert.assertEquals(window.size(), windows.size("x"));
+
+            SubjectiveOpinion expected = fusion == SlidingWindowFusion.Fusion.CUMULATIVE
+                    ? SubjectiveOpinion.cumulativeCollectionFuse(new ArrayList<>(window))
+                    : SubjectiveOpinion.weightedCollectionFuse(new ArrayList<>(window));
+            assertEqualOpinion(expected, windows.get("x", time));
+        }
+
+        //all opinions expire
+        Assert.assertNull(windows.get("x", time + maxAge + 1.0));
+        Assert.assertEquals(0, windows.size("x"));
+    }
+
+    @Test
+    public void testCumulative() {
+        l.info("Testing sliding window CBF..");
+        testFusion(SlidingWindowFusion.Fusion.CUMULATIVE, 8, 5.0);
+        //the ring buffer grows beyond its initial capacity
+        testFusion(SlidingWindowFusion.Fusion.CUMULATIVE, 20, 30.0);
+        testFusion(SlidingWindowFusion.Fusion.CUMULATIVE, SlidingWindowFusion.UNBOUNDED, 30.0);
+    }
+
+    @Test
+    public void testWeighted() {
+        l.info("Testing sliding window WBF..");
+        testFusion(SlidingWindowFusion.Fusion.WEIGHTED, 8, 5.0);
+        testFusion(SlidingWindowFusion.Fusion.WEIGHTED, 20, 30.0);
+        testFusion(SlidingWindowFusion.Fusion.WEIGHTED, SlidingWindowFusion.UNBOUNDED, 30.0);
+    }
+
+    @Test
+    public void testEviction() {
+        l.info("Testing eviction by size and age..");
+
+        SubjectiveOpinion x = new SubjectiveOpinion(0.6, 0.2, 0.2, 0.5);
+        SubjectiveOpinion y = new SubjectiveOpinion(0.1, 0.7, 0.2, 0.5);
+        SlidingWindowFusion<Integer> windows = new SlidingWindowFusion<>(SlidingWindowFusion.Fusion.CUMULATIVE, 2,
+                Double.POSITIVE_INFINITY);
+        windows.add(1, x, 0.0);
+        windows.add(1, x, 1.0);
+        windows.add(1, y, 2.0);
+        Assert.assertEquals(2, windows.size(1));
+        assertEqualOpinion(x.cumulativeFuse(y), windows.get(1, 1000.0));
+
+        try {
+            windows.add(1, y, 1.5);
+            Assert.fail("Opinions must be added in time order");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+
+        SlidingWindowFusion<Integer> aged = new SlidingWindowFusion<>(SlidingWindowFusion.Fusion.WEIGHTED, 100, 1.0);
+        aged.add(1, x, 0.0);
+        aged.add(2, y, 0.5);
+        aged.evictAll(1.2);
+        Assert.assertEquals(0, aged.size(1));
+        Assert.assertEquals(1, aged.size(2));
+        Assert.assertTrue(aged.remove(2));
+        Assert.assertNull(aged.get(2, 1.2));
+
+        //only bounded by age, which does not allocate for the maximum size
+        SlidingWindowFusion<Integer> unbounded = new SlidingWindowFusion<>(SlidingWindowFusion.Fusion.CUMULATIVE, 1.0);
+        Assert.assertEquals(SlidingWindowFusion.UNBOUNDED, unbounded.getMaxSize());
+        for (int i = 0; i < 1000; i++)
+            unbounded.add(1, x, i * 1e-4);
+        Assert.assertEquals(1000, unbounded.size(1));
+        unbounded.add(1, y, 1.04995);
+        Assert.assertEquals(501, unbounded.size(1));
+        try {
+            new SlidingWindowFusion<Integer>(SlidingWindowFusion.Fusion.CUMULATIVE, Double.POSITIVE_INFINITY);
+            Assert.fail("Windows must be bounded");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package de.uulm.vs.subjectivelogic.test;
 
+import no.uio.subjective_logic.opinion.BinomialOpinion;
+import no.uio.subjective_logic.opinion.Conditionals;
 import no.uio.subjective_logic.opinion.SubjectiveOpinion;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -7,11 +9,21 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.beans.PropertyChangeEvent;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.Assert.fail;
 
+import static de.uulm.vs.subjectivelogic.test.OpinionAssert.assertSameOpinion;
+import static de.uulm.vs.subjectivelogic.test.OpinionFixtures.randomOpinion;
+
 public class TestSubjectiveOpinion {
     private final Logger l = LogManager.getLogger(getClass());
 
@@ -110,4 +122,106 @@ public class TestSubjectiveOpinion {
         result = SubjectiveOpinion.exponentialWeightedAveraging(result, distrust, 0.5);
         Assert.assertEquals(result.getExpectation(), 0.5*(0.5*believe.getExpectation() + 0.5*distrust.getExpectation()) + 0.5*distrust.getExpectation(), SubjectiveOpinion.TOLERANCE);
     }
+
+    @Test
+    public void testConcurrentReads() throws InterruptedException {
+        l.info("Testing that concurrent readers observe consistent opinions..");
+
+        final SubjectiveOpinion o = new SubjectiveOpinion(0.2, 0.3, 0.5, 0.5);
+        final AtomicBoolean done = new AtomicBoolean(false);
+        final List<String> failures = new ArrayList<>();
+
+        final SubjectiveOpinion believe = new SubjectiveOpinion(0.7, 0.2, 0.1, 0.5);
+        final SubjectiveOpinion distrust = new SubjectiveOpinion(0.1, 0.6, 0.3, 0.5);
+
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 100000; i++) {
+                o.set(i % 2 == 0 ? believe : distrust);
+                o.setAtomicity(i % 3 == 0 ? 0.2 : 0.8);
+            }
+            done.set(true);
+        });
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                BinomialOpinion b = o.toBinomialOpinion();
+                double sum = b.getBelief() + b.getDisbelief() + b.getUncertainty();
+                if (Math.abs(sum - 1) > SubjectiveOpinion.TOLERANCE || (b.getUncertainty() != 0.1 && b.getUncertainty() != 0.3 && b.getUncertainty() != 0.5)) {
+                    failures.add(b.toString());
+                    return;
+                }
+            }
+        });
+        reader.start();
+        writer.start();
+        writer.join();
+        reader.join();
+
+        Assert.assertTrue(failures.toString(), failures.isEmpty());
+        Assert.assertEquals(o.getBelief() + o.getAtomicity() * o.getUncertainty(), o.getExpectation(), SubjectiveOpinion.TOLERANCE);
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        l.info("Testing serialization of SubjectiveOpinion..");
+
+        SubjectiveOpinion o = new SubjectiveOpinion(0.2, 0.3, 0.5, 0.7).discountBy(new SubjectiveOpinion(0.6, 0.1, 0.3, 0.5));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(o);
+        }
+        SubjectiveOpinion copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (SubjectiveOpinion) in.readObject();
+        }
+
+        Assert.assertEquals(o, copy);
+        Assert.assertEquals(o.getBelief(), copy.getBelief(), 0);
+        Assert.assertEquals(o.getDisbelief(), copy.getDisbelief(), 0);
+        Assert.assertEquals(o.getUncertainty(), copy.getUncertainty(), 0);
+        Assert.assertEquals(o.getAtomicity(), copy.getAtomicity(), 0);
+        Assert.assertEquals(o.getExpectation(), copy.getExpectation(), 0);
+        Assert.assertEquals(o.getRelativeWeight(), copy.getRelativeWeight(), 0);
+    }
+
+    @Test
+    public void testIntoOperators() {
+        l.info("Testing operators that compute into a target opinion..");
+
+        Random random = new Random(7);
+        SubjectiveOpinion target = new SubjectiveOpinion();
+        List<PropertyChangeEvent> events = new ArrayList<>();
+        target.addPropertyChangeListener(events::add);
+
+        for (int i = 0; i < 1000; i++) {
+            double baseRate = random.nextDouble();
+            SubjectiveOpinion x = randomOpinion(random, random.nextDouble());
+            SubjectiveOpinion y = randomOpinion(random, random.nextDouble());
+            Conditionals conditionals = new Conditionals(randomOpinion(random, baseRate), randomOpinion(random, baseRate));
+
+            assertSameOpinion(x.and(y), x.andInto(y, target));
+            assertSameOpinion(x.or(y), x.orInto(y, target));
+            assertSameOpinion(x.discountBy(y), x.discountByInto(y, target));
+            assertSameOpinion(x.cumulativeFuse(y), x.cumulativeFuseInto(y, target));
+            assertSameOpinion(x.deduce(conditionals), x.deduceInto(conditionals, target));
+            assertSameOpinion(x.erode(0.2), x.erodeInto(0.2, target));
+            assertSameOpinion(x.decay(10, 3), x.decayInto(10, 3, target));
+            assertSameOpinion(x.not(), x.notInto(target));
+
+            //the target may be one of the arguments
+            SubjectiveOpinion fused = x.cumulativeFuse(y);
+            Assert.assertSame(x, x.cumulativeFuseInto(y, x));
+            assertSameOpinion(fused, x);
+            SubjectiveOpinion deduced = y.deduce(conditionals);
+            Assert.assertSame(y, y.deduceInto(conditionals, y));
+            assertSameOpinion(deduced, y);
+        }
+
+        //the target has a listener, so it is notified of the new values
+        Assert.assertFalse(events.isEmpty());
+        for (PropertyChangeEvent event : events) {
+            Assert.assertEquals("opinion", event.getPropertyName());
+            Assert.assertSame(target, event.getNewValue());
+        }
+    }
 }
@@ -0,0 +1,193 @@
+package de.uulm.vs.subjectivelogic.test;
+
+import no.uio.subjective_logic.opinion.OpinionCollectors;
+import no.uio.subjective_logic.opinion.SubjectiveOpinion;
+import no.uio.subjective_logic.opinion.TrustGraph;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static de.uulm.vs.subjectivelogic.test.OpinionAssert.assertEqualOpinion;
+
+public class TestTrustGraph {
+    private final Logger l = LogManager.getLogger(getClass());
+
+    @Test
+    public void testChain() {
+        l.info("Testing trust along a chain..");
+
+        SubjectiveOpinion ab = new SubjectiveOpinion(0.7, 0.1, 0.2, 0.5);
+        SubjectiveOpinion bc = new SubjectiveOpinion(0.6, 0.2, 0.2, 0.5);
+        SubjectiveOpinion cd = new SubjectiveOpinion(0.5, 0.3, 0.2, 0.4);
+
+        TrustGraph<String> graph = new TrustGraph<>();
+        graph.setTrust("a", "b", ab);
+        graph.setTrust("b", "c", bc);
+        graph.setTrust("c", "d", cd);
+        Assert.assertEquals(3, graph.getEdgeCount());
+
+        SubjectiveOpinion ac = bc.discountBy(ab);
+        SubjectiveOpinion ad = cd.discountBy(ac);
+        assertEqualOpinion(ab, graph.deriveTrust("a", "b"));
+        assertEqualOpinion(ac, graph.deriveTrust("a", "c"));
+        assertEqualOpinion(ad, graph.deriveTrust("a", "d"));
+        Assert.assertNull(graph.deriveTrust("d", "a"));
+        Assert.assertNull(graph.deriveTrust("a", "e"));
+        Assert.assertEquals(3, graph.deriveTrust("a").size());
+
+        TrustGraph<String> limited = new TrustGraph<>(OpinionCollectors.cumulative(), 2);
+        limited.setTrust("a", "b", ab);
+        limited.setTrust("b", "c", bc);
+        limited.setTrust("c", "d", cd);
+        assertEqualOpinion(ac, limited.deriveTrust("a", "c"));
+        Assert.assertNull(limited.deriveTrust("a", "d"));
+    }
+
+    @Test
+    public void testParallelPaths() {
+        l.info("Testing fusion of parallel paths..");
+
+        SubjectiveOpinion ab = new SubjectiveOpinion(0.7, 0.1, 0.2, 0.5);
+        SubjectiveOpinion ac = new SubjectiveOpinion(0.4, 0.2, 0.4, 0.5);
+        SubjectiveOpinion bd = new SubjectiveOpinion(0.6, 0.2, 0.2, 0.5);
+        SubjectiveOpinion cd = new SubjectiveOpinion(0.3, 0.5, 0.2, 0.5);
+        SubjectiveOpinion de = new SubjectiveOpinion(0.8, 0.1, 0.1, 0.5);
+
+        TrustGraph<String> graph = new TrustGraph<>();
+        graph.setTrust("a", "b", ab);
+        graph.setTrust("a", "c", ac);
+        graph.setTrust("b", "d", bd);
+        graph.setTrust("c", "d", cd);
+        graph.setTrust("d", "e", de);
+        //a longer path, which is ignored
+        graph.setTrust("b", "c", new SubjectiveOpinion(1.0, 0.0, 0.0, 0.5));
+
+        SubjectiveOpinion ad = SubjectiveOpinion.cumulativeCollectionFuse(Arrays.asList(bd.discountBy(ab), cd.discountBy(ac)));
+        assertEqualOpinion(ac, graph.deriveTrust("a", "c"));
+        assertEqualOpinion(ad, graph.deriveTrust("a", "d"));
+        assertEqualOpinion(de.discountBy(ad), graph.deriveTrust("a", "e"));
+
+        TrustGraph<String> weighted = new TrustGraph<>(OpinionCollectors.weighted(), Integer.MAX_VALUE);
+        weighted.setTrust("a", "b", ab);
+        weighted.setTrust("a", "c", ac);
+        weighted.setTrust("b", "d", bd);
+        weighted.setTrust("c", "d", cd);
+        assertEqualOpinion(SubjectiveOpinion.weightedCollectionFuse(Arrays.asList(bd.discountBy(ab), cd.discountBy(ac))),
+                weighted.deriveTrust("a", "d"));
+    }
+
+    @Test
+    public void testCycle() {
+        l.info("Testing trust in a cyclic graph..");
+
+        SubjectiveOpinion ab = new SubjectiveOpinion(0.7, 0.1, 0.2, 0.5);
+        SubjectiveOpinion bc = new SubjectiveOpinion(0.6, 0.2, 0.2, 0.5);
+
+        TrustGraph<Integer> graph = new TrustGraph<>();
+        graph.setTrust(1, 2, ab);
+        graph.setTrust(2, 3, bc);
+        graph.setTrust(3, 1, ab);
+        graph.setTrust(2, 1, bc);
+
+        Map<Integer, SubjectiveOpinion> trust = graph.deriveTrust(1);
+        Assert.assertEquals(2, trust.size());
+        Assert.assertFalse(trust.containsKey(1));
+        assertEqualOpinion(bc.discountBy(ab), trust.get(3));
+
+        try {
+            graph.setTrust(1, 1, ab);
+            Assert.fail("Self trust must be rejected");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+    }
+
+    @Test
+    public void testInvalidation() {
+        l.info("Testing invalidation of cached results..");
+
+        SubjectiveOpinion ab = new SubjectiveOpinion(0.7, 0.1, 0.2, 0.5);
+        SubjectiveOpinion bc = new SubjectiveOpinion(0.6, 0.2, 0.2, 0.5);
+        SubjectiveOpinion xy = new SubjectiveOpinion(0.5, 0.3, 0.2, 0.5);
+
+        TrustGraph<String> graph = new TrustGraph<>();
+        graph.setTrust("a", "b", ab);
+        graph.setTrust("b", "c", bc);
+        graph.setTrust("x", "y", xy);
+
+        graph.deriveTrust("a");
+        graph.deriveTrust("x");
+        Assert.assertEquals(2, graph.getCachedSourceCount());
+
+        //an edge that source a cannot reach
+        graph.setTrust("y", "z", bc);
+        Assert.assertEquals(1, graph.getCachedSourceCount());
+        graph.deriveTrust("x");
+        Assert.assertEquals(2, graph.getCachedSourceCount());
+
+        //an edge from an entity that a reached
+        SubjectiveOpinion bc2 = new SubjectiveOpinion(0.2, 0.6, 0.2, 0.5);
+        graph.setTrust("b", "c", bc2);
+        Assert.assertEquals(1, graph.getCachedSourceCount());
+        //all of a, so that the leaf c is expanded
+        assertEqualOpinion(bc2.discountBy(ab), graph.deriveTrust("a").get("c"));
+
+        //an edge from a leaf, which extends the reach of a
+        graph.setTrust("c", "x", xy);
+        Assert.assertEquals(1, graph.getCachedSourceCount());
+        Assert.assertNotNull(graph.deriveTrust("a", "y"));
+
+        Assert.assertTrue(graph.removeTrust("a", "b"));
+        Assert.assertFalse(graph.removeTrust("a", "b"));
+        Assert.assertEquals(4, graph.getEdgeCount());
+        Assert.assertTrue(graph.deriveTrust("a").isEmpty());
+
+        //the cached results are not affected by changes to the opinions that were passed in
+        graph.deriveTrust("b");
+        SubjectiveOpinion cached = graph.deriveTrust("b", "c");
+        bc2.set(0.5, 0.3, 0.2);
+        assertEqualOpinion(cached, graph.deriveTrust("b", "c"));
+        assertEqualOpinion(new SubjectiveOpinion(0.2, 0.6, 0.2, 0.5), graph.getTrust("b", "c"));
+    }
+
+    @Test
+    public void testBoundedSearchAndCache() {
+        l.info("Testing searches for a single target and the bounded cache..");
+
+        SubjectiveOpinion ab = new SubjectiveOpinion(0.7, 0.1, 0.2, 0.5);
+        SubjectiveOpinion bc = new SubjectiveOpinion(0.6, 0.2, 0.2, 0.5);
+        SubjectiveOpinion cd = new SubjectiveOpinion(0.5, 0.3, 0.2, 0.4);
+
+        TrustGraph<String> graph = new TrustGraph<>(OpinionCollectors.cumulative(), Integer.MAX_VALUE, 2);
+        graph.setTrust("a", "b", ab);
+        graph.setTrust("b", "c", bc);
+        graph.setTrust("c", "d", cd);
+
+        //the search for b stops before it expands b, so edges from b and beyond do not invalidate it
+        assertEqualOpinion(ab, graph.deriveTrust("a", "b"));
+        Assert.assertEquals(1, graph.getCachedSourceCount());
+        graph.setTrust("c", "d", bc);
+        Assert.assertEquals(1, graph.getCachedSourceCount());
+
+        //a partial result does not answer queries beyond it
+        SubjectiveOpinion ac = bc.discountBy(ab);
+        assertEqualOpinion(ac, graph.deriveTrust("a", "c"));
+        assertEqualOpinion(bc.discountBy(ac), graph.deriveTrust("a", "d"));
+        Assert.assertEquals(3, graph.deriveTrust("a").size());
+        Assert.assertNull(graph.deriveTrust("a", "a"));
+        Assert.assertNull(graph.deriveTrust("a", "e"));
+
+        //the least recently used source is evicted, and its dependencies with it
+        graph.deriveTrust("b");
+        graph.deriveTrust("a");
+        graph.deriveTrust("c");
+        Assert.assertEquals(2, graph.getCachedSourceCount());
+        graph.setTrust("b", "d", cd);
+        Assert.assertEquals(1, graph.getCachedSourceCount());
+        assertEqualOpinion(cd.discountBy(ab), graph.deriveTrust("a", "d"));
+    }
+}
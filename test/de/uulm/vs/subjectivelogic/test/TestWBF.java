@@ -3,6 +3,7 @@ package de.uulm.vs.subjectivelogic.test;
 import no.uio.subjective_logic.opinion.Opinion;
 import no.uio.subjective_logic.opinion.OpinionBase;
 import no.uio.subjective_logic.opinion.SubjectiveOpinion;
+import no.uio.subjective_logic.opinion.WeightedFusionAccumulator;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.Assert;
@@ -92,4 +93,50 @@ public class TestWBF extends TestFusionSetup {
         Assert.assertEquals(result4, realRes4);
         Assert.assertEquals(result5, realRes5);
     }
+
+    @Test
+    public void testWeightedFusionAccumulator_merge() {
+        l.info("Testing WeightedFusionAccumulator with merged partial states..");
+
+        List<SubjectiveOpinion> opinions = new ArrayList<>(triSourceExample);
+        opinions.addAll(soPPsoPsoN);
+        opinions.add(soVacuous);
+
+        WeightedFusionAccumulator all = new WeightedFusionAccumulator();
+        WeightedFusionAccumulator shard1 = new WeightedFusionAccumulator();
+        WeightedFusionAccumulator shard2 = new WeightedFusionAccumulator();
+        for (int i = 0; i < opinions.size(); i++) {
+            all.add(opinions.get(i));
+            (i % 2 == 0 ? shard1 : shard2).add(opinions.get(i));
+        }
+
+        SubjectiveOpinion expected = SubjectiveOpinion.weightedCollectionFuse(opinions);
+        Assert.assertEquals(expected, all.toSubjectiveOpinion());
+        Assert.assertEquals(expected, shard1.merge(shard2).toSubjectiveOpinion());
+        Assert.assertEquals(opinions.size(), shard1.size());
+
+        //merging a shard with a dogmatic opinion makes the result dogmatic
+        WeightedFusionAccumulator dogmatic = new WeightedFusionAccumulator();
+        for (SubjectiveOpinion o : soPDsoNDsoP) {
+            dogmatic.add(o);
+        }
+        Assert.assertEquals(SubjectiveOpinion.weightedCollectionFuse(soPDsoNDsoP), dogmatic.toSubjectiveOpinion());
+        shard1.merge(dogmatic);
+        Assert.assertTrue(shard1.isDogmatic());
+        Assert.assertEquals(0.5, shard1.toSubjectiveOpinion().getBelief(), OpinionBase.TOLERANCE);
+        Assert.assertEquals(0.5, shard1.toSubjectiveOpinion().getDisbelief(), OpinionBase.TOLERANCE);
+    }
+
+    @Test
+    public void testWeightedBatchFusion_vacuous() {
+        l.info("Testing SubjectiveLogic.weightedCollectionFuse(o) with vacuous opinions..");
+
+        List<SubjectiveOpinion> opinions = new ArrayList<>();
+        opinions.add(new SubjectiveOpinion(0, 0, 1, 0.2));
+        opinions.add(new SubjectiveOpinion(0, 0, 1, 0.6));
+        SubjectiveOpinion batchFuse = SubjectiveOpinion.weightedCollectionFuse(opinions);
+
+        Assert.assertTrue(batchFuse.isVacuous());
+        Assert.assertEquals(0.4, batchFuse.getAtomicity(), OpinionBase.TOLERANCE);
+    }
 }